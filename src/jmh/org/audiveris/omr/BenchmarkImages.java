@@ -0,0 +1,94 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                 B e n c h m a r k I m a g e s                                  //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.image.AdaptiveDescriptor;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Class {@code BenchmarkImages} provides the sample images used by benchmarks, taken
+ * from the examples folder.
+ *
+ * @author Hervé Bitteur
+ */
+public abstract class BenchmarkImages
+{
+    //~ Methods ------------------------------------------------------------------------------------
+    //--------//
+    // binary //
+    //--------//
+    /**
+     * Load the provided example image, binarized by the default adaptive filter.
+     *
+     * @param name example file name
+     * @return the binary image
+     * @throws IOException if image cannot be read
+     */
+    public static ByteProcessor binary (String name)
+            throws IOException
+    {
+        return AdaptiveDescriptor.getDefault().getFilter(gray(name)).filteredImage();
+    }
+
+    //---------//
+    // getPath //
+    //---------//
+    /**
+     * Report the path to the provided example image.
+     *
+     * @param name example file name
+     * @return the example path
+     */
+    public static Path getPath (String name)
+    {
+        return WellKnowns.EXAMPLES_FOLDER.resolve(name);
+    }
+
+    //------//
+    // gray //
+    //------//
+    /**
+     * Load the provided example image, as a gray image.
+     *
+     * @param name example file name
+     * @return the gray image
+     * @throws IOException if image cannot be read
+     */
+    public static ByteProcessor gray (String name)
+            throws IOException
+    {
+        final BufferedImage img = ImageIO.read(getPath(name).toFile());
+
+        if (img == null) {
+            throw new IOException("Cannot read image " + getPath(name));
+        }
+
+        return new ByteProcessor(img);
+    }
+}
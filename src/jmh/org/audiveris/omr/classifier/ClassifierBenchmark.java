@@ -0,0 +1,125 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                             C l a s s i f i e r B e n c h m a r k                              //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.classifier;
+
+import org.audiveris.omr.BenchmarkImages;
+import org.audiveris.omr.glyph.Glyph;
+import org.audiveris.omr.glyph.GlyphFactory;
+import org.audiveris.omr.run.Orientation;
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class {@code ClassifierBenchmark} measures the evaluation by the shape classifier of
+ * the symbol-sized glyphs found in an image.
+ *
+ * @author Hervé Bitteur
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ClassifierBenchmark
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    @Param({"chula.png"})
+    public String image;
+
+    /** Interline value assumed for the image. */
+    @Param({"20"})
+    public int interline;
+
+    /** Maximum number of glyphs to evaluate. */
+    @Param({"500"})
+    public int maxGlyphs;
+
+    private final List<Glyph> glyphs = new ArrayList<Glyph>();
+
+    private Classifier classifier;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Benchmark
+    public void evaluate (Blackhole blackhole)
+    {
+        final EnumSet<Classifier.Condition> conditions = EnumSet.noneOf(
+                Classifier.Condition.class);
+
+        for (Glyph glyph : glyphs) {
+            blackhole.consume(classifier.evaluate(glyph, interline, 1, 0.0, conditions));
+        }
+    }
+
+    @Benchmark
+    public void naturalEvaluations (Blackhole blackhole)
+    {
+        for (Glyph glyph : glyphs) {
+            blackhole.consume(classifier.getNaturalEvaluations(glyph, interline));
+        }
+    }
+
+    @Setup
+    public void setup ()
+            throws IOException
+    {
+        classifier = ShapeClassifier.getInstance();
+
+        final RunTable runTable = new RunTableFactory(Orientation.VERTICAL).createTable(
+                BenchmarkImages.binary(image));
+        final int minWeight = (interline * interline) / 10;
+        final int maxSize = 8 * interline;
+
+        for (Glyph glyph : GlyphFactory.buildGlyphs(runTable, new Point(0, 0))) {
+            if ((glyph.getWeight() >= minWeight)
+                && (glyph.getWidth() <= maxSize)
+                && (glyph.getHeight() <= maxSize)) {
+                glyphs.add(glyph);
+
+                if (glyphs.size() == maxGlyphs) {
+                    break;
+                }
+            }
+        }
+    }
+}
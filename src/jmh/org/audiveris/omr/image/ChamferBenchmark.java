@@ -0,0 +1,127 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                C h a m f e r B e n c h m a r k                                 //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.BenchmarkImages;
+import org.audiveris.omr.glyph.Shape;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class {@code ChamferBenchmark} measures the distance transform of a binary image and
+ * the template matching performed on the resulting distance table.
+ *
+ * @author Hervé Bitteur
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ChamferBenchmark
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    @Param({"chula.png"})
+    public String image;
+
+    /** Interline value for templates. */
+    @Param({"20"})
+    public int interline;
+
+    /** Step between two tested template locations, in both directions. */
+    @Param({"3"})
+    public int step;
+
+    private ByteProcessor binary;
+
+    private DistanceTable distances;
+
+    private Template template;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Benchmark
+    public DistanceTable computeToFore ()
+    {
+        return new ChamferDistance.Short().computeToFore(binary);
+    }
+
+    @Benchmark
+    public DistanceTable euclideanToFore ()
+    {
+        return new EuclideanDistance().computeToFore(binary);
+    }
+
+    @Setup
+    public void setup ()
+            throws IOException
+    {
+        binary = BenchmarkImages.binary(image);
+        distances = new ChamferDistance.Short().computeToFore(binary);
+        template = TemplateFactory.getInstance().getCatalog(interline).getTemplate(
+                Shape.NOTEHEAD_BLACK);
+    }
+
+    @Benchmark
+    public double templateEvaluate ()
+    {
+        double best = Double.MAX_VALUE;
+
+        for (int y = 0; y < distances.getHeight(); y += step) {
+            for (int x = 0; x < distances.getWidth(); x += step) {
+                best = Math.min(best, template.evaluate(x, y, null, distances));
+            }
+        }
+
+        return best;
+    }
+
+    @Benchmark
+    public double templateEvaluateBounded ()
+    {
+        double best = Double.MAX_VALUE;
+
+        for (int y = 0; y < distances.getHeight(); y += step) {
+            for (int x = 0; x < distances.getWidth(); x += step) {
+                best = Math.min(best, template.evaluate(x, y, null, distances, best));
+            }
+        }
+
+        return best;
+    }
+}
@@ -0,0 +1,87 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                             G r a y F i l t e r B e n c h m a r k                              //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.BenchmarkImages;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class {@code GrayFilterBenchmark} measures the gaussian and median filters applied on a
+ * gray image.
+ *
+ * @author Hervé Bitteur
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GrayFilterBenchmark
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    @Param({"chula.png", "allegretto.png"})
+    public String image;
+
+    /** Filter radius, in pixels. */
+    @Param({"1", "2"})
+    public int radius;
+
+    private ByteProcessor gray;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Benchmark
+    public ByteProcessor gaussian ()
+    {
+        return new GaussianGrayFilter(radius).filter(gray);
+    }
+
+    @Benchmark
+    public ByteProcessor median ()
+    {
+        return new MedianGrayFilter(radius).filter(gray);
+    }
+
+    @Setup
+    public void setup ()
+            throws IOException
+    {
+        gray = BenchmarkImages.gray(image);
+    }
+}
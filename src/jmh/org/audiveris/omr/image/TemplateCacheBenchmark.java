@@ -0,0 +1,88 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                          T e m p l a t e C a c h e B e n c h m a r k                           //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import org.audiveris.omr.glyph.Shape;
+import org.audiveris.omr.glyph.ShapeSet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class {@code TemplateCacheBenchmark} compares the building of note templates with
+ * their loading from the persistent template cache.
+ *
+ * @author Hervé Bitteur
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TemplateCacheBenchmark
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Interline value for templates. */
+    @Param({"19"})
+    public int interline;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Benchmark
+    public Map<Shape, ShapeDescriptor> build ()
+    {
+        final Map<Shape, ShapeDescriptor> descriptors = new EnumMap<Shape, ShapeDescriptor>(
+                Shape.class);
+
+        for (Shape shape : ShapeSet.TemplateNotes) {
+            descriptors.put(shape, new ShapeDescriptor(shape, interline));
+        }
+
+        return descriptors;
+    }
+
+    @Benchmark
+    public Map<Shape, ShapeDescriptor> load ()
+    {
+        return TemplateCache.load(interline);
+    }
+
+    @Setup
+    public void setup ()
+    {
+        TemplateCache.store(interline, build());
+    }
+}
@@ -0,0 +1,118 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                               R a t i o n a l B e n c h m a r k                                //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.math;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class {@code RationalBenchmark} compares Rational and RationalAccumulator on the
+ * typical loop that computes the end of a measure out of chords offsets and durations.
+ *
+ * @author Hervé Bitteur
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RationalBenchmark
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** Typical chord durations, including dotted and tuplet values. */
+    private static final Rational[] DURATIONS = new Rational[]{
+        new Rational(1, 1), new Rational(1, 2), new Rational(1, 4), new Rational(1, 8),
+        new Rational(1, 16), new Rational(3, 8), new Rational(3, 16), new Rational(1, 12),
+        new Rational(1, 6), new Rational(7, 32)
+    };
+
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    @Param({"5000"})
+    public int size;
+
+    private Rational[] offsets;
+
+    private Rational[] durations;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Benchmark
+    public Rational immutableMax ()
+    {
+        Rational max = Rational.ZERO;
+
+        for (int i = 0; i < size; i++) {
+            Rational end = offsets[i].plus(durations[i]);
+
+            if (end.compareTo(max) > 0) {
+                max = end;
+            }
+        }
+
+        return max;
+    }
+
+    @Benchmark
+    public Rational mutableMax ()
+    {
+        final RationalAccumulator max = new RationalAccumulator();
+
+        for (int i = 0; i < size; i++) {
+            max.maxOfSum(offsets[i], durations[i]);
+        }
+
+        return max.toRational();
+    }
+
+    @Setup
+    public void setup ()
+    {
+        final Random random = new Random(456);
+        offsets = new Rational[size];
+        durations = new Rational[size];
+
+        Rational offset = Rational.ZERO;
+
+        for (int i = 0; i < size; i++) {
+            offsets[i] = offset;
+            durations[i] = DURATIONS[random.nextInt(DURATIONS.length)];
+
+            if (random.nextInt(3) == 0) {
+                offset = offset.plus(durations[i]);
+            }
+        }
+    }
+}
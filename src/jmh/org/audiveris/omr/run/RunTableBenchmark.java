@@ -0,0 +1,113 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                               R u n T a b l e B e n c h m a r k                                //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.run;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.BenchmarkImages;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class {@code RunTableBenchmark} measures the creation of run tables out of a binary
+ * image, either by direct scanning of image pixels or by per-pixel adapter access.
+ *
+ * @author Hervé Bitteur
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RunTableBenchmark
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    @Param({"chula.png", "allegretto.png"})
+    public String image;
+
+    @Param({"HORIZONTAL", "VERTICAL"})
+    public Orientation orientation;
+
+    /** Default parallelism of band-based retrieval. */
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private ByteProcessor binary;
+
+    /** Same pixels as binary, but read through the adapter. */
+    private ByteProcessor wrapped;
+
+    /** Parallelism before benchmark. */
+    private boolean oldParallel;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Benchmark
+    public RunTable adapterTable ()
+    {
+        return new RunTableFactory(orientation).createTable(wrapped);
+    }
+
+    @Benchmark
+    public RunTable createTable ()
+    {
+        return new RunTableFactory(orientation).createTable(binary);
+    }
+
+    @Setup
+    public void setup ()
+            throws IOException
+    {
+        binary = BenchmarkImages.binary(image);
+        wrapped = new ByteProcessor(
+                binary.getWidth(),
+                binary.getHeight(),
+                (byte[]) binary.getPixels())
+        {
+        };
+
+        oldParallel = OmrExecutors.defaultParallelism.getSpecific();
+        OmrExecutors.defaultParallelism.setSpecific(parallel);
+    }
+
+    @TearDown
+    public void tearDown ()
+    {
+        OmrExecutors.defaultParallelism.setSpecific(oldParallel);
+    }
+}
@@ -0,0 +1,135 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                         R u n T a b l e B i n a r y B e n c h m a r k                          //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.run;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.BenchmarkImages;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+
+/**
+ * Class {@code RunTableBinaryBenchmark} compares the writing and reading of a sheet
+ * run table, in XML and in binary format.
+ *
+ * @author Hervé Bitteur
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RunTableBinaryBenchmark
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    @Param({"chula.png"})
+    public String image;
+
+    @Param({"HORIZONTAL", "VERTICAL"})
+    public Orientation orientation;
+
+    /** Use of deltas in binary format. */
+    @Param({"false", "true"})
+    public boolean deltas;
+
+    private RunTable table;
+
+    private JAXBContext jaxbContext;
+
+    private byte[] xmlBytes;
+
+    private byte[] binaryBytes;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Benchmark
+    public RunTable binaryRead ()
+            throws IOException
+    {
+        return RunTableBinary.read(Channels.newChannel(new ByteArrayInputStream(binaryBytes)));
+    }
+
+    @Benchmark
+    public int binaryWrite ()
+            throws IOException
+    {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        RunTableBinary.write(table, Channels.newChannel(os), deltas);
+
+        return os.size();
+    }
+
+    @Setup
+    public void setup ()
+            throws IOException, JAXBException
+    {
+        final ByteProcessor binary = BenchmarkImages.binary(image);
+        table = new RunTableFactory(orientation).createTable(binary);
+        jaxbContext = JAXBContext.newInstance(RunTable.class);
+
+        final ByteArrayOutputStream xmlOs = new ByteArrayOutputStream();
+        jaxbContext.createMarshaller().marshal(table, xmlOs);
+        xmlBytes = xmlOs.toByteArray();
+
+        final ByteArrayOutputStream binOs = new ByteArrayOutputStream();
+        RunTableBinary.write(table, Channels.newChannel(binOs), deltas);
+        binaryBytes = binOs.toByteArray();
+    }
+
+    @Benchmark
+    public RunTable xmlRead ()
+            throws JAXBException
+    {
+        return (RunTable) jaxbContext.createUnmarshaller().unmarshal(
+                new ByteArrayInputStream(xmlBytes));
+    }
+
+    @Benchmark
+    public int xmlWrite ()
+            throws JAXBException
+    {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        jaxbContext.createMarshaller().marshal(table, os);
+
+        return os.size();
+    }
+}
@@ -0,0 +1,240 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                S I G r a p h B e n c h m a r k                                 //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sig;
+
+import org.audiveris.omr.glyph.Glyph;
+import org.audiveris.omr.glyph.Shape;
+import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.sheet.BasicBook;
+import org.audiveris.omr.sheet.BasicSheet;
+import org.audiveris.omr.sheet.BasicStub;
+import org.audiveris.omr.sheet.Sheet;
+import org.audiveris.omr.sheet.Staff;
+import org.audiveris.omr.sheet.SystemInfo;
+import org.audiveris.omr.sig.inter.AbstractInter;
+import org.audiveris.omr.sig.inter.Inter;
+import org.audiveris.omr.sig.relation.Exclusion.Cause;
+import org.audiveris.omr.sig.relation.HeadStemRelation;
+import org.audiveris.omr.sig.relation.Relation;
+import org.audiveris.omr.util.HorizontalSide;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Rectangle;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class {@code SIGraphBenchmark} measures the reduction of exclusions and the spatial
+ * queries on a large random sig.
+ * <p>
+ * Since reduction modifies the sig, a fresh sig is built by {@link Reduction} state before each
+ * reduction.
+ *
+ * @author Hervé Bitteur
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SIGraphBenchmark
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Number of inters, also number of supports. Exclusions are three times as many. */
+    @Param({"1000", "4000"})
+    public int count;
+
+    /** Sig used by queries, never modified. */
+    private SIGraph querySig;
+
+    /** Query boxes, in a 3000x2000 area. */
+    private final List<Rectangle> boxes = new ArrayList<Rectangle>();
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Benchmark
+    public int intersectedInters ()
+    {
+        int total = 0;
+
+        for (Rectangle box : boxes) {
+            total += querySig.intersectedInters(box).size();
+        }
+
+        return total;
+    }
+
+    @Benchmark
+    public int intersectedScan ()
+    {
+        int total = 0;
+
+        for (Rectangle box : boxes) {
+            for (Inter inter : querySig.vertexSet()) {
+                if (box.intersects(inter.getBounds())) {
+                    total++;
+                }
+            }
+        }
+
+        return total;
+    }
+
+    @Benchmark
+    public Set<Inter> reduceExclusions (Reduction reduction)
+    {
+        return reduction.sig.reduceExclusions(reduction.exclusions);
+    }
+
+    @Setup
+    public void setup ()
+    {
+        querySig = createRandomSig(count);
+
+        final Random random = new Random(456);
+
+        for (int i = 0; i < 50; i++) {
+            boxes.add(randomBox(random, 200));
+        }
+    }
+
+    //-----------------//
+    // createRandomSig //
+    //-----------------//
+    /**
+     * Build a random sig, with bounded inters linked by supports and exclusions.
+     */
+    private static SIGraph createRandomSig (int interCount)
+    {
+        final Random random = new Random(interCount);
+        final BasicBook book = new BasicBook(Paths.get("sig-benchmark.png"));
+        final Sheet sheet = new BasicSheet(new BasicStub(book, 1), (RunTable) null);
+        final SystemInfo system = new SystemInfo(1, sheet, new ArrayList<Staff>());
+        final SIGraph randomSig = system.getSig();
+        final List<Inter> inters = new ArrayList<Inter>();
+
+        for (int i = 0; i < interCount; i++) {
+            // Coarse grades, to get ties
+            Inter inter = new BenchInter(
+                    0.05 * (1 + random.nextInt(19)),
+                    randomBox(random, 30));
+            randomSig.addVertex(inter);
+            inters.add(inter);
+        }
+
+        for (int i = 0; i < interCount; i++) {
+            Inter head = inters.get(random.nextInt(interCount));
+            Inter stem = inters.get(random.nextInt(interCount));
+
+            if ((head != stem) && (randomSig.getRelation(head, stem, Relation.class) == null)
+                && (randomSig.getRelation(stem, head, Relation.class) == null)) {
+                HeadStemRelation hs = new HeadStemRelation();
+                hs.setHeadSide(HorizontalSide.LEFT);
+                hs.setGrade(0.1 * (1 + random.nextInt(9)));
+                randomSig.addEdge(head, stem, hs);
+            }
+        }
+
+        for (int i = 0; i < (3 * interCount); i++) {
+            Inter one = inters.get(random.nextInt(interCount));
+            Inter two = inters.get(random.nextInt(interCount));
+
+            if (one != two) {
+                randomSig.insertExclusion(one, two, Cause.OVERLAP);
+            }
+        }
+
+        randomSig.contextualize();
+
+        return randomSig;
+    }
+
+    //-----------//
+    // randomBox //
+    //-----------//
+    private static Rectangle randomBox (Random random,
+                                        int maxSide)
+    {
+        return new Rectangle(
+                random.nextInt(3000),
+                random.nextInt(2000),
+                1 + random.nextInt(maxSide),
+                1 + random.nextInt(maxSide));
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //------------//
+    // BenchInter //
+    //------------//
+    private static class BenchInter
+            extends AbstractInter
+    {
+        //~ Constructors ---------------------------------------------------------------------------
+
+        public BenchInter (double grade,
+                           Rectangle bounds)
+        {
+            super((Glyph) null, bounds, Shape.NOTEHEAD_BLACK, grade);
+        }
+    }
+
+    //-----------//
+    // Reduction //
+    //-----------//
+    /**
+     * Sig to be reduced, rebuilt for each invocation.
+     */
+    @State(Scope.Thread)
+    public static class Reduction
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private SIGraph sig;
+
+        private Set<Relation> exclusions;
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Setup(Level.Invocation)
+        public void setup (SIGraphBenchmark benchmark)
+        {
+            sig = createRandomSig(benchmark.count);
+            exclusions = sig.exclusions();
+        }
+    }
+}
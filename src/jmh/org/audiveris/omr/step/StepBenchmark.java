@@ -0,0 +1,146 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                   S t e p B e n c h m a r k                                    //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.step;
+
+import org.audiveris.omr.BenchmarkImages;
+import org.audiveris.omr.OMR;
+import org.audiveris.omr.WellKnowns;
+import org.audiveris.omr.sheet.Book;
+import org.audiveris.omr.sheet.BookManager;
+import org.audiveris.omr.sheet.SheetStub;
+import org.audiveris.omr.ui.symbol.MusicFont;
+import org.audiveris.omr.util.FileUtil;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class {@code StepBenchmark} measures each OMR step, end to end, on example images.
+ * <p>
+ * For each invocation, a fresh book is loaded and its first sheet is processed up to the step
+ * preceding the measured one. Only the measured step processing is timed.
+ * <p>
+ * The book is stored beforehand in a temporary folder, since in batch mode each sheet may be saved
+ * to its book file at the end of every step.
+ *
+ * @author Hervé Bitteur
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class StepBenchmark
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    @Param({"chula.png", "allegretto.png"})
+    public String image;
+
+    @Param({
+        "LOAD", "BINARY", "SCALE", "GRID", "HEADERS", "STEM_SEEDS", "BEAMS", "LEDGERS", "HEADS",
+        "STEMS", "REDUCTION", "CUE_BEAMS", "TEXTS", "MEASURES", "CHORDS", "CURVES", "SYMBOLS",
+        "RHYTHMS", "LINKS", "PAGE"
+    })
+    public Step step;
+
+    /** Temporary folder for book files. */
+    private Path folder;
+
+    private Book book;
+
+    private SheetStub stub;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @TearDown(Level.Invocation)
+    public void closeBook ()
+    {
+        if (book != null) {
+            book.close();
+            book = null;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void initialize ()
+            throws IOException
+    {
+        Files.createDirectories(WellKnowns.TEMP_FOLDER);
+        folder = Files.createTempDirectory(WellKnowns.TEMP_FOLDER, "bench");
+        OmrExecutors.restart();
+        OMR.engine = BookManager.getInstance();
+        MusicFont.checkMusicFont();
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareSheet ()
+            throws StepException
+    {
+        book = OMR.engine.loadInput(BenchmarkImages.getPath(image));
+        book.createStubs(null);
+        book.store(folder.resolve(book.getRadix() + OMR.BOOK_EXTENSION), false);
+        stub = book.getStubs().get(0);
+
+        if (step.compareTo(Step.LOAD) > 0) {
+            final Step previous = Step.values()[step.ordinal() - 1];
+
+            if (!stub.reachStep(previous, false)) {
+                throw new StepException("Could not reach " + previous + " on " + image);
+            }
+        } else {
+            stub.getSheet(); // Sheet instance only
+        }
+    }
+
+    @Benchmark
+    public void processStep ()
+            throws StepException
+    {
+        step.doit(stub.getSheet());
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown ()
+            throws IOException
+    {
+        OmrExecutors.shutdown();
+        FileUtil.deleteDirectory(folder);
+    }
+}
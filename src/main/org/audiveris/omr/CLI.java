@@ -93,6 +93,9 @@ import java.util.concurrent.Callable;
  * <dd>Defines an application constant (that could also be set via the pull-down menu
  * "Tools|Options" in the GUI)</dd>
  *
+ * <dt><b>-prewarm N | N-M</b></dt>
+ * <dd>Prepares the note head templates cache for interline values and ranges</dd>
+ *
  * <dt><b>-print</b></dt>
  * <dd>Prints out book</dd>
  *
@@ -266,6 +269,24 @@ public class CLI
         return params;
     }
 
+    //----------------------//
+    // getPrewarmInterlines //
+    //----------------------//
+    /**
+     * Report the interline values for which template cache must be prewarmed, if
+     * present on the CLI.
+     *
+     * @return the CLI interline values, or null
+     */
+    public SortedSet<Integer> getPrewarmInterlines ()
+    {
+        if (params.prewarm == null) {
+            return null;
+        }
+
+        return new TreeSet<Integer>(params.prewarm);
+    }
+
     //------------//
     // getPrintAs //
     //------------//
@@ -614,6 +635,10 @@ public class CLI
         @Option(name = "-sheets", usage = "Selects specific sheets numbers and ranges (like 1-9)", handler = IntArrayOptionHandler.class)
         private ArrayList<Integer> sheets;
 
+        /** The interline values for templates cache prewarming. */
+        @Option(name = "-prewarm", usage = "Prepares templates cache for interline values and ranges (like 10-30)", handler = IntArrayOptionHandler.class)
+        private ArrayList<Integer> prewarm;
+
         /** Should MusicXML data be produced?. */
         @Option(name = "-export", usage = "Exports MusicXML")
         boolean export;
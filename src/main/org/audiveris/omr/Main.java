@@ -26,6 +26,7 @@ import org.audiveris.omr.classifier.SampleRepository;
 import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantManager;
 import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.image.TemplateFactory;
 import org.audiveris.omr.log.LogUtil;
 import org.audiveris.omr.sheet.BookManager;
 import org.audiveris.omr.ui.MainGui;
@@ -42,6 +43,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.Locale;
+import java.util.SortedSet;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
 
@@ -141,6 +143,13 @@ public class Main
             // Check MusicFont is loaded
             MusicFont.checkMusicFont();
 
+            // Prepare note head templates, if so asked
+            final SortedSet<Integer> interlines = cli.getPrewarmInterlines();
+
+            if (interlines != null) {
+                TemplateFactory.getInstance().prewarm(interlines);
+            }
+
             // Run the required tasks, if any (and remember if at least one task failed)
             boolean failure = runBatchTasks();
 
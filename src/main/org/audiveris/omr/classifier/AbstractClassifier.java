@@ -95,6 +95,13 @@ public abstract class AbstractClassifier<M extends Object>
 
     private static final Logger logger = LoggerFactory.getLogger(AbstractClassifier.class);
 
+    /**
+     * Maximum difference between the grade computed for a glyph within a batch and the grade
+     * computed for the same glyph alone.
+     * (A batch of glyphs may be processed with a different floating-point accumulation order)
+     */
+    public static final double BATCH_TOLERANCE = 1e-6;
+
     /** A special evaluation array, used to report NOISE. */
     protected static final Evaluation[] noiseEvaluations = {
         new Evaluation(
@@ -141,6 +148,41 @@ public abstract class AbstractClassifier<M extends Object>
         return evaluate(glyph, null, count, minGrade, conditions, interline);
     }
 
+    //----------//
+    // evaluate //
+    //----------//
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A glyph whose batch evaluations are too close to one another or to minGrade (see
+     * {@link #isBorderline(Evaluation[], double)}) is evaluated again on its own, so that batch
+     * grade differences can neither reorder nor discard any shape.
+     */
+    @Override
+    public Evaluation[][] evaluate (List<Glyph> glyphs,
+                                    SystemInfo system,
+                                    int count,
+                                    double minGrade,
+                                    EnumSet<Condition> conditions)
+    {
+        final int interline = system.getSheet().getInterline();
+        final Evaluation[][] sorted = getSortedEvaluations(glyphs, interline);
+        final Evaluation[][] results = new Evaluation[glyphs.size()][];
+
+        for (int i = 0; i < results.length; i++) {
+            final Glyph glyph = glyphs.get(i);
+            Evaluation[] evals = sorted[i];
+
+            if (isBorderline(evals, minGrade)) {
+                evals = getSortedEvaluations(glyph, interline); // Single-glyph decision
+            }
+
+            results[i] = select(glyph, evals, system, count, minGrade, conditions);
+        }
+
+        return results;
+    }
+
     //---------------//
     // getDescriptor //
     //---------------//
@@ -150,6 +192,27 @@ public abstract class AbstractClassifier<M extends Object>
         return descriptor;
     }
 
+    //-----------------------//
+    // getNaturalEvaluations //
+    //-----------------------//
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This default implementation simply evaluates each glyph in turn.
+     */
+    @Override
+    public Evaluation[][] getNaturalEvaluations (List<Glyph> glyphs,
+                                                 int interline)
+    {
+        final Evaluation[][] evals = new Evaluation[glyphs.size()][];
+
+        for (int i = 0; i < evals.length; i++) {
+            evals[i] = getNaturalEvaluations(glyphs.get(i), interline);
+        }
+
+        return evals;
+    }
+
     //---------------//
     // getRawDataSet //
     //---------------//
@@ -185,6 +248,44 @@ public abstract class AbstractClassifier<M extends Object>
         return new DataSet(features, labels, null, null);
     }
 
+    //--------------//
+    // isBorderline //
+    //--------------//
+    /**
+     * Check whether the provided sorted evaluations, computed within a batch, might lead
+     * to a different selection than the evaluations computed for the glyph alone.
+     * <p>
+     * Since each grade may differ by up to {@link #BATCH_TOLERANCE}, this is the case when an
+     * acceptable grade is too close to minGrade or to the following grade.
+     *
+     * @param evals    the glyph evaluations, ordered from best to worst
+     * @param minGrade the minimum evaluation grade to be acceptable
+     * @return true if the selection may differ
+     */
+    static boolean isBorderline (Evaluation[] evals,
+                                 double minGrade)
+    {
+        for (int i = 0; i < evals.length; i++) {
+            final double grade = evals[i].grade;
+
+            if (grade < (minGrade - BATCH_TOLERANCE)) {
+                return false;
+            }
+
+            if (Math.abs(grade - minGrade) <= BATCH_TOLERANCE) {
+                return true;
+            }
+
+            // Each of two consecutive grades may move towards the other one
+            if ((i < (evals.length - 1))
+                && ((grade - evals[i + 1].grade) <= (2 * BATCH_TOLERANCE))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     //-------------//
     // isBigEnough //
     //-------------//
@@ -257,6 +358,52 @@ public abstract class AbstractClassifier<M extends Object>
         }
     }
 
+    //----------------------//
+    // getSortedEvaluations //
+    //----------------------//
+    /**
+     * Run the classifier on the specified glyphs as a whole, and return for each glyph a
+     * sequence of all interpretations (ordered from best to worst) with no additional check.
+     *
+     * @param glyphs    the glyphs to be examined
+     * @param interline the global sheet interline
+     * @return the ordered best evaluations, one array per glyph in glyphs order
+     */
+    protected Evaluation[][] getSortedEvaluations (List<Glyph> glyphs,
+                                                   int interline)
+    {
+        final Evaluation[][] sorted = new Evaluation[glyphs.size()][];
+
+        // Too small glyphs are just NOISE, the other ones are submitted together
+        final List<Glyph> bigs = new ArrayList<Glyph>(glyphs.size());
+
+        for (int i = 0; i < sorted.length; i++) {
+            final Glyph glyph = glyphs.get(i);
+
+            if (!isBigEnough(glyph, interline)) {
+                sorted[i] = noiseEvaluations;
+            } else {
+                bigs.add(glyph);
+            }
+        }
+
+        if (!bigs.isEmpty()) {
+            final Evaluation[][] naturals = getNaturalEvaluations(bigs, interline);
+            int ib = 0;
+
+            for (int i = 0; i < sorted.length; i++) {
+                if (sorted[i] == null) {
+                    final Evaluation[] evals = naturals[ib++];
+                    // Order the evals from best to worst
+                    Arrays.sort(evals);
+                    sorted[i] = evals;
+                }
+            }
+        }
+
+        return sorted;
+    }
+
     //------//
     // load //
     //------//
@@ -488,9 +635,38 @@ public abstract class AbstractClassifier<M extends Object>
                                    double minGrade,
                                    EnumSet<Classifier.Condition> conditions,
                                    int interline)
+    {
+        return select(
+                glyph,
+                getSortedEvaluations(glyph, interline),
+                system,
+                count,
+                minGrade,
+                conditions);
+    }
+
+    //--------//
+    // select //
+    //--------//
+    /**
+     * Select the best acceptable evaluations among the sorted evaluations of a glyph.
+     *
+     * @param glyph      the evaluated glyph
+     * @param evals      the glyph evaluations, ordered from best to worst
+     * @param system     the containing system, if any
+     * @param count      the desired maximum sequence length
+     * @param minGrade   the minimum evaluation grade to be acceptable
+     * @param conditions optional conditions, perhaps empty
+     * @return the sequence of acceptable evaluations, perhaps empty but not null
+     */
+    private Evaluation[] select (Glyph glyph,
+                                 Evaluation[] evals,
+                                 SystemInfo system,
+                                 int count,
+                                 double minGrade,
+                                 EnumSet<Classifier.Condition> conditions)
     {
         List<Evaluation> bests = new ArrayList<Evaluation>();
-        Evaluation[] evals = getSortedEvaluations(glyph, interline);
 
         EvalsLoop:
         for (Evaluation eval : evals) {
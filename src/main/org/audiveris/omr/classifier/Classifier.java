@@ -29,6 +29,7 @@ import org.deeplearning4j.optimize.api.IterationListener;
 
 import java.util.Collection;
 import java.util.EnumSet;
+import java.util.List;
 
 /**
  * Interface {@code Classifier} defines the features of a glyph shape classifier.
@@ -101,6 +102,28 @@ public interface Classifier
                            double minGrade,
                            EnumSet<Condition> conditions);
 
+    /**
+     * Report, for each of the provided glyphs, the sorted sequence of best evaluation(s)
+     * found by the classifier.
+     * <p>
+     * Results are those of {@link #evaluate(Glyph, SystemInfo, int, double, EnumSet)} called on
+     * each glyph in turn (same shapes in same order), but the classifier may process all glyphs in
+     * one pass. In that case, the grades may differ by up to
+     * {@link AbstractClassifier#BATCH_TOLERANCE}.
+     *
+     * @param glyphs     the glyphs to evaluate
+     * @param system     the system containing the glyphs to evaluate
+     * @param count      the desired maximum sequence length, min 1 and max SHAPE_COUNT
+     * @param minGrade   the minimum evaluation grade to be acceptable
+     * @param conditions optional conditions, perhaps empty
+     * @return the sequences of evaluations, one per glyph in glyphs order
+     */
+    Evaluation[][] evaluate (List<Glyph> glyphs,
+                             SystemInfo system,
+                             int count,
+                             double minGrade,
+                             EnumSet<Condition> conditions);
+
     /**
      * Report the underlying glyph descriptor
      *
@@ -133,6 +156,18 @@ public interface Classifier
     Evaluation[] getNaturalEvaluations (Glyph glyph,
                                         int interline);
 
+    /**
+     * Run the classifier on the specified glyphs as a whole, and return for each glyph
+     * the natural sequence of all interpretations (ordered by Shape ordinal) with no additional
+     * check.
+     *
+     * @param glyphs    the glyphs to be examined
+     * @param interline the relevant scaling interline
+     * @return all shape-ordered evaluations, one array per glyph in glyphs order
+     */
+    Evaluation[][] getNaturalEvaluations (List<Glyph> glyphs,
+                                          int interline);
+
     /**
      * Use a threshold on glyph weight, to tell if the provided glyph is just {@link
      * Shape#NOISE} or a real glyph.
@@ -200,6 +200,54 @@ public class DeepClassifier
         return evals;
     }
 
+    //-----------------------//
+    // getNaturalEvaluations //
+    //-----------------------//
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The features of all glyphs are gathered in one matrix (one row per glyph), so that the
+     * network is run only once for the whole batch.
+     */
+    @Override
+    public Evaluation[][] getNaturalEvaluations (List<Glyph> glyphs,
+                                                 int interline)
+    {
+        final int count = glyphs.size();
+        final Evaluation[][] evals = new Evaluation[count][];
+
+        if (count == 0) {
+            return evals;
+        }
+
+        final double[][] doubles = new double[count][];
+
+        for (int i = 0; i < count; i++) {
+            doubles[i] = descriptor.getFeatures(glyphs.get(i), interline);
+        }
+
+        final INDArray features = Nd4j.create(doubles);
+        normalize(features);
+
+        INDArray output = model.output(features, false);
+        BaseLayer outputLayer = (BaseLayer) model.getOutputLayer();
+        INDArray preOutput = outputLayer.preOutput(false);
+        Shape[] values = Shape.values();
+
+        for (int i = 0; i < count; i++) {
+            final Evaluation[] glyphEvals = new Evaluation[SHAPE_COUNT];
+
+            for (int s = 0; s < SHAPE_COUNT; s++) {
+                double grade = sigmoid(preOutput.getDouble(i, s)); // Rather than normalized output
+                glyphEvals[s] = new Evaluation(values[s], grade);
+            }
+
+            evals[i] = glyphEvals;
+        }
+
+        return evals;
+    }
+
     //-----------//
     // normalize //
     //-----------//
@@ -0,0 +1,329 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                    C o m p o u n d C a c h e                                   //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.glyph;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.audiveris.omr.classifier.Classifier;
+import org.audiveris.omr.classifier.Evaluation;
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class {@code CompoundCache} keeps the compound glyphs built out of glyph parts, as well
+ * as the classifier natural evaluations of (registered) glyphs.
+ * <p>
+ * It is meant to be shared by all the {@link GlyphCluster} instances working on the same system
+ * (clef, key and time builders in HEADERS step, symbols builder in SYMBOLS step), since the same
+ * subsets of parts are often examined several times:
+ * <ul>
+ * <li>A compound is keyed by the sorted ids of its parts, so it gets built only once whatever the
+ * order in which its parts were assembled.</li>
+ * <li>Natural evaluations are keyed by glyph id, classifier and interline value.</li>
+ * </ul>
+ * Parts or glyphs not yet registered (id 0) are not cached.
+ * Each cache is bounded in size, and simply cleared when its limit is reached.
+ *
+ * @author Hervé Bitteur
+ */
+@ThreadSafe
+public class CompoundCache
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(CompoundCache.class);
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Compounds, per sorted part ids. */
+    private final ConcurrentMap<PartsKey, Glyph> compounds = new ConcurrentHashMap<PartsKey, Glyph>();
+
+    /** Natural evaluations, per glyph and classifier context. */
+    private final ConcurrentMap<EvalKey, Evaluation[]> evaluations = new ConcurrentHashMap<EvalKey, Evaluation[]>();
+
+    // Statistics
+    private final AtomicInteger compoundHits = new AtomicInteger();
+
+    private final AtomicInteger compoundMisses = new AtomicInteger();
+
+    private final AtomicInteger evalHits = new AtomicInteger();
+
+    private final AtomicInteger evalMisses = new AtomicInteger();
+
+    private final AtomicInteger pruned = new AtomicInteger();
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------//
+    // clear //
+    //-------//
+    /**
+     * Release all cached compounds and evaluations.
+     */
+    public void clear ()
+    {
+        compounds.clear();
+        evaluations.clear();
+    }
+
+    //-------------//
+    // getCompound //
+    //-------------//
+    /**
+     * Report the compound glyph made of the provided parts, building it if needed.
+     *
+     * @param parts the parts to assemble (at least 2)
+     * @return the compound glyph
+     */
+    public Glyph getCompound (Collection<Glyph> parts)
+    {
+        final PartsKey key = PartsKey.of(parts);
+
+        if (key == null) {
+            return GlyphFactory.buildGlyph(parts); // Non registered part
+        }
+
+        Glyph compound = compounds.get(key);
+
+        if (compound != null) {
+            compoundHits.incrementAndGet();
+
+            return compound;
+        }
+
+        compoundMisses.incrementAndGet();
+        compound = GlyphFactory.buildGlyph(parts);
+
+        if (compounds.size() >= constants.maxCompounds.getValue()) {
+            logger.debug("CompoundCache clearing {} compounds", compounds.size());
+            compounds.clear();
+        }
+
+        final Glyph prev = compounds.putIfAbsent(key, compound);
+
+        return (prev != null) ? prev : compound;
+    }
+
+    //-----------------------//
+    // getNaturalEvaluations //
+    //-----------------------//
+    /**
+     * Report the natural evaluations of the provided glyph by the provided classifier.
+     *
+     * @param classifier the classifier to use
+     * @param glyph      the glyph to evaluate
+     * @param interline  the relevant interline value
+     * @return a copy of the natural evaluations, one per shape
+     * @see Classifier#getNaturalEvaluations(Glyph, int)
+     */
+    public Evaluation[] getNaturalEvaluations (Classifier classifier,
+                                               Glyph glyph,
+                                               int interline)
+    {
+        if (glyph.getId() == 0) {
+            return classifier.getNaturalEvaluations(glyph, interline);
+        }
+
+        final EvalKey key = new EvalKey(glyph.getId(), classifier, interline);
+        Evaluation[] evals = evaluations.get(key);
+
+        if (evals != null) {
+            evalHits.incrementAndGet();
+        } else {
+            evalMisses.incrementAndGet();
+            evals = classifier.getNaturalEvaluations(glyph, interline);
+
+            if (evaluations.size() >= constants.maxEvaluations.getValue()) {
+                logger.debug("CompoundCache clearing {} evaluations", evaluations.size());
+                evaluations.clear();
+            }
+
+            evaluations.put(key, evals);
+        }
+
+        // Callers are allowed to sort the array they get
+        return Arrays.copyOf(evals, evals.length);
+    }
+
+    //-----------------//
+    // recordDecompose //
+    //-----------------//
+    /**
+     * Record the statistics of one cluster decomposition.
+     *
+     * @param prunedCount number of subsets pruned
+     */
+    public void recordDecompose (int prunedCount)
+    {
+        pruned.addAndGet(prunedCount);
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public String toString ()
+    {
+        return String.format(
+                "CompoundCache{compounds:%d/%d evals:%d/%d pruned:%d}",
+                compoundHits.get(),
+                compoundHits.get() + compoundMisses.get(),
+                evalHits.get(),
+                evalHits.get() + evalMisses.get(),
+                pruned.get());
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Integer maxCompounds = new Constant.Integer(
+                "Glyphs",
+                5000,
+                "Maximum number of compounds cached per system");
+
+        private final Constant.Integer maxEvaluations = new Constant.Integer(
+                "Glyphs",
+                20000,
+                "Maximum number of glyph evaluations cached per system");
+    }
+
+    //---------//
+    // EvalKey //
+    //---------//
+    /**
+     * Key for natural evaluations.
+     */
+    private static class EvalKey
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final int glyphId;
+
+        private final Classifier classifier;
+
+        private final int interline;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public EvalKey (int glyphId,
+                        Classifier classifier,
+                        int interline)
+        {
+            this.glyphId = glyphId;
+            this.classifier = classifier;
+            this.interline = interline;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        public boolean equals (Object obj)
+        {
+            if (!(obj instanceof EvalKey)) {
+                return false;
+            }
+
+            final EvalKey that = (EvalKey) obj;
+
+            return (glyphId == that.glyphId) && (interline == that.interline)
+                   && (classifier == that.classifier);
+        }
+
+        @Override
+        public int hashCode ()
+        {
+            int hash = 7;
+            hash = (31 * hash) + glyphId;
+            hash = (31 * hash) + interline;
+            hash = (31 * hash) + System.identityHashCode(classifier);
+
+            return hash;
+        }
+    }
+
+    //----------//
+    // PartsKey //
+    //----------//
+    /**
+     * Canonical key for a set of parts: their sorted ids.
+     */
+    private static class PartsKey
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final int[] ids;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        private PartsKey (int[] ids)
+        {
+            this.ids = ids;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        /**
+         * Build the key for the provided parts.
+         *
+         * @param parts the parts
+         * @return the key, or null if any part is not registered
+         */
+        public static PartsKey of (Collection<Glyph> parts)
+        {
+            final int[] ids = new int[parts.size()];
+            int i = 0;
+
+            for (Glyph part : parts) {
+                if ((ids[i++] = part.getId()) == 0) {
+                    return null;
+                }
+            }
+
+            Arrays.sort(ids);
+
+            return new PartsKey(ids);
+        }
+
+        @Override
+        public boolean equals (Object obj)
+        {
+            return (obj instanceof PartsKey) && Arrays.equals(ids, ((PartsKey) obj).ids);
+        }
+
+        @Override
+        public int hashCode ()
+        {
+            return Arrays.hashCode(ids);
+        }
+    }
+}
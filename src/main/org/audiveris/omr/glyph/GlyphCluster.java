@@ -21,6 +21,8 @@
 // </editor-fold>
 package org.audiveris.omr.glyph;
 
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.glyph.Symbol.Group;
 
 import org.jgrapht.Graphs;
@@ -33,6 +35,7 @@ import java.awt.Rectangle;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
@@ -46,6 +49,12 @@ import java.util.Set;
  * <li>Build the set of new reachable vertices.</li>
  * <li>For each reachable vertex, recursively process the new set composed of current set + the
  * reachable vertex.</li></ol>
+ * <p>
+ * Cluster size can be bounded (the lightest parts are then discarded beyond the limit), and the
+ * number of subsets pruned (because too heavy or too large) is recorded.
+ * <p>
+ * If a {@link CompoundCache} is provided, compounds are retrieved from (and recorded into) this
+ * cache, rather than being systematically rebuilt.
  * TODO: implement a non-recursive version for better efficiency?
  *
  * @author Hervé Bitteur
@@ -54,6 +63,8 @@ public class GlyphCluster
 {
     //~ Static fields/initializers -----------------------------------------------------------------
 
+    private static final Constants constants = new Constants();
+
     private static final Logger logger = LoggerFactory.getLogger(GlyphCluster.class);
 
     //~ Instance fields ----------------------------------------------------------------------------
@@ -63,6 +74,16 @@ public class GlyphCluster
     /** Group, if any, to be assigned to created glyphs. */
     private final Group group;
 
+    /** Cache of compounds, if any. */
+    private final CompoundCache cache;
+
+    /** Parts retained in cluster. */
+    private final Set<Glyph> retained = Collections.newSetFromMap(
+            new IdentityHashMap<Glyph, Boolean>());
+
+    /** Number of subsets pruned. */
+    private int prunedCount;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new Cluster object, with an adapter to the environment.
@@ -72,9 +93,24 @@ public class GlyphCluster
      */
     public GlyphCluster (Adapter adapter,
                          Group group)
+    {
+        this(adapter, group, null);
+    }
+
+    /**
+     * Creates a new Cluster object, with an adapter to the environment and a cache.
+     *
+     * @param adapter the environment adapter
+     * @param group   group to be assigned, if any
+     * @param cache   cache of compounds, if any
+     */
+    public GlyphCluster (Adapter adapter,
+                         Group group,
+                         CompoundCache cache)
     {
         this.adapter = adapter;
         this.group = group;
+        this.cache = cache;
     }
 
     //~ Methods ------------------------------------------------------------------------------------
@@ -130,16 +166,44 @@ public class GlyphCluster
     {
         final Set<Glyph> considered = new LinkedHashSet<Glyph>(); // Parts considered so far
 
-        //TODO: we could truncate this list by discarding the smallest items
+        // Truncate the list by discarding the smallest items
         // since a too large list would result in explosion of combinations
-        final List<Glyph> seeds = adapter.getParts();
+        List<Glyph> seeds = adapter.getParts();
         Collections.sort(seeds, Glyphs.byReverseWeight);
 
+        final int maxClusterSize = constants.maxClusterSize.getValue();
+
+        if ((maxClusterSize > 0) && (seeds.size() > maxClusterSize)) {
+            logger.debug("Cluster parts shrunk from {} to {}", seeds.size(), maxClusterSize);
+            seeds = seeds.subList(0, maxClusterSize);
+        }
+
+        retained.addAll(seeds);
+
         ///logger.debug("Decomposing {}", Glyphs.ids("cluster", seeds));
         for (Glyph seed : seeds) {
             considered.add(seed);
             process(Collections.singleton(seed), considered);
         }
+
+        if (cache != null) {
+            cache.recordDecompose(prunedCount);
+        }
+
+        logger.debug("Cluster parts:{} pruned:{}", seeds.size(), prunedCount);
+    }
+
+    //----------------//
+    // getPrunedCount //
+    //----------------//
+    /**
+     * Report the number of subsets pruned (because too heavy or too large).
+     *
+     * @return count of pruned subsets
+     */
+    public int getPrunedCount ()
+    {
+        return prunedCount;
     }
 
     /**
@@ -154,7 +218,11 @@ public class GlyphCluster
         Set<Glyph> outliers = new LinkedHashSet<Glyph>();
 
         for (Glyph part : set) {
-            outliers.addAll(adapter.getNeighbors(part));
+            for (Glyph neighbor : adapter.getNeighbors(part)) {
+                if (retained.contains(neighbor)) {
+                    outliers.add(neighbor); // Not a discarded part
+                }
+            }
         }
 
         outliers.removeAll(set);
@@ -178,6 +246,7 @@ public class GlyphCluster
 
         if (adapter.isTooHeavy(weight)) {
             logger.debug("Too high weight {} for {}", weight, parts);
+            prunedCount++;
 
             return;
         }
@@ -186,14 +255,23 @@ public class GlyphCluster
 
         if (adapter.isTooLarge(box)) {
             logger.debug("Too large  {} for {}", box, parts);
+            prunedCount++;
 
             return;
         }
 
         if (!adapter.isTooLight(weight)) {
-            // Build compound and get acceptable evaluations for the compound
-            Glyph compound = (parts.size() > 1) ? GlyphFactory.buildGlyph(parts)
-                    : parts.iterator().next();
+            // Build (or reuse) compound and get acceptable evaluations for the compound
+            final Glyph compound;
+
+            if (parts.size() == 1) {
+                compound = parts.iterator().next();
+            } else if (cache != null) {
+                compound = cache.getCompound(parts);
+            } else {
+                compound = GlyphFactory.buildGlyph(parts);
+            }
+
             compound.addGroup(group);
 
             // Create all acceptable inters, if any, for the compound
@@ -224,6 +302,8 @@ public class GlyphCluster
                 Set<Glyph> largerSet = new LinkedHashSet<Glyph>(parts);
                 largerSet.add(outlier);
                 process(largerSet, newConsidered);
+            } else {
+                prunedCount++;
             }
         }
     }
@@ -373,4 +453,18 @@ public class GlyphCluster
             return false;
         }
     }
+
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Integer maxClusterSize = new Constant.Integer(
+                "Glyphs",
+                0,
+                "Maximum number of parts in a cluster (lightest discarded beyond), 0 for no limit");
+    }
 }
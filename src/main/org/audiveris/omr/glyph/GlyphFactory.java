@@ -21,15 +21,11 @@
 // </editor-fold>
 package org.audiveris.omr.glyph;
 
-import ij.process.ByteProcessor;
-
 import org.audiveris.omr.glyph.Symbol.Group;
 import org.audiveris.omr.run.MarkedRun;
 import static org.audiveris.omr.run.Orientation.VERTICAL;
 import org.audiveris.omr.run.Run;
 import org.audiveris.omr.run.RunTable;
-import org.audiveris.omr.run.RunTableFactory;
-import org.audiveris.omr.util.ByteUtil;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -110,6 +106,10 @@ public class GlyphFactory
     //------------//
     /**
      * Build one glyph from a collection of glyph parts.
+     * <p>
+     * The compound run table is directly merged from the parts run tables, with no intermediate
+     * buffer.
+     * The compound moments are computed only when first needed.
      *
      * @param parts the provided glyph parts
      * @return the glyph compound
@@ -117,14 +117,15 @@ public class GlyphFactory
     public static Glyph buildGlyph (Collection<? extends Glyph> parts)
     {
         final Rectangle box = Glyphs.getBounds(parts);
-        final ByteProcessor buffer = new ByteProcessor(box.width, box.height);
-        ByteUtil.raz(buffer); // buffer.invert();
+        final List<RunTable> tables = new ArrayList<RunTable>(parts.size());
+        final List<Point> offsets = new ArrayList<Point>(parts.size());
 
         for (Glyph part : parts) {
-            part.getRunTable().write(buffer, part.getLeft() - box.x, part.getTop() - box.y);
+            tables.add(part.getRunTable());
+            offsets.add(new Point(part.getLeft() - box.x, part.getTop() - box.y));
         }
 
-        final RunTable runTable = new RunTableFactory(VERTICAL).createTable(buffer);
+        final RunTable runTable = RunTable.merge(box.width, box.height, tables, offsets);
 
         return new BasicGlyph(box.x, box.y, runTable);
     }
@@ -236,18 +237,22 @@ public class GlyphFactory
         final int height = (runTable.getOrientation() == VERTICAL) ? (stopMax - startMin + 1)
                 : (iSeqMax - iSeqMin + 1);
 
-        // Allocate table with proper dimension
-        RunTable table = new RunTable(runTable.getOrientation(), width, height);
-
         // Populate table with RLE sequences
+        final RunTable.Builder builder = new RunTable.Builder(
+                runTable.getOrientation(),
+                width,
+                height);
+
         for (Sequence seq : buf) {
+            final int index = seq.iSeq - iSeqMin;
+
             for (MarkedRun run : seq.runs) {
-                run.setStart(run.getStart() - startMin);
+                builder.append(index, run.getStart() - startMin, run.getLength());
             }
-
-            table.setSequence(seq.iSeq - iSeqMin, seq.runs);
         }
 
+        final RunTable table = builder.build();
+
         // Store created glyph
         final Glyph glyph = new BasicGlyph(offset.x + dx, offset.y + dy, table);
         glyph.addGroup(group);
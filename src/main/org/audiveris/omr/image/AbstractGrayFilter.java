@@ -23,18 +23,38 @@ package org.audiveris.omr.image;
 
 import ij.process.ByteProcessor;
 
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.OmrExecutors;
 import org.audiveris.omr.util.StopWatch;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 /**
  * Class {@code AbstractGrayFilter} is the basis for filters operating on gray-level
  * images.
+ * <p>
+ * It provides subclasses with {@link #processBands}, to process an image by horizontal bands of
+ * rows, in parallel when allowed.
  *
  * @author Hervé Bitteur
  */
 public abstract class AbstractGrayFilter
 {
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(AbstractGrayFilter.class);
+
     //~ Methods ------------------------------------------------------------------------------------
 
     //--------//
@@ -99,4 +119,100 @@ public abstract class AbstractGrayFilter
         ///watch.print();
         return output;
     }
+
+    //--------------//
+    // processBands //
+    //--------------//
+    /**
+     * Apply the provided band processor on all horizontal bands of an image.
+     * <p>
+     * Bands are processed in parallel, unless parallelism is not allowed.
+     * Since bands are disjoint, the processor can write its results directly into the output rows.
+     *
+     * @param height    image height
+     * @param processor the processing to apply on each band
+     */
+    protected void processBands (int height,
+                                 final BandProcessor processor)
+    {
+        final int bandHeight = Math.max(1, constants.bandHeight.getValue());
+
+        if ((OmrExecutors.defaultParallelism.getSpecific() == false) || (height <= bandHeight)) {
+            // Sequential
+            for (int y = 0; y < height; y += bandHeight) {
+                processor.process(y, Math.min(height, y + bandHeight));
+            }
+        } else {
+            // Parallel
+            try {
+                List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+                for (int y = 0; y < height; y += bandHeight) {
+                    final int yStart = y;
+                    final int yStop = Math.min(height, y + bandHeight);
+                    tasks.add(
+                            new Callable<Void>()
+                    {
+                        @Override
+                        public Void call ()
+                                throws Exception
+                        {
+                            processor.process(yStart, yStop);
+
+                            return null;
+                        }
+                    });
+                }
+
+                // Launch the tasks and wait for their completion
+                for (Future<Void> future : OmrExecutors.getHighExecutor().invokeAll(tasks)) {
+                    future.get(); // To propagate any exception
+                }
+            } catch (InterruptedException ex) {
+                logger.warn("{} got interrupted", getClass().getSimpleName());
+                throw new ProcessingCancellationException(ex);
+            } catch (ProcessingCancellationException pce) {
+                throw pce;
+            } catch (Throwable ex) {
+                logger.warn("Exception raised in {}", getClass().getSimpleName(), ex);
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+
+    //~ Inner Interfaces ---------------------------------------------------------------------------
+    //---------------//
+    // BandProcessor //
+    //---------------//
+    /**
+     * Processing of a band of image rows.
+     */
+    protected static interface BandProcessor
+    {
+        //~ Methods --------------------------------------------------------------------------------
+
+        /**
+         * Process the rows of the band.
+         *
+         * @param yStart first row of the band
+         * @param yStop  row just after the band
+         */
+        void process (int yStart,
+                      int yStop);
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Integer bandHeight = new Constant.Integer(
+                "Pixels",
+                128,
+                "Height of each horizontal band processed in parallel by gray filters");
+    }
 }
@@ -253,8 +253,8 @@ public abstract class AdaptiveFilter
     //--------------//
     // getThreshold //
     //--------------//
-    private double getThreshold (double mean,
-                                 double stdDev)
+    protected double getThreshold (double mean,
+                                   double stdDev)
     {
         // This is the key formula
         return (MEAN_COEFF * mean) + (STD_DEV_COEFF * stdDev);
@@ -451,7 +451,8 @@ public abstract class AdaptiveFilter
                 "Threshold formula coefficient for pixel standard deviation");
 
         private final Constant.String className = new Constant.String(
-                "org.audiveris.omr.image.VerticalFilter",
-                "org.audiveris.omr.image.VerticalFilter or org.audiveris.omr.image.RandomFilter");
+                "org.audiveris.omr.image.IntegralFilter",
+                "org.audiveris.omr.image.IntegralFilter, org.audiveris.omr.image.VerticalFilter"
+                + " or org.audiveris.omr.image.RandomFilter");
     }
 }
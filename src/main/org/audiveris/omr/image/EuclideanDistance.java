@@ -0,0 +1,507 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                               E u c l i d e a n D i s t a n c e                                //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+/**
+ * Class {@code EuclideanDistance} computes the exact Euclidean distance transform of
+ * an image, using the separable algorithm of Felzenszwalb and Huttenlocher.
+ * <p>
+ * A first pass, performed column-wise, computes for each pixel the vertical distance to the
+ * nearest reference pixel in the same column. A second pass, performed row-wise, computes for each
+ * row the lower envelope of the parabolas rooted at each row pixel, which gives the squared
+ * distance to the nearest reference pixel in the whole image.
+ * Both passes work on disjoint strips of the image, which are processed in parallel when allowed.
+ * <p>
+ * Results are provided in a {@link DistanceTable.Short} with the same semantics as chamfer
+ * tables: each value is the distance multiplied by the normalizer (and rounded),
+ * {@link #VALUE_TARGET} on reference pixels, and {@link #VALUE_UNKNOWN} everywhere when the image
+ * contains no reference pixel at all.
+ * <p>
+ * The row pass can also be driven by the caller, via a {@link Transform}, to compute only the
+ * rows needed at a given time.
+ *
+ * @author Hervé Bitteur
+ */
+public class EuclideanDistance
+        implements ChamferDistance
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(EuclideanDistance.class);
+
+    /** Vertical distance for a column with no reference pixel. */
+    private static final int INFINITE = java.lang.Short.MAX_VALUE;
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Normalizer applied on distances. */
+    private final int normalizer;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code EuclideanDistance} object, with the same normalizer as
+     * chamfer3 mask.
+     */
+    public EuclideanDistance ()
+    {
+        this(chamfer3[0][2]);
+    }
+
+    /**
+     * Creates a new {@code EuclideanDistance} object, with the provided normalizer.
+     *
+     * @param normalizer the value by which each distance is multiplied
+     */
+    public EuclideanDistance (int normalizer)
+    {
+        this.normalizer = normalizer;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //---------//
+    // compute //
+    //---------//
+    @Override
+    public DistanceTable compute (boolean[][] input)
+    {
+        final int width = input.length;
+        final int height = input[0].length;
+        final byte[] source = new byte[width * height];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (input[x][y]) {
+                    source[(y * width) + x] = 1;
+                }
+            }
+        }
+
+        return process(new Transform(width, height, source, false));
+    }
+
+    //---------------//
+    // computeToBack //
+    //---------------//
+    @Override
+    public DistanceTable computeToBack (ByteProcessor input)
+    {
+        return process(prepareToBack(input));
+    }
+
+    //---------------//
+    // computeToFore //
+    //---------------//
+    @Override
+    public DistanceTable computeToFore (ByteProcessor input)
+    {
+        return process(prepareToFore(input));
+    }
+
+    //---------------//
+    // prepareToBack //
+    //---------------//
+    /**
+     * Prepare the distance transform to background pixels, only the column pass being
+     * performed.
+     *
+     * @param input the input image, where background pixels are taken as reference pixels
+     * @return the transform, whose rows are still to be computed
+     */
+    public Transform prepareToBack (ByteProcessor input)
+    {
+        return prepare(new Transform(input, false));
+    }
+
+    //---------------//
+    // prepareToFore //
+    //---------------//
+    /**
+     * Prepare the distance transform to foreground pixels, only the column pass being
+     * performed.
+     *
+     * @param input the input image, where foreground pixels are taken as reference pixels
+     * @return the transform, whose rows are still to be computed
+     */
+    public Transform prepareToFore (ByteProcessor input)
+    {
+        return prepare(new Transform(input, true));
+    }
+
+    //---------//
+    // prepare //
+    //---------//
+    private Transform prepare (final Transform transform)
+    {
+        processStrips(
+                transform.width,
+                new StripProcessor()
+        {
+            @Override
+            public void process (int start,
+                                 int stop)
+            {
+                transform.computeColumns(start, stop);
+            }
+        });
+
+        return transform;
+    }
+
+    //---------//
+    // process //
+    //---------//
+    private DistanceTable process (final Transform transform)
+    {
+        prepare(transform);
+
+        processStrips(
+                transform.height,
+                new StripProcessor()
+        {
+            @Override
+            public void process (int start,
+                                 int stop)
+            {
+                transform.computeRows(start, stop);
+            }
+        });
+
+        return transform.getTable();
+    }
+
+    //---------------//
+    // processStrips //
+    //---------------//
+    /**
+     * Apply the provided processor on all strips (of columns or rows), in parallel
+     * unless parallelism is not allowed.
+     *
+     * @param length    total number of columns or rows
+     * @param processor the processing to apply on each strip
+     */
+    private void processStrips (int length,
+                                final StripProcessor processor)
+    {
+        final int stripSize = Math.max(1, constants.stripSize.getValue());
+
+        if ((OmrExecutors.defaultParallelism.getSpecific() == false) || (length <= stripSize)) {
+            // Sequential
+            processor.process(0, length);
+        } else {
+            // Parallel
+            try {
+                List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+                for (int i = 0; i < length; i += stripSize) {
+                    final int start = i;
+                    final int stop = Math.min(length, i + stripSize);
+                    tasks.add(
+                            new Callable<Void>()
+                    {
+                        @Override
+                        public Void call ()
+                                throws Exception
+                        {
+                            processor.process(start, stop);
+
+                            return null;
+                        }
+                    });
+                }
+
+                // Launch the tasks and wait for their completion
+                for (Future<Void> future : OmrExecutors.getHighExecutor().invokeAll(tasks)) {
+                    future.get(); // To propagate any exception
+                }
+            } catch (InterruptedException ex) {
+                logger.warn("EuclideanDistance got interrupted");
+                throw new ProcessingCancellationException(ex);
+            } catch (ProcessingCancellationException pce) {
+                throw pce;
+            } catch (Throwable ex) {
+                logger.warn("Exception raised in EuclideanDistance", ex);
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+
+    //~ Inner Interfaces ---------------------------------------------------------------------------
+    //----------------//
+    // StripProcessor //
+    //----------------//
+    private static interface StripProcessor
+    {
+        //~ Methods --------------------------------------------------------------------------------
+
+        void process (int start,
+                      int stop);
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Transform //
+    //-----------//
+    /**
+     * A distance transform in progress, whose column pass has been performed.
+     * <p>
+     * Until its row pass is performed, a row of the underlying table contains vertical distances
+     * rather than final distance values.
+     * Distinct threads can compute distinct rows concurrently, provided that the caller
+     * synchronizes with these threads before reading the rows.
+     */
+    public class Transform
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Image width. */
+        private final int width;
+
+        /** Image height. */
+        private final int height;
+
+        /** Source pixels. */
+        private final byte[] source;
+
+        /** True if reference pixels are the zero (black) ones. */
+        private final boolean zeroIsTarget;
+
+        /** Underlying data, first vertical distances then final values. */
+        private final short[] values;
+
+        /** The resulting table. */
+        private final DistanceTable.Short table;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        private Transform (ByteProcessor input,
+                           boolean zeroIsTarget)
+        {
+            this(input.getWidth(), input.getHeight(), (byte[]) input.getPixels(), zeroIsTarget);
+        }
+
+        private Transform (int width,
+                           int height,
+                           byte[] source,
+                           boolean zeroIsTarget)
+        {
+            if ((width >= INFINITE) || (height >= INFINITE)) {
+                throw new IllegalArgumentException("Image too large: " + width + "x" + height);
+            }
+
+            this.width = width;
+            this.height = height;
+            this.source = source;
+            this.zeroIsTarget = zeroIsTarget;
+
+            final Table.Short data = new Table.Short(width, height);
+            values = data.getValues();
+            table = new DistanceTable.Short(data, normalizer);
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        //-------------//
+        // computeRows //
+        //-------------//
+        /**
+         * Perform the row pass on the provided range of rows.
+         *
+         * @param yStart first row to compute
+         * @param yStop  row just after the last row to compute
+         */
+        public void computeRows (int yStart,
+                                 int yStop)
+        {
+            final int[] squares = new int[width]; // Squared vertical distances
+            final int[] roots = new int[width]; // Abscissae of parabolas in lower envelope
+            final double[] bounds = new double[width]; // Left bound of each envelope parabola
+
+            for (int y = yStart; y < yStop; y++) {
+                final int row = y * width;
+
+                // Build the lower envelope of parabolas
+                int k = -1; // Index of rightmost parabola in envelope
+
+                for (int q = 0; q < width; q++) {
+                    final int g = values[row + q];
+
+                    if (g == INFINITE) {
+                        continue;
+                    }
+
+                    final int fq = g * g;
+                    squares[q] = fq;
+
+                    double s = Double.NEGATIVE_INFINITY;
+
+                    while (k >= 0) {
+                        final int p = roots[k];
+                        s = ((fq + ((double) q * q)) - (squares[p] + ((double) p * p)))
+                            / (2.0 * (q - p));
+
+                        if (s <= bounds[k]) {
+                            k--;
+                        } else {
+                            break;
+                        }
+                    }
+
+                    k++;
+                    roots[k] = q;
+                    bounds[k] = (k == 0) ? Double.NEGATIVE_INFINITY : s;
+                }
+
+                if (k < 0) {
+                    // No reference pixel at all
+                    for (int q = 0; q < width; q++) {
+                        values[row + q] = VALUE_UNKNOWN;
+                    }
+
+                    continue;
+                }
+
+                // Read distances from the envelope
+                for (int q = 0, j = 0; q < width; q++) {
+                    while ((j < k) && (bounds[j + 1] < q)) {
+                        j++;
+                    }
+
+                    final int p = roots[j];
+                    final long dx = q - p;
+                    values[row + q] = toValue((dx * dx) + squares[p]);
+                }
+            }
+        }
+
+        //----------//
+        // getTable //
+        //----------//
+        /**
+         * Report the resulting table, whose rows are meaningful only once computed.
+         *
+         * @return the distance table
+         */
+        public DistanceTable getTable ()
+        {
+            return table;
+        }
+
+        //----------------//
+        // computeColumns //
+        //----------------//
+        /**
+         * Perform the column pass on the provided range of columns.
+         * Image is browsed row by row, downward then upward, to keep memory accesses sequential.
+         *
+         * @param xStart first column to compute
+         * @param xStop  column just after the last column to compute
+         */
+        private void computeColumns (int xStart,
+                                     int xStop)
+        {
+            // Downward
+            for (int i = xStart; i < xStop; i++) {
+                values[i] = isTarget(i) ? 0 : (short) INFINITE;
+            }
+
+            for (int y = 1; y < height; y++) {
+                final int row = y * width;
+
+                for (int i = row + xStart, iStop = row + xStop; i < iStop; i++) {
+                    if (isTarget(i)) {
+                        values[i] = 0;
+                    } else {
+                        final int above = values[i - width];
+                        values[i] = (short) ((above == INFINITE) ? INFINITE : (above + 1));
+                    }
+                }
+            }
+
+            // Upward
+            for (int y = height - 2; y >= 0; y--) {
+                final int row = y * width;
+
+                for (int i = row + xStart, iStop = row + xStop; i < iStop; i++) {
+                    final int below = values[i + width];
+
+                    if ((below != INFINITE) && ((below + 1) < values[i])) {
+                        values[i] = (short) (below + 1);
+                    }
+                }
+            }
+        }
+
+        //----------//
+        // isTarget //
+        //----------//
+        private boolean isTarget (int index)
+        {
+            return (source[index] == 0) == zeroIsTarget;
+        }
+
+        //---------//
+        // toValue //
+        //---------//
+        /**
+         * Convert a squared distance to a normalized distance value.
+         *
+         * @param square the squared distance
+         * @return the normalized value
+         */
+        private short toValue (long square)
+        {
+            if (square == 0) {
+                return VALUE_TARGET;
+            }
+
+            return (short) Math.min(INFINITE, Math.round(normalizer * Math.sqrt(square)));
+        }
+    }
+
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Integer stripSize = new Constant.Integer(
+                "Pixels",
+                128,
+                "Width or height of each strip processed in parallel by distance transform");
+    }
+}
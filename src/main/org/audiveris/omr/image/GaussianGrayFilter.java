@@ -24,6 +24,7 @@ package org.audiveris.omr.image;
 import ij.process.ByteProcessor;
 
 import java.awt.image.Kernel;
+import java.util.Arrays;
 
 /**
  * Class {@code GaussianGrayFilter} allows to run a Gaussian filter on an input image,
@@ -31,6 +32,10 @@ import java.awt.image.Kernel;
  * <p>
  * This implementation is derived from Jerry Huxtable more general filter but limited to
  * BufferedImage class.
+ * <p>
+ * The 2D kernel being separable, filtering is performed as two 1D passes working on raw byte
+ * arrays: a horizontal pass from input into a temporary buffer, then a vertical pass from this
+ * buffer into output. Each pass processes rows by horizontal bands, in parallel when allowed.
  *
  * @author Hervé Bitteur
  */
@@ -75,29 +80,36 @@ public class GaussianGrayFilter
     {
         final int width = input.getWidth();
         final int height = input.getHeight();
-        final byte[] inPixels = new byte[width * height];
-        final byte[] outPixels = new byte[width * height];
-
-        // Read pixels
-        for (int y = 0; y < height; y++) {
-            final int offset = y * width;
-
-            for (int x = 0; x < width; x++) {
-                inPixels[offset + x] = (byte) input.get(x, y);
+        final byte[] src = (byte[]) input.getPixels();
+        final byte[] tmp = new byte[width * height];
+        final byte[] dst = (byte[]) output.getPixels();
+        final float[] matrix = kernel.getKernelData(null);
+
+        // Horizontal pass
+        processBands(
+                height,
+                new BandProcessor()
+        {
+            @Override
+            public void process (int yStart,
+                                 int yStop)
+            {
+                convolveRows(matrix, src, tmp, width, yStart, yStop);
             }
-        }
-
-        convolveAndTranspose(inPixels, outPixels, width, height);
-        convolveAndTranspose(outPixels, inPixels, height, width);
-
-        // Write pixels
-        for (int y = 0; y < height; y++) {
-            final int offset = y * width;
-
-            for (int x = 0; x < width; x++) {
-                output.set(x, y, inPixels[offset + x] & 0xff);
+        });
+
+        // Vertical pass
+        processBands(
+                height,
+                new BandProcessor()
+        {
+            @Override
+            public void process (int yStart,
+                                 int yStop)
+            {
+                convolveColumns(matrix, tmp, dst, width, height, yStart, yStop);
             }
-        }
+        });
     }
 
     //-----------//
@@ -177,46 +189,142 @@ public class GaussianGrayFilter
         return val;
     }
 
-    //----------------------//
-    // convolveAndTranspose //
-    //----------------------//
-    private void convolveAndTranspose (byte[] inPixels,
-                                       byte[] outPixels,
+    //----------------//
+    // convolveBorder //
+    //----------------//
+    /**
+     * Apply the kernel horizontally on a pixel close to row ends, using the row end
+     * value for any location beyond.
+     *
+     * @param matrix   kernel data
+     * @param inPixels input pixels
+     * @param ioffset  offset of row start
+     * @param width    image width
+     * @param x        pixel abscissa
+     * @return the convolved value
+     */
+    private static int convolveBorder (float[] matrix,
+                                       byte[] inPixels,
+                                       int ioffset,
                                        int width,
-                                       int height)
+                                       int x)
+    {
+        final int cols2 = matrix.length / 2;
+        float p = 0;
+
+        for (int col = -cols2; col <= cols2; col++) {
+            final float f = matrix[cols2 + col];
+
+            if (f != 0) {
+                final int ix = Math.min(Math.max(x + col, 0), width - 1);
+                p += (f * (inPixels[ioffset + ix] & 0xff));
+            }
+        }
+
+        return clamp((int) (p + 0.5));
+    }
+
+    //-----------------//
+    // convolveColumns //
+    //-----------------//
+    /**
+     * Apply the kernel vertically, for the rows of a band.
+     * <p>
+     * Kernel items are processed in the same order as in {@link #convolveRows}, hence both passes
+     * lead to the very same values as a transposed processing.
+     *
+     * @param matrix    kernel data
+     * @param inPixels  input pixels
+     * @param outPixels output pixels
+     * @param width     image width
+     * @param height    image height
+     * @param yStart    first row of band
+     * @param yStop     row just after band
+     */
+    private static void convolveColumns (float[] matrix,
+                                         byte[] inPixels,
+                                         byte[] outPixels,
+                                         int width,
+                                         int height,
+                                         int yStart,
+                                         int yStop)
     {
-        float[] matrix = kernel.getKernelData(null);
-        int cols = kernel.getWidth();
-        int cols2 = cols / 2;
+        final int rows2 = matrix.length / 2;
+        final float[] sums = new float[width];
+
+        for (int y = yStart; y < yStop; y++) {
+            Arrays.fill(sums, 0);
+
+            for (int row = -rows2; row <= rows2; row++) {
+                final float f = matrix[rows2 + row];
+
+                if (f != 0) {
+                    final int iy = Math.min(Math.max(y + row, 0), height - 1);
+                    final int ioffset = iy * width;
 
-        for (int y = 0; y < height; y++) {
-            int index = y;
-            int ioffset = y * width;
+                    for (int x = 0; x < width; x++) {
+                        sums[x] += (f * (inPixels[ioffset + x] & 0xff));
+                    }
+                }
+            }
+
+            final int offset = y * width;
 
             for (int x = 0; x < width; x++) {
-                float p = 0;
-                int moffset = cols2;
+                outPixels[offset + x] = (byte) clamp((int) (sums[x] + 0.5));
+            }
+        }
+    }
 
-                for (int col = -cols2; col <= cols2; col++) {
-                    float f = matrix[moffset + col];
+    //--------------//
+    // convolveRows //
+    //--------------//
+    /**
+     * Apply the kernel horizontally, for the rows of a band.
+     *
+     * @param matrix    kernel data
+     * @param inPixels  input pixels
+     * @param outPixels output pixels
+     * @param width     image width
+     * @param yStart    first row of band
+     * @param yStop     row just after band
+     */
+    private static void convolveRows (float[] matrix,
+                                      byte[] inPixels,
+                                      byte[] outPixels,
+                                      int width,
+                                      int yStart,
+                                      int yStop)
+    {
+        final int cols2 = matrix.length / 2;
+        final int xMin = Math.min(cols2, width); // First abscissa with no clamping needed
+        final int xMax = Math.max(xMin, width - cols2); // First abscissa with clamping needed
 
-                    if (f != 0) {
-                        int ix = x + col;
+        for (int y = yStart; y < yStop; y++) {
+            final int ioffset = y * width;
+
+            for (int x = 0; x < xMin; x++) {
+                outPixels[ioffset + x] = (byte) convolveBorder(matrix, inPixels, ioffset, width, x);
+            }
+
+            // Interior: whole kernel fits within the row
+            for (int x = xMin; x < xMax; x++) {
+                final int start = (ioffset + x) - cols2;
+                float p = 0;
 
-                        if (ix < 0) {
-                            ix = 0;
-                        } else if (ix >= width) {
-                            ix = width - 1;
-                        }
+                for (int i = 0; i < matrix.length; i++) {
+                    final float f = matrix[i];
 
-                        int pix = inPixels[ioffset + ix] & 0xff;
-                        p += (f * pix);
+                    if (f != 0) {
+                        p += (f * (inPixels[start + i] & 0xff));
                     }
                 }
 
-                int ip = clamp((int) (p + 0.5));
-                outPixels[index] = (byte) ip;
-                index += height;
+                outPixels[ioffset + x] = (byte) clamp((int) (p + 0.5));
+            }
+
+            for (int x = xMax; x < width; x++) {
+                outPixels[ioffset + x] = (byte) convolveBorder(matrix, inPixels, ioffset, width, x);
             }
         }
     }
@@ -0,0 +1,301 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                   I n t e g r a l F i l t e r                                  //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+/**
+ * Class {@code IntegralFilter} is a specialization of {@link AdaptiveFilter} which
+ * binarizes the whole image by horizontal bands processed in parallel.
+ * <p>
+ * Each band gets its own integral images (of plain values and of squared values), limited to the
+ * band rows augmented by the window margin, and computed directly from the source byte array.
+ * The thresholding formula is then applied row by row, writing directly into the destination byte
+ * array.
+ * <p>
+ * The result is identical to the one of {@link VerticalFilter} or {@link RandomFilter}, with memory
+ * needs limited to a few bands of integrals at any time.
+ * <p>
+ * Random access via {@link #isFore(int, int)} is served from the filtered image, computed once on
+ * first call.
+ *
+ * @author Hervé Bitteur
+ */
+@ThreadSafe
+public class IntegralFilter
+        extends AdaptiveFilter
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(IntegralFilter.class);
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Filtered image, lazily computed for random access. */
+    private volatile ByteProcessor filtered;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Create an adaptive wrapper on a raw pixel source.
+     *
+     * @param source      the underlying source of raw pixels
+     * @param meanCoeff   the coefficient for mean value
+     * @param stdDevCoeff the coefficient for standard deviation value
+     */
+    public IntegralFilter (ByteProcessor source,
+                           double meanCoeff,
+                           double stdDevCoeff)
+    {
+        super(source, meanCoeff, stdDevCoeff);
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //---------------//
+    // filteredImage //
+    //---------------//
+    @Override
+    public ByteProcessor filteredImage ()
+    {
+        final int width = source.getWidth();
+        final int height = source.getHeight();
+        final ByteProcessor ip = new ByteProcessor(width, height);
+        final byte[] src = (byte[]) source.getPixels();
+        final byte[] dst = (byte[]) ip.getPixels();
+        final int bandHeight = Math.max(1, constants.bandHeight.getValue());
+
+        if (OmrExecutors.defaultParallelism.getSpecific() == false) {
+            // Sequential
+            for (int y = 0; y < height; y += bandHeight) {
+                processBand(src, dst, y, Math.min(height, y + bandHeight));
+            }
+        } else {
+            // Parallel
+            try {
+                List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+                for (int y = 0; y < height; y += bandHeight) {
+                    final int yStart = y;
+                    final int yStop = Math.min(height, y + bandHeight);
+                    tasks.add(
+                            new Callable<Void>()
+                    {
+                        @Override
+                        public Void call ()
+                                throws Exception
+                        {
+                            processBand(src, dst, yStart, yStop);
+
+                            return null;
+                        }
+                    });
+                }
+
+                // Launch the tasks and wait for their completion
+                for (Future<Void> future : OmrExecutors.getHighExecutor().invokeAll(tasks)) {
+                    future.get(); // To propagate any exception
+                }
+            } catch (InterruptedException ex) {
+                logger.warn("IntegralFilter got interrupted");
+                throw new ProcessingCancellationException(ex);
+            } catch (ProcessingCancellationException pce) {
+                throw pce;
+            } catch (Throwable ex) {
+                logger.warn("Exception raised in IntegralFilter", ex);
+                throw new RuntimeException(ex);
+            }
+        }
+
+        return ip;
+    }
+
+    //------------//
+    // getContext //
+    //------------//
+    @Override
+    public Context getContext (int x,
+                               int y)
+    {
+        final int width = source.getWidth();
+        final int height = source.getHeight();
+        final byte[] src = (byte[]) source.getPixels();
+
+        final int xMin = Math.max(0, x - HALF_WINDOW_SIZE);
+        final int xMax = Math.min(width - 1, x + HALF_WINDOW_SIZE);
+        final int yMin = Math.max(0, y - HALF_WINDOW_SIZE);
+        final int yMax = Math.min(height - 1, y + HALF_WINDOW_SIZE);
+
+        long sum = 0;
+        long sqrSum = 0;
+
+        for (int iy = yMin; iy <= yMax; iy++) {
+            for (int i = (iy * width) + xMin, iBreak = (iy * width) + xMax; i <= iBreak; i++) {
+                final int pix = src[i] & 0xFF;
+                sum += pix;
+                sqrSum += (pix * pix);
+            }
+        }
+
+        final int area = (xMax - xMin + 1) * (yMax - yMin + 1);
+        final double mean = (double) sum / area;
+        final double sqrMean = (double) sqrSum / area;
+        final double stdDev = Math.sqrt(Math.abs(sqrMean - (mean * mean)));
+
+        return new AdaptiveContext(mean, stdDev, getThreshold(mean, stdDev));
+    }
+
+    //----------------------//
+    // getDefaultDescriptor //
+    //----------------------//
+    public static FilterDescriptor getDefaultDescriptor ()
+    {
+        return AdaptiveDescriptor.getDefault();
+    }
+
+    //--------//
+    // isFore //
+    //--------//
+    @Override
+    public boolean isFore (int x,
+                           int y)
+    {
+        ByteProcessor img = filtered;
+
+        if (img == null) {
+            synchronized (this) {
+                img = filtered;
+
+                if (img == null) {
+                    filtered = img = filteredImage();
+                }
+            }
+        }
+
+        return img.get(x, y) == FOREGROUND;
+    }
+
+    //-------------//
+    // processBand //
+    //-------------//
+    /**
+     * Binarize the rows of one band.
+     *
+     * @param src    source pixels
+     * @param dst    destination pixels
+     * @param yStart first row of the band
+     * @param yStop  row past the last row of the band
+     */
+    private void processBand (byte[] src,
+                              byte[] dst,
+                              int yStart,
+                              int yStop)
+    {
+        final int width = source.getWidth();
+        final int height = source.getHeight();
+        final int half = HALF_WINDOW_SIZE;
+
+        // Rows needed for integrals: [r0 .. r1]
+        final int r0 = Math.max(0, yStart - half);
+        final int r1 = Math.min(height - 1, yStop - 1 + half);
+        final int stride = width + 1;
+
+        // Integral tables, with a leading row and a leading column of zeros
+        // sums[(r + 1) * stride + (c + 1)] = sum of pixels in rows [r0 .. r0+r], columns [0 .. c]
+        final int rows = r1 - r0 + 1;
+        final long[] sums = new long[(rows + 1) * stride];
+        final long[] sqrSums = new long[(rows + 1) * stride];
+
+        for (int r = 0; r < rows; r++) {
+            final int srcRow = (r0 + r) * width;
+            final int above = r * stride;
+            final int here = above + stride;
+            long rowSum = 0;
+            long rowSqrSum = 0;
+
+            for (int c = 0; c < width; c++) {
+                final long pix = src[srcRow + c] & 0xFF;
+                rowSum += pix;
+                rowSqrSum += (pix * pix);
+                sums[here + c + 1] = sums[above + c + 1] + rowSum;
+                sqrSums[here + c + 1] = sqrSums[above + c + 1] + rowSqrSum;
+            }
+        }
+
+        // Thresholding
+        for (int y = yStart; y < yStop; y++) {
+            final int yMin = Math.max(0, y - half);
+            final int yMax = Math.min(height - 1, y + half);
+            final int top = (yMin - r0) * stride; // Row just above window
+            final int bottom = (yMax - r0 + 1) * stride; // Last row of window
+            final int dy = yMax - yMin + 1;
+            final int row = y * width;
+
+            for (int x = 0; x < width; x++) {
+                final int left = Math.max(0, x - half); // Column just left of window (shifted)
+                final int right = Math.min(width - 1, x + half) + 1; // Last column (shifted)
+                final int area = (right - left) * dy;
+
+                final double sum = (sums[top + left] + sums[bottom + right]) - sums[top + right]
+                                   - sums[bottom + left];
+                final double sqrSum = (sqrSums[top + left] + sqrSums[bottom + right])
+                                      - sqrSums[top + right] - sqrSums[bottom + left];
+                final double mean = sum / area;
+                final double sqrMean = sqrSum / area;
+                final double stdDev = Math.sqrt(Math.abs(sqrMean - (mean * mean)));
+                final int pix = src[row + x] & 0xFF;
+
+                dst[row + x] = (pix <= getThreshold(mean, stdDev)) ? (byte) FOREGROUND
+                        : (byte) BACKGROUND;
+            }
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Integer bandHeight = new Constant.Integer(
+                "Pixels",
+                128,
+                "Height of each horizontal band processed in parallel");
+    }
+}
@@ -28,6 +28,13 @@ import java.util.Arrays;
 /**
  * Class {@code MedianGrayFilter} allows to run a median filter on an input image,
  * assumed to contain only gray values [0..255].
+ * <p>
+ * At image boundaries, the window radius is reduced so that no pixel outside the image is used.
+ * <p>
+ * Within image interior, the window histogram is not rebuilt for each pixel but updated as the
+ * window slides along the row (removal of the leaving column, addition of the entering one), and
+ * the median value is tracked incrementally from one pixel to the next (Huang algorithm).
+ * Rows are processed by horizontal bands, in parallel when allowed.
  *
  * @author Hervé Bitteur
  */
@@ -60,53 +67,186 @@ public class MedianGrayFilter
     {
         final int width = input.getWidth();
         final int height = input.getHeight();
+        final byte[] src = (byte[]) input.getPixels();
+        final byte[] dst = (byte[]) output.getPixels();
+
+        processBands(
+                height,
+                new BandProcessor()
+        {
+            @Override
+            public void process (int yStart,
+                                 int yStop)
+            {
+                filterBand(src, dst, width, height, yStart, yStop);
+            }
+        });
+    }
+
+    //------------//
+    // filterBand //
+    //------------//
+    /**
+     * Filter the rows of a band.
+     *
+     * @param src    input pixels
+     * @param dst    output pixels
+     * @param width  image width
+     * @param height image height
+     * @param yStart first row of band
+     * @param yStop  row just after band
+     */
+    private void filterBand (byte[] src,
+                             byte[] dst,
+                             int width,
+                             int height,
+                             int yStart,
+                             int yStop)
+    {
         final int[] histogram = new int[256];
-        Arrays.fill(histogram, 0);
+        final int side = (2 * radius) + 1;
+        final int medianCount = ((side * side) + 1) / 2;
 
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                // To address specific behavior at image boundaries,
-                // reduce radius to not use pixels outside the image.
-                int rad = radius;
+        for (int y = yStart; y < yStop; y++) {
+            final int offset = y * width;
 
-                if ((x - rad) < 0) {
-                    rad = x;
+            if ((y < radius) || (y >= (height - radius)) || (width < side)) {
+                // Row too close to image top or bottom, all windows get reduced
+                for (int x = 0; x < width; x++) {
+                    dst[offset + x] = (byte) reducedMedian(src, width, height, x, y, histogram);
                 }
 
-                if ((y - rad) < 0) {
-                    rad = y;
-                }
+                continue;
+            }
 
-                if ((x + rad) >= width) {
-                    rad = width - 1 - x;
-                }
+            // Left and right pixels, with reduced windows
+            for (int x = 0; x < radius; x++) {
+                dst[offset + x] = (byte) reducedMedian(src, width, height, x, y, histogram);
+            }
 
-                if ((y + rad) >= height) {
-                    rad = height - 1 - y;
+            for (int x = width - radius; x < width; x++) {
+                dst[offset + x] = (byte) reducedMedian(src, width, height, x, y, histogram);
+            }
+
+            // First full window
+            Arrays.fill(histogram, 0);
+
+            for (int j = y - radius; j <= (y + radius); j++) {
+                final int row = j * width;
+
+                for (int i = 0; i < side; i++) {
+                    histogram[src[row + i] & 0xff]++;
                 }
+            }
+
+            // Median is the highest value m such that count of values >= m reaches medianCount
+            // 'above' is the current count of window values >= median
+            int median = 255;
+            int above = histogram[median];
+
+            while (above < medianCount) {
+                above += histogram[--median];
+            }
+
+            dst[offset + radius] = (byte) median;
+
+            // Slide window along the row
+            for (int x = radius + 1; x < (width - radius); x++) {
+                final int leaving = x - radius - 1;
+                final int entering = x + radius;
 
-                Arrays.fill(histogram, 0); // Brute force!
+                for (int j = y - radius; j <= (y + radius); j++) {
+                    final int row = j * width;
+                    final int out = src[row + leaving] & 0xff;
+                    final int in = src[row + entering] & 0xff;
+                    histogram[out]--;
+                    histogram[in]++;
 
-                for (int i = x - rad; i <= (x + rad); i++) {
-                    for (int j = y - rad; j <= (y + rad); j++) {
-                        int val = input.get(i, j);
-                        histogram[val]++;
+                    if (out >= median) {
+                        above--;
+                    }
+
+                    if (in >= median) {
+                        above++;
                     }
                 }
 
-                // Pick up the median value
-                final int side = (2 * rad) + 1;
-                final int medianCount = ((side * side) + 1) / 2;
-                int median = 255;
-                int sum = 0;
+                while (above < medianCount) {
+                    above += histogram[--median];
+                }
 
-                while (sum < medianCount) {
-                    sum += histogram[median];
-                    median--;
+                while ((above - histogram[median]) >= medianCount) {
+                    above -= histogram[median++];
                 }
 
-                output.set(x, y, median + 1);
+                dst[offset + x] = (byte) median;
             }
         }
     }
+
+    //---------------//
+    // reducedMedian //
+    //---------------//
+    /**
+     * Compute the median value at a location close to image boundaries, using the
+     * largest window that fits within the image.
+     *
+     * @param src       input pixels
+     * @param width     image width
+     * @param height    image height
+     * @param x         pixel abscissa
+     * @param y         pixel ordinate
+     * @param histogram histogram buffer
+     * @return the median value
+     */
+    private int reducedMedian (byte[] src,
+                               int width,
+                               int height,
+                               int x,
+                               int y,
+                               int[] histogram)
+    {
+        // To address specific behavior at image boundaries,
+        // reduce radius to not use pixels outside the image.
+        int rad = radius;
+
+        if ((x - rad) < 0) {
+            rad = x;
+        }
+
+        if ((y - rad) < 0) {
+            rad = y;
+        }
+
+        if ((x + rad) >= width) {
+            rad = width - 1 - x;
+        }
+
+        if ((y + rad) >= height) {
+            rad = height - 1 - y;
+        }
+
+        Arrays.fill(histogram, 0);
+
+        for (int j = y - rad; j <= (y + rad); j++) {
+            final int row = j * width;
+
+            for (int i = x - rad; i <= (x + rad); i++) {
+                histogram[src[row + i] & 0xff]++;
+            }
+        }
+
+        // Pick up the median value
+        final int side = (2 * rad) + 1;
+        final int medianCount = ((side * side) + 1) / 2;
+        int median = 255;
+        int sum = 0;
+
+        while (sum < medianCount) {
+            sum += histogram[median];
+            median--;
+        }
+
+        return median + 1;
+    }
 }
@@ -0,0 +1,521 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                    M o r p h o F i l t e r                                     //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Class {@code MorphoFilter} performs a gray level dilation or erosion with a flat
+ * structure element, in a time that does not depend on the element area.
+ * <p>
+ * The structure element is decomposed into horizontal line segments, one per contiguous run of
+ * offsets in each element row. For each distinct segment length, the running maximum along image
+ * rows is computed by van Herk / Gil-Werman algorithm, with about 3 comparisons per pixel whatever
+ * the segment length. The value for a pixel is then the maximum of its segment values, one per
+ * element row (for a disk of radius r: 2r+1 comparisons instead of about 3r^2).
+ * <p>
+ * When the structure element is a rectangle (this includes horizontal and vertical lines), the
+ * processing is fully separable: one horizontal pass then one vertical pass, both using van Herk /
+ * Gil-Werman algorithm.
+ * <p>
+ * Erosion is computed as the dilation of inverted values.
+ * Pixels outside image are ignored, as {@link MorphoProcessor} does, hence results are identical.
+ * <p>
+ * Rows are processed by horizontal bands, in parallel when allowed.
+ *
+ * @author Hervé Bitteur
+ */
+public class MorphoFilter
+        extends AbstractGrayFilter
+        implements MorphoConstants
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Value to XOR with pixel value, 0 for dilation, 255 for erosion. */
+    private final int flip;
+
+    /** Row offset of each segment. */
+    private final int[] segDy;
+
+    /** Starting column offset of each segment. */
+    private final int[] segDx;
+
+    /** Index in lengths array of each segment length. */
+    private final int[] segLengthIndex;
+
+    /** Distinct segment lengths. */
+    private final int[] lengths;
+
+    /** Minimum row offset. */
+    private final int minDy;
+
+    /** Maximum row offset. */
+    private final int maxDy;
+
+    /** Maximum absolute column offset. */
+    private final int margin;
+
+    /** True for a rectangular element. */
+    private final boolean rectangle;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new MorphoFilter object.
+     *
+     * @param se        the structure element, assumed to be supported
+     * @param operation either DILATE or ERODE
+     * @see #isSupported(StructureElement)
+     */
+    public MorphoFilter (StructureElement se,
+                         int operation)
+    {
+        if ((operation != DILATE) && (operation != ERODE)) {
+            throw new IllegalArgumentException("Illegal morphology operation " + operation);
+        }
+
+        if (!isSupported(se)) {
+            throw new IllegalArgumentException("Structure element not supported");
+        }
+
+        flip = (operation == DILATE) ? 0 : 255;
+
+        // Gather column offsets per row offset
+        final SortedMap<Integer, List<Integer>> rows = new TreeMap<Integer, List<Integer>>();
+
+        for (int[] v : se.getVect()) {
+            List<Integer> dxs = rows.get(v[0]);
+
+            if (dxs == null) {
+                rows.put(v[0], dxs = new ArrayList<Integer>());
+            }
+
+            dxs.add(v[1]);
+        }
+
+        // Split each row into segments of contiguous offsets
+        final List<int[]> segments = new ArrayList<int[]>(); // dy, dx, length
+        final List<Integer> lengthList = new ArrayList<Integer>();
+        int maxAbsDx = 0;
+
+        for (Integer dy : rows.keySet()) {
+            final List<Integer> dxs = rows.get(dy);
+            int[] seg = null;
+            Collections.sort(dxs);
+
+            for (int dx : dxs) {
+                maxAbsDx = Math.max(maxAbsDx, Math.abs(dx));
+
+                if ((seg != null) && (dx <= (seg[1] + seg[2]))) {
+                    seg[2] = Math.max(seg[2], (dx - seg[1]) + 1);
+                } else {
+                    segments.add(seg = new int[]{dy, dx, 1});
+                }
+            }
+        }
+
+        segDy = new int[segments.size()];
+        segDx = new int[segments.size()];
+        segLengthIndex = new int[segments.size()];
+
+        for (int i = 0; i < segments.size(); i++) {
+            final int[] seg = segments.get(i);
+            segDy[i] = seg[0];
+            segDx[i] = seg[1];
+
+            if (!lengthList.contains(seg[2])) {
+                lengthList.add(seg[2]);
+            }
+
+            segLengthIndex[i] = lengthList.indexOf(seg[2]);
+        }
+
+        lengths = new int[lengthList.size()];
+
+        for (int i = 0; i < lengths.length; i++) {
+            lengths[i] = lengthList.get(i);
+        }
+
+        minDy = rows.firstKey();
+        maxDy = rows.lastKey();
+        margin = maxAbsDx;
+        rectangle = (lengths.length == 1) && (segments.size() == ((maxDy - minDy) + 1))
+                    && isAligned();
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //--------//
+    // filter //
+    //--------//
+    @Override
+    public void filter (final ByteProcessor input,
+                        final ByteProcessor output)
+    {
+        final int width = input.getWidth();
+        final int height = input.getHeight();
+        final byte[] src = (byte[]) input.getPixels();
+        final byte[] dst = (byte[]) output.getPixels();
+
+        if (rectangle) {
+            final int[] tmp = new int[width * height];
+
+            processBands(
+                    height,
+                    new BandProcessor()
+            {
+                @Override
+                public void process (int yStart,
+                                     int yStop)
+                {
+                    filterRows(src, tmp, width, yStart, yStop);
+                }
+            });
+
+            processBands(
+                    height,
+                    new BandProcessor()
+            {
+                @Override
+                public void process (int yStart,
+                                     int yStop)
+                {
+                    filterColumns(tmp, dst, width, height, yStart, yStop);
+                }
+            });
+        } else {
+            processBands(
+                    height,
+                    new BandProcessor()
+            {
+                @Override
+                public void process (int yStart,
+                                     int yStop)
+                {
+                    filterSegments(src, dst, width, height, yStart, yStop);
+                }
+            });
+        }
+    }
+
+    //-------------//
+    // isSupported //
+    //-------------//
+    /**
+     * Report whether the provided structure element can be processed by this filter.
+     * Only flat elements (all mask values being 255) are supported.
+     *
+     * @param se the structure element to check
+     * @return true if supported
+     */
+    public static boolean isSupported (StructureElement se)
+    {
+        final int[][] vect = se.getVect();
+
+        if (vect.length == 0) {
+            return false;
+        }
+
+        for (int[] v : vect) {
+            if (v[2] != 255) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    //-----------------//
+    // runningMaximums //
+    //-----------------//
+    /**
+     * Van Herk / Gil-Werman block computation.
+     * <p>
+     * Values are cut into blocks of 'length' items. Within each block, g gets the maximum from
+     * block start (prefix) and h the maximum up to block end (suffix).
+     * The maximum of values[s .. s+length-1] is then max(h[s], g[s+length-1]).
+     *
+     * @param values the input values
+     * @param n      number of input values
+     * @param length segment length
+     * @param g      (output) prefix maximums
+     * @param h      (output) suffix maximums
+     */
+    private static void runningMaximums (int[] values,
+                                         int n,
+                                         int length,
+                                         int[] g,
+                                         int[] h)
+    {
+        for (int start = 0; start < n; start += length) {
+            final int stop = Math.min(n, start + length);
+            g[start] = values[start];
+
+            for (int i = start + 1; i < stop; i++) {
+                g[i] = Math.max(g[i - 1], values[i]);
+            }
+
+            h[stop - 1] = values[stop - 1];
+
+            for (int i = stop - 2; i >= start; i--) {
+                h[i] = Math.max(h[i + 1], values[i]);
+            }
+        }
+    }
+
+    //---------------//
+    // filterColumns //
+    //---------------//
+    /**
+     * Vertical pass for a rectangular element, for the rows of a band.
+     *
+     * @param tmp    result of horizontal pass (inverted values for erosion)
+     * @param dst    output pixels
+     * @param width  image width
+     * @param height image height
+     * @param yStart first row of band
+     * @param yStop  row just after band
+     */
+    private void filterColumns (int[] tmp,
+                                byte[] dst,
+                                int width,
+                                int height,
+                                int yStart,
+                                int yStop)
+    {
+        final int length = (maxDy - minDy) + 1;
+        final int y0 = yStart + minDy; // Image row of first virtual row
+        final int n = (yStop - yStart) + length - 1; // Number of virtual rows
+        final int[] g = new int[n * width];
+        final int[] h = new int[n * width];
+
+        for (int start = 0; start < n; start += length) {
+            final int stop = Math.min(n, start + length);
+
+            // Prefix maximums
+            copyRow(tmp, y0 + start, height, width, g, start);
+
+            for (int i = start + 1; i < stop; i++) {
+                copyRow(tmp, y0 + i, height, width, g, i);
+
+                final int prev = (i - 1) * width;
+                final int cur = i * width;
+
+                for (int x = 0; x < width; x++) {
+                    g[cur + x] = Math.max(g[cur + x], g[prev + x]);
+                }
+            }
+
+            // Suffix maximums
+            copyRow(tmp, (y0 + stop) - 1, height, width, h, stop - 1);
+
+            for (int i = stop - 2; i >= start; i--) {
+                copyRow(tmp, y0 + i, height, width, h, i);
+
+                final int next = (i + 1) * width;
+                final int cur = i * width;
+
+                for (int x = 0; x < width; x++) {
+                    h[cur + x] = Math.max(h[cur + x], h[next + x]);
+                }
+            }
+        }
+
+        for (int y = yStart; y < yStop; y++) {
+            final int hOffset = (y - yStart) * width;
+            final int gOffset = ((y - yStart) + length - 1) * width;
+            final int offset = y * width;
+
+            for (int x = 0; x < width; x++) {
+                dst[offset + x] = (byte) (Math.max(h[hOffset + x], g[gOffset + x]) ^ flip);
+            }
+        }
+    }
+
+    //------------//
+    // filterRows //
+    //------------//
+    /**
+     * Horizontal pass for a rectangular element, for the rows of a band.
+     *
+     * @param src    input pixels
+     * @param tmp    (output) row maximums (of inverted values for erosion)
+     * @param width  image width
+     * @param yStart first row of band
+     * @param yStop  row just after band
+     */
+    private void filterRows (byte[] src,
+                             int[] tmp,
+                             int width,
+                             int yStart,
+                             int yStop)
+    {
+        final int padded = width + (2 * margin);
+        final int[] line = new int[padded];
+        final int[] g = new int[padded];
+        final int[] h = new int[padded];
+        final int length = lengths[0];
+        final int dx = segDx[0];
+
+        for (int y = yStart; y < yStop; y++) {
+            final int offset = y * width;
+            loadRow(src, offset, width, line);
+            runningMaximums(line, padded, length, g, h);
+
+            for (int x = 0; x < width; x++) {
+                final int s = x + dx + margin;
+                tmp[offset + x] = Math.max(h[s], g[(s + length) - 1]);
+            }
+        }
+    }
+
+    //----------------//
+    // filterSegments //
+    //----------------//
+    /**
+     * Filter the rows of a band, for any element shape.
+     *
+     * @param src    input pixels
+     * @param dst    output pixels
+     * @param width  image width
+     * @param height image height
+     * @param yStart first row of band
+     * @param yStop  row just after band
+     */
+    private void filterSegments (byte[] src,
+                                 byte[] dst,
+                                 int width,
+                                 int height,
+                                 int yStart,
+                                 int yStop)
+    {
+        final int yFirst = Math.max(0, yStart + minDy);
+        final int yLast = Math.min(height - 1, (yStop - 1) + maxDy);
+        final int padded = width + (2 * margin);
+        final int[] line = new int[padded];
+        final int[] g = new int[padded];
+        final int[] h = new int[padded];
+
+        // Running maximums for each distinct length, on all rows involved
+        final int rows = Math.max(0, (yLast - yFirst) + 1);
+        final byte[][] maxima = new byte[lengths.length][rows * padded];
+
+        for (int r = 0; r < rows; r++) {
+            loadRow(src, (yFirst + r) * width, width, line);
+
+            for (int il = 0; il < lengths.length; il++) {
+                final int length = lengths[il];
+                final byte[] max = maxima[il];
+                final int offset = r * padded;
+                runningMaximums(line, padded, length, g, h);
+
+                for (int s = 0; s <= (padded - length); s++) {
+                    max[offset + s] = (byte) Math.max(h[s], g[(s + length) - 1]);
+                }
+            }
+        }
+
+        // Combine segments for each pixel
+        final int[] acc = new int[width];
+
+        for (int y = yStart; y < yStop; y++) {
+            Arrays.fill(acc, 0);
+
+            for (int i = 0; i < segDy.length; i++) {
+                final int ry = y + segDy[i];
+
+                if ((ry < 0) || (ry >= height)) {
+                    continue;
+                }
+
+                final byte[] max = maxima[segLengthIndex[i]];
+                final int base = ((ry - yFirst) * padded) + margin + segDx[i];
+
+                for (int x = 0; x < width; x++) {
+                    acc[x] = Math.max(acc[x], max[base + x] & 0xff);
+                }
+            }
+
+            final int offset = y * width;
+
+            for (int x = 0; x < width; x++) {
+                dst[offset + x] = (byte) (acc[x] ^ flip);
+            }
+        }
+    }
+
+    //-----------//
+    // isAligned //
+    //-----------//
+    private boolean isAligned ()
+    {
+        for (int i = 1; i < segDx.length; i++) {
+            if (segDx[i] != segDx[0]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    //---------//
+    // copyRow //
+    //---------//
+    /**
+     * Copy an image row of tmp values into a virtual row, using 0 for rows outside image.
+     */
+    private static void copyRow (int[] tmp,
+                                 int y,
+                                 int height,
+                                 int width,
+                                 int[] target,
+                                 int index)
+    {
+        if ((y < 0) || (y >= height)) {
+            Arrays.fill(target, index * width, (index + 1) * width, 0);
+        } else {
+            System.arraycopy(tmp, y * width, target, index * width, width);
+        }
+    }
+
+    //---------//
+    // loadRow //
+    //---------//
+    /**
+     * Load an image row into a line padded with 0 on both sides, inverting values
+     * for erosion.
+     */
+    private void loadRow (byte[] src,
+                          int offset,
+                          int width,
+                          int[] line)
+    {
+        for (int x = 0; x < width; x++) {
+            line[margin + x] = (src[offset + x] & 0xff) ^ flip;
+        }
+    }
+}
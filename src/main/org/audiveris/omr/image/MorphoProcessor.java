@@ -23,11 +23,20 @@ package org.audiveris.omr.image;
 
 import ij.process.ByteProcessor;
 
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Class {@code MorphoProcessor}
+ * Class {@code MorphoProcessor} performs gray level morphology operations with a
+ * structure element.
+ * <p>
+ * For a flat structure element, dilate, erode, open and close are by default delegated to
+ * {@link MorphoFilter}, whose cost does not depend on the element area. The original
+ * implementation, which scans the whole element for every pixel, remains available for
+ * comparison, see {@link #MorphoProcessor(StructureElement, boolean)}.
  *
  * @author Hervé Bitteur
  */
@@ -36,6 +45,8 @@ public class MorphoProcessor
 {
     //~ Static fields/initializers -----------------------------------------------------------------
 
+    private static final Constants constants = new Constants();
+
     private static final Logger logger = LoggerFactory.getLogger(MorphoProcessor.class);
 
     private static final int ORIG = 0;
@@ -69,10 +80,37 @@ public class MorphoProcessor
 
     int height;
 
+    /** Linear-time dilation, if any. */
+    private final MorphoFilter dilation;
+
+    /** Linear-time erosion, if any. */
+    private final MorphoFilter erosion;
+
     //~ Constructors -------------------------------------------------------------------------------
     /** Creates a new instance of MorphoProcessor */
     public MorphoProcessor (StructureElement se)
     {
+        this(se, constants.useLinearMorphology.isSet());
+    }
+
+    /**
+     * Creates a new instance of MorphoProcessor, with explicit choice of implementation.
+     *
+     * @param se     the structure element
+     * @param linear true for linear-time implementation (if element is supported), false for
+     *               the original window scanning
+     */
+    public MorphoProcessor (StructureElement se,
+                            boolean linear)
+    {
+        if (linear && MorphoFilter.isSupported(se)) {
+            dilation = new MorphoFilter(se, DILATE);
+            erosion = new MorphoFilter(se, ERODE);
+        } else {
+            dilation = null;
+            erosion = null;
+        }
+
         this.se = se;
         width = se.getWidth();
         height = se.getHeight();
@@ -99,6 +137,14 @@ public class MorphoProcessor
      * */
     public void close (ByteProcessor ip)
     {
+        if (dilation != null) {
+            final ByteProcessor tmp = new ByteProcessor(ip.getWidth(), ip.getHeight());
+            dilation.filter(ip, tmp);
+            erosion.filter(tmp, ip);
+
+            return;
+        }
+
         int width = ip.getWidth();
         int height = ip.getHeight();
         int w = this.width; //se.getWidth();
@@ -158,6 +204,12 @@ public class MorphoProcessor
      */
     public void dilate (ByteProcessor ip)
     {
+        if (dilation != null) {
+            dilation.filter((ByteProcessor) ip.duplicate(), ip);
+
+            return;
+        }
+
         int width = ip.getWidth();
         int height = ip.getHeight();
         int max = 32768; //,k=0,x=0,y=0;
@@ -194,6 +246,12 @@ public class MorphoProcessor
      */
     public void erode (ByteProcessor ip)
     {
+        if (erosion != null) {
+            erosion.filter((ByteProcessor) ip.duplicate(), ip);
+
+            return;
+        }
+
         int width = ip.getWidth();
         int height = ip.getHeight();
         int min = -32767; //,k=0,x=0,y=0;
@@ -320,6 +378,14 @@ public class MorphoProcessor
      */
     public void open (ByteProcessor ip)
     {
+        if (erosion != null) {
+            final ByteProcessor tmp = new ByteProcessor(ip.getWidth(), ip.getHeight());
+            erosion.filter(ip, tmp);
+            dilation.filter(tmp, ip);
+
+            return;
+        }
+
         int width = ip.getWidth();
         int height = ip.getHeight();
         int min = -32767; //,k=0,x=0,y=0;
@@ -436,4 +502,18 @@ public class MorphoProcessor
 
         return wnd;
     }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean useLinearMorphology = new Constant.Boolean(
+                true,
+                "Should we use linear-time morphology rather than full element scanning?");
+    }
 }
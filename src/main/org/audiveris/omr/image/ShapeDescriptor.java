@@ -90,6 +90,12 @@ public class ShapeDescriptor
     /** Color for irrelevant pixels (fully transparent). */
     private static final int TRANS = new Color(0, 0, 0, 0).getRGB();
 
+    /** Alpha level to separate relevant from irrelevant symbol pixels. */
+    static final int BINARIZATION_THRESHOLD = 175;
+
+    /** Transform used to compute distances of template key points. */
+    static final ChamferDistance DISTANCE_TRANSFORM = new ChamferDistance.Short();
+
     //~ Instance fields ----------------------------------------------------------------------------
     private final Shape shape;
 
@@ -119,6 +125,32 @@ public class ShapeDescriptor
         template = createTemplate(shape, interline);
     }
 
+    /**
+     * Creates a ShapeDescriptor object out of already computed key points.
+     *
+     * @param shape     the described shape
+     * @param interline global scale value
+     * @param width     template width
+     * @param height    template height
+     * @param keyPoints template key points
+     */
+    ShapeDescriptor (Shape shape,
+                     int interline,
+                     int width,
+                     int height,
+                     List<PixelDistance> keyPoints)
+    {
+        this.shape = shape;
+        this.interline = interline;
+        this.width = width;
+        this.height = height;
+
+        template = createTemplate(
+                new TemplateSymbol(shape, getCode(shape)),
+                getTemplateInterline(shape, interline),
+                keyPoints);
+    }
+
     //~ Methods ------------------------------------------------------------------------------------
     //----------//
     // evaluate //
@@ -140,6 +172,30 @@ public class ShapeDescriptor
         return template.evaluate(x, y, anchor, distances);
     }
 
+    //----------//
+    // evaluate //
+    //----------//
+    /**
+     * Try the relevant templates at specified location and report best distance found,
+     * giving up on any template as soon as its distance is known to exceed maxDistance.
+     *
+     * @param x           location abscissa
+     * @param y           location ordinate
+     * @param anchor      location WRT template
+     * @param distances   table of distances
+     * @param maxDistance the maximum distance of interest
+     * @return the best distance found if not larger than maxDistance, otherwise a value larger
+     *         than maxDistance
+     */
+    public double evaluate (int x,
+                            int y,
+                            Anchor anchor,
+                            DistanceTable distances,
+                            double maxDistance)
+    {
+        return template.evaluate(x, y, anchor, distances, maxDistance);
+    }
+
     //-----------//
     // getBounds //
     //-----------//
@@ -291,7 +347,7 @@ public class ShapeDescriptor
         }
 
         // Compute template distance transform
-        final DistanceTable distances = new ChamferDistance.Short().compute(fore);
+        final DistanceTable distances = DISTANCE_TRANSFORM.compute(fore);
 
         if (logger.isDebugEnabled()) {
             distances.dump(shape + "  distances");
@@ -367,6 +423,27 @@ public class ShapeDescriptor
         return keyPoints;
     }
 
+    //----------------------//
+    // getTemplateInterline //
+    //----------------------//
+    /**
+     * Report the font interline to use for the template of provided shape.
+     *
+     * @param shape     template shape
+     * @param interline global scale value
+     * @return the interline to use for template font
+     */
+    private static int getTemplateInterline (Shape shape,
+                                             int interline)
+    {
+        // Void head templates are generally too small, so we cheat on font size
+        if (shape == Shape.NOTEHEAD_VOID) {
+            return interline + MusicFont.NOTEHEAD_VOID_EXTENT;
+        }
+
+        return interline;
+    }
+
     //------------//
     // addAnchors //
     //------------//
@@ -496,10 +573,7 @@ public class ShapeDescriptor
     private Template createTemplate (Shape shape,
                                      int interline)
     {
-        // Void head templates are generally too small, so we cheat on font size
-        if (shape == Shape.NOTEHEAD_VOID) {
-            interline += MusicFont.NOTEHEAD_VOID_EXTENT;
-        }
+        interline = getTemplateInterline(shape, interline);
 
         MusicFont font = MusicFont.getFont(interline);
 
@@ -509,7 +583,7 @@ public class ShapeDescriptor
         width = img.getWidth();
         height = img.getHeight();
 
-        binarize(img, 175);
+        binarize(img, BINARIZATION_THRESHOLD);
 
         // Distances to foreground
         final DistanceTable distances = computeDistances(img, shape);
@@ -528,6 +602,24 @@ public class ShapeDescriptor
         // Generate key points for relevant pixels (fore, holes or back)
         final List<PixelDistance> keyPoints = getKeyPoints(img, distances);
 
+        return createTemplate(symbol, interline, keyPoints);
+    }
+
+    //----------------//
+    // createTemplate //
+    //----------------//
+    /**
+     * Build the template instance out of its key points.
+     *
+     * @param symbol    the template symbol
+     * @param interline scaling for font (already adjusted for void heads)
+     * @param keyPoints the key points
+     * @return the template, with its anchors
+     */
+    private Template createTemplate (TemplateSymbol symbol,
+                                     int interline,
+                                     List<PixelDistance> keyPoints)
+    {
         // Generate the template instance
         Template template = new Template(shape, interline, symbol, width, height, keyPoints);
 
@@ -60,6 +60,10 @@ import java.util.Map.Entry;
  * <dd>These regions will be neutralized in the distance table, hence the templates don't have to
  * cope with them.</dd>
  * </dl>
+ * <p>
+ * Key points are compiled at construction into flat arrays of relative locations, expected
+ * distances and weights, so that the matching kernel runs without any object access.
+ * The kernel can also stop as soon as the computed distance is known to exceed a given bound.
  *
  * @author Hervé Bitteur
  */
@@ -75,6 +79,9 @@ public class Template
     /** Ratio applied to small symbols (cue / grace). */
     public static final double smallRatio = constants.smallRatio.getValue();
 
+    /** Relative margin on the bound used for early abandon. */
+    private static final double ABANDON_MARGIN = 1e-9;
+
     //~ Instance fields ----------------------------------------------------------------------------
     /** Template shape. */
     private final Shape shape;
@@ -88,6 +95,21 @@ public class Template
     /** Collection of key points defined for this template. */
     private final List<PixelDistance> keyPoints;
 
+    /** Compiled key points: abscissa of each key point, relative to template. */
+    private final int[] keyXs;
+
+    /** Compiled key points: ordinate of each key point, relative to template. */
+    private final int[] keyYs;
+
+    /** Compiled key points: expected distance at each key point. */
+    private final double[] keyDists;
+
+    /** Compiled key points: weight of each key point. */
+    private final double[] keyWeights;
+
+    /** Sum of all key point weights. */
+    private final double weightSum;
+
     /** Template width. (perhaps larger than the symbol width) */
     private final int width;
 
@@ -130,6 +152,28 @@ public class Template
         this.height = height;
 
         symbolBounds = new Rectangle(symbol.getSymbolBounds(MusicFont.getFont(interline)));
+
+        // Compile key points
+        final int count = keyPoints.size();
+        final double foreWeight = constants.foreWeight.getValue();
+        final double backWeight = constants.backWeight.getValue();
+        keyXs = new int[count];
+        keyYs = new int[count];
+        keyDists = new double[count];
+        keyWeights = new double[count];
+
+        double sum = 0;
+
+        for (int i = 0; i < count; i++) {
+            final PixelDistance pix = keyPoints.get(i);
+            keyXs[i] = pix.x;
+            keyYs[i] = pix.y;
+            keyDists[i] = pix.d;
+            keyWeights[i] = (pix.d > 0) ? backWeight : foreWeight;
+            sum += keyWeights[i];
+        }
+
+        weightSum = sum;
     }
 
     //~ Methods ------------------------------------------------------------------------------------
@@ -206,38 +250,77 @@ public class Template
                             int y,
                             Anchor anchor,
                             DistanceTable distances)
+    {
+        return evaluate(x, y, anchor, distances, Double.POSITIVE_INFINITY);
+    }
+
+    //----------//
+    // evaluate //
+    //----------//
+    /**
+     * Evaluate this template at location (x,y) in provided distances table, giving up
+     * as soon as the result is known to exceed the provided maximum distance.
+     * <p>
+     * Since the weights of the key points not yet visited cannot exceed the sum of all template
+     * weights, the partial sum of weighted square distances gives a lower bound of the result.
+     *
+     * @param x           location abscissa
+     * @param y           location ordinate
+     * @param anchor      the anchor kind to use for (x,y), null for upper left
+     * @param distances   the distance table to search
+     * @param maxDistance the maximum distance of interest
+     * @return the quadratic average distance computed on all key positions if not larger than
+     *         maxDistance, otherwise a value larger than maxDistance
+     */
+    public double evaluate (int x,
+                            int y,
+                            Anchor anchor,
+                            DistanceTable distances,
+                            double maxDistance)
     {
         final Point ul = upperLeft(x, y, anchor);
+        final int imgWidth = distances.getWidth();
+        final int imgHeight = distances.getHeight();
+        final int normalizer = distances.getNormalizer();
+
+        // If template lies within image, there is no need to check each key point location
+        final boolean inside = (ul.x >= 0) && (ul.y >= 0) && ((ul.x + width) <= imgWidth)
+                               && ((ul.y + height) <= imgHeight);
+
+        // Cumulated value beyond which result would certainly exceed maxDistance
+        // (with a tiny margin to stay clear of rounding effects)
+        final double maxNorm = maxDistance * normalizer;
+        final double maxTotal = maxNorm * maxNorm * weightSum * (1 + ABANDON_MARGIN);
 
         // Loop through template key positions and read related distance.
         // Compute the mean value on all distances read
-        final int imgWidth = distances.getWidth();
-        final int imgHeight = distances.getHeight();
-        final double foreWeight = constants.foreWeight.getValue();
-        final double backWeight = constants.backWeight.getValue();
         double weights = 0; // Sum of weights
         double total = 0; // Sum of weighted square distances
 
-        for (PixelDistance pix : keyPoints) {
-            int nx = ul.x + pix.x;
-            int ny = ul.y + pix.y;
+        for (int i = 0; i < keyXs.length; i++) {
+            final int nx = ul.x + keyXs[i];
+            final int ny = ul.y + keyYs[i];
 
             // Ignore tested point if located out of image
-            if ((nx >= 0) && (nx < imgWidth) && (ny >= 0) && (ny < imgHeight)) {
-                int tableDist = distances.getValue(nx, ny);
+            if (inside || ((nx >= 0) && (nx < imgWidth) && (ny >= 0) && (ny < imgHeight))) {
+                final int tableDist = distances.getValue(nx, ny);
 
                 // Ignore neutralized locations in distance table
                 if (tableDist != ChamferDistance.VALUE_UNKNOWN) {
-                    double weight = (pix.d > 0) ? backWeight : foreWeight;
+                    final double weight = keyWeights[i];
                     weights += weight;
 
-                    double dist = tableDist - pix.d;
+                    final double dist = tableDist - keyDists[i];
                     total += (weight * (dist * dist)); // Square
+
+                    if (total > maxTotal) {
+                        return Math.sqrt(total / weightSum) / normalizer; // Early abandon
+                    }
                 }
             }
         }
 
-        return Math.sqrt(total / weights) / distances.getNormalizer();
+        return Math.sqrt(total / weights) / normalizer;
     }
 
     //-----------------//
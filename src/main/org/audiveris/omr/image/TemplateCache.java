@@ -0,0 +1,362 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                   T e m p l a t e C a c h e                                    //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import org.audiveris.omr.WellKnowns;
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.glyph.Shape;
+import org.audiveris.omr.ui.symbol.MusicFont;
+import org.audiveris.omr.util.UriUtil;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.zip.CRC32;
+
+/**
+ * Class {@code TemplateCache} persists the template descriptors of a catalog, so that
+ * templates built for a given interline value can be reused by later runs.
+ * <p>
+ * Building a template implies rendering the MusicFont symbol and computing distances for each of
+ * its key points. This is done only once per interline value, the resulting key points being then
+ * stored in a small binary file of the cache folder, one file per interline value.
+ * <p>
+ * Each file begins with a signature computed on the program version, the template code version,
+ * the MusicFont file content, the distance metric of key points and the constants that drive
+ * template building. A file whose signature does not match is simply ignored (and later
+ * overwritten), hence any such change transparently invalidates the cache.
+ * If the MusicFont file cannot be read, no signature can be computed and the cache is not used.
+ * <p>
+ * File layout (big endian):
+ * <pre>
+ * int  MAGIC
+ * int  VERSION
+ * int  interline
+ * long signature
+ * int  number of descriptors, then for each descriptor:
+ *      short   length of shape name, then shape name bytes
+ *      int     template width
+ *      int     template height
+ *      int     number of key points, then for each key point:
+ *              short x, short y, int d
+ * </pre>
+ *
+ * @author Hervé Bitteur
+ */
+public abstract class TemplateCache
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(TemplateCache.class);
+
+    /** File magic number. */
+    private static final int MAGIC = 0x54504C43; // "TPLC"
+
+    /** File format version. */
+    private static final int VERSION = 1;
+
+    /**
+     * Version of template building code.
+     * To be incremented with any change in the way templates and their key points are built
+     * (see {@link Template}, {@link ShapeDescriptor} and {@link TemplateFactory}).
+     */
+    private static final int TEMPLATE_CODE_VERSION = 1;
+
+    /** Value reported when no signature could be computed. (A CRC32 value is never negative) */
+    private static final long NO_SIGNATURE = -1;
+
+    /** Folder for cache files. */
+    private static final Path CACHE_FOLDER = WellKnowns.TEMP_FOLDER.resolve("templates");
+
+    /** Foreground pattern used to fingerprint the distance metric of key points. */
+    private static final boolean[][] METRIC_PROBE = new boolean[7][5];
+
+    static {
+        METRIC_PROBE[0][0] = true;
+        METRIC_PROBE[3][2] = true;
+    }
+
+    /** Signature of the current template building context, lazily computed. */
+    private static volatile Long signature;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-----------//
+    // isEnabled //
+    //-----------//
+    /**
+     * Report whether the persistent cache is to be used.
+     *
+     * @return true if enabled and if a signature could be computed
+     */
+    public static boolean isEnabled ()
+    {
+        return constants.useTemplateCache.isSet() && (getSignature() != NO_SIGNATURE);
+    }
+
+    //------//
+    // load //
+    //------//
+    /**
+     * Load the descriptors cached for the provided interline value.
+     * <p>
+     * The file is read in memory rather than mapped, since a mapping would remain alive until
+     * garbage collection and thus prevent a later {@link #store} from replacing the file on some
+     * platforms (notably Windows).
+     *
+     * @param interline the catalog interline value
+     * @return the map of cached descriptors, or null if no valid cache file exists
+     */
+    public static Map<Shape, ShapeDescriptor> load (int interline)
+    {
+        final Path path = getPath(interline);
+
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        try {
+            final ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(path));
+
+            if ((buf.getInt() != MAGIC) || (buf.getInt() != VERSION)
+                || (buf.getInt() != interline) || (buf.getLong() != getSignature())) {
+                logger.debug("Obsolete template cache {}", path);
+
+                return null;
+            }
+
+            final Map<Shape, ShapeDescriptor> descriptors = new EnumMap<Shape, ShapeDescriptor>(
+                    Shape.class);
+
+            for (int i = buf.getInt(); i > 0; i--) {
+                final Shape shape = Shape.valueOf(readName(buf));
+                final int width = buf.getInt();
+                final int height = buf.getInt();
+                final int count = buf.getInt();
+                final List<PixelDistance> keyPoints = new ArrayList<PixelDistance>(count);
+
+                for (int k = 0; k < count; k++) {
+                    final int x = buf.getShort();
+                    final int y = buf.getShort();
+                    keyPoints.add(new PixelDistance(x, y, buf.getInt()));
+                }
+
+                descriptors.put(
+                        shape,
+                        new ShapeDescriptor(shape, interline, width, height, keyPoints));
+            }
+
+            logger.debug("Loaded template cache {}", path);
+
+            return descriptors;
+        } catch (Exception ex) {
+            logger.warn("Could not load template cache {} {}", path, ex.toString());
+
+            return null;
+        }
+    }
+
+    //-------//
+    // store //
+    //-------//
+    /**
+     * Store the provided descriptors into the cache file for their interline value.
+     * <p>
+     * The file is written aside, then moved in place, so that a concurrent reader never sees a
+     * partial file.
+     *
+     * @param interline   the catalog interline value
+     * @param descriptors the descriptors to store
+     */
+    public static void store (int interline,
+                              Map<Shape, ShapeDescriptor> descriptors)
+    {
+        final Path path = getPath(interline);
+        Path tmp = null;
+
+        try {
+            Files.createDirectories(CACHE_FOLDER);
+            tmp = Files.createTempFile(CACHE_FOLDER, path.getFileName().toString(), ".tmp");
+
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(interline);
+                out.writeLong(getSignature());
+                out.writeInt(descriptors.size());
+
+                for (Entry<Shape, ShapeDescriptor> entry : descriptors.entrySet()) {
+                    final Template template = entry.getValue().getTemplate();
+                    final List<PixelDistance> keyPoints = template.getKeyPoints();
+                    final byte[] name = entry.getKey().name().getBytes(StandardCharsets.US_ASCII);
+                    out.writeShort(name.length);
+                    out.write(name);
+                    out.writeInt(template.getWidth());
+                    out.writeInt(template.getHeight());
+                    out.writeInt(keyPoints.size());
+
+                    for (PixelDistance pix : keyPoints) {
+                        out.writeShort(pix.x);
+                        out.writeShort(pix.y);
+                        out.writeInt((int) pix.d);
+                    }
+                }
+            }
+
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+            logger.debug("Stored template cache {}", path);
+        } catch (IOException ex) {
+            logger.warn("Could not store template cache {} {}", path, ex.toString());
+
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    //---------//
+    // getPath //
+    //---------//
+    private static Path getPath (int interline)
+    {
+        return CACHE_FOLDER.resolve("templates-" + interline + ".bin");
+    }
+
+    //--------------//
+    // getSignature //
+    //--------------//
+    /**
+     * Report the signature of template building context: program and template code
+     * versions, MusicFont file content, distance metric and constants that impact the key points.
+     *
+     * @return the context signature, or NO_SIGNATURE if MusicFont file could not be read
+     */
+    private static long getSignature ()
+    {
+        Long sig = signature;
+
+        if (sig == null) {
+            final CRC32 crc = new CRC32();
+            crc.update(WellKnowns.TOOL_REF.getBytes(StandardCharsets.UTF_8));
+
+            try (InputStream input = UriUtil.toURI(
+                    WellKnowns.RES_URI,
+                    MusicFont.FONT_NAME + ".ttf").toURL().openStream()) {
+                final byte[] bytes = new byte[8192];
+
+                for (int n; (n = input.read(bytes)) != -1;) {
+                    crc.update(bytes, 0, n);
+                }
+            } catch (IOException ex) {
+                logger.warn("Could not read music font file, no template cache {}", ex.toString());
+                signature = NO_SIGNATURE;
+
+                return NO_SIGNATURE;
+            }
+
+            final ByteBuffer context = ByteBuffer.allocate(20);
+            context.putInt(TEMPLATE_CODE_VERSION);
+            context.putDouble(Template.smallRatio);
+            context.putInt(MusicFont.NOTEHEAD_VOID_EXTENT);
+            context.putInt(ShapeDescriptor.BINARIZATION_THRESHOLD);
+            crc.update(context.array());
+            updateMetric(crc);
+
+            signature = sig = crc.getValue();
+        }
+
+        return sig;
+    }
+
+    //----------//
+    // readName //
+    //----------//
+    private static String readName (ByteBuffer buf)
+    {
+        final byte[] bytes = new byte[buf.getShort()];
+        buf.get(bytes);
+
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    //--------------//
+    // updateMetric //
+    //--------------//
+    /**
+     * Fingerprint the distance metric of template key points, through the transform class
+     * and the distances it computes on a small probe pattern.
+     *
+     * @param crc the checksum to update
+     */
+    private static void updateMetric (CRC32 crc)
+    {
+        final ChamferDistance transform = ShapeDescriptor.DISTANCE_TRANSFORM;
+        crc.update(transform.getClass().getName().getBytes(StandardCharsets.US_ASCII));
+
+        final DistanceTable probe = transform.compute(METRIC_PROBE);
+        final ByteBuffer values = ByteBuffer.allocate(
+                4 * (1 + (probe.getWidth() * probe.getHeight())));
+        values.putInt(probe.getNormalizer());
+
+        for (int y = 0; y < probe.getHeight(); y++) {
+            for (int x = 0; x < probe.getWidth(); x++) {
+                values.putInt(probe.getValue(x, y));
+            }
+        }
+
+        crc.update(values.array());
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean useTemplateCache = new Constant.Boolean(
+                true,
+                "Should we persist note head templates from one run to the other?");
+    }
+}
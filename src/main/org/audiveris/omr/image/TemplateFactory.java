@@ -27,6 +27,7 @@ import org.audiveris.omr.glyph.ShapeSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
@@ -34,6 +35,8 @@ import java.util.Map;
 /**
  * Class {@code TemplateFactory} builds needed instances of {@link Template} class
  * and keeps a catalog per desired size and shape.
+ * <p>
+ * Catalogs are also persisted from one run to the other, see {@link TemplateCache}.
  *
  * @author Hervé Bitteur
  */
@@ -97,6 +100,31 @@ public class TemplateFactory
         return catalog;
     }
 
+    //---------//
+    // prewarm //
+    //---------//
+    /**
+     * Make sure the catalogs for the provided interline values are available, both in
+     * memory and in persistent cache.
+     *
+     * @param interlines the interline values to prepare
+     */
+    public void prewarm (Collection<Integer> interlines)
+    {
+        int count = 0;
+
+        for (Integer interline : interlines) {
+            if ((interline == null) || (interline <= 0)) {
+                logger.warn("Illegal interline value {} for templates", interline);
+            } else {
+                getCatalog(interline);
+                count++;
+            }
+        }
+
+        logger.info("Templates prewarmed for {} interline value(s)", count);
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
     //---------//
     // Catalog //
@@ -146,9 +174,27 @@ public class TemplateFactory
         //-------------------//
         private void buildAllTemplates ()
         {
+            final boolean useCache = TemplateCache.isEnabled();
+
+            if (useCache) {
+                final Map<Shape, ShapeDescriptor> cached = TemplateCache.load(interline);
+
+                if ((cached != null) && cached.keySet().containsAll(ShapeSet.TemplateNotes)) {
+                    for (Shape shape : ShapeSet.TemplateNotes) {
+                        descriptors.put(shape, cached.get(shape));
+                    }
+
+                    return;
+                }
+            }
+
             for (Shape shape : ShapeSet.TemplateNotes) {
                 descriptors.put(shape, new ShapeDescriptor(shape, interline));
             }
+
+            if (useCache) {
+                TemplateCache.store(interline, descriptors);
+            }
         }
     }
 }
@@ -0,0 +1,335 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                               T i l e d S k e l e t o n i z e r                                //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.image.ColorModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+/**
+ * Class {@code TiledSkeletonizer} skeletonizes a binary image band per band, so that
+ * bands can be thinned in parallel.
+ * <p>
+ * The image is split into horizontal bands which span the whole image width.
+ * Each band is thinned by ImageJ {@link ByteProcessor#skeletonize()} on a private copy of its
+ * pixels, augmented by a margin of rows above and below the band.
+ * Since every thinning iteration only looks at the immediate neighborhood of a pixel, the band
+ * interior is not impacted by the artificial band borders as long as the margin is larger than the
+ * thickness of the strokes cut by these borders.
+ * <p>
+ * This assumption is checked at each seam between two adjacent bands: their results must agree on
+ * the rows around the seam, which both bands have computed independently.
+ * Otherwise, the disagreeing adjacent bands are merged and thinned again, until all seams agree.
+ * In the worst case, all bands get merged into the whole image, which is then thinned at once.
+ *
+ * @author Hervé Bitteur
+ */
+public class TiledSkeletonizer
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(TiledSkeletonizer.class);
+
+    /** Minimum margin, so that seam checks compare at least one row on each side of a seam. */
+    public static final int MIN_MARGIN = 2;
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Height of band interior. */
+    private final int bandHeight;
+
+    /** Number of additional rows on each side of band interior. */
+    private final int margin;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code TiledSkeletonizer} object.
+     *
+     * @param bandHeight height of each band interior, in pixels
+     * @param margin     number of rows added above and below each band, in pixels
+     *                   (at least {@link #MIN_MARGIN})
+     */
+    public TiledSkeletonizer (int bandHeight,
+                              int margin)
+    {
+        if ((bandHeight <= 0) || (margin < MIN_MARGIN)) {
+            throw new IllegalArgumentException(
+                    "Illegal band height " + bandHeight + " or margin " + margin);
+        }
+
+        this.bandHeight = bandHeight;
+        this.margin = margin;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------------//
+    // skeletonize //
+    //-------------//
+    /**
+     * Skeletonize the provided binary buffer in place.
+     * The result is meant to be identical to {@code buffer.skeletonize()}.
+     *
+     * @param buffer the binary buffer to thin
+     */
+    public void skeletonize (ByteProcessor buffer)
+    {
+        final int height = buffer.getHeight();
+
+        if (height <= bandHeight) {
+            buffer.skeletonize();
+
+            return;
+        }
+
+        List<Band> bands = new ArrayList<Band>();
+
+        for (int y = 0; y < height; y += bandHeight) {
+            bands.add(new Band(buffer, y, Math.min(height, y + bandHeight)));
+        }
+
+        List<Band> toThin = bands;
+
+        while (!toThin.isEmpty()) {
+            thinBands(toThin);
+
+            // Reconcile seams, each sequence of disagreeing bands being merged into one band
+            final List<Band> reconciled = new ArrayList<Band>();
+            toThin = new ArrayList<Band>();
+
+            for (int i = 0; i < bands.size();) {
+                int j = i;
+
+                while ((j < (bands.size() - 1)) && !bands.get(j).agreesWith(bands.get(j + 1))) {
+                    j++;
+                }
+
+                if (j == i) {
+                    reconciled.add(bands.get(i));
+                } else {
+                    final Band merged = new Band(buffer, bands.get(i).yStart, bands.get(j).yStop);
+                    logger.debug("Merged skeleton {}", merged);
+                    reconciled.add(merged);
+                    toThin.add(merged);
+                }
+
+                i = j + 1;
+            }
+
+            bands = reconciled;
+        }
+
+        final byte[] pixels = (byte[]) buffer.getPixels();
+
+        for (Band band : bands) {
+            band.copyInterior(pixels);
+        }
+    }
+
+    //-----------//
+    // thinBands //
+    //-----------//
+    /**
+     * Thin all the provided bands, in parallel unless parallelism is not allowed.
+     *
+     * @param bands the bands to process
+     */
+    private void thinBands (List<Band> bands)
+    {
+        if (OmrExecutors.defaultParallelism.getSpecific() == false) {
+            // Sequential
+            for (Band band : bands) {
+                band.thin();
+            }
+        } else {
+            // Parallel
+            try {
+                List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+                for (final Band band : bands) {
+                    tasks.add(
+                            new Callable<Void>()
+                    {
+                        @Override
+                        public Void call ()
+                                throws Exception
+                        {
+                            band.thin();
+
+                            return null;
+                        }
+                    });
+                }
+
+                // Launch the tasks and wait for their completion
+                for (Future<Void> future : OmrExecutors.getHighExecutor().invokeAll(tasks)) {
+                    future.get(); // To propagate any exception
+                }
+            } catch (InterruptedException ex) {
+                logger.warn("TiledSkeletonizer got interrupted");
+                throw new ProcessingCancellationException(ex);
+            } catch (ProcessingCancellationException pce) {
+                throw pce;
+            } catch (Throwable ex) {
+                logger.warn("Exception raised in TiledSkeletonizer", ex);
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //------//
+    // Band //
+    //------//
+    /**
+     * A horizontal band of the image, with its interior rows and its window of thinned
+     * rows (interior plus margins).
+     */
+    private class Band
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Source buffer. */
+        private final ByteProcessor buffer;
+
+        /** Source color model. */
+        private final ColorModel cm;
+
+        /** Image width. */
+        private final int width;
+
+        /** First interior row. */
+        private final int yStart;
+
+        /** Row past interior. */
+        private final int yStop;
+
+        /** First window row. */
+        private final int wStart;
+
+        /** Row past window. */
+        private final int wStop;
+
+        /** Thinned window pixels. */
+        private byte[] result;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public Band (ByteProcessor buffer,
+                     int yStart,
+                     int yStop)
+        {
+            this.buffer = buffer;
+            this.yStart = yStart;
+            this.yStop = yStop;
+
+            cm = buffer.getColorModel();
+            width = buffer.getWidth();
+            wStart = Math.max(0, yStart - margin);
+            wStop = Math.min(buffer.getHeight(), yStop + margin);
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        //------------//
+        // agreesWith //
+        //------------//
+        /**
+         * Check whether this band and the following one give the same pixels around
+         * their common seam.
+         * Rows too close to the window limit of either band are not compared, since they are
+         * impacted by the artificial window borders.
+         * Since margin is at least MIN_MARGIN, the last row of this band and the first row of the
+         * lower band are always compared.
+         *
+         * @param lower the band right below this one
+         * @return true if results agree
+         */
+        public boolean agreesWith (Band lower)
+        {
+            final int half = margin / 2;
+            final int yMin = Math.max(lower.wStart, yStop - half);
+            final int yMax = Math.min(wStop, yStop + half);
+
+            for (int y = yMin; y < yMax; y++) {
+                final int upperOffset = (y - wStart) * width;
+                final int lowerOffset = (y - lower.wStart) * width;
+
+                for (int x = 0; x < width; x++) {
+                    if (result[upperOffset + x] != lower.result[lowerOffset + x]) {
+                        return false;
+                    }
+                }
+            }
+
+            return true;
+        }
+
+        //--------------//
+        // copyInterior //
+        //--------------//
+        /**
+         * Copy the thinned interior rows into the provided image pixels.
+         *
+         * @param pixels the whole image pixels
+         */
+        public void copyInterior (byte[] pixels)
+        {
+            System.arraycopy(
+                    result,
+                    (yStart - wStart) * width,
+                    pixels,
+                    yStart * width,
+                    (yStop - yStart) * width);
+        }
+
+        //------//
+        // thin //
+        //------//
+        /**
+         * Thin a copy of the window pixels.
+         */
+        public void thin ()
+        {
+            final byte[] pixels = (byte[]) buffer.getPixels();
+            result = Arrays.copyOfRange(pixels, wStart * width, wStop * width);
+
+            new ByteProcessor(width, wStop - wStart, result, cm).skeletonize();
+        }
+
+        //----------//
+        // toString //
+        //----------//
+        @Override
+        public String toString ()
+        {
+            return "Band[" + yStart + "-" + yStop + "]";
+        }
+    }
+}
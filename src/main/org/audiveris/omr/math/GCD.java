@@ -79,6 +79,28 @@ public abstract class GCD
         }
     }
 
+    //-----//
+    // gcd //
+    //-----//
+    /**
+     * Basic gcd computation for 2 long values, assumed to be positive or zero.
+     *
+     * @param m one long value
+     * @param n another long value
+     * @return the gcd of the two values
+     */
+    public static long gcd (long m,
+                            long n)
+    {
+        while (n != 0) {
+            final long r = m % n;
+            m = n;
+            n = r;
+        }
+
+        return m;
+    }
+
     //-----//
     // gcd //
     //-----//
@@ -21,8 +21,6 @@
 // </editor-fold>
 package org.audiveris.omr.math;
 
-import java.math.BigInteger;
-
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -39,6 +37,11 @@ import javax.xml.bind.annotation.adapters.XmlAdapter;
  * <li>The denominator value is always kept positive : den >= 1</li>
  * </ol></p>
  * <p>
+ * Intermediate computations are performed on long values, hence no overflow can occur as long as
+ * the reduced result fits in int values.
+ * For repeated additions and comparisons in hot loops, see {@link RationalAccumulator} which
+ * allocates no intermediate instance.</p>
+ * <p>
  * It is (un)marshallable through JAXB.</p>
  *
  * @author Hervé Bitteur
@@ -106,6 +109,21 @@ public class Rational
         this.den = den;
     }
 
+    /**
+     * Create a Rational instance from values already reduced, with positive den.
+     *
+     * @param num     reduced numerator value
+     * @param den     reduced and positive denominator value
+     * @param reduced (not used) meant to differentiate from the public constructor
+     */
+    private Rational (int num,
+                      int den,
+                      boolean reduced)
+    {
+        this.num = num;
+        this.den = den;
+    }
+
     /** Needed for JAXB. */
     private Rational ()
     {
@@ -167,7 +185,7 @@ public class Rational
      */
     public Rational abs ()
     {
-        return new Rational(Math.abs(num), den);
+        return (num >= 0) ? this : new Rational(-num, den, true);
     }
 
     //-----------//
@@ -182,23 +200,12 @@ public class Rational
     @Override
     public int compareTo (Rational that)
     {
-        int a = this.num * that.den;
-        int b = this.den * that.num;
-
-        // Detect overflow, using the fact that den's are always >= 1
-        if ((Integer.signum(b) != Integer.signum(that.num))
-            || (Integer.signum(a) != Integer.signum(this.num))) {
-            BigInteger bigThisNum = BigInteger.valueOf(this.num);
-            BigInteger bigThisDen = BigInteger.valueOf(this.den);
-            BigInteger bigThatNum = BigInteger.valueOf(that.num);
-            BigInteger bigThatDen = BigInteger.valueOf(that.den);
-            BigInteger A = bigThisNum.multiply(bigThatDen);
-            BigInteger B = bigThisDen.multiply(bigThatNum);
-
-            return A.compareTo(B);
-        } else {
-            return Integer.signum(a - b);
+        if (this.den == that.den) {
+            return Integer.compare(this.num, that.num);
         }
+
+        // Products of int values cannot overflow a long
+        return Long.compare((long) this.num * that.den, (long) this.den * that.num);
     }
 
     //---------//
@@ -226,7 +233,7 @@ public class Rational
      */
     public Rational divides (int that)
     {
-        return new Rational(num, den * that);
+        return valueOf(num, (long) den * that);
     }
 
     //-------------//
@@ -298,7 +305,11 @@ public class Rational
      */
     public Rational inverse ()
     {
-        return new Rational(den, num);
+        if (num == 0) {
+            throw new IllegalArgumentException("Denominator is zero");
+        }
+
+        return (num > 0) ? new Rational(den, num, true) : new Rational(-den, -num, true);
     }
 
     //-----------//
@@ -321,7 +332,17 @@ public class Rational
      */
     public Rational minus (Rational that)
     {
-        return plus(that.opposite());
+        if (that.num == 0) {
+            return this;
+        }
+
+        if (this.den == that.den) {
+            return valueOf((long) this.num - that.num, den);
+        }
+
+        return valueOf(
+                ((long) this.num * that.den) - ((long) this.den * that.num),
+                (long) this.den * that.den);
     }
 
     //-------//
@@ -348,7 +369,7 @@ public class Rational
      */
     public Rational opposite ()
     {
-        return new Rational(-num, den);
+        return new Rational(-num, den, true);
     }
 
     //------//
@@ -362,15 +383,21 @@ public class Rational
      */
     public Rational plus (Rational that)
     {
-        if (this.equals(ZERO)) {
+        if (this.num == 0) {
             return that;
         }
 
-        if (that.equals(ZERO)) {
+        if (that.num == 0) {
             return this;
         }
 
-        return new Rational((this.num * that.den) + (this.den * that.num), this.den * that.den);
+        if (this.den == that.den) {
+            return valueOf((long) this.num + that.num, den);
+        }
+
+        return valueOf(
+                ((long) this.num * that.den) + ((long) this.den * that.num),
+                (long) this.den * that.den);
     }
 
     //------//
@@ -384,7 +411,11 @@ public class Rational
      */
     public Rational plus (int that)
     {
-        return plus(new Rational(that, 1));
+        if (that == 0) {
+            return this;
+        }
+
+        return valueOf(num + ((long) that * den), den);
     }
 
     //-------//
@@ -398,7 +429,7 @@ public class Rational
      */
     public Rational times (Rational that)
     {
-        return new Rational(this.num * that.num, this.den * that.den);
+        return valueOf((long) this.num * that.num, (long) this.den * that.den);
     }
 
     //-------//
@@ -412,7 +443,7 @@ public class Rational
      */
     public Rational times (int that)
     {
-        return new Rational(num * that, den);
+        return valueOf((long) num * that, den);
     }
 
     //----------//
@@ -428,6 +459,46 @@ public class Rational
         }
     }
 
+    //---------//
+    // valueOf //
+    //---------//
+    /**
+     * Report the Rational instance for the provided long values.
+     *
+     * @param num numerator value
+     * @param den denominator value
+     * @return the reduced rational
+     * @throws IllegalArgumentException if the provided denominator is zero
+     * @throws ArithmeticException      if the reduced values do not fit in int values
+     */
+    static Rational valueOf (long num,
+                             long den)
+    {
+        if (den == 0) {
+            throw new IllegalArgumentException("Denominator is zero");
+        }
+
+        if (den < 0) {
+            den = -den;
+            num = -num;
+        }
+
+        if (den != 1) {
+            final long gcd = GCD.gcd(Math.abs(num), den);
+
+            if (gcd > 1) {
+                num /= gcd;
+                den /= gcd;
+            }
+        }
+
+        if ((num < Integer.MIN_VALUE) || (num > Integer.MAX_VALUE) || (den > Integer.MAX_VALUE)) {
+            throw new ArithmeticException("Rational overflow " + num + "/" + den);
+        }
+
+        return new Rational((int) num, (int) den, true);
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
     //---------//
     // Adapter //
@@ -0,0 +1,237 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                             R a t i o n a l A c c u m u l a t o r                              //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.math;
+
+/**
+ * Class {@code RationalAccumulator} is a mutable rational value, meant for the hot loops
+ * that repeatedly add or compare durations, without allocating any intermediate
+ * {@link Rational} instance.
+ * <p>
+ * Value is kept as a pair of primitive values, with a positive denominator.
+ * Additions of values that share the current denominator (the most frequent case for durations)
+ * need no multiplication and no reduction, other additions reduce the result.
+ * <p>
+ * Like {@link Rational}, the accumulated value is assumed to fit in int values, an
+ * ArithmeticException being raised otherwise.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Hervé Bitteur
+ */
+public class RationalAccumulator
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Current numerator. */
+    private long num;
+
+    /** Current denominator, always positive. */
+    private long den = 1;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code RationalAccumulator} object, with zero value.
+     */
+    public RationalAccumulator ()
+    {
+    }
+
+    /**
+     * Creates a new {@code RationalAccumulator} object, with the provided value.
+     *
+     * @param value the initial value
+     */
+    public RationalAccumulator (Rational value)
+    {
+        set(value);
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-----//
+    // add //
+    //-----//
+    /**
+     * Add the provided value.
+     *
+     * @param value the value to add
+     * @return this accumulator
+     */
+    public RationalAccumulator add (Rational value)
+    {
+        if (value.num != 0) {
+            if (value.den == den) {
+                num += value.num;
+            } else {
+                num = (num * value.den) + (value.num * den);
+                den *= value.den;
+                reduce();
+            }
+        }
+
+        return this;
+    }
+
+    //-----------//
+    // compareTo //
+    //-----------//
+    /**
+     * Compare the current value with the provided one.
+     *
+     * @param value the value to compare with
+     * @return -1, 0, 1 if this &lt;, ==, &gt; value respectively
+     */
+    public int compareTo (Rational value)
+    {
+        if (value.den == den) {
+            return Long.compare(num, value.num);
+        }
+
+        return Long.compare(num * value.den, den * value.num);
+    }
+
+    //-----------//
+    // compareTo //
+    //-----------//
+    /**
+     * Compare the current value with the sum of the provided values.
+     *
+     * @param a one value
+     * @param b another value
+     * @return -1, 0, 1 if this &lt;, ==, &gt; (a + b) respectively
+     */
+    public int compareTo (Rational a,
+                          Rational b)
+    {
+        long sumNum;
+        long sumDen;
+
+        if (a.den == b.den) {
+            sumNum = (long) a.num + b.num;
+            sumDen = a.den;
+        } else {
+            sumNum = ((long) a.num * b.den) + ((long) b.num * a.den);
+            sumDen = (long) a.den * b.den;
+        }
+
+        if (sumDen == den) {
+            return Long.compare(num, sumNum);
+        }
+
+        if ((sumDen > Integer.MAX_VALUE) || (Math.abs(sumNum) > Integer.MAX_VALUE)) {
+            // Reduce the sum, to keep cross products within long range
+            final long gcd = GCD.gcd(Math.abs(sumNum), sumDen);
+            sumNum /= gcd;
+            sumDen /= gcd;
+        }
+
+        return Long.compare(num * sumDen, den * sumNum);
+    }
+
+    //----------//
+    // maxOfSum //
+    //----------//
+    /**
+     * Raise the current value to (a + b), if (a + b) is greater.
+     *
+     * @param a one value
+     * @param b another value
+     * @return true if value has been raised
+     */
+    public boolean maxOfSum (Rational a,
+                             Rational b)
+    {
+        if (compareTo(a, b) >= 0) {
+            return false;
+        }
+
+        set(a);
+        add(b);
+
+        return true;
+    }
+
+    //-----//
+    // set //
+    //-----//
+    /**
+     * Set the current value.
+     *
+     * @param value the new value
+     * @return this accumulator
+     */
+    public RationalAccumulator set (Rational value)
+    {
+        num = value.num;
+        den = value.den;
+
+        return this;
+    }
+
+    //------------//
+    // toRational //
+    //------------//
+    /**
+     * Report the current value as a Rational instance.
+     *
+     * @return the current value
+     */
+    public Rational toRational ()
+    {
+        if (num == 0) {
+            return Rational.ZERO;
+        }
+
+        return Rational.valueOf(num, den);
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public String toString ()
+    {
+        if (den == 1) {
+            return num + "";
+        } else {
+            return num + "/" + den;
+        }
+    }
+
+    //--------//
+    // reduce //
+    //--------//
+    private void reduce ()
+    {
+        if (den != 1) {
+            final long gcd = GCD.gcd(Math.abs(num), den);
+
+            if (gcd > 1) {
+                num /= gcd;
+                den /= gcd;
+            }
+        }
+
+        if ((num < Integer.MIN_VALUE) || (num > Integer.MAX_VALUE) || (den > Integer.MAX_VALUE)) {
+            throw new ArithmeticException("Rational overflow " + num + "/" + den);
+        }
+    }
+}
@@ -33,6 +33,7 @@ import org.audiveris.omr.moments.BasicARTMoments;
 import org.audiveris.omr.moments.GeometricMoments;
 import static org.audiveris.omr.run.Orientation.HORIZONTAL;
 import org.audiveris.omr.util.ByteUtil;
+import org.audiveris.omr.util.OmrExecutors;
 import org.audiveris.omr.util.Predicate;
 
 import org.slf4j.Logger;
@@ -53,6 +54,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.concurrent.RecursiveAction;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.Marshaller;
@@ -61,6 +63,7 @@ import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlList;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlValue;
 
@@ -103,6 +106,50 @@ public class RunTable
 
     private static JAXBContext jaxbContext;
 
+    /** Minimum number of sequences to process them in parallel. */
+    private static final int MIN_PARALLEL_SEQUENCES = 64;
+
+    //~ Enumerations -------------------------------------------------------------------------------
+    /**
+     * Boolean operation between two tables, applied pixel by pixel.
+     */
+    private static enum Operation
+    {
+        //~ Enumeration constant initializers ------------------------------------------------------
+
+        UNION,
+        INTERSECTION,
+        DIFFERENCE,
+        XOR;
+
+        //~ Methods --------------------------------------------------------------------------------
+        /**
+         * Apply the operation on a pixel.
+         *
+         * @param one true if pixel is foreground in first table
+         * @param two true if pixel is foreground in second table
+         * @return true if pixel is foreground in resulting table
+         */
+        public boolean apply (boolean one,
+                              boolean two)
+        {
+            switch (this) {
+            case UNION:
+                return one || two;
+
+            case INTERSECTION:
+                return one && two;
+
+            case DIFFERENCE:
+                return one && !two;
+
+            case XOR:
+            default:
+                return one ^ two;
+            }
+        }
+    }
+
     //~ Instance fields ----------------------------------------------------------------------------
     // Persistent data
     //----------------
@@ -208,13 +255,9 @@ public class RunTable
         // Look for background where foreground run is to take place
         // ...F(B)F... -> ...F(B1FB2)F...
         // .......^
-        RunSequence sequence = sequences[index];
-
-        if (sequence == null) {
-            sequences[index] = sequence = new RunSequence();
-        }
-
-        short[] rle = sequence.rle;
+        final RunSequence sequence = sequences[index];
+        final int[] rle = (sequence != null) ? sequence.toArray() : null;
+        final int[] newRle;
         Itr it = new Itr(index);
 
         while (it.hasNext()) {
@@ -235,31 +278,33 @@ public class RunTable
                 if ((b1 == 0) && (b2 == 0)) {
                     // ...F(B)F... -> ...F(0F0)F... -> ...F++...
                     // .......^
-                    short[] newRle = new short[rle.length - 2];
+                    newRle = new int[rle.length - 2];
                     System.arraycopy(rle, 0, newRle, 0, c - 2);
-                    newRle[c - 2] = (short) (rle[c - 2] + f + rle[c]);
+                    newRle[c - 2] = rle[c - 2] + f + rle[c];
                     System.arraycopy(rle, c + 1, newRle, c - 1, rle.length - c - 1);
-                    sequence.rle = newRle;
                 } else if (b1 == 0) {
                     // ...F(B)F... -> ...F(0FB2)F... -> ...F+(B2)F...
                     // .......^
-                    rle[c - 2] += (short) f;
-                    rle[c - 1] = (short) b2;
+                    newRle = rle;
+                    newRle[c - 2] += f;
+                    newRle[c - 1] = b2;
                 } else if (b2 == 0) {
                     // ...F(B)F... -> ...F(B1F0)F... -> ...F(B1)F+...
                     // .......^
-                    rle[c - 1] += (short) b1;
-                    rle[c] += (short) f;
+                    newRle = rle;
+                    newRle[c - 1] = b1;
+                    newRle[c] += f;
                 } else {
-                    short[] newRle = new short[rle.length + 2];
+                    newRle = new int[rle.length + 2];
                     System.arraycopy(rle, 0, newRle, 0, c - 1);
-                    newRle[c - 1] = (short) b1;
-                    newRle[c] = (short) f;
-                    newRle[c + 1] = (short) b2;
+                    newRle[c - 1] = b1;
+                    newRle[c] = f;
+                    newRle[c + 1] = b2;
                     System.arraycopy(rle, c, newRle, c + 2, rle.length - c);
-                    sequence.rle = newRle;
                 }
 
+                sequences[index] = RunSequence.of(newRle, newRle.length);
+
                 return true;
             }
         }
@@ -272,33 +317,24 @@ public class RunTable
         } else if (b == 0) {
             if (rle != null) {
                 // ...F -> ...F+
-                rle[rle.length - 1] += (short) length;
+                newRle = rle;
+                newRle[rle.length - 1] += length;
             } else {
                 // null -> F+
-                final short[] newRle = new short[1];
-                newRle[0] = (short) length;
-                sequence.rle = newRle;
+                newRle = new int[]{length};
             }
+        } else if (rle != null) {
+            // ...F -> ...F(BF')
+            newRle = Arrays.copyOf(rle, rle.length + 2);
+            newRle[rle.length] = b;
+            newRle[rle.length + 1] = length;
         } else {
-            final short[] newRle;
-
-            if (rle != null) {
-                // ...F -> ...F(BF')
-                newRle = new short[rle.length + 2];
-                System.arraycopy(rle, 0, newRle, 0, rle.length);
-                newRle[rle.length] = (short) b;
-                newRle[rle.length + 1] = (short) length;
-            } else {
-                // null -> 0(BF')
-                newRle = new short[3];
-                newRle[0] = 0;
-                newRle[1] = (short) b;
-                newRle[2] = (short) length;
-            }
-
-            sequence.rle = newRle;
+            // null -> 0(BF')
+            newRle = new int[]{0, b, length};
         }
 
+        sequences[index] = RunSequence.of(newRle, newRle.length);
+
         return true;
     }
 
@@ -412,18 +448,26 @@ public class RunTable
         RunTable clone = new RunTable(orientation, width, height);
 
         for (int i = 0; i < sequences.length; i++) {
-            RunSequence seq = sequences[i];
-
-            if (seq != null) {
-                short[] rle = new short[seq.rle.length];
-                System.arraycopy(seq.rle, 0, rle, 0, seq.rle.length);
-                clone.sequences[i] = new RunSequence(rle);
-            }
+            // Sequences are never modified, hence they can be shared
+            clone.sequences[i] = sequences[i];
         }
 
         return clone;
     }
 
+    //--------//
+    // cursor //
+    //--------//
+    /**
+     * Report a new cursor on this table, meant for repeated pixel probing.
+     *
+     * @return a cursor, to be used by a single thread
+     */
+    public Cursor cursor ()
+    {
+        return new Cursor();
+    }
+
     //----------//
     // cumulate //
     //----------//
@@ -488,6 +532,74 @@ public class RunTable
         }
     }
 
+    //------------//
+    // difference //
+    //------------//
+    /**
+     * Report the pixels of this table which are not in the provided table.
+     * <p>
+     * The tables must have the same dimension and orientation.
+     *
+     * @param that the table to subtract
+     * @return a new table, made of the pixels in this table but not in that table
+     */
+    public RunTable difference (RunTable that)
+    {
+        return combine(that, Operation.DIFFERENCE);
+    }
+
+    //--------//
+    // dilate //
+    //--------//
+    /**
+     * Report the dilation of this table along the runs orientation.
+     * <p>
+     * Each run is extended by radius pixels on both sides, within table limits, and runs that come
+     * to overlap or touch are joined.
+     *
+     * @param radius the number of pixels added on each side of a run
+     * @return a new dilated table
+     */
+    public RunTable dilate (final int radius)
+    {
+        final RunTable result = new RunTable(orientation, width, height);
+        final int extent = (orientation == HORIZONTAL) ? width : height;
+
+        computeSequences(
+                result,
+                new SequenceFunction()
+        {
+            @Override
+            public RunSequence compute (int index)
+            {
+                final RunSequence seq = sequences[index];
+
+                if ((seq == null) || (radius == 0)) {
+                    return seq;
+                }
+
+                final int[] bounds = boundsOf(seq);
+                int n = 0;
+
+                for (int i = 0; i < bounds.length; i += 2) {
+                    final int start = Math.max(0, bounds[i] - radius);
+                    final int stop = Math.min(extent, bounds[i + 1] + radius);
+
+                    if ((n > 0) && (start <= bounds[n - 1])) {
+                        bounds[n - 1] = stop; // Join with previous run
+                    } else {
+                        bounds[n++] = start;
+                        bounds[n++] = stop;
+                    }
+                }
+
+                return sequenceOf(bounds, n);
+            }
+        });
+
+        return result;
+    }
+
     //--------//
     // dumpOf //
     //--------//
@@ -586,6 +698,55 @@ public class RunTable
         return Arrays.deepEquals(this.sequences, other.sequences);
     }
 
+    //-------//
+    // erode //
+    //-------//
+    /**
+     * Report the erosion of this table along the runs orientation.
+     * <p>
+     * Each run is shortened by radius pixels on both sides, and disappears if nothing is left.
+     * Pixels beyond table limits are considered as background.
+     *
+     * @param radius the number of pixels removed on each side of a run
+     * @return a new eroded table
+     */
+    public RunTable erode (final int radius)
+    {
+        final RunTable result = new RunTable(orientation, width, height);
+
+        computeSequences(
+                result,
+                new SequenceFunction()
+        {
+            @Override
+            public RunSequence compute (int index)
+            {
+                final RunSequence seq = sequences[index];
+
+                if ((seq == null) || (radius == 0)) {
+                    return seq;
+                }
+
+                final int[] bounds = boundsOf(seq);
+                int n = 0;
+
+                for (int i = 0; i < bounds.length; i += 2) {
+                    final int start = bounds[i] + radius;
+                    final int stop = bounds[i + 1] - radius;
+
+                    if (start < stop) {
+                        bounds[n++] = start;
+                        bounds[n++] = stop;
+                    }
+                }
+
+                return sequenceOf(bounds, n);
+            }
+        });
+
+        return result;
+    }
+
     //-----------//
     // fillTable //
     //-----------//
@@ -732,8 +893,9 @@ public class RunTable
     /**
      * {@inheritDoc}
      * <p>
-     * <b>Beware</b>, this implementation is not efficient enough for bulk operations.
-     * For such needs, a much more efficient way is to first retrieve a full buffer, via {@link
+     * The run containing the pixel is found by a binary search in sequences with many runs.
+     * For sequential probing, a {@link #cursor()} is more efficient.
+     * For bulk operations, a much more efficient way is to first retrieve a full buffer, via {@link
      * #getBuffer()} method, then use this temporary buffer as the {@link PixelSource} instead of
      * this table.
      *
@@ -745,9 +907,7 @@ public class RunTable
     public final int get (int x,
                           int y)
     {
-        Run run = getRunAt(x, y);
-
-        return (run != null) ? 0 : BACKGROUND;
+        return (lookup(x, y) != -1) ? 0 : BACKGROUND;
     }
 
     //-----------//
@@ -816,6 +976,93 @@ public class RunTable
         return new Dimension(width, height);
     }
 
+    //--------------//
+    // getFootprint //
+    //--------------//
+    /**
+     * Report an estimation of the memory used by this table.
+     *
+     * @return estimated footprint, in bytes
+     */
+    public long getFootprint ()
+    {
+        // Object headers and references are roughly counted as 16 bytes each
+        long bytes = 16 + (8L * sequences.length);
+
+        for (RunSequence seq : sequences) {
+            if (seq != null) {
+                bytes += seq.getFootprint();
+            }
+        }
+
+        return bytes;
+    }
+
+    //--------------//
+    // getForeCount //
+    //--------------//
+    /**
+     * Report the number of foreground pixels found in the provided sequence, within
+     * the provided range of coordinates.
+     * <p>
+     * This is meant for projections, without any pixel access nor run allocation.
+     *
+     * @param index index of the sequence
+     * @param start first coordinate of range (inclusive)
+     * @param stop  last coordinate of range (inclusive)
+     * @return the count of foreground pixels in [start..stop] range
+     */
+    public int getForeCount (int index,
+                             int start,
+                             int stop)
+    {
+        final RunSequence seq = sequences[index];
+
+        if ((seq == null) || (start > stop)) {
+            return 0;
+        }
+
+        int count = 0;
+
+        if (seq.size() >= RunSequence.MIN_INDEXED_RUNS) {
+            // Skip the runs located before range, using the index
+            final int[] bounds = seq.getBounds();
+
+            for (int i = 2 * Math.max(0, seq.rankOf(start)); i < bounds.length; i += 2) {
+                final int runStart = bounds[i];
+
+                if (runStart > stop) {
+                    break;
+                }
+
+                final int overlap = Math.min(stop + 1, bounds[i + 1]) - Math.max(start, runStart);
+
+                if (overlap > 0) {
+                    count += overlap;
+                }
+            }
+        } else {
+            int loc = 0;
+
+            for (int k = 0, length = seq.length(); (k < length) && (loc <= stop); k += 2) {
+                final int fore = seq.get(k);
+                final int overlap = Math.min(stop + 1, loc + fore) - Math.max(start, loc);
+
+                if (overlap > 0) {
+                    count += overlap;
+                }
+
+                loc += fore;
+
+                if ((k + 1) < length) {
+                    loc += seq.get(k + 1);
+                }
+            }
+        }
+
+        return count;
+    }
+
     //-----------//
     // getHeight //
     //-----------//
@@ -857,27 +1104,9 @@ public class RunTable
     public final Run getRunAt (int x,
                                int y)
     {
-        final int iSeq = (orientation == HORIZONTAL) ? y : x;
-
-        if ((iSeq < 0) || (iSeq >= sequences.length)) {
-            return null;
-        }
+        final long span = lookup(x, y);
 
-        final int coord = (orientation == HORIZONTAL) ? x : y;
-
-        for (Itr it = new Itr(iSeq); it.hasNext();) {
-            Run run = it.next();
-
-            if (run.getStart() > coord) {
-                return null;
-            }
-
-            if (run.getStop() >= coord) {
-                return run;
-            }
-        }
-
-        return null;
+        return (span != -1) ? new Run((int) (span >>> 32), (int) span) : null;
     }
 
     //---------------//
@@ -1016,6 +1245,7 @@ public class RunTable
      * Include the content of the provided table into this one.
      * <p>
      * The tables must have the same dimension and orientation.
+     * Runs that overlap or touch are joined.
      *
      * @param that the table of runs to include into this one
      */
@@ -1038,12 +1268,25 @@ public class RunTable
             throw new IllegalArgumentException("Cannot include a RunTable of different height");
         }
 
-        for (int row = 0, size = getSize(); row < size; row++) {
-            for (Itr it = that.new Itr(row); it.hasNext();) {
-                Run thatRun = it.next();
-                addRun(row, thatRun);
-            }
-        }
+        final RunTable union = union(that);
+        System.arraycopy(union.sequences, 0, sequences, 0, sequences.length);
+        weight = null;
+    }
+
+    //--------------//
+    // intersection //
+    //--------------//
+    /**
+     * Report the pixels common to this table and the provided table.
+     * <p>
+     * The tables must have the same dimension and orientation.
+     *
+     * @param that the other table
+     * @return a new table, made of the pixels in both tables
+     */
+    public RunTable intersection (RunTable that)
+    {
+        return combine(that, Operation.INTERSECTION);
     }
 
     //------------//
@@ -1150,6 +1393,144 @@ public class RunTable
         return new Itr(index);
     }
 
+    //-------//
+    // merge //
+    //-------//
+    /**
+     * Build a VERTICAL table out of the provided tables, each located at its own offset.
+     * <p>
+     * The result is the same as writing all tables into a buffer and retrieving the vertical runs
+     * of this buffer, but it is built directly from the run sequences, column by column: in each
+     * column, the runs contributed by the tables are sorted, then overlapping or touching runs are
+     * joined.
+     *
+     * @param width   width of resulting table
+     * @param height  height of resulting table
+     * @param tables  the tables to merge
+     * @param offsets offset of each table top-left corner, relative to resulting table
+     * @return the resulting VERTICAL table
+     */
+    public static RunTable merge (int width,
+                                  int height,
+                                  List<RunTable> tables,
+                                  List<Point> offsets)
+    {
+        final RunTable merged = new RunTable(Orientation.VERTICAL, width, height);
+        final int count = tables.size();
+        final RunSequence[][] columns = new RunSequence[count][];
+        final int[] dxs = new int[count];
+        final int[] dys = new int[count];
+
+        for (int i = 0; i < count; i++) {
+            final RunTable table = tables.get(i);
+            columns[i] = (table.orientation == Orientation.VERTICAL) ? table.sequences
+                    : table.verticalSequences();
+            dxs[i] = offsets.get(i).x;
+            dys[i] = offsets.get(i).y;
+        }
+
+        // Runs of current column, each as (start << 32 | stop)
+        long[] runs = new long[16];
+        int[] rle = new int[33]; // Buffer for encoding of current column
+        int weight = 0;
+
+        for (int x = 0; x < width; x++) {
+            int runCount = 0;
+            int contributors = 0;
+
+            for (int i = 0; i < count; i++) {
+                final int col = x - dxs[i];
+
+                if ((col < 0) || (col >= columns[i].length)) {
+                    continue;
+                }
+
+                final RunSequence seq = columns[i][col];
+
+                if ((seq == null) || seq.isEmpty()) {
+                    continue;
+                }
+
+                final int rleLength = seq.length();
+                int loc = dys[i];
+                contributors++;
+
+                for (int k = 0; k < rleLength; k += 2) {
+                    final int length = seq.get(k);
+
+                    if (length > 0) {
+                        if (runCount == runs.length) {
+                            runs = Arrays.copyOf(runs, 2 * runCount);
+                        }
+
+                        runs[runCount++] = ((long) loc << 32) | (loc + length - 1);
+                    }
+
+                    loc += length;
+
+                    if ((k + 1) < rleLength) {
+                        loc += seq.get(k + 1); // Background
+                    }
+                }
+            }
+
+            if (runCount == 0) {
+                continue;
+            }
+
+            if (contributors > 1) {
+                Arrays.sort(runs, 0, runCount);
+            }
+
+            // Join runs and encode them directly
+            if (rle.length < ((2 * runCount) + 1)) {
+                rle = new int[(2 * runCount) + 1];
+            }
+
+            int cursor = 0;
+            int start = (int) (runs[0] >>> 32);
+            int stop = (int) runs[0];
+            int end = 0; // Position right after last encoded run
+
+            for (int r = 1; r <= runCount; r++) {
+                if (r < runCount) {
+                    final int nextStart = (int) (runs[r] >>> 32);
+
+                    if (nextStart <= (stop + 1)) {
+                        stop = Math.max(stop, (int) runs[r]);
+
+                        continue;
+                    }
+                }
+
+                // Flush current run
+                if (cursor == 0) {
+                    if (start != 0) {
+                        rle[cursor++] = 0;
+                        rle[cursor++] = start;
+                    }
+                } else {
+                    rle[cursor++] = start - end;
+                }
+
+                rle[cursor++] = stop - start + 1;
+                weight += (stop - start + 1);
+                end = stop + 1;
+
+                if (r < runCount) {
+                    start = (int) (runs[r] >>> 32);
+                    stop = (int) runs[r];
+                }
+            }
+
+            merged.sequences[x] = RunSequence.of(rle, cursor);
+        }
+
+        merged.weight = weight;
+
+        return merged;
+    }
+
     //--------------------//
     // persistentHashCode //
     //--------------------//
@@ -1464,30 +1845,25 @@ public class RunTable
             RunSequence seq = getSequence(iSeq);
             i++;
 
-            if ((seq != null) && (seq.rle != null)) {
-                final short[] seqRle = seq.rle;
-                final short[] rle;
-
+            if ((seq != null) && !seq.isEmpty()) {
                 if (coordMin == 0) {
-                    // Simply copy the rle
-                    rle = new short[seqRle.length];
-                    System.arraycopy(seqRle, 0, rle, 0, seqRle.length);
+                    // Simply share the (unmodifiable) sequence
+                    newTable.sequences[i] = seq;
                 } else {
-                    int backLg = seqRle[1] & 0xFFFF; // backLg >= coordMin by definition of coordMin
+                    final int[] rle = seq.toArray();
+                    int backLg = rle[1]; // backLg >= coordMin by definition of coordMin
 
                     if (backLg > coordMin) {
                         // Shorten the background length
-                        rle = new short[seqRle.length];
-                        System.arraycopy(seqRle, 0, rle, 0, seqRle.length);
-                        rle[1] = (short) (backLg - coordMin);
+                        rle[1] = backLg - coordMin;
+                        newTable.sequences[i] = RunSequence.of(rle, rle.length);
                     } else {
                         // backLg == coordMin, hence skip the initial 0B pair of cells
-                        rle = new short[seqRle.length - 2];
-                        System.arraycopy(seqRle, 2, rle, 0, seqRle.length - 2);
+                        newTable.sequences[i] = RunSequence.of(
+                                Arrays.copyOfRange(rle, 2, rle.length),
+                                rle.length - 2);
                     }
                 }
-
-                newTable.sequences[i] = new RunSequence(rle);
             }
         }
 
@@ -1497,6 +1873,22 @@ public class RunTable
         return newTable;
     }
 
+    //-------//
+    // union //
+    //-------//
+    /**
+     * Report the pixels of this table or of the provided table.
+     * <p>
+     * The tables must have the same dimension and orientation.
+     *
+     * @param that the other table
+     * @return a new table, made of the pixels in any table
+     */
+    public RunTable union (RunTable that)
+    {
+        return combine(that, Operation.UNION);
+    }
+
     //-------//
     // write //
     //-------//
@@ -1528,54 +1920,229 @@ public class RunTable
         }
     }
 
-    //--------//
-    // encode //
-    //--------//
+    //-----//
+    // xor //
+    //-----//
     /**
-     * (Package-private) method to encode a list of runs into a table sequence.
+     * Report the pixels of exactly one of this table and the provided table.
+     * <p>
+     * The tables must have the same dimension and orientation.
      *
-     * @param list the list of runs to compose the sequence
-     * @return the sequence ready to be inserted into table
+     * @param that the other table
+     * @return a new table, made of the pixels in one table only
      */
-    static RunSequence encode (List<? extends Run> list)
+    public RunTable xor (RunTable that)
     {
-        if ((list == null) || list.isEmpty()) {
-            return null;
+        return combine(that, Operation.XOR);
+    }
+
+    //----------//
+    // boundsOf //
+    //----------//
+    /**
+     * Report the bounds of the foreground runs of a sequence.
+     *
+     * @param seq the (non-null) sequence
+     * @return the array of start (inclusive) and stop (exclusive) of each run
+     */
+    private static int[] boundsOf (RunSequence seq)
+    {
+        final int[] bounds = new int[2 * seq.size()];
+        int n = 0;
+        int loc = 0;
+
+        for (int k = 0, length = seq.length(); k < length; k++) {
+            final int value = seq.get(k);
+
+            if (((k & 1) == 0) && (value > 0)) {
+                bounds[n++] = loc;
+                bounds[n++] = loc + value;
+            }
+
+            loc += value;
         }
 
-        short[] rle;
-        int size = (2 * list.size()) - 1;
-        int start = list.get(0).getStart();
-        int cursor = 0;
-        int length = 0;
-        boolean injectBackground = false;
+        return bounds;
+    }
 
-        if (start != 0) {
+    //---------//
+    // combine //
+    //---------//
+    /**
+     * Combine two sequences with the provided operation.
+     * <p>
+     * The runs of both sequences are merged in a single pass on their bounds.
+     *
+     * @param one first sequence, perhaps null
+     * @param two second sequence, perhaps null
+     * @param op  the operation to apply on each pixel
+     * @return the resulting sequence, perhaps null
+     */
+    private static RunSequence combine (RunSequence one,
+                                        RunSequence two,
+                                        Operation op)
+    {
+        if ((one == null) || (two == null)) {
+            // Sequences are never modified, hence they can be shared
+            final boolean a = op.apply(true, false);
+            final boolean b = op.apply(false, true);
+
+            if (one != null) {
+                return a ? one : null;
+            }
+
+            return ((two != null) && b) ? two : null;
+        }
+
+        final int[] bounds1 = boundsOf(one);
+        final int[] bounds2 = boundsOf(two);
+        final int[] bounds = new int[bounds1.length + bounds2.length];
+        int n = 0;
+        int i1 = 0;
+        int i2 = 0;
+        boolean in1 = false;
+        boolean in2 = false;
+        boolean in = false;
+
+        while ((i1 < bounds1.length) || (i2 < bounds2.length)) {
+            final int loc1 = (i1 < bounds1.length) ? bounds1[i1] : Integer.MAX_VALUE;
+            final int loc2 = (i2 < bounds2.length) ? bounds2[i2] : Integer.MAX_VALUE;
+            final int loc = Math.min(loc1, loc2);
+
+            if (loc1 == loc) {
+                in1 = !in1;
+                i1++;
+            }
+
+            if (loc2 == loc) {
+                in2 = !in2;
+                i2++;
+            }
+
+            if (op.apply(in1, in2) != in) {
+                in = !in;
+                bounds[n++] = loc;
+            }
+        }
+
+        return sequenceOf(bounds, n);
+    }
+
+    //---------//
+    // combine //
+    //---------//
+    /**
+     * Combine this table with the provided one, sequence by sequence.
+     *
+     * @param that the other table
+     * @param op   the operation to apply on each pixel
+     * @return the resulting table
+     */
+    private RunTable combine (final RunTable that,
+                              final Operation op)
+    {
+        if (that == null) {
+            throw new IllegalArgumentException("Cannot combine with a null RunTable");
+        }
+
+        if (that.orientation != orientation) {
+            throw new IllegalArgumentException(
+                    "Cannot combine with a RunTable of different orientation");
+        }
+
+        if ((that.width != width) || (that.height != height)) {
+            throw new IllegalArgumentException(
+                    "Cannot combine with a RunTable of different dimension");
+        }
+
+        final RunTable result = new RunTable(orientation, width, height);
+        computeSequences(
+                result,
+                new SequenceFunction()
+        {
+            @Override
+            public RunSequence compute (int index)
+            {
+                return combine(sequences[index], that.sequences[index], op);
+            }
+        });
+
+        return result;
+    }
+
+    //------------------//
+    // computeSequences //
+    //------------------//
+    /**
+     * Populate the sequences of the provided result table, in parallel when possible.
+     *
+     * @param result   the table to populate, with same size as this table
+     * @param function the function computing each result sequence
+     */
+    private void computeSequences (RunTable result,
+                                   SequenceFunction function)
+    {
+        final int size = getSize();
+
+        if ((OmrExecutors.defaultParallelism.getSpecific() == false)
+            || (size <= MIN_PARALLEL_SEQUENCES)) {
+            for (int i = 0; i < size; i++) {
+                result.sequences[i] = function.compute(i);
+            }
+        } else {
+            OmrExecutors.getForkJoinPool().invoke(
+                    new SequencesTask(result.sequences, function, 0, size - 1));
+        }
+    }
+
+    //--------//
+    // encode //
+    //--------//
+    /**
+     * (Package-private) method to encode a list of runs into a table sequence.
+     *
+     * @param list the list of runs to compose the sequence
+     * @return the sequence ready to be inserted into table
+     */
+    static RunSequence encode (List<? extends Run> list)
+    {
+        if ((list == null) || list.isEmpty()) {
+            return null;
+        }
+
+        int[] rle;
+        int size = (2 * list.size()) - 1;
+        int start = list.get(0).getStart();
+        int cursor = 0;
+        int length = 0;
+        boolean injectBackground = false;
+
+        if (start != 0) {
             // Insert an empty foreground length
             size += 2;
-            rle = new short[size];
+            rle = new int[size];
             rle[0] = 0;
             cursor = 1;
             injectBackground = true;
         } else {
-            rle = new short[size];
+            rle = new int[size];
         }
 
         for (Run run : list) {
             if (injectBackground) {
                 // Inject background
-                rle[cursor++] = (short) (run.getStart() - length);
+                rle[cursor++] = run.getStart() - length;
                 length = run.getStart();
             }
 
             // Inject foreground
-            rle[cursor++] = (short) run.getLength();
+            rle[cursor++] = run.getLength();
             length += run.getLength();
 
             injectBackground = true;
         }
 
-        return new RunSequence(rle);
+        return RunSequence.of(rle, size);
     }
 
     //-------------//
@@ -1585,13 +2152,160 @@ public class RunTable
      * (package private) Report the sequence of runs at a given index
      *
      * @param index the desired index
-     * @return the MODIFIABLE sequence of runs
+     * @return the (unmodifiable) sequence of runs
      */
     final RunSequence getSequence (int index)
     {
         return sequences[index];
     }
 
+    //--------//
+    // lookup //
+    //--------//
+    /**
+     * Look up the run found at given <b>relative</b> coordinates, if any.
+     *
+     * @param x abscissa, relative to runTable left
+     * @param y ordinate, relative to runTable top
+     * @return the run found, as (start &lt;&lt; 32 | length), or -1
+     */
+    private long lookup (int x,
+                         int y)
+    {
+        final int iSeq = (orientation == HORIZONTAL) ? y : x;
+
+        if ((iSeq < 0) || (iSeq >= sequences.length)) {
+            return -1;
+        }
+
+        final RunSequence seq = sequences[iSeq];
+
+        if (seq == null) {
+            return -1;
+        }
+
+        return seq.lookup((orientation == HORIZONTAL) ? x : y);
+    }
+
+    //------------//
+    // sequenceOf //
+    //------------//
+    /**
+     * Encode the provided run bounds into a sequence.
+     *
+     * @param bounds start (inclusive) and stop (exclusive) of each run, in increasing order
+     * @param count  number of values to use in bounds
+     * @return the sequence, or null if there is no run
+     */
+    private static RunSequence sequenceOf (int[] bounds,
+                                           int count)
+    {
+        if (count == 0) {
+            return null;
+        }
+
+        final int[] rle = new int[count + 1];
+        int cursor = 0;
+
+        if (bounds[0] != 0) {
+            // Insert an empty foreground length
+            rle[cursor++] = 0;
+            rle[cursor++] = bounds[0];
+        }
+
+        rle[cursor++] = bounds[1] - bounds[0];
+
+        for (int i = 2; i < count; i += 2) {
+            rle[cursor++] = bounds[i] - bounds[i - 1];
+            rle[cursor++] = bounds[i + 1] - bounds[i];
+        }
+
+        return RunSequence.of(rle, cursor);
+    }
+
+    //-------------------//
+    // verticalSequences //
+    //-------------------//
+    /**
+     * Report the vertical sequences (columns) of this HORIZONTAL table.
+     *
+     * @return the array of columns, one per abscissa value
+     */
+    private RunSequence[] verticalSequences ()
+    {
+        // Column-wise runs, as (start, length) pairs
+        final int[][] runs = new int[width][];
+        final int[] counts = new int[width];
+        final int[] runStarts = new int[width]; // Start of open run in each column, or -1
+        final boolean[] fores = new boolean[width];
+        Arrays.fill(runStarts, -1);
+
+        for (int y = 0; y <= height; y++) {
+            Arrays.fill(fores, false);
+
+            if (y < height) {
+                for (Itr it = new Itr(y); it.hasNext();) {
+                    final Run run = it.next();
+                    Arrays.fill(fores, run.getStart(), run.getStop() + 1, true);
+                }
+            }
+
+            for (int x = 0; x < width; x++) {
+                if (fores[x]) {
+                    if (runStarts[x] == -1) {
+                        runStarts[x] = y;
+                    }
+                } else if (runStarts[x] != -1) {
+                    if (runs[x] == null) {
+                        runs[x] = new int[8];
+                    } else if (counts[x] == runs[x].length) {
+                        runs[x] = Arrays.copyOf(runs[x], 2 * counts[x]);
+                    }
+
+                    runs[x][counts[x]++] = runStarts[x];
+                    runs[x][counts[x]++] = y - runStarts[x];
+                    runStarts[x] = -1;
+                }
+            }
+        }
+
+        // Encode each column
+        final RunSequence[] columns = new RunSequence[width];
+
+        for (int x = 0; x < width; x++) {
+            final int n = counts[x] / 2;
+
+            if (n == 0) {
+                continue;
+            }
+
+            final int first = runs[x][0];
+            final int[] rle = new int[((2 * n) - 1) + ((first != 0) ? 2 : 0)];
+            int cursor = 0;
+            int end = 0;
+
+            if (first != 0) {
+                rle[cursor++] = 0;
+            }
+
+            for (int i = 0; i < n; i++) {
+                final int runStart = runs[x][2 * i];
+                final int length = runs[x][(2 * i) + 1];
+
+                if (cursor > 0) {
+                    rle[cursor++] = runStart - end;
+                }
+
+                rle[cursor++] = length;
+                end = runStart + length;
+            }
+
+            columns[x] = RunSequence.of(rle, rle.length);
+        }
+
+        return columns;
+    }
+
     //-------------//
     // setSequence //
     //-------------//
@@ -1620,7 +2334,7 @@ public class RunTable
         for (int i = 0, iBreak = sequences.length; i < iBreak; i++) {
             RunSequence seq = sequences[i];
 
-            if ((seq != null) && ((seq.rle == null) || (seq.rle.length == 0))) {
+            if ((seq != null) && seq.isEmpty()) {
                 sequences[i] = null;
             }
         }
@@ -1659,22 +2373,363 @@ public class RunTable
         }
     }
 
+    //~ Inner Interfaces ---------------------------------------------------------------------------
+    //------------------//
+    // SequenceFunction //
+    //------------------//
+    /**
+     * Computation of a result sequence, out of sequences at the same index.
+     */
+    private static interface SequenceFunction
+    {
+        //~ Methods --------------------------------------------------------------------------------
+
+        /**
+         * Compute the result sequence at provided index.
+         *
+         * @param index the sequence index
+         * @return the resulting sequence, perhaps null
+         */
+        RunSequence compute (int index);
+    }
+
     //~ Inner Classes ------------------------------------------------------------------------------
+    //---------//
+    // Builder //
+    //---------//
+    /**
+     * Builder meant for the efficient population of a whole run table.
+     * <p>
+     * Runs are appended to each sequence by increasing start, into a growable buffer whose capacity
+     * is doubled when needed, so that appending a run costs an amortized constant time.
+     * The buffers are sealed into compact sequences when the table is built.
+     * <p>
+     * Different sequences can be populated concurrently by different threads, provided that any
+     * given sequence is populated by a single thread and that {@link #build()} is called once all
+     * populating threads are done.
+     */
+    public static class Builder
+    {
+        //~ Static fields/initializers -------------------------------------------------------------
+
+        /** Initial capacity of a sequence buffer. */
+        private static final int INITIAL_CAPACITY = 8;
+
+        //~ Instance fields ------------------------------------------------------------------------
+        /** The table being built. */
+        private final RunTable table;
+
+        /** Buffer of rle values, per sequence. */
+        private final int[][] buffers;
+
+        /** Number of rle values, per sequence. */
+        private final int[] counts;
+
+        /** Position right after last run, per sequence. */
+        private final int[] ends;
+
+        /** Number of foreground pixels, per sequence. */
+        private final int[] weights;
+
+        /** Has table already been built?. */
+        private boolean built;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        /**
+         * Creates a new {@code Builder} object.
+         *
+         * @param orientation orientation of runs
+         * @param width       table width
+         * @param height      table height
+         */
+        public Builder (Orientation orientation,
+                        int width,
+                        int height)
+        {
+            table = new RunTable(orientation, width, height);
+
+            final int size = table.getSize();
+            buffers = new int[size][];
+            counts = new int[size];
+            ends = new int[size];
+            weights = new int[size];
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        //--------//
+        // append //
+        //--------//
+        /**
+         * Append a run at the end of the sequence found at provided index.
+         * A run touching the last run of the sequence is joined with it.
+         *
+         * @param index  index of the sequence in table
+         * @param start  start of run, not lower than the end of last run in sequence
+         * @param length length of run
+         */
+        public void append (int index,
+                            int start,
+                            int length)
+        {
+            if (built) {
+                throw new IllegalStateException("Run table already built");
+            }
+
+            if (length <= 0) {
+                throw new IllegalArgumentException("Illegal run length " + length);
+            }
+
+            final int end = ends[index];
+
+            if (start < end) {
+                throw new IllegalArgumentException(
+                        "Run start " + start + " before end " + end + " of sequence " + index);
+            }
+
+            int[] buf = buffers[index];
+            int count = counts[index];
+
+            if (count == 0) {
+                buf = buffers[index] = new int[INITIAL_CAPACITY];
+
+                if (start != 0) {
+                    // Insert an empty foreground length
+                    buf[count++] = 0;
+                    buf[count++] = start;
+                }
+
+                buf[count++] = length;
+            } else if (start == end) {
+                // ...F -> ...F+
+                buf[count - 1] += length;
+            } else {
+                // ...F -> ...F(BF')
+                if ((count + 2) > buf.length) {
+                    buf = buffers[index] = Arrays.copyOf(buf, 2 * buf.length);
+                }
+
+                buf[count++] = start - end;
+                buf[count++] = length;
+            }
+
+            counts[index] = count;
+            ends[index] = start + length;
+            weights[index] += length;
+        }
+
+        //-------//
+        // build //
+        //-------//
+        /**
+         * Seal all sequence buffers and report the resulting table.
+         * The builder can no longer be used afterwards.
+         *
+         * @return the populated table
+         */
+        public RunTable build ()
+        {
+            if (built) {
+                throw new IllegalStateException("Run table already built");
+            }
+
+            built = true;
+
+            int weight = 0;
+
+            for (int i = 0; i < buffers.length; i++) {
+                if (counts[i] > 0) {
+                    table.sequences[i] = RunSequence.of(buffers[i], counts[i]);
+                    weight += weights[i];
+                    buffers[i] = null;
+                }
+            }
+
+            table.weight = weight;
+
+            return table;
+        }
+    }
+
+    //--------//
+    // Cursor //
+    //--------//
+    /**
+     * Cursor meant for repeated pixel probing, with no allocation.
+     * <p>
+     * The cursor remembers where it stands in the last sequence probed, so that probing pixels by
+     * increasing coordinate along the same sequence costs an amortized constant time.
+     * Any other probe is handled by a binary search in sequences with many runs, and by a linear
+     * search in the others.
+     * <p>
+     * A cursor is meant to be used by a single thread.
+     * It remains valid when the table is modified.
+     */
+    public class Cursor
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Sequence last probed, if any. */
+        private RunSequence seq;
+
+        /** Index of sequence last probed. */
+        private int index = -1;
+
+        /** Position in sequence of the foreground value at or before last coordinate. */
+        private int cursor;
+
+        /** Start location of foreground at cursor. */
+        private int loc;
+
+        //~ Methods --------------------------------------------------------------------------------
+        //-----//
+        // get //
+        //-----//
+        /**
+         * Report the pixel value at provided <b>relative</b> coordinates.
+         *
+         * @param x abscissa, relative to runTable left
+         * @param y ordinate, relative to runTable top
+         * @return the pixel value (FOREGROUND or BACKGROUND)
+         */
+        public int get (int x,
+                        int y)
+        {
+            return isFore(x, y) ? 0 : BACKGROUND;
+        }
+
+        //--------//
+        // isFore //
+        //--------//
+        /**
+         * Report whether the pixel at provided <b>relative</b> coordinates is foreground.
+         *
+         * @param x abscissa, relative to runTable left
+         * @param y ordinate, relative to runTable top
+         * @return true if foreground
+         */
+        public boolean isFore (int x,
+                               int y)
+        {
+            final int iSeq = (orientation == HORIZONTAL) ? y : x;
+
+            if ((iSeq < 0) || (iSeq >= sequences.length)) {
+                return false;
+            }
+
+            final int coord = (orientation == HORIZONTAL) ? x : y;
+
+            if ((iSeq != index) || (sequences[iSeq] != seq) || (coord < loc)) {
+                if (!moveTo(iSeq, coord)) {
+                    return false;
+                }
+            } else if (seq == null) {
+                return false;
+            }
+
+            // Move forward
+            final int length = seq.length();
+
+            while (cursor < length) {
+                final int foreStop = loc + seq.get(cursor);
+
+                if (coord < foreStop) {
+                    return true;
+                }
+
+                if ((cursor + 1) >= length) {
+                    return false;
+                }
+
+                final int nextLoc = foreStop + seq.get(cursor + 1);
+
+                if (coord < nextLoc) {
+                    return false;
+                }
+
+                cursor += 2;
+                loc = nextLoc;
+            }
+
+            return false;
+        }
+
+        //--------//
+        // moveTo //
+        //--------//
+        /**
+         * Move the cursor to the provided sequence, at or before the provided coordinate.
+         *
+         * @param iSeq  the sequence index
+         * @param coord the coordinate along the sequence
+         * @return false if sequence is empty or coord is located before its first run
+         */
+        private boolean moveTo (int iSeq,
+                                int coord)
+        {
+            index = iSeq;
+            seq = sequences[iSeq];
+            cursor = 0;
+            loc = 0;
+
+            if (seq == null) {
+                return false;
+            }
+
+            if (seq.size() >= RunSequence.MIN_INDEXED_RUNS) {
+                final int rank = seq.rankOf(coord);
+
+                if (rank == -1) {
+                    return false;
+                }
+
+                cursor = (2 * rank) + ((seq.get(0) == 0) ? 2 : 0);
+                loc = seq.getBounds()[2 * rank];
+            }
+
+            return true;
+        }
+    }
+
     //-------------//
     // RunSequence //
     //-------------//
     /**
      * (package private) Sequence of runs, using run-length encoding.
+     * <p>
+     * The rle values are the lengths of alternate foreground and background runs, starting with a
+     * foreground run (perhaps of zero length).
+     * <p>
+     * Values are stored as unsigned shorts, unless one of them exceeds the unsigned short range,
+     * something that can happen only in images larger than 65535 pixels, in which case they are
+     * stored as ints.
+     * The encoding is chosen when the sequence is created and the sequence is never modified.
+     * <p>
+     * A sequence with many runs is given, when first searched, an index of its run bounds which
+     * allows binary search.
+     * Since any table modification replaces the modified sequence, the index never gets stale.
      */
-    @XmlAccessorType(XmlAccessType.FIELD)
+    @XmlAccessorType(XmlAccessType.NONE)
     @XmlRootElement(name = "runs")
     static class RunSequence
     {
-        //~ Instance fields ------------------------------------------------------------------------
+        //~ Static fields/initializers -------------------------------------------------------------
 
-        @XmlValue
+        /** Maximum value for the narrow (unsigned short) encoding. */
+        static final int MAX_NARROW = 0xFFFF;
+
+        /** Minimum number of runs to index a sequence. */
+        static final int MIN_INDEXED_RUNS = 8;
+
+        //~ Instance fields ------------------------------------------------------------------------
+        /** Narrow encoding, if any. */
         private short[] rle;
 
+        /** Wide encoding, if any. */
+        private int[] wide;
+
+        /** Index of run bounds, lazily built. */
+        private volatile int[] bounds;
+
         //~ Constructors ---------------------------------------------------------------------------
         public RunSequence (short[] rle)
         {
@@ -1698,19 +2753,214 @@ public class RunTable
             }
 
             final RunSequence that = (RunSequence) obj;
+            final int length = length();
+
+            if (length != that.length()) {
+                return false;
+            }
+
+            for (int i = 0; i < length; i++) {
+                if (get(i) != that.get(i)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Report the rle value at provided position.
+         *
+         * @param i position in sequence
+         * @return the (non-negative) value
+         */
+        public int get (int i)
+        {
+            return (wide != null) ? wide[i] : (rle[i] & MAX_NARROW);
+        }
 
-            return Arrays.equals(rle, that.rle);
+        /**
+         * Report the index of run bounds, building it if needed.
+         *
+         * @return the (unmodifiable) array of start (inclusive) and stop (exclusive) of each run
+         */
+        public int[] getBounds ()
+        {
+            int[] index = bounds;
+
+            if (index == null) {
+                bounds = index = boundsOf(this);
+            }
+
+            return index;
+        }
+
+        /**
+         * Report an estimation of the memory used by this sequence.
+         *
+         * @return estimated footprint, in bytes
+         */
+        public long getFootprint ()
+        {
+            final int[] index = bounds;
+            final long indexBytes = (index != null) ? (16 + (4L * index.length)) : 0;
+
+            if (wide != null) {
+                return 32 + (4L * wide.length) + indexBytes;
+            }
+
+            return 32 + ((rle != null) ? (2L * rle.length) : 0) + indexBytes;
         }
 
         @Override
         public int hashCode ()
         {
             int hash = 5;
-            hash = (67 * hash) + Arrays.hashCode(this.rle);
+
+            for (int i = 0, length = length(); i < length; i++) {
+                hash = (67 * hash) + get(i);
+            }
 
             return hash;
         }
 
+        /**
+         * Report whether this sequence contains no rle value.
+         *
+         * @return true if empty
+         */
+        public boolean isEmpty ()
+        {
+            return length() == 0;
+        }
+
+        /**
+         * Report whether this sequence uses the wide (int) encoding.
+         *
+         * @return true if wide
+         */
+        public boolean isWide ()
+        {
+            return wide != null;
+        }
+
+        /**
+         * Report the number of rle values in this sequence.
+         *
+         * @return the count of values
+         */
+        public int length ()
+        {
+            if (wide != null) {
+                return wide.length;
+            }
+
+            return (rle != null) ? rle.length : 0;
+        }
+
+        /**
+         * Look up the run that contains the provided coordinate.
+         *
+         * @param coord the coordinate along the sequence
+         * @return the run found, as (start &lt;&lt; 32 | length), or -1
+         */
+        public long lookup (int coord)
+        {
+            if (size() >= MIN_INDEXED_RUNS) {
+                final int rank = rankOf(coord);
+
+                if (rank != -1) {
+                    final int[] index = getBounds();
+                    final int start = index[2 * rank];
+                    final int stop = index[(2 * rank) + 1];
+
+                    if (coord < stop) {
+                        return ((long) start << 32) | (stop - start);
+                    }
+                }
+
+                return -1;
+            }
+
+            // Linear search in a short sequence
+            int loc = 0;
+
+            for (int k = 0, length = length(); k < length; k += 2) {
+                final int fore = get(k);
+
+                if (coord < loc) {
+                    return -1;
+                }
+
+                if (coord < (loc + fore)) {
+                    return ((long) loc << 32) | fore;
+                }
+
+                loc += fore;
+
+                if ((k + 1) < length) {
+                    loc += get(k + 1);
+                }
+            }
+
+            return -1;
+        }
+
+        /**
+         * Build a sequence out of the provided rle values, using the narrowest encoding.
+         *
+         * @param values buffer of rle values
+         * @param count  number of values to use in buffer
+         * @return the compact sequence
+         */
+        public static RunSequence of (int[] values,
+                                      int count)
+        {
+            final RunSequence seq = new RunSequence();
+
+            for (int i = 0; i < count; i++) {
+                if (values[i] > MAX_NARROW) {
+                    seq.wide = Arrays.copyOf(values, count);
+
+                    return seq;
+                }
+            }
+
+            seq.rle = new short[count];
+
+            for (int i = 0; i < count; i++) {
+                seq.rle[i] = (short) values[i];
+            }
+
+            return seq;
+        }
+
+        /**
+         * Report the rank of the last run that starts at or before the provided coordinate,
+         * using the index of run bounds.
+         *
+         * @param coord the coordinate along the sequence
+         * @return the run rank, or -1 if no run starts at or before coord
+         */
+        public int rankOf (int coord)
+        {
+            final int[] index = getBounds();
+            int low = 0;
+            int high = (index.length / 2) - 1;
+
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+
+                if (index[2 * mid] <= coord) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+
+            return high;
+        }
+
         /**
          * Report the number of foreground runs in this sequence
          *
@@ -1718,21 +2968,67 @@ public class RunTable
          */
         public int size ()
         {
-            if ((rle == null) || (rle.length == 0)) {
+            final int length = length();
+
+            if (length == 0) {
                 return 0;
             }
 
-            if (rle[0] == 0) {
-                return (rle.length - 1) / 2; // Case of an initial background run
+            if (get(0) == 0) {
+                return (length - 1) / 2; // Case of an initial background run
             } else {
-                return (rle.length + 1) / 2; // Standard case of an initial foreground run
+                return (length + 1) / 2; // Standard case of an initial foreground run
             }
         }
 
+        /**
+         * Report a copy of the rle values.
+         *
+         * @return the decoded values
+         */
+        public int[] toArray ()
+        {
+            final int[] values = new int[length()];
+
+            for (int i = 0; i < values.length; i++) {
+                values[i] = get(i);
+            }
+
+            return values;
+        }
+
         @Override
         public String toString ()
         {
-            return Arrays.toString(rle);
+            return Arrays.toString(toArray());
+        }
+
+        /**
+         * Report the rle values, meant for JAXB.
+         * The XML list of values is the same for both encodings.
+         */
+        @XmlValue
+        @XmlList
+        private int[] getValues ()
+        {
+            return toArray();
+        }
+
+        /**
+         * Set the rle values, meant for JAXB.
+         * Negative values, written by former (signed short) versions, are read as unsigned.
+         */
+        private void setValues (int[] values)
+        {
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] < 0) {
+                    values[i] &= MAX_NARROW;
+                }
+            }
+
+            final RunSequence seq = of(values, values.length);
+            rle = seq.rle;
+            wide = seq.wide;
         }
     }
 
@@ -1773,17 +3069,13 @@ public class RunTable
             // Check the case of an initial background run
             final RunSequence seq = sequences[index];
 
-            if (seq != null) {
-                final short[] rle = seq.rle;
-
-                if ((rle != null) && (rle.length > 0)) {
-                    if (rle[cursor] == 0) {
-                        if (rle.length > 1) {
-                            loc = rle[1];
-                        }
-
-                        cursor += 2;
+            if ((seq != null) && !seq.isEmpty()) {
+                if (seq.get(cursor) == 0) {
+                    if (seq.length() > 1) {
+                        loc = seq.get(1);
                     }
+
+                    cursor += 2;
                 }
             }
         }
@@ -1803,13 +3095,7 @@ public class RunTable
                 return false;
             }
 
-            final short[] rle = seq.rle;
-
-            if (rle == null) {
-                return false;
-            }
-
-            return cursor < rle.length;
+            return cursor < seq.length();
         }
 
         /**
@@ -1825,13 +3111,13 @@ public class RunTable
                 throw new NoSuchElementException();
             }
 
-            final short[] rle = sequences[index].rle;
+            final RunSequence seq = sequences[index];
 
             // ...v.. cursor before next()
             // ...FBF
             // .....^ cursor after next()
             int foreLoc = loc;
-            int foreLg = rle[cursor++] & 0xFFFF;
+            int foreLg = seq.get(cursor++);
 
             // Update the (modifiable) run structure
             run.setStart(foreLoc);
@@ -1839,8 +3125,8 @@ public class RunTable
 
             loc += foreLg;
 
-            if (cursor < rle.length) {
-                int backLg = rle[cursor] & 0xFFFF;
+            if (cursor < seq.length()) {
+                int backLg = seq.get(cursor);
                 loc += backLg;
             }
 
@@ -1852,7 +3138,7 @@ public class RunTable
         @Override
         public void remove ()
         {
-            final short[] rle = sequences[index].rle;
+            final int[] rle = sequences[index].toArray();
             int c = cursor - 2;
 
             if (c == 0) {
@@ -1861,11 +3147,12 @@ public class RunTable
                     sequences[index] = null;
                 } else {
                     // (FB)F... -> 0(B')F...
-                    rle[1] = (short) (rle[0] + rle[1]);
+                    rle[1] = rle[0] + rle[1];
                     rle[0] = 0;
+                    sequences[index] = RunSequence.of(rle, rle.length);
                 }
             } else {
-                final short[] newRle = new short[rle.length - 2];
+                final int[] newRle = new int[rle.length - 2];
 
                 if (c == (rle.length - 1)) {
                     // ...F(BF) -> ...F
@@ -1873,18 +3160,66 @@ public class RunTable
                 } else {
                     // ...F(BFB)F... -> ...F(B')F...
                     System.arraycopy(rle, 0, newRle, 0, c - 1);
-                    newRle[c - 1] = (short) (rle[c - 1] + rle[c] + rle[c + 1]);
+                    newRle[c - 1] = rle[c - 1] + rle[c] + rle[c + 1];
                     System.arraycopy(rle, c + 2, newRle, c, rle.length - c - 2);
                 }
 
                 if ((newRle.length == 1) && (newRle[0] == 0)) {
                     sequences[index] = null;
                 } else {
-                    sequences[index] = new RunSequence(newRle);
+                    sequences[index] = RunSequence.of(newRle, newRle.length);
                 }
 
                 cursor = c;
             }
         }
     }
+
+    //---------------//
+    // SequencesTask //
+    //---------------//
+    /**
+     * Task to compute a range of sequences, split in halves until range is small enough.
+     */
+    private static class SequencesTask
+            extends RecursiveAction
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final RunSequence[] results;
+
+        private final SequenceFunction function;
+
+        private final int first;
+
+        private final int last;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public SequencesTask (RunSequence[] results,
+                              SequenceFunction function,
+                              int first,
+                              int last)
+        {
+            this.results = results;
+            this.function = function;
+            this.first = first;
+            this.last = last;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        protected void compute ()
+        {
+            if ((last - first + 1) <= MIN_PARALLEL_SEQUENCES) {
+                for (int i = first; i <= last; i++) {
+                    results[i] = function.compute(i);
+                }
+            } else {
+                final int middle = (first + last) >>> 1;
+                invokeAll(
+                        new SequencesTask(results, function, first, middle),
+                        new SequencesTask(results, function, middle + 1, last));
+            }
+        }
+    }
 }
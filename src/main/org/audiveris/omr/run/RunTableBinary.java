@@ -0,0 +1,526 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                   R u n T a b l e B i n a r y                                  //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.run;
+
+import org.audiveris.omr.run.RunTable.RunSequence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Class {@code RunTableBinary} handles the compact binary format of a {@link RunTable},
+ * meant to replace the (much larger and slower) XML format for on-disk storage.
+ * <p>
+ * Layout (all integers are unsigned varints, unless stated otherwise):
+ * <pre>
+ * magic       4 bytes "ORTB"
+ * version     1 byte
+ * orientation 1 byte (ordinal)
+ * flags       1 byte (bit 0: per-sequence deltas allowed)
+ * width
+ * height
+ * then for each sequence:
+ *   tag       EMPTY | REPEAT | LITERAL | DELTA
+ *   LITERAL:  count, then count rle values
+ *   DELTA:    count rle values, each zigzag-encoded as difference with previous sequence
+ * </pre>
+ * A DELTA sequence is used only when the previous sequence has the same number of rle values
+ * and when it results in a smaller encoding than the LITERAL one.
+ *
+ * @author Hervé Bitteur
+ */
+public abstract class RunTableBinary
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(RunTableBinary.class);
+
+    /** File extension for binary run tables. */
+    public static final String EXTENSION = ".bin";
+
+    /** Magic bytes at beginning of binary content. */
+    private static final byte[] MAGIC = new byte[]{'O', 'R', 'T', 'B'};
+
+    /** Current format version. */
+    private static final int VERSION = 1;
+
+    /** Flag for deltas allowed. */
+    private static final int FLAG_DELTAS = 1;
+
+    // Sequence tags
+    private static final int EMPTY = 0;
+
+    private static final int REPEAT = 1;
+
+    private static final int LITERAL = 2;
+
+    private static final int DELTA = 3;
+
+    /** Size of the I/O buffer. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /** Not meant to be instantiated. */
+    private RunTableBinary ()
+    {
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //------//
+    // read //
+    //------//
+    /**
+     * Read a run table from the provided binary file.
+     *
+     * @param path path to binary file
+     * @return the run table read
+     * @throws IOException if reading fails
+     */
+    public static RunTable read (Path path)
+            throws IOException
+    {
+        logger.debug("RunTable binary reading {}", path);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel);
+        }
+    }
+
+    //------//
+    // read //
+    //------//
+    /**
+     * Read a run table from the provided channel.
+     *
+     * @param channel the input channel (not closed by this method)
+     * @return the run table read
+     * @throws IOException if reading fails or if content is not a valid binary run table
+     *                     (truncated, or with illegal orientation, dimension, tag or rle values)
+     */
+    public static RunTable read (ReadableByteChannel channel)
+            throws IOException
+    {
+        final Input in = new Input(channel);
+
+        for (byte b : MAGIC) {
+            if (in.readByte() != b) {
+                throw new IOException("Not a binary run table");
+            }
+        }
+
+        final int version = in.readByte();
+
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary run table version " + version);
+        }
+
+        final int ordinal = in.readByte();
+
+        if (ordinal >= Orientation.values().length) {
+            throw new IOException("Illegal orientation " + ordinal);
+        }
+
+        final Orientation orientation = Orientation.values()[ordinal];
+        in.readByte(); // Flags, not needed for reading
+
+        final int width = in.readVarint();
+        final int height = in.readVarint();
+
+        if ((width < 0) || (height < 0)) {
+            throw new IOException("Illegal dimension " + width + "x" + height);
+        }
+
+        final RunTable table = new RunTable(orientation, width, height);
+        final int length = orientation.isVertical() ? height : width; // Length of any sequence
+        int[] prev = null;
+
+        for (int i = 0, size = table.getSize(); i < size; i++) {
+            final int tag = in.readVarint();
+            final int[] rle;
+
+            switch (tag) {
+            case EMPTY:
+                rle = null;
+
+                break;
+
+            case REPEAT:
+
+                if (prev == null) {
+                    throw new IOException("Illegal REPEAT with no previous sequence at index " + i);
+                }
+
+                rle = prev; // Never modified
+
+                break;
+
+            case LITERAL: {
+                final int count = in.readVarint();
+
+                // Runs alternate with gaps, hence at most length + 1 rle values
+                if ((count <= 0) || (count > (length + 1))) {
+                    throw new IOException("Illegal sequence length " + count + " at index " + i);
+                }
+
+                rle = new int[count];
+
+                for (int j = 0; j < rle.length; j++) {
+                    rle[j] = in.readVarint();
+                }
+
+                checkValues(rle, length, i);
+            }
+
+            break;
+
+            case DELTA: {
+                if (prev == null) {
+                    throw new IOException("Illegal DELTA with no previous sequence at index " + i);
+                }
+
+                rle = new int[prev.length];
+
+                for (int j = 0; j < rle.length; j++) {
+                    rle[j] = prev[j] + unZigzag(in.readVarint());
+                }
+
+                checkValues(rle, length, i);
+            }
+
+            break;
+
+            default:
+                throw new IOException("Illegal sequence tag " + tag + " at index " + i);
+            }
+
+            if (rle != null) {
+                table.setSequence(i, RunSequence.of(rle, rle.length));
+            }
+
+            prev = rle;
+        }
+
+        return table;
+    }
+
+    //-------//
+    // write //
+    //-------//
+    /**
+     * Write the provided run table to the binary file.
+     *
+     * @param table  the run table to write
+     * @param path   path to target file (overwritten if it already exists)
+     * @param deltas true to allow per-sequence deltas
+     * @throws IOException if writing fails
+     */
+    public static void write (RunTable table,
+                              Path path,
+                              boolean deltas)
+            throws IOException
+    {
+        logger.debug("RunTable binary writing {}", path);
+
+        try (FileChannel channel = FileChannel.open(
+                path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            write(table, channel, deltas);
+        }
+    }
+
+    //-------//
+    // write //
+    //-------//
+    /**
+     * Write the provided run table to the provided channel.
+     *
+     * @param table   the run table to write
+     * @param channel the output channel (not closed by this method)
+     * @param deltas  true to allow per-sequence deltas
+     * @throws IOException if writing fails
+     */
+    public static void write (RunTable table,
+                              WritableByteChannel channel,
+                              boolean deltas)
+            throws IOException
+    {
+        final Output out = new Output(channel);
+
+        for (byte b : MAGIC) {
+            out.writeByte(b);
+        }
+
+        out.writeByte(VERSION);
+        out.writeByte(table.getOrientation().ordinal());
+        out.writeByte(deltas ? FLAG_DELTAS : 0);
+        out.writeVarint(table.getWidth());
+        out.writeVarint(table.getHeight());
+
+        int[] prev = null;
+
+        for (int i = 0, size = table.getSize(); i < size; i++) {
+            final RunSequence seq = table.getSequence(i);
+            final int[] rle = ((seq == null) || seq.isEmpty()) ? null : seq.toArray();
+
+            if (rle == null) {
+                out.writeVarint(EMPTY);
+            } else if (deltas && (prev != null) && (prev.length == rle.length)) {
+                int literalSize = varintSize(rle.length);
+                int deltaSize = 0;
+                boolean same = true;
+
+                for (int j = 0; j < rle.length; j++) {
+                    final int v = rle[j];
+                    final int d = v - prev[j];
+                    literalSize += varintSize(v);
+                    deltaSize += varintSize(zigzag(d));
+                    same &= (d == 0);
+                }
+
+                if (same) {
+                    out.writeVarint(REPEAT);
+                } else if (deltaSize < literalSize) {
+                    out.writeVarint(DELTA);
+
+                    for (int j = 0; j < rle.length; j++) {
+                        out.writeVarint(zigzag(rle[j] - prev[j]));
+                    }
+                } else {
+                    writeLiteral(out, rle);
+                }
+            } else {
+                writeLiteral(out, rle);
+            }
+
+            prev = rle;
+        }
+
+        out.flush();
+    }
+
+    //-------------//
+    // checkValues //
+    //-------------//
+    /**
+     * Check that the rle values read for a sequence fit within the sequence length.
+     *
+     * @param rle    the rle values
+     * @param length the sequence length
+     * @param index  the sequence index
+     * @throws IOException if some value is negative or if the values exceed sequence length
+     */
+    private static void checkValues (int[] rle,
+                                     int length,
+                                     int index)
+            throws IOException
+    {
+        long sum = 0;
+
+        for (int v : rle) {
+            if (v < 0) {
+                throw new IOException("Illegal rle value " + v + " at index " + index);
+            }
+
+            sum += v;
+        }
+
+        if (sum > length) {
+            throw new IOException(
+                    "Illegal rle total " + sum + " beyond length " + length + " at index " + index);
+        }
+    }
+
+    //----------//
+    // unZigzag //
+    //----------//
+    private static int unZigzag (int v)
+    {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    //------------//
+    // varintSize //
+    //------------//
+    private static int varintSize (int v)
+    {
+        int size = 1;
+
+        while ((v & ~0x7F) != 0) {
+            v >>>= 7;
+            size++;
+        }
+
+        return size;
+    }
+
+    //--------------//
+    // writeLiteral //
+    //--------------//
+    private static void writeLiteral (Output out,
+                                      int[] rle)
+            throws IOException
+    {
+        out.writeVarint(LITERAL);
+        out.writeVarint(rle.length);
+
+        for (int v : rle) {
+            out.writeVarint(v);
+        }
+    }
+
+    //--------//
+    // zigzag //
+    //--------//
+    private static int zigzag (int v)
+    {
+        return (v << 1) ^ (v >> 31);
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-------//
+    // Input //
+    //-------//
+    /**
+     * Buffered reading from a channel.
+     */
+    private static class Input
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final ReadableByteChannel channel;
+
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public Input (ReadableByteChannel channel)
+        {
+            this.channel = channel;
+            buffer.flip(); // Nothing read yet
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        public int readByte ()
+                throws IOException
+        {
+            if (!buffer.hasRemaining()) {
+                buffer.clear();
+
+                int count;
+
+                do {
+                    count = channel.read(buffer);
+                } while (count == 0);
+
+                buffer.flip();
+
+                if (count < 0) {
+                    throw new EOFException("Truncated binary run table");
+                }
+            }
+
+            return buffer.get() & 0xFF;
+        }
+
+        public int readVarint ()
+                throws IOException
+        {
+            int value = 0;
+
+            for (int shift = 0; shift < 32; shift += 7) {
+                final int b = readByte();
+                value |= ((b & 0x7F) << shift);
+
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+
+            throw new IOException("Malformed varint");
+        }
+    }
+
+    //--------//
+    // Output //
+    //--------//
+    /**
+     * Buffered writing to a channel.
+     */
+    private static class Output
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final WritableByteChannel channel;
+
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public Output (WritableByteChannel channel)
+        {
+            this.channel = channel;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        public void flush ()
+                throws IOException
+        {
+            buffer.flip();
+
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+
+            buffer.clear();
+        }
+
+        public void writeByte (int b)
+                throws IOException
+        {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+
+            buffer.put((byte) b);
+        }
+
+        public void writeVarint (int v)
+                throws IOException
+        {
+            while ((v & ~0x7F) != 0) {
+                writeByte((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+
+            writeByte(v);
+        }
+    }
+}
@@ -31,7 +31,6 @@ import org.slf4j.LoggerFactory;
 
 import java.awt.Point;
 import java.awt.Rectangle;
-import java.util.List;
 
 /**
  * Class {@code RunTableFactory} retrieves the runs structure out of a given pixel
@@ -113,14 +112,21 @@ public class RunTableFactory
     public RunTable createTable (ByteProcessor source,
                                  Rectangle roi)
     {
-        RunTable table = new RunTable(orientation, roi.width, roi.height);
+        RunTable.Builder builder = new RunTable.Builder(orientation, roi.width, roi.height);
+
+        // Pixels can be read directly, unless pixel access is redefined by some subclass.
+        // Since runs are then retrieved in parallel, this is reserved to unfiltered retrieval
+        // (a filter is not assumed to be thread-safe)
+        final ByteProcessor raw = ((filter == null) && (source.getClass() == ByteProcessor.class))
+                ? source : null;
         RunsRetriever retriever = new RunsRetriever(
                 orientation,
-                orientation.isVertical() ? new VerticalAdapter(source, table, roi.getLocation())
-                        : new HorizontalAdapter(source, table, roi.getLocation()));
+                orientation.isVertical() ? new VerticalAdapter(source, builder, roi.getLocation())
+                        : new HorizontalAdapter(source, builder, roi.getLocation()),
+                raw);
         retriever.retrieveRuns(roi);
 
-        return table;
+        return builder.build();
     }
 
     //~ Inner Interfaces ---------------------------------------------------------------------------
@@ -193,19 +199,19 @@ public class RunTableFactory
         /** The source to read runs of pixels from. */
         protected final ByteProcessor source;
 
-        /** The created RunTable. */
-        protected RunTable table;
+        /** The builder of created RunTable. */
+        protected final RunTable.Builder builder;
 
         /** Table offset, if any, WRT source. */
         protected Point tableOffset;
 
         //~ Constructors ---------------------------------------------------------------------------
         public MyAdapter (ByteProcessor source,
-                          RunTable table,
+                          RunTable.Builder builder,
                           Point tableOffset)
         {
             this.source = source;
-            this.table = table;
+            this.builder = builder;
             this.tableOffset = tableOffset;
         }
 
@@ -214,12 +220,14 @@ public class RunTableFactory
         // foreRun //
         // --------//
         @Override
-        public final boolean foreRun (int coord,
-                                      int pos,
-                                      int length)
+        public final void foreRun (int coord,
+                                   int pos,
+                                   int length)
         {
             // We consider only runs for which the provided filter, if any, is OK.
-            return (filter == null) || checkFilter(coord, pos, length);
+            if ((filter == null) || checkFilter(coord, pos, length)) {
+                appendRun(coord, pos, length);
+            }
         }
 
         //--------------//
@@ -253,6 +261,13 @@ public class RunTableFactory
             return false;
         }
 
+        //-----------//
+        // appendRun //
+        //-----------//
+        protected abstract void appendRun (int coord,
+                                           int pos,
+                                           int length);
+
         //-------------//
         // checkFilter //
         //-------------//
@@ -273,19 +288,13 @@ public class RunTableFactory
         //~ Constructors ---------------------------------------------------------------------------
 
         public HorizontalAdapter (ByteProcessor source,
-                                  RunTable table,
+                                  RunTable.Builder builder,
                                   Point tableOffset)
         {
-            super(source, table, tableOffset);
+            super(source, builder, tableOffset);
         }
 
         //~ Methods --------------------------------------------------------------------------------
-        @Override
-        public void endPosition (int pos,
-                                 List<Run> runs)
-        {
-            table.setSequence(pos - tableOffset.y, RunTable.encode(runs));
-        }
 
         @Override
         public final boolean isFore (int coord,
@@ -294,6 +303,14 @@ public class RunTableFactory
             return source.get(coord, pos) == 0;
         }
 
+        @Override
+        protected void appendRun (int coord,
+                                  int pos,
+                                  int length)
+        {
+            builder.append(pos - tableOffset.y, coord - length - tableOffset.x, length);
+        }
+
         @Override
         protected boolean checkFilter (int coord,
                                        int pos,
@@ -315,19 +332,13 @@ public class RunTableFactory
         //~ Constructors ---------------------------------------------------------------------------
 
         public VerticalAdapter (ByteProcessor source,
-                                RunTable table,
+                                RunTable.Builder builder,
                                 Point tableOffset)
         {
-            super(source, table, tableOffset);
+            super(source, builder, tableOffset);
         }
 
         //~ Methods --------------------------------------------------------------------------------
-        @Override
-        public void endPosition (int pos,
-                                 List<Run> runs)
-        {
-            table.setSequence(pos - tableOffset.x, RunTable.encode(runs));
-        }
 
         @Override
         public final boolean isFore (int coord,
@@ -336,6 +347,14 @@ public class RunTableFactory
             return source.get(pos, coord) == 0;
         }
 
+        @Override
+        protected void appendRun (int coord,
+                                  int pos,
+                                  int length)
+        {
+            builder.append(pos - tableOffset.x, coord - length - tableOffset.y, length);
+        }
+
         @Override
         protected boolean checkFilter (int coord,
                                        int pos,
@@ -21,6 +21,10 @@
 // </editor-fold>
 package org.audiveris.omr.run;
 
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.step.ProcessingCancellationException;
 import org.audiveris.omr.util.Concurrency;
 import org.audiveris.omr.util.OmrExecutors;
@@ -29,15 +33,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.awt.Rectangle;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.Callable;
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Class {@code RunsRetriever} is in charge of reading a source of pixels and
  * retrieving foreground runs and background runs from it.
  * <p>
  * What is done with the retrieved runs is essentially the purpose of the provided adapter.
+ * <p>
+ * Positions (rows for horizontal runs, columns for vertical runs) are processed by bands of
+ * contiguous positions, which are run in parallel on the fork/join pool when possible.
+ * <p>
+ * When the source pixels can be read directly from their backing byte array, runs boundaries are
+ * found by scanning this array, with no per-pixel call to the adapter.
+ * Vertical runs are then retrieved row by row within each band of columns, to keep the scanning
+ * cache-friendly.
  *
  * @author Hervé Bitteur
  */
@@ -45,6 +56,8 @@ public class RunsRetriever
 {
     //~ Static fields/initializers -----------------------------------------------------------------
 
+    private static final Constants constants = new Constants();
+
     private static final Logger logger = LoggerFactory.getLogger(RunsRetriever.class);
 
     //~ Instance fields ----------------------------------------------------------------------------
@@ -55,6 +68,12 @@ public class RunsRetriever
     /** The adapter for pixel access and call-backs at run level */
     private final Adapter adapter;
 
+    /** Backing pixels of source, if they can be read directly. */
+    private final byte[] pixels;
+
+    /** Source width, needed to index pixels array. */
+    private final int sourceWidth;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new RunsRetriever object.
@@ -65,9 +84,35 @@ public class RunsRetriever
      */
     public RunsRetriever (Orientation orientation,
                           Adapter adapter)
+    {
+        this(orientation, adapter, null);
+    }
+
+    /**
+     * Creates a new RunsRetriever object, with direct access to source pixels.
+     *
+     * @param orientation the desired orientation
+     * @param adapter     an adapter to provide specific call-back action when a foreground run has
+     *                    just been read.
+     * @param source      if not null, the source whose backing pixels are read directly, a pixel
+     *                    being foreground if its value is 0 ({@link Adapter#isFore} is then not
+     *                    called, and {@link Adapter#foreRun} may be called concurrently for
+     *                    different positions)
+     */
+    public RunsRetriever (Orientation orientation,
+                          Adapter adapter,
+                          ByteProcessor source)
     {
         this.orientation = orientation;
         this.adapter = adapter;
+
+        if (source != null) {
+            pixels = (byte[]) source.getPixels();
+            sourceWidth = source.getWidth();
+        } else {
+            pixels = null;
+            sourceWidth = 0;
+        }
     }
 
     //~ Methods ------------------------------------------------------------------------------------
@@ -88,7 +133,72 @@ public class RunsRetriever
         final int pMin = rect.y;
         final int pMax = (rect.y + rect.height) - 1;
 
-        rowBasedRetrieval(pMin, pMax, cMin, cMax);
+        bandBasedRetrieval(pMin, pMax, cMin, cMax);
+    }
+
+    //--------------------//
+    // bandBasedRetrieval //
+    //--------------------//
+    /**
+     * Retrieve runs band by band.
+     * This method handles the bands either in a parallel or a serial way, according to the
+     * parallelism setting and the concurrency abilities of the adapter.
+     */
+    private void bandBasedRetrieval (int pMin,
+                                     int pMax,
+                                     int cMin,
+                                     int cMax)
+    {
+        if ((OmrExecutors.defaultParallelism.getSpecific() == false)
+            || ((pixels == null) && !adapter.isThreadSafe())
+            || ((pMax - pMin + 1) <= constants.minBandSize.getValue())) {
+            // Sequential
+            processBand(pMin, pMax, cMin, cMax);
+        } else {
+            // Parallel
+            final int bandSize = Math.max(
+                    constants.minBandSize.getValue(),
+                    (pMax - pMin + 1) / (4 * OmrExecutors.getNumberOfCpus()));
+
+            try {
+                OmrExecutors.getForkJoinPool().invoke(
+                        new BandTask(pMin, pMax, cMin, cMax, bandSize));
+            } catch (ProcessingCancellationException pce) {
+                throw pce;
+            } catch (Throwable ex) {
+                logger.warn("Exception raised in ParallelRuns", ex);
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+
+    //-------------//
+    // processBand //
+    //-------------//
+    /**
+     * Process the pixels of positions 'pMin' to 'pMax' between coordinates 'cMin' and 'cMax'
+     *
+     * @param pMin the first position in band
+     * @param pMax the last position in band
+     * @param cMin the starting coordinate
+     * @param cMax the ending coordinate
+     */
+    private void processBand (int pMin,
+                              int pMax,
+                              int cMin,
+                              int cMax)
+    {
+        if (pixels == null) {
+            for (int p = pMin; p <= pMax; p++) {
+                processPosition(p, cMin, cMax);
+            }
+        } else if (orientation == Orientation.HORIZONTAL) {
+            for (int p = pMin; p <= pMax; p++) {
+                scanRow(p, cMin, cMax);
+            }
+        } else {
+            scanColumns(pMin, pMax, cMin, cMax);
+        }
     }
 
     //-----------------//
@@ -105,9 +215,6 @@ public class RunsRetriever
                                   int cMin,
                                   int cMax)
     {
-        /** Buffer of runs for current position. */
-        final List<Run> posRuns = new ArrayList<Run>();
-
         // Current run is FOREGROUND or BACKGROUND
         boolean isFore = false;
 
@@ -131,10 +238,7 @@ public class RunsRetriever
             {
                 if (isFore) {
                     // End the previous foreground run
-                    if (adapter.foreRun(c, pos, length)) {
-                        // Bufferize the runs
-                        posRuns.add(new Run(c - cMin - length, length));
-                    }
+                    adapter.foreRun(c, pos, length);
 
                     // Initialize values for the starting background run
                     isFore = false;
@@ -148,67 +252,90 @@ public class RunsRetriever
 
         // Process end of last run in this position
         if (isFore) {
-            if (adapter.foreRun((cMax + 1) - cMin, pos, length)) {
-                // Bufferize the runs
-                posRuns.add(new Run((cMax + 1) - cMin - length, length));
+            adapter.foreRun(cMax + 1, pos, length);
+        }
+    }
+
+    //-------------//
+    // scanColumns //
+    //-------------//
+    /**
+     * Retrieve the vertical runs of columns 'xMin' to 'xMax', by scanning the backing pixels
+     * row by row.
+     *
+     * @param xMin first column
+     * @param xMax last column
+     * @param yMin first row
+     * @param yMax last row
+     */
+    private void scanColumns (int xMin,
+                              int xMax,
+                              int yMin,
+                              int yMax)
+    {
+        // Start of run in progress in each column, or -1
+        final int[] starts = new int[xMax - xMin + 1];
+        Arrays.fill(starts, -1);
+
+        for (int y = yMin; y <= yMax; y++) {
+            final int offset = (y * sourceWidth) + xMin;
+
+            for (int i = 0; i < starts.length; i++) {
+                if (pixels[offset + i] == 0) {
+                    if (starts[i] == -1) {
+                        starts[i] = y;
+                    }
+                } else if (starts[i] != -1) {
+                    adapter.foreRun(y, xMin + i, y - starts[i]);
+                    starts[i] = -1;
+                }
             }
         }
 
-        // Forward the buffer of runs
-        adapter.endPosition(pos, posRuns);
+        // Process end of last run in each column
+        for (int i = 0; i < starts.length; i++) {
+            if (starts[i] != -1) {
+                adapter.foreRun(yMax + 1, xMin + i, yMax + 1 - starts[i]);
+            }
+        }
     }
 
-    //-------------------//
-    // rowBasedRetrieval //
-    //-------------------//
+    //---------//
+    // scanRow //
+    //---------//
     /**
-     * Retrieve runs row by row.
-     * This method handles the pixels run either in a parallel or a serial way,
-     * according to the possibilities of the high OMR executor.
+     * Retrieve the horizontal runs of row 'y', by scanning the backing pixels.
+     *
+     * @param y    the row
+     * @param xMin first abscissa
+     * @param xMax last abscissa
      */
-    private void rowBasedRetrieval (int pMin,
-                                    int pMax,
-                                    final int cMin,
-                                    final int cMax)
+    private void scanRow (int y,
+                          int xMin,
+                          int xMax)
     {
-        if ((OmrExecutors.defaultParallelism.getSpecific() == false) || !adapter.isThreadSafe()) {
-            // Sequential
-            for (int p = pMin; p <= pMax; p++) {
-                processPosition(p, cMin, cMax);
+        final int offset = y * sourceWidth;
+        final int end = offset + xMax + 1;
+        int i = offset + xMin;
+
+        while (i < end) {
+            // Skip background
+            while ((i < end) && (pixels[i] != 0)) {
+                i++;
             }
-        } else {
-            // Parallel (TODO: should use Java 7 fork/join someday...)
-            try {
-                // Browse one dimension
-                List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(pMax - pMin + 1);
-
-                for (int p = pMin; p <= pMax; p++) {
-                    final int pp = p;
-                    tasks.add(
-                            new Callable<Void>()
-                    {
-                        @Override
-                        public Void call ()
-                                throws Exception
-                        {
-                            processPosition(pp, cMin, cMax);
-
-                            return null;
-                        }
-                    });
-                }
 
-                // Launch the tasks and wait for their completion
-                OmrExecutors.getHighExecutor().invokeAll(tasks);
-            } catch (InterruptedException ex) {
-                logger.warn("ParallelRuns got interrupted");
-                throw new ProcessingCancellationException(ex);
-            } catch (ProcessingCancellationException pce) {
-                throw pce;
-            } catch (Throwable ex) {
-                logger.warn("Exception raised in ParallelRuns", ex);
-                throw new RuntimeException(ex);
+            if (i == end) {
+                return;
+            }
+
+            // Skip foreground
+            final int start = i;
+
+            while ((i < end) && (pixels[i] == 0)) {
+                i++;
             }
+
+            adapter.foreRun(i - offset, y, i - start);
         }
     }
 
@@ -225,26 +352,19 @@ public class RunsRetriever
     {
         //~ Methods --------------------------------------------------------------------------------
 
-        /**
-         * Called at end of position.
-         *
-         * @param pos  position value
-         * @param runs sequence of runs for this position
-         */
-        void endPosition (int pos,
-                          List<Run> runs);
-
         /**
          * Called at end of a foreground run.
+         * <p>
+         * Runs of a given position are reported by increasing coordinate, and always by the same
+         * thread.
          *
          * @param coord  location of the point past the end of the run
          * @param pos    constant position of the run
          * @param length length of the run just found
-         * @return true if run is accepted
          */
-        boolean foreRun (int coord,
-                         int pos,
-                         int length);
+        void foreRun (int coord,
+                      int pos,
+                      int length);
 
         /**
          * Check if pixel at location (coord, pos) is foreground.
@@ -257,4 +377,69 @@ public class RunsRetriever
         boolean isFore (int coord,
                         int pos);
     }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //----------//
+    // BandTask //
+    //----------//
+    /**
+     * Task to process a band of positions, split in halves until band is small enough.
+     */
+    private class BandTask
+            extends RecursiveAction
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final int pMin;
+
+        private final int pMax;
+
+        private final int cMin;
+
+        private final int cMax;
+
+        private final int bandSize;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public BandTask (int pMin,
+                         int pMax,
+                         int cMin,
+                         int cMax,
+                         int bandSize)
+        {
+            this.pMin = pMin;
+            this.pMax = pMax;
+            this.cMin = cMin;
+            this.cMax = cMax;
+            this.bandSize = bandSize;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        protected void compute ()
+        {
+            if ((pMax - pMin + 1) <= bandSize) {
+                processBand(pMin, pMax, cMin, cMax);
+            } else {
+                final int pMid = (pMin + pMax) >>> 1;
+                invokeAll(
+                        new BandTask(pMin, pMid, cMin, cMax, bandSize),
+                        new BandTask(pMid + 1, pMax, cMin, cMax, bandSize));
+            }
+        }
+    }
+
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Integer minBandSize = new Constant.Integer(
+                "positions",
+                32,
+                "Minimum number of positions in a band processed in parallel");
+    }
 }
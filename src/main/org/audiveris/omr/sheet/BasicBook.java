@@ -1075,9 +1075,21 @@ public class BasicBook
                 StepMonitoring.notifyStart();
 
                 if (isMultiSheet()
-                    && constants.processAllStubsInParallel.isSet()
+                    && constants.processStubsInPipeline.isSet()
                     && (OmrExecutors.defaultParallelism.getTarget() == true)) {
-                    // Process all stubs in parallel
+                    // Process stubs through a pipeline, with a bounded number of sheets in flight
+                    try {
+                        return new SheetPipeline(target, force, new MemoryGovernor(this)).process(
+                                concernedStubs);
+                    } catch (InterruptedException ex) {
+                        logger.warn("Error in pipelined reachBookStep", ex);
+                        someFailure = true;
+                    }
+                } else if (isMultiSheet()
+                           && constants.processAllStubsInParallel.isSet()
+                           && (OmrExecutors.defaultParallelism.getTarget() == true)) {
+                    // Process all stubs in parallel, within memory budget
+                    final MemoryGovernor governor = new MemoryGovernor(this);
                     List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>();
 
                     for (final SheetStub stub : concernedStubs) {
@@ -1086,14 +1098,16 @@ public class BasicBook
                         {
                             @Override
                             public Boolean call ()
-                                    throws StepException
+                                    throws StepException, InterruptedException
                             {
+                                governor.admit(stub);
                                 LogUtil.start(stub);
 
                                 try {
                                     return stub.reachStep(target, force);
                                 } finally {
                                     LogUtil.stopStub();
+                                    governor.release(stub, false);
                                 }
                             }
                         });
@@ -1118,6 +1132,8 @@ public class BasicBook
                     } catch (InterruptedException ex) {
                         logger.warn("Error in parallel reachBookStep", ex);
                         someFailure = true;
+                    } finally {
+                        governor.report();
                     }
                 } else {
                     // Process one stub after the other
@@ -1933,6 +1949,10 @@ public class BasicBook
                 false,
                 "Should we print out the stop watch for book loading?");
 
+        private final Constant.Boolean processStubsInPipeline = new Constant.Boolean(
+                false,
+                "Should we process stubs of a book through a pipeline of bounded size?");
+
         private final Constant.Boolean processAllStubsInParallel = new Constant.Boolean(
                 false,
                 "Should we process all stubs of a book in parallel? (beware of many stubs)");
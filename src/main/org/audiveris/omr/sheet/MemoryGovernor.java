@@ -0,0 +1,490 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                   M e m o r y G o v e r n o r                                  //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sheet;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.audiveris.omr.OMR;
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.lag.Lag;
+import org.audiveris.omr.lag.Section;
+import org.audiveris.omr.log.LogUtil;
+import org.audiveris.omr.sig.SIGraph;
+import org.audiveris.omr.step.Step;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class {@code MemoryGovernor} keeps the memory used by the sheets of a book, processed
+ * in batch, within a given budget.
+ * <p>
+ * The footprint of each sheet (pictures, run tables, lags, sigs) is estimated when the sheet
+ * processing completes, a sheet still being processed being accounted for by the largest footprint
+ * observed so far.
+ * Until a first footprint has been measured, sheets are admitted one at a time.
+ * <p>
+ * Before a sheet is admitted for processing, the governor checks that the footprint of resident
+ * sheets plus the expected footprint of the new sheet fits in the budget:
+ * <ol>
+ * <li>If not, the least recently completed sheets are evicted, that is stored to book file if
+ * needed and released from memory (see {@link SheetStub#swapSheet()}).</li>
+ * <li>If there is no sheet left to evict, the admission is delayed until some sheet being
+ * processed completes.
+ * A sheet is always admitted if no other sheet is being processed.</li>
+ * </ol>
+ * An evicted sheet is transparently reloaded from book file if it is needed again.
+ * <p>
+ * Eviction is performed only in batch mode, since in interactive mode the user may be working on
+ * any loaded sheet.
+ *
+ * @author Hervé Bitteur
+ */
+@ThreadSafe
+public class MemoryGovernor
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(MemoryGovernor.class);
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** The book at hand. */
+    private final Book book;
+
+    /** Memory budget for book sheets, in bytes. */
+    private final long budget;
+
+    /** Sheets admitted and not yet completed. */
+    private final Set<SheetStub> actives = new LinkedHashSet<SheetStub>();
+
+    /** Completed sheets, perhaps still in memory, least recently completed first. */
+    private final Set<SheetStub> idles = new LinkedHashSet<SheetStub>();
+
+    /** Footprint measured on each completed sheet. */
+    private final Map<SheetStub, Long> footprints = new HashMap<SheetStub, Long>();
+
+    /** Largest sheet footprint observed. */
+    private long maxFootprint;
+
+    /** Highest estimated footprint of resident sheets. */
+    private long peak;
+
+    /** Number of sheets evicted. */
+    private int evictions;
+
+    /** Number of sheets admitted, which had to be reloaded from book file. */
+    private int reloads;
+
+    /** Number of admissions delayed. */
+    private int throttles;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code MemoryGovernor} object.
+     *
+     * @param book the book whose sheets are governed
+     */
+    public MemoryGovernor (Book book)
+    {
+        this(book, (long) (Runtime.getRuntime().maxMemory() * constants.budgetRatio.getValue()));
+    }
+
+    /**
+     * Creates a new {@code MemoryGovernor} object with a specific budget.
+     *
+     * @param book   the book whose sheets are governed
+     * @param budget memory budget for book sheets, in bytes
+     */
+    MemoryGovernor (Book book,
+                    long budget)
+    {
+        this.book = book;
+        this.budget = budget;
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------//
+    // admit //
+    //-------//
+    /**
+     * Wait until the provided sheet can be processed within memory budget, evicting
+     * completed sheets if needed.
+     *
+     * @param stub the sheet about to be processed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void admit (SheetStub stub)
+            throws InterruptedException
+    {
+        while (true) {
+            final SheetStub victim;
+
+            synchronized (this) {
+                if (!isEnabled()) {
+                    enter(stub);
+
+                    return;
+                }
+
+                if (maxFootprint == 0) {
+                    // No footprint measured yet, hence no estimate: admit one sheet at a time
+                    if (actives.isEmpty()) {
+                        enter(stub);
+
+                        return;
+                    }
+
+                    logger.debug("Sheet#{} admission delayed", stub.getNumber());
+                    throttles++;
+                    wait();
+
+                    continue;
+                }
+
+                if ((getResidentFootprint() + maxFootprint) <= budget) {
+                    enter(stub);
+
+                    return;
+                }
+
+                victim = pickVictim();
+
+                if (victim == null) {
+                    if (actives.isEmpty()) {
+                        enter(stub); // No other sheet to wait for
+
+                        return;
+                    }
+
+                    // Nothing to evict, wait for some sheet to complete
+                    logger.debug("Sheet#{} admission delayed", stub.getNumber());
+                    throttles++;
+                    wait();
+
+                    continue;
+                }
+            }
+
+            // Eviction (which may imply storing) is performed out of synchronized block
+            if (!evict(victim)) {
+                // Victim is busy, give it some time before trying again
+                synchronized (this) {
+                    wait(constants.retryDelay.getValue());
+                }
+            }
+        }
+    }
+
+    //----------------//
+    // getFootprintOf //
+    //----------------//
+    /**
+     * Report an estimation of the memory currently used by the provided sheet.
+     *
+     * @param sheet the sheet to measure
+     * @return estimated footprint, in bytes
+     */
+    public static long getFootprintOf (Sheet sheet)
+    {
+        long bytes = 0;
+
+        if (sheet.hasPicture()) {
+            bytes += sheet.getPicture().getFootprint();
+        }
+
+        for (Lag lag : new ArrayList<Lag>(sheet.getLagManager().getAllLags())) {
+            if (lag != null) {
+                for (Section section : lag.getEntities()) {
+                    bytes += (constants.sectionBytes.getValue()
+                              + (constants.runBytes.getValue() * section.getRunCount()));
+                }
+            }
+        }
+
+        final SystemManager systemManager = sheet.getSystemManager();
+
+        if (systemManager != null) {
+            for (SystemInfo system : new ArrayList<SystemInfo>(systemManager.getSystems())) {
+                final SIGraph sig = system.getSig();
+
+                if (sig != null) {
+                    bytes += ((long) constants.interBytes.getValue() * sig.vertexSet().size());
+                    bytes += ((long) constants.relationBytes.getValue() * sig.edgeSet().size());
+                }
+            }
+        }
+
+        return bytes;
+    }
+
+    //---------//
+    // release //
+    //---------//
+    /**
+     * Notify that the processing of the provided sheet is completed, successfully or not.
+     *
+     * @param stub  the processed sheet
+     * @param evict true for an immediate eviction of the sheet
+     */
+    public void release (SheetStub stub,
+                         boolean evict)
+    {
+        // Measure sheet, now that no processing is modifying it
+        final long footprint = measure(stub);
+
+        synchronized (this) {
+            footprints.put(stub, footprint);
+            maxFootprint = Math.max(maxFootprint, footprint);
+            peak = Math.max(peak, getResidentFootprint());
+        }
+
+        if (evict) {
+            evict(stub);
+        }
+
+        synchronized (this) {
+            actives.remove(stub);
+            idles.remove(stub);
+            idles.add(stub);
+            notifyAll();
+        }
+    }
+
+    //--------//
+    // report //
+    //--------//
+    /**
+     * Log the governor statistics for the book.
+     */
+    public void report ()
+    {
+        if (constants.printStatistics.isSet()) {
+            logger.info("{} {}", book.getRadix(), this);
+        }
+    }
+
+    //----------//
+    // toString //
+    //----------//
+    @Override
+    public synchronized String toString ()
+    {
+        return String.format(
+                "MemoryGovernor{budget:%dMB maxSheet:%dMB peak:%dMB evictions:%d reloads:%d"
+                + " throttles:%d}",
+                budget >> 20,
+                maxFootprint >> 20,
+                peak >> 20,
+                evictions,
+                reloads,
+                throttles);
+    }
+
+    //-------//
+    // enter //
+    //-------//
+    /**
+     * Register the provided sheet as being processed.
+     * (To be called while holding the lock on this governor)
+     *
+     * @param stub the admitted sheet
+     */
+    private void enter (SheetStub stub)
+    {
+        if (stub.isDone(Step.LOAD) && !stub.hasSheet()) {
+            reloads++; // Sheet will be reloaded from book file
+        }
+
+        idles.remove(stub);
+        actives.add(stub);
+        peak = Math.max(peak, getResidentFootprint());
+    }
+
+    //-------//
+    // evict //
+    //-------//
+    /**
+     * Store (if needed) and release the provided sheet from memory.
+     * <p>
+     * If the sheet is currently locked, it is not evicted but kept as a candidate for a later
+     * eviction.
+     *
+     * @param stub the completed sheet to evict
+     * @return true if the sheet could be locked, false otherwise
+     */
+    private boolean evict (SheetStub stub)
+    {
+        // Make sure no processing has been launched on this sheet in the meantime
+        if (!stub.getLock().tryLock()) {
+            synchronized (this) {
+                if (!actives.contains(stub)) {
+                    idles.add(stub); // Put it back
+                }
+            }
+
+            return false;
+        }
+
+        try {
+            if (stub.hasSheet()) {
+                LogUtil.start(stub);
+                logger.debug("Evicting sheet#{}", stub.getNumber());
+                stub.swapSheet();
+
+                synchronized (this) {
+                    evictions++;
+                }
+            }
+        } finally {
+            LogUtil.stopStub();
+            stub.getLock().unlock();
+        }
+
+        return true;
+    }
+
+    //----------------------//
+    // getResidentFootprint //
+    //----------------------//
+    /**
+     * Report the estimated footprint of book sheets currently in memory.
+     * (To be called while holding the lock on this governor)
+     *
+     * @return the resident footprint
+     */
+    private long getResidentFootprint ()
+    {
+        long total = 0;
+
+        for (SheetStub stub : book.getStubs()) {
+            if (actives.contains(stub)) {
+                final Long footprint = footprints.get(stub);
+                total += Math.max(maxFootprint, (footprint != null) ? footprint : 0);
+            } else if (stub.hasSheet()) {
+                final Long footprint = footprints.get(stub);
+                total += ((footprint != null) ? footprint : maxFootprint);
+            }
+        }
+
+        return total;
+    }
+
+    //-----------//
+    // isEnabled //
+    //-----------//
+    private boolean isEnabled ()
+    {
+        return (OMR.gui == null) && constants.useMemoryGovernor.isSet();
+    }
+
+    //---------//
+    // measure //
+    //---------//
+    /**
+     * Estimate the memory currently used by the provided sheet, if loaded.
+     *
+     * @param stub the sheet to measure
+     * @return estimated footprint, in bytes
+     */
+    long measure (SheetStub stub)
+    {
+        return stub.hasSheet() ? getFootprintOf(stub.getSheet()) : 0;
+    }
+
+    //------------//
+    // pickVictim //
+    //------------//
+    /**
+     * Pick the least recently completed sheet still in memory.
+     * (To be called while holding the lock on this governor)
+     *
+     * @return the sheet to evict, or null if none
+     */
+    private SheetStub pickVictim ()
+    {
+        for (SheetStub stub : new ArrayList<SheetStub>(idles)) {
+            idles.remove(stub);
+
+            if (stub.hasSheet()) {
+                return stub;
+            }
+        }
+
+        return null;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean useMemoryGovernor = new Constant.Boolean(
+                true,
+                "Should we bound the memory used by book sheets in batch?");
+
+        private final Constant.Boolean printStatistics = new Constant.Boolean(
+                true,
+                "Should we print out memory governor statistics per book?");
+
+        private final Constant.Integer retryDelay = new Constant.Integer(
+                "MilliSeconds",
+                50,
+                "Delay before retrying the eviction of a locked sheet");
+
+        private final Constant.Ratio budgetRatio = new Constant.Ratio(
+                0.5,
+                "Ratio of maximum heap allowed for the sheets of a book");
+
+        private final Constant.Integer sectionBytes = new Constant.Integer(
+                "Bytes",
+                120,
+                "Estimated memory used by a section, regardless of its runs");
+
+        private final Constant.Integer runBytes = new Constant.Integer(
+                "Bytes",
+                8,
+                "Estimated memory used by a section run");
+
+        private final Constant.Integer interBytes = new Constant.Integer(
+                "Bytes",
+                600,
+                "Estimated memory used by an inter, including its glyph");
+
+        private final Constant.Integer relationBytes = new Constant.Integer(
+                "Bytes",
+                120,
+                "Estimated memory used by a relation");
+    }
+}
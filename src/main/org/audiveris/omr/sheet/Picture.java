@@ -36,6 +36,7 @@ import org.audiveris.omr.image.PixelFilter;
 import org.audiveris.omr.image.PixelSource;
 import static org.audiveris.omr.run.Orientation.VERTICAL;
 import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableBinary;
 import org.audiveris.omr.run.RunTableFactory;
 import org.audiveris.omr.sheet.grid.LineInfo;
 import org.audiveris.omr.ui.selection.LocationEvent;
@@ -58,18 +59,16 @@ import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
 import java.awt.image.SampleModel;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.lang.ref.WeakReference;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentSkipListMap;
 
 import javax.media.jai.JAI;
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Marshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -248,9 +247,41 @@ public class Picture
     //-------------------//
     // buildNoStaffTable //
     //-------------------//
+    /**
+     * Build the vertical table of binary pixels, staff lines excluded.
+     * <p>
+     * The table is computed as the difference between the binary table and the staff line glyphs,
+     * with no intermediate raster, unless the binary table is not available.
+     *
+     * @return the table of NO_STAFF pixels
+     */
     public RunTable buildNoStaffTable ()
     {
-        return new RunTableFactory(VERTICAL).createTable(getSource(SourceKey.NO_STAFF));
+        final RunTable binaryTable = getTable(TableKey.BINARY);
+
+        if ((binaryTable == null) || (binaryTable.getOrientation() != VERTICAL)) {
+            return new RunTableFactory(VERTICAL).createTable(getSource(SourceKey.NO_STAFF));
+        }
+
+        final List<RunTable> lineTables = new ArrayList<RunTable>();
+        final List<Point> offsets = new ArrayList<Point>();
+
+        for (SystemInfo system : sheet.getSystems()) {
+            for (Staff staff : system.getStaves()) {
+                for (LineInfo li : staff.getLines()) {
+                    final Glyph glyph = ((StaffLine) li).getGlyph();
+
+                    if ((glyph == null) || (glyph.getRunTable() == null)) {
+                        logger.warn("No glyph runs for line {} staff:{}", li, staff);
+                    } else {
+                        lineTables.add(glyph.getRunTable());
+                        offsets.add(glyph.getTopLeft());
+                    }
+                }
+            }
+        }
+
+        return binaryTable.difference(RunTable.merge(width, height, lineTables, offsets));
     }
 
     //---------------------------//
@@ -408,6 +439,44 @@ public class Picture
         }
     }
 
+    //--------------//
+    // getFootprint //
+    //--------------//
+    /**
+     * Report an estimation of the memory currently used by this picture.
+     * <p>
+     * Only the data actually in memory is counted: initial image, sources not yet garbage
+     * collected and tables loaded.
+     *
+     * @return estimated footprint, in bytes
+     */
+    public long getFootprint ()
+    {
+        long bytes = 0;
+        final BufferedImage img = initialImage;
+
+        if (img != null) {
+            bytes += (((long) img.getWidth() * img.getHeight() * img.getColorModel()
+                    .getPixelSize()) / 8);
+        }
+
+        for (SourceKey key : sources.keySet()) {
+            final ByteProcessor src = getStrongRef(key);
+
+            if (src != null) {
+                bytes += ((long) src.getWidth() * src.getHeight());
+            }
+        }
+
+        for (TableKey key : TableKey.values()) {
+            if (hasTableReady(key)) {
+                bytes += getTable(key).getFootprint();
+            }
+        }
+
+        return bytes;
+    }
+
     //-----------//
     // getHeight //
     //-----------//
@@ -759,32 +828,30 @@ public class Picture
         for (Entry<TableKey, RunTableHolder> entry : tables.entrySet()) {
             final TableKey key = entry.getKey();
             final RunTableHolder holder = entry.getValue();
-            final Path tablepath = sheetPath.resolve(key + ".xml");
 
             if (!holder.hasData()) {
                 if (oldSheetPath != null) {
                     try {
-                        // Copy from old book file to new
-                        Path oldTablePath = oldSheetPath.resolve(key + ".xml");
-                        Files.copy(oldTablePath, tablepath);
-                        logger.info("Copied {}", tablepath);
+                        // Copy from old book file to new (whatever the table format)
+                        Path oldTablePath = oldSheetPath.resolve(holder.getPath());
+                        Path tablePath = sheetPath.resolve(holder.getPath());
+                        Files.copy(oldTablePath, tablePath);
+                        logger.info("Copied {}", tablePath);
                     } catch (IOException ex) {
                         logger.warn("Error in picture.store " + ex, ex);
                     }
                 }
             } else if (holder.isModified()) {
                 try {
-                    Files.deleteIfExists(tablepath);
-
-                    OutputStream os = Files.newOutputStream(tablepath, StandardOpenOption.CREATE);
-                    Marshaller m = JAXBContext.newInstance(RunTable.class).createMarshaller();
-                    m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-
+                    final Path tablePath = sheetPath.resolve(RunTableHolder.binaryPath(key));
                     RunTable table = holder.getData(sheet.getStub());
-                    m.marshal(table, os);
-                    os.close();
+                    RunTableBinary.write(table, tablePath, constants.runTableDeltas.isSet());
+                    holder.setPath(RunTableHolder.binaryPath(key));
                     holder.setModified(false);
-                    logger.info("Stored {}", tablepath);
+
+                    // Remove any obsolete legacy version
+                    Files.deleteIfExists(sheetPath.resolve(RunTableHolder.legacyXmlPath(key)));
+                    logger.info("Stored {}", tablePath);
                 } catch (Exception ex) {
                     logger.warn("Error in picture.store " + ex, ex);
                 }
@@ -974,5 +1041,9 @@ public class Picture
                 "pixels",
                 1,
                 "Radius of Median filtering kernel (1 for 3x3, 2 for 5x5)");
+
+        private final Constant.Boolean runTableDeltas = new Constant.Boolean(
+                true,
+                "Should we allow per-sequence deltas when storing run tables?");
     }
 }
@@ -22,18 +22,16 @@
 package org.audiveris.omr.sheet;
 
 import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableBinary;
 import org.audiveris.omr.sheet.Picture.TableKey;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.InputStream;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -41,6 +39,9 @@ import javax.xml.bind.annotation.XmlAttribute;
 /**
  * Class {@code RunTableHolder} holds the reference to a run table, at least the path
  * to its marshalled data on disk, and (on demand) the unmarshalled run table itself.
+ * <p>
+ * Run table data is stored in binary format (see {@link RunTableBinary}), but the legacy XML
+ * format is still accepted on reading.
  *
  * @author Hervé Bitteur
  */
@@ -52,13 +53,16 @@ public class RunTableHolder
     private static final Logger logger = LoggerFactory.getLogger(
             RunTableHolder.class);
 
+    /** File extension for legacy XML format. */
+    private static final String XML_EXTENSION = ".xml";
+
     //~ Instance fields ----------------------------------------------------------------------------
     /** Direct access to data, if any. */
     private RunTable data;
 
     /** Path to data on disk. */
     @XmlAttribute(name = "path")
-    private final String pathString;
+    private String pathString;
 
     /** To avoid useless marshalling to disk. */
     private boolean modified = false;
@@ -71,7 +75,7 @@ public class RunTableHolder
      */
     public RunTableHolder (TableKey key)
     {
-        pathString = key + ".xml";
+        pathString = binaryPath(key);
     }
 
     /** No-arg constructor needed for JAXB. */
@@ -97,19 +101,22 @@ public class RunTableHolder
                 stub.getBook().getLock().lock();
 
                 if (data == null) {
-                    JAXBContext jaxbContext = JAXBContext.newInstance(RunTable.class);
-                    Unmarshaller um = jaxbContext.createUnmarshaller();
-
                     // Open book file system
-                    Path dataFile = stub.getBook().openSheetFolder(stub.getNumber())
-                            .resolve(pathString);
-                    logger.debug("path: {}", dataFile);
+                    final Path folder = stub.getBook().openSheetFolder(stub.getNumber());
+                    Path dataFile = folder.resolve(pathString);
 
-                    InputStream is = Files.newInputStream(dataFile, StandardOpenOption.READ);
-                    data = (RunTable) um.unmarshal(is);
-                    is.close();
+                    if (!Files.exists(dataFile)) {
+                        // Try the other format
+                        final Path other = folder.resolve(alternatePath(pathString));
 
-                    dataFile.getFileSystem().close(); // Close book file system
+                        if (Files.exists(other)) {
+                            dataFile = other;
+                        }
+                    }
+
+                    logger.debug("path: {}", dataFile);
+                    data = readTable(dataFile);
+                    folder.getFileSystem().close(); // Close book file system
                     modified = false;
                     logger.debug("Loaded {}", dataFile);
                 }
@@ -123,6 +130,19 @@ public class RunTableHolder
         return data;
     }
 
+    //---------//
+    // getPath //
+    //---------//
+    /**
+     * Report the path to data, relative to sheet folder.
+     *
+     * @return the relative path to data file
+     */
+    public String getPath ()
+    {
+        return pathString;
+    }
+
     //---------//
     // hasData //
     //---------//
@@ -156,4 +176,78 @@ public class RunTableHolder
     {
         modified = bool;
     }
+
+    //---------//
+    // setPath //
+    //---------//
+    /**
+     * Set the path to data, relative to sheet folder.
+     *
+     * @param pathString the relative path to data file
+     */
+    public void setPath (String pathString)
+    {
+        this.pathString = pathString;
+    }
+
+    //------------//
+    // binaryPath //
+    //------------//
+    /**
+     * Report the relative path of binary data for the provided table key.
+     *
+     * @param key the table key
+     * @return the relative path of binary file
+     */
+    public static String binaryPath (TableKey key)
+    {
+        return key + RunTableBinary.EXTENSION;
+    }
+
+    //---------------//
+    // legacyXmlPath //
+    //---------------//
+    /**
+     * Report the relative path of legacy XML data for the provided table key.
+     *
+     * @param key the table key
+     * @return the relative path of XML file
+     */
+    public static String legacyXmlPath (TableKey key)
+    {
+        return key + XML_EXTENSION;
+    }
+
+    //---------------//
+    // alternatePath //
+    //---------------//
+    /**
+     * Switch between binary and legacy XML paths.
+     */
+    private static String alternatePath (String path)
+    {
+        if (path.endsWith(XML_EXTENSION)) {
+            return path.substring(0, path.length() - XML_EXTENSION.length())
+                   + RunTableBinary.EXTENSION;
+        } else {
+            return path.substring(0, path.length() - RunTableBinary.EXTENSION.length())
+                   + XML_EXTENSION;
+        }
+    }
+
+    //-----------//
+    // readTable //
+    //-----------//
+    /**
+     * Read table data, according to file format.
+     */
+    private static RunTable readTable (Path dataFile)
+            throws IOException
+    {
+        if (dataFile.getFileName().toString().endsWith(XML_EXTENSION)) {
+            return RunTable.unmarshal(dataFile); // Legacy format
+        } else {
+            return RunTableBinary.read(dataFile);
+        }
+    }
 }
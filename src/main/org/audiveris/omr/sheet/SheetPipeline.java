@@ -0,0 +1,435 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                    S h e e t P i p e l i n e                                   //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sheet;
+
+import org.audiveris.omr.OMR;
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.log.LogUtil;
+import org.audiveris.omr.step.Step;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class {@code SheetPipeline} processes the sheets of a book through a two-stage pipeline.
+ * <p>
+ * Each sheet first goes through the I/O-oriented steps (LOAD, BINARY, SCALE) on the sheet I/O
+ * executor, and then through the following steps (GRID and above) on the sheet CPU executor.
+ * <p>
+ * A bounded number of sheets is admitted in the pipeline at any time, so that for example sheet
+ * N+1 gets binarized while sheet N is still processed for SYMBOLS, without loading all book sheets
+ * in memory at the same time.
+ * <p>
+ * Queue depth of each stage is recorded and reported at the end of processing, to help size the
+ * executors and the number of sheets in flight.
+ * <p>
+ * Admission is also subject to the book {@link MemoryGovernor}.
+ *
+ * @author Hervé Bitteur
+ */
+public class SheetPipeline
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    private static final Logger logger = LoggerFactory.getLogger(SheetPipeline.class);
+
+    /** Last step of the I/O-oriented stage. */
+    private static final Step LAST_IO_STEP = Step.SCALE;
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Target step for all sheets. */
+    private final Step target;
+
+    /** True for forced processing. */
+    private final boolean force;
+
+    /** The I/O-oriented stage. */
+    private final Stage ioStage;
+
+    /** The CPU-oriented stage. */
+    private final Stage cpuStage;
+
+    /** Maximum number of sheets in flight. */
+    private final int maxInFlight;
+
+    /** Admission control of sheets in the pipeline. */
+    private final Semaphore admission;
+
+    /** Memory control of book sheets. */
+    private final MemoryGovernor governor;
+
+    /** Set as soon as one sheet fails. */
+    private final AtomicBoolean someFailure = new AtomicBoolean(false);
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code SheetPipeline} object.
+     *
+     * @param target   the step to reach on every sheet
+     * @param force    if true and step already reached, sheet is reset and processed until step
+     * @param governor the memory governor for book sheets
+     */
+    public SheetPipeline (Step target,
+                          boolean force,
+                          MemoryGovernor governor)
+    {
+        this.target = target;
+        this.force = force;
+        this.governor = governor;
+
+        ioStage = new Stage("io", OmrExecutors.getSheetIoExecutor());
+        cpuStage = new Stage("cpu", OmrExecutors.getSheetCpuExecutor());
+        maxInFlight = getMaxSheetsInFlight();
+        admission = new Semaphore(maxInFlight);
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //----------------------//
+    // getMaxSheetsInFlight //
+    //----------------------//
+    /**
+     * Report the maximum number of sheets allowed in the pipeline at the same time.
+     *
+     * @return the maximum number of sheets in flight
+     */
+    public static int getMaxSheetsInFlight ()
+    {
+        return Math.max(1, constants.maxSheetsInFlight.getValue());
+    }
+
+    //---------//
+    // process //
+    //---------//
+    /**
+     * Process the provided stubs through the pipeline, until target step is reached on all
+     * of them.
+     * <p>
+     * Stubs are admitted in the provided order, and the calling thread gets blocked whenever the
+     * maximum number of sheets in flight has been reached.
+     * <p>
+     * If admission or waiting gets interrupted, the sheets already in flight are awaited before
+     * this method exits.
+     *
+     * @param stubs the sheet stubs to process
+     * @return true if OK for all stubs, false if some failure occurred
+     * @throws InterruptedException if interrupted while waiting for pipeline
+     */
+    public boolean process (List<SheetStub> stubs)
+            throws InterruptedException
+    {
+        final CountDownLatch latch = new CountDownLatch(stubs.size());
+        logger.debug(
+                "Pipeline towards {} with {} sheets in flight",
+                target,
+                admission.availablePermits());
+
+        boolean completed = false;
+
+        try {
+            for (final SheetStub stub : stubs) {
+                admission.acquire(); // Back-pressure
+
+                boolean admitted = false;
+
+                try {
+                    governor.admit(stub);
+                    admitted = true;
+                } finally {
+                    if (!admitted) {
+                        admission.release();
+                    }
+                }
+
+                if (!ioStage.submit(
+                        stub,
+                        new Runnable()
+                {
+                    @Override
+                    public void run ()
+                    {
+                        processIo(stub, latch);
+                    }
+                })) {
+                    release(stub, false, latch);
+                }
+            }
+
+            latch.await();
+            completed = true;
+        } finally {
+            if (!completed) {
+                awaitInFlight();
+            }
+
+            report();
+            governor.report();
+        }
+
+        return !someFailure.get();
+    }
+
+    //---------------//
+    // awaitInFlight //
+    //---------------//
+    /**
+     * Wait until all sheets submitted so far have left the pipeline.
+     * <p>
+     * Each sheet in flight holds an admission permit until it is released, hence getting all
+     * permits back means that no sheet is still being processed.
+     */
+    private void awaitInFlight ()
+    {
+        logger.info("Waiting for sheets in flight to complete");
+        admission.acquireUninterruptibly(maxInFlight);
+        admission.release(maxInFlight);
+    }
+
+    //-----------//
+    // processIo //
+    //-----------//
+    /**
+     * Process the I/O-oriented steps of a sheet, and if needed hand it over to CPU stage.
+     *
+     * @param stub  the sheet stub to process
+     * @param latch to be notified when sheet is completed
+     */
+    private void processIo (final SheetStub stub,
+                            final CountDownLatch latch)
+    {
+        final Step ioTarget = (target.compareTo(LAST_IO_STEP) <= 0) ? target : LAST_IO_STEP;
+
+        // Reset, if any, is performed by the stub under its lock, when target is already reached
+        if (!reach(stub, ioTarget, force && stub.isDone(target))) {
+            release(stub, false, latch);
+        } else if (ioTarget == target) {
+            release(stub, true, latch);
+        } else if (!cpuStage.submit(
+                stub,
+                new Runnable()
+        {
+            @Override
+            public void run ()
+            {
+                release(stub, reach(stub, target, false), latch);
+            }
+        })) {
+            release(stub, false, latch);
+        }
+    }
+
+    //-------//
+    // reach //
+    //-------//
+    private boolean reach (SheetStub stub,
+                           Step step,
+                           boolean force)
+    {
+        LogUtil.start(stub);
+
+        try {
+            return stub.reachStep(step, force);
+        } catch (Exception ex) {
+            // Exception (such as timeout) raised on stub
+            // Let processing continue for the other stubs
+            logger.warn("Error processing stub {}", ex.toString(), ex);
+
+            return false;
+        } finally {
+            LogUtil.stopStub();
+        }
+    }
+
+    //---------//
+    // release //
+    //---------//
+    /**
+     * Sheet has left the pipeline, let another one enter.
+     *
+     * @param stub  the sheet stub completed
+     * @param ok    true if sheet reached the target step
+     * @param latch to be notified
+     */
+    private void release (SheetStub stub,
+                          boolean ok,
+                          CountDownLatch latch)
+    {
+        try {
+            if (!ok) {
+                someFailure.set(true);
+            }
+
+            // In batch, save sheet to disk (including global book info) and free memory
+            governor.release(stub, ok && (OMR.gui == null));
+        } catch (Exception ex) {
+            logger.warn("Error swapping stub {}", ex.toString(), ex);
+        } finally {
+            LogUtil.stopStub();
+            admission.release();
+            latch.countDown();
+        }
+    }
+
+    //--------//
+    // report //
+    //--------//
+    private void report ()
+    {
+        if (constants.printStatistics.isSet()) {
+            logger.info("Pipeline {}", ioStage);
+            logger.info("Pipeline {}", cpuStage);
+        }
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Integer maxSheetsInFlight = new Constant.Integer(
+                "sheets",
+                2,
+                "Maximum number of sheets processed at the same time in pipeline");
+
+        private final Constant.Boolean printStatistics = new Constant.Boolean(
+                false,
+                "Should we print out pipeline statistics per stage?");
+    }
+
+    //-------//
+    // Stage //
+    //-------//
+    /**
+     * One stage of the pipeline, with its executor and queue statistics.
+     */
+    private static class Stage
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Stage name. */
+        private final String name;
+
+        /** Executor for this stage. */
+        private final ExecutorService executor;
+
+        /** Number of sheets waiting for a thread. */
+        private final AtomicInteger waiting = new AtomicInteger(0);
+
+        /** Maximum number of sheets waiting at the same time. */
+        private final AtomicInteger maxWaiting = new AtomicInteger(0);
+
+        /** Number of sheets processed. */
+        private final AtomicInteger processed = new AtomicInteger(0);
+
+        /** Cumulated waiting time, in milliseconds. */
+        private final AtomicLong waitTime = new AtomicLong(0);
+
+        /** Cumulated processing time, in milliseconds. */
+        private final AtomicLong runTime = new AtomicLong(0);
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public Stage (String name,
+                      ExecutorService executor)
+        {
+            this.name = name;
+            this.executor = executor;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        /**
+         * Submit the processing of a sheet to this stage.
+         *
+         * @param stub    the sheet stub
+         * @param handler the processing to perform
+         * @return true if successfully submitted
+         */
+        public boolean submit (final SheetStub stub,
+                               final Runnable handler)
+        {
+            final long queued = System.currentTimeMillis();
+            final int depth = waiting.incrementAndGet();
+
+            for (int max = maxWaiting.get(); depth > max; max = maxWaiting.get()) {
+                if (maxWaiting.compareAndSet(max, depth)) {
+                    break;
+                }
+            }
+
+            logger.debug("{} stage queue depth: {} after sheet#{}", name, depth, stub.getNumber());
+
+            try {
+                executor.execute(
+                        new Runnable()
+                {
+                    @Override
+                    public void run ()
+                    {
+                        final long start = System.currentTimeMillis();
+                        waiting.decrementAndGet();
+                        waitTime.addAndGet(start - queued);
+
+                        try {
+                            handler.run();
+                        } finally {
+                            processed.incrementAndGet();
+                            runTime.addAndGet(System.currentTimeMillis() - start);
+                        }
+                    }
+                });
+
+                return true;
+            } catch (Exception ex) {
+                waiting.decrementAndGet();
+                logger.warn("Could not submit sheet#{} to {} stage", stub.getNumber(), name, ex);
+
+                return false;
+            }
+        }
+
+        @Override
+        public String toString ()
+        {
+            return String.format(
+                    "%s stage: sheets:%d maxQueueDepth:%d wait:%dms run:%dms",
+                    name,
+                    processed.get(),
+                    maxWaiting.get(),
+                    waitTime.get(),
+                    runTime.get());
+        }
+    }
+}
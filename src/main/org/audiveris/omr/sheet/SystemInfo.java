@@ -21,7 +21,9 @@
 // </editor-fold>
 package org.audiveris.omr.sheet;
 
+import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.glyph.BasicGlyph;
+import org.audiveris.omr.glyph.CompoundCache;
 import org.audiveris.omr.glyph.Glyph;
 import org.audiveris.omr.glyph.GlyphIndex;
 import org.audiveris.omr.glyph.Symbol;
@@ -39,6 +41,8 @@ import org.audiveris.omr.sig.SIGraph;
 import org.audiveris.omr.sig.SigValue.InterSet;
 import org.audiveris.omr.sig.inter.Inter;
 import org.audiveris.omr.sig.inter.SentenceInter;
+import org.audiveris.omr.util.Entity;
+import org.audiveris.omr.util.EntityGrid;
 import org.audiveris.omr.util.HorizontalSide;
 import static org.audiveris.omr.util.HorizontalSide.*;
 import org.audiveris.omr.util.Navigable;
@@ -89,6 +93,8 @@ public class SystemInfo
 {
     //~ Static fields/initializers -----------------------------------------------------------------
 
+    private static final Constants constants = new Constants();
+
     private static final Logger logger = LoggerFactory.getLogger(
             SystemInfo.class);
 
@@ -162,6 +168,12 @@ public class SystemInfo
     /** Vertical sections. */
     private final List<Section> vSections = new ArrayList<Section>();
 
+    /** Spatial index on horizontal sections, lazily built. */
+    private EntityGrid<Section> hSectionGrid;
+
+    /** Spatial index on vertical sections, lazily built. */
+    private EntityGrid<Section> vSectionGrid;
+
     /** Area that encloses all items related to this system. */
     private Area area;
 
@@ -189,6 +201,9 @@ public class SystemInfo
     /** Very temporary set, used only during SIG marshalling. */
     private InterSet interSet;
 
+    /** Cache of compound glyphs and evaluations, shared by HEADERS and SYMBOLS steps. */
+    private CompoundCache compoundCache;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Create a SystemInfo entity, to register the provided parameters.
@@ -275,6 +290,22 @@ public class SystemInfo
         }
     }
 
+    //-----------//
+    // buildGrid //
+    //-----------//
+    /**
+     * Build a spatial index on the provided entities, with a cell size adapted to the
+     * sheet scale.
+     *
+     * @param <E>      precise entity type
+     * @param entities the (system) entities to index
+     * @return the spatial index
+     */
+    public <E extends Entity> EntityGrid<E> buildGrid (Collection<? extends E> entities)
+    {
+        return new EntityGrid<E>(entities, sheet.getScale().toPixels(constants.gridCellSize));
+    }
+
     //-----------------//
     // clearFreeGlyphs //
     //-----------------//
@@ -393,6 +424,23 @@ public class SystemInfo
         return StaffManager.getClosestStaff(point, staves);
     }
 
+    //------------------//
+    // getCompoundCache //
+    //------------------//
+    /**
+     * Report the cache of compound glyphs and evaluations for this system.
+     *
+     * @return the compound cache, created if needed
+     */
+    public synchronized CompoundCache getCompoundCache ()
+    {
+        if (compoundCache == null) {
+            compoundCache = new CompoundCache();
+        }
+
+        return compoundCache;
+    }
+
     //-----------//
     // getDeltaY //
     //-----------//
@@ -503,6 +551,23 @@ public class SystemInfo
         return found;
     }
 
+    //--------------------------//
+    // getHorizontalSectionGrid //
+    //--------------------------//
+    /**
+     * Report the spatial index on horizontal sections of the system.
+     *
+     * @return the horizontal sections index
+     */
+    public synchronized EntityGrid<Section> getHorizontalSectionGrid ()
+    {
+        if (hSectionGrid == null) {
+            hSectionGrid = buildGrid(hSections);
+        }
+
+        return hSectionGrid;
+    }
+
     //-----------------------//
     // getHorizontalSections //
     //-----------------------//
@@ -656,8 +721,10 @@ public class SystemInfo
      *
      * @return the area vertical sections
      */
-    public Collection<Section> getMutableHorizontalSections ()
+    public synchronized Collection<Section> getMutableHorizontalSections ()
     {
+        hSectionGrid = null; // Since sections are about to be modified
+
         return hSections;
     }
 
@@ -670,8 +737,10 @@ public class SystemInfo
      *
      * @return the vertical sections
      */
-    public Collection<Section> getMutableVerticalSections ()
+    public synchronized Collection<Section> getMutableVerticalSections ()
     {
+        vSectionGrid = null; // Since sections are about to be modified
+
         return vSections;
     }
 
@@ -1079,6 +1148,23 @@ public class SystemInfo
         return top;
     }
 
+    //------------------------//
+    // getVerticalSectionGrid //
+    //------------------------//
+    /**
+     * Report the spatial index on vertical sections of the system.
+     *
+     * @return the vertical sections index
+     */
+    public synchronized EntityGrid<Section> getVerticalSectionGrid ()
+    {
+        if (vSectionGrid == null) {
+            vSectionGrid = buildGrid(vSections);
+        }
+
+        return vSectionGrid;
+    }
+
     //---------------------//
     // getVerticalSections //
     //---------------------//
@@ -1427,6 +1513,19 @@ public class SystemInfo
     }
 
     //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Scale.Fraction gridCellSize = new Scale.Fraction(
+                2.0,
+                "Cell size of spatial indexes on system entities");
+    }
+
     //------------//
     // FreeGlyphs //
     //------------//
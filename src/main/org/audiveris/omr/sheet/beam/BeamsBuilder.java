@@ -54,6 +54,7 @@ import org.audiveris.omr.sig.relation.HeadStemRelation;
 import org.audiveris.omr.sig.relation.Relation;
 import org.audiveris.omr.util.Corner;
 import org.audiveris.omr.util.Dumping;
+import org.audiveris.omr.util.EntityGrid;
 import org.audiveris.omr.util.HorizontalSide;
 import static org.audiveris.omr.util.HorizontalSide.*;
 import org.audiveris.omr.util.Navigable;
@@ -75,7 +76,6 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
 
 /**
  * Class {@code BeamsBuilder} is in charge, at system level, of retrieving the possible
@@ -129,8 +129,11 @@ public class BeamsBuilder
     /** Remaining beam spots candidates, sorted by abscissa. */
     private List<Glyph> sortedBeamSpots;
 
-    /** Vertical stem seeds, sorted by abscissa. */
-    private List<Glyph> sortedSystemSeeds;
+    /** Spatial index on remaining beam spots candidates. */
+    private EntityGrid<Glyph> beamSpotGrid;
+
+    /** Spatial index on vertical stem seeds. */
+    private EntityGrid<Glyph> systemSeeds;
 
     /** Input image. */
     private ByteProcessor pixelFilter;
@@ -186,10 +189,12 @@ public class BeamsBuilder
 
         // Then, extend beams as much as possible
         sortedBeamSpots.removeAll(assignedSpots);
+        beamSpotGrid = system.buildGrid(sortedBeamSpots);
         extendBeams();
 
         // Finally, retrieve beam hooks
         sortedBeamSpots.removeAll(assignedSpots);
+        beamSpotGrid = system.buildGrid(sortedBeamSpots);
         buildHooks();
 
         // Measure vertical gap
@@ -266,7 +271,7 @@ public class BeamsBuilder
                 new Point2D.Double(median.getX1(), median.getY1() + dy),
                 new Point2D.Double(median.getX2(), median.getY2() + dy),
                 height);
-        Set<Glyph> glyphs = Glyphs.intersectedGlyphs(sortedBeamSpots, luArea);
+        List<Glyph> glyphs = beamSpotGrid.intersectedEntities(luArea);
 
         for (Glyph glyph : glyphs) {
             String failure = checkHookGlyph(beam, side, glyph);
@@ -749,8 +754,8 @@ public class BeamsBuilder
      */
     private void extendBeams ()
     {
-        // All stem seeds for this system, sorted by abscissa
-        sortedSystemSeeds = system.getGroupedGlyphs(Group.VERTICAL_SEED);
+        // All stem seeds for this system
+        systemSeeds = system.buildGrid(system.getGroupedGlyphs(Group.VERTICAL_SEED));
 
         // The beam & hook inters for this system, NOT sorted by abscissa.
         // We may add to this list, but not remove elements (they are simply logically 'deleted').
@@ -1080,8 +1085,7 @@ public class BeamsBuilder
         final int dx = (maxDx == null) ? params.maxExtensionToSpot
                 : Math.min(params.maxExtensionToSpot, maxDx);
         final Area luArea = sideAreaOf("O", beam, side, 0, dx, 0);
-        final List<Glyph> spots = new ArrayList<Glyph>(
-                Glyphs.intersectedGlyphs(sortedBeamSpots, luArea));
+        final List<Glyph> spots = beamSpotGrid.intersectedEntities(luArea);
         Collections.sort(spots, Glyphs.byAbscissa);
 
         if (beam.getGlyph() != null) {
@@ -1128,8 +1132,7 @@ public class BeamsBuilder
                 : Math.min(params.maxExtensionToStem, maxDx);
         final int dy = params.maxStemBeamGapY;
         final Area luArea = sideAreaOf("|", beam, side, dy, dx, 0);
-        List<Glyph> seeds = new ArrayList<Glyph>(
-                Glyphs.intersectedGlyphs(sortedSystemSeeds, luArea));
+        List<Glyph> seeds = systemSeeds.intersectedEntities(luArea);
         Collections.sort(seeds, Glyphs.byAbscissa);
 
         // We should remove seeds already 'embraced' by the beam
@@ -28,6 +28,7 @@ import org.audiveris.omr.constant.ConstantSet;
 import org.audiveris.omr.glyph.Glyph;
 import org.audiveris.omr.glyph.Shape;
 import org.audiveris.omr.image.ImageUtil;
+import org.audiveris.omr.image.TiledSkeletonizer;
 import org.audiveris.omr.sheet.PageCleaner;
 import org.audiveris.omr.sheet.Picture;
 import org.audiveris.omr.sheet.Scale;
@@ -208,6 +209,8 @@ public class Skeleton
      * <li>Bar lines, connections and stems can be crossed by a curve.
      * Perhaps another specific background value could be used?</li>
      * </ul>
+     * <p>
+     * Image thinning can be performed by tiles, in parallel (see {@link TiledSkeletonizer}).
      *
      * @return the skeleton image (in parallel of setting the skeleton buffer)
      */
@@ -219,7 +222,16 @@ public class Skeleton
         ///ByteProcessor buffer = picture.getSource(Picture.SourceKey.NO_STAFF);
         ByteProcessor buffer = picture.getSource(Picture.SourceKey.BINARY);
         buffer = (ByteProcessor) buffer.duplicate();
-        buffer.skeletonize();
+
+        if (constants.useTiledSkeleton.isSet()) {
+            final Scale scale = sheet.getScale();
+            new TiledSkeletonizer(
+                    scale.toPixels(constants.tileHeight),
+                    Math.max(TiledSkeletonizer.MIN_MARGIN, scale.toPixels(constants.tileMargin)))
+                    .skeletonize(buffer);
+        } else {
+            buffer.skeletonize();
+        }
 
         BufferedImage img = buffer.getBufferedImage();
 
@@ -482,6 +494,18 @@ public class Skeleton
                 false,
                 "Should we store skeleton images on disk?");
 
+        private final Constant.Boolean useTiledSkeleton = new Constant.Boolean(
+                true,
+                "Should we thin the image by tiles, processed in parallel?");
+
+        private final Scale.Fraction tileHeight = new Scale.Fraction(
+                20,
+                "Height of each skeleton tile");
+
+        private final Scale.Fraction tileMargin = new Scale.Fraction(
+                3,
+                "Margin added above & below each skeleton tile");
+
         private final Constant.Boolean useHeader = new Constant.Boolean(
                 true,
                 "Should we erase the header at staff start");
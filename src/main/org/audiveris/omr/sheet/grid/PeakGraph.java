@@ -29,6 +29,7 @@ import org.audiveris.omr.glyph.dynamic.Filament;
 import org.audiveris.omr.lag.Lag;
 import org.audiveris.omr.lag.Lags;
 import org.audiveris.omr.lag.Section;
+import org.audiveris.omr.log.LogUtil;
 import org.audiveris.omr.math.AreaUtil;
 import org.audiveris.omr.math.GeoPath;
 import org.audiveris.omr.math.LineUtil;
@@ -42,12 +43,14 @@ import org.audiveris.omr.sheet.StaffManager;
 import org.audiveris.omr.sheet.SystemInfo;
 import org.audiveris.omr.sheet.SystemManager;
 import static org.audiveris.omr.sheet.grid.StaffPeak.Attribute.BRACE;
+import org.audiveris.omr.step.ProcessingCancellationException;
 import org.audiveris.omr.step.StepException;
 import org.audiveris.omr.util.Dumping;
 import org.audiveris.omr.util.HorizontalSide;
 import static org.audiveris.omr.util.HorizontalSide.LEFT;
 import static org.audiveris.omr.util.HorizontalSide.RIGHT;
 import org.audiveris.omr.util.Navigable;
+import org.audiveris.omr.util.OmrExecutors;
 import org.audiveris.omr.util.StopWatch;
 import org.audiveris.omr.util.VerticalSide;
 import static org.audiveris.omr.util.VerticalSide.BOTTOM;
@@ -74,6 +77,8 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 /**
  * Class {@code PeakGraph} handles the graph of all StaffPeak instances in a sheet,
@@ -805,13 +810,19 @@ public class PeakGraph
     //--------------//
     /**
      * Use individual staff projections to retrieve bar peaks.
+     * <p>
+     * Staff projections are first computed, in parallel if allowed, then analyzed staff per staff.
      */
     private void findBarPeaks ()
     {
-        // Analysis staff per staff
         for (Staff staff : staffManager.getStaves()) {
-            StaffProjector projector = new StaffProjector(sheet, staff, this);
-            projectors.add(projector);
+            projectors.add(new StaffProjector(sheet, staff, this));
+        }
+
+        projectStaves();
+
+        // Analysis staff per staff
+        for (StaffProjector projector : projectors) {
             projector.process();
             Graphs.addAllVertices(this, projector.getPeaks());
         }
@@ -1121,6 +1132,61 @@ public class PeakGraph
         return projectors.get(staff.getId() - 1);
     }
 
+    //---------------//
+    // projectStaves //
+    //---------------//
+    /**
+     * Compute the projection of every staff, one task per staff when parallelism is
+     * allowed.
+     */
+    private void projectStaves ()
+    {
+        if ((OmrExecutors.defaultParallelism.getSpecific() == false) || (projectors.size() < 2)) {
+            // Sequential
+            for (StaffProjector projector : projectors) {
+                projector.project();
+            }
+        } else {
+            // Parallel
+            try {
+                final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+                for (final StaffProjector projector : projectors) {
+                    tasks.add(
+                            new Callable<Void>()
+                    {
+                        @Override
+                        public Void call ()
+                                throws Exception
+                        {
+                            try {
+                                LogUtil.start(sheet.getStub());
+                                projector.project();
+                            } finally {
+                                LogUtil.stopStub();
+                            }
+
+                            return null;
+                        }
+                    });
+                }
+
+                // Launch the tasks and wait for their completion
+                for (Future<Void> future : OmrExecutors.getHighExecutor().invokeAll(tasks)) {
+                    future.get(); // To propagate any exception
+                }
+            } catch (InterruptedException ex) {
+                logger.warn("Staff projections got interrupted");
+                throw new ProcessingCancellationException(ex);
+            } catch (ProcessingCancellationException pce) {
+                throw pce;
+            } catch (Throwable ex) {
+                logger.warn("Exception raised in staff projections", ex);
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+
     //----------------//
     // pruneGroupPair //
     //----------------//
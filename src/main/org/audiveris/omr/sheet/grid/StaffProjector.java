@@ -28,6 +28,8 @@ import org.audiveris.omr.math.AreaUtil;
 import org.audiveris.omr.math.AreaUtil.CoreData;
 import org.audiveris.omr.math.GeoPath;
 import org.audiveris.omr.math.Projection;
+import org.audiveris.omr.run.Orientation;
+import org.audiveris.omr.run.RunTable;
 import org.audiveris.omr.sheet.Picture;
 import org.audiveris.omr.sheet.Scale;
 import org.audiveris.omr.sheet.Scale.InterlineScale;
@@ -111,6 +113,11 @@ import javax.swing.WindowConstants;
  * <p>
  * The projection also gives indication about lack of chunk (beam or head) on each side of a bar
  * candidate, but this indication is very weak and limited to the staff height portion.
+ * <p>
+ * The projection itself is computed from the vertical runs of the binary table, clipped by staff
+ * first and last lines. It depends only on the sheet image, therefore the projections of all
+ * staves can be computed concurrently (see {@link #project()}), while the following peak analysis
+ * is kept sequential since it populates the sheet graph of peaks.
  *
  * @author Hervé Bitteur
  */
@@ -140,6 +147,9 @@ public class StaffProjector
     /** Pixel source. */
     private final ByteProcessor pixelFilter;
 
+    /** Vertical binary runs, if available. */
+    private final RunTable binaryTable;
+
     /** Sequence of all blank regions found, whatever their width. */
     private final List<Blank> allBlanks = new ArrayList<Blank>();
 
@@ -181,6 +191,10 @@ public class StaffProjector
         Picture picture = sheet.getPicture();
         pixelFilter = picture.getSource(Picture.SourceKey.BINARY);
 
+        final RunTable table = picture.getTable(Picture.TableKey.BINARY);
+        binaryTable = ((table != null) && (table.getOrientation() == Orientation.VERTICAL)) ? table
+                : null;
+
         scale = sheet.getScale();
         params = new Parameters(scale, staff.getSpecificInterline());
     }
@@ -431,8 +445,7 @@ public class StaffProjector
     public void plot ()
     {
         if (projection == null) {
-            computeProjection();
-            computeLineThresholds();
+            project();
         }
 
         new Plotter().plot();
@@ -448,11 +461,10 @@ public class StaffProjector
     {
         logger.debug("StaffProjector analyzing staff#{}", staff.getId());
 
-        // Cumulate pixels for each abscissa
-        computeProjection();
-
-        // Adjust thresholds according to actual line thicknesses in this staff
-        computeLineThresholds();
+        // Projection may have already been computed
+        if (projection == null) {
+            project();
+        }
 
         // Retrieve all regions without staff lines
         findAllBlanks();
@@ -464,6 +476,24 @@ public class StaffProjector
         findPeaks();
     }
 
+    //---------//
+    // project //
+    //---------//
+    /**
+     * Compute the staff projection on x-axis, together with the thresholds that depend
+     * on staff lines.
+     * <p>
+     * This method only reads sheet data, hence it can be run concurrently for different staves.
+     */
+    public void project ()
+    {
+        // Cumulate pixels for each abscissa
+        computeProjection();
+
+        // Adjust thresholds according to actual line thicknesses in this staff
+        computeLineThresholds();
+    }
+
     //----------------//
     // refineRightEnd //
     //----------------//
@@ -728,30 +758,39 @@ public class StaffProjector
     /**
      * Compute, for each abscissa value, the foreground pixels cumulated between
      * first line and last line of staff.
+     * <p>
+     * The vertical runs of each abscissa are clipped by the staff lines, pixels are read only if
+     * the binary table is not available.
      */
     private void computeProjection ()
     {
-        projection = new Projection.Short(0, sheet.getWidth() - 1);
-
+        final Projection proj = new Projection.Short(0, sheet.getWidth() - 1);
         final LineInfo firstLine = staff.getFirstLine();
         final LineInfo lastLine = staff.getLastLine();
         final int dx = params.staffAbscissaMargin;
         final int xMin = xClamp(staff.getAbscissa(LEFT) - dx);
         final int xMax = xClamp(staff.getAbscissa(RIGHT) + dx);
+        final int yLast = sheet.getHeight() - 1;
 
         for (int x = xMin; x <= xMax; x++) {
-            int yMin = firstLine.yAt(x);
-            int yMax = lastLine.yAt(x);
-            short count = 0;
+            final int yMin = Math.max(0, firstLine.yAt(x));
+            final int yMax = Math.min(yLast, lastLine.yAt(x));
+            int count = 0;
 
-            for (int y = yMin; y <= yMax; y++) {
-                if (pixelFilter.get(x, y) == 0) {
-                    count++;
+            if (binaryTable != null) {
+                count = binaryTable.getForeCount(x, yMin, yMax);
+            } else {
+                for (int y = yMin; y <= yMax; y++) {
+                    if (pixelFilter.get(x, y) == 0) {
+                        count++;
+                    }
                 }
             }
 
-            projection.increment(x, count);
+            proj.increment(x, count);
         }
+
+        projection = proj;
     }
 
     //-----------------//
@@ -250,7 +250,7 @@ public class ClefBuilder
             // Use only the subgraph for this set
             SimpleGraph<Glyph, GlyphLink> subGraph = GlyphCluster.getSubGraph(set, graph, false);
             ClefAdapter adapter = new ClefAdapter(subGraph, bestMap);
-            new GlyphCluster(adapter, null).decompose();
+            new GlyphCluster(adapter, null, system.getCompoundCache()).decompose();
 
             int trials = adapter.trials;
             logger.debug("Staff#{} clef parts:{} trials:{}", staff.getId(), set.size(), trials);
@@ -719,7 +719,8 @@ public class ClefBuilder
             logger.debug("ClefAdapter evaluateGlyph on {}", glyph);
 
             // TODO: use some checking, such as pitch position?
-            Evaluation[] evals = classifier.getNaturalEvaluations(
+            Evaluation[] evals = system.getCompoundCache().getNaturalEvaluations(
+                    classifier,
                     glyph,
                     staff.getSpecificInterline());
 
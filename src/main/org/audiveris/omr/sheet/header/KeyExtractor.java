@@ -158,7 +158,7 @@ public class KeyExtractor
         system.registerGlyphs(parts, Group.ALTER_PART);
 
         SingleAdapter adapter = new SingleAdapter(slice, peaks, parts, targetShapes, minGrade);
-        new GlyphCluster(adapter, null).decompose();
+        new GlyphCluster(adapter, null, system.getCompoundCache()).decompose();
 
         if (slice.getEval() != null) {
             double grade = Inter.intrinsicRatio * slice.getEval().grade;
@@ -424,7 +424,7 @@ public class KeyExtractor
                     subGraph,
                     shapes,
                     Grades.keyAlterMinGrade1);
-            new GlyphCluster(adapter, null).decompose();
+            new GlyphCluster(adapter, null, system.getCompoundCache()).decompose();
             logger.debug("Staff#{} set:{} trials:{}", id, set.size(), adapter.trials);
             allCandidates.addAll(adapter.candidates);
         }
@@ -772,7 +772,10 @@ public class KeyExtractor
 
             glyphCandidates.add(glyph);
 
-            Evaluation[] evals = classifier.getNaturalEvaluations(glyph, sheet.getInterline());
+            Evaluation[] evals = system.getCompoundCache().getNaturalEvaluations(
+                    classifier,
+                    glyph,
+                    sheet.getInterline());
 
             for (Shape shape : targetShapes) {
                 Evaluation eval = evals[shape.ordinal()];
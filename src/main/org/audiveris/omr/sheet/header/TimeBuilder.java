@@ -1099,7 +1099,7 @@ public abstract class TimeBuilder
             HalfAdapter adapter = new HalfAdapter(half, parts);
             adapters.put(half, adapter);
 
-            new GlyphCluster(adapter, null).decompose();
+            new GlyphCluster(adapter, null, system.getCompoundCache()).decompose();
             logger.debug(
                     "Staff#{} {} {} trials:{}",
                     staff.getId(),
@@ -1146,7 +1146,7 @@ public abstract class TimeBuilder
             List<Glyph> parts = getParts(rect);
             TimeAdapter wholeAdapter = new WholeAdapter(parts);
             adapters.put(WHOLE, wholeAdapter);
-            new GlyphCluster(wholeAdapter, null).decompose();
+            new GlyphCluster(wholeAdapter, null, system.getCompoundCache()).decompose();
             logger.debug(
                     "Staff#{} WHOLE {} trials:{}",
                     staff.getId(),
@@ -1669,10 +1669,10 @@ public abstract class TimeBuilder
 
             glyphCandidates.add(glyph);
 
-            Evaluation[] evals = ShapeClassifier.getInstance()
-                    .getNaturalEvaluations(
-                            glyph,
-                            staff.getSpecificInterline());
+            Evaluation[] evals = system.getCompoundCache().getNaturalEvaluations(
+                    ShapeClassifier.getInstance(),
+                    glyph,
+                    staff.getSpecificInterline());
 
             for (Shape shape : halfShapes) {
                 Evaluation eval = evals[shape.ordinal()];
@@ -1782,10 +1782,10 @@ public abstract class TimeBuilder
 
             glyphCandidates.add(glyph);
 
-            Evaluation[] evals = ShapeClassifier.getInstance()
-                    .getNaturalEvaluations(
-                            glyph,
-                            staff.getSpecificInterline());
+            Evaluation[] evals = system.getCompoundCache().getNaturalEvaluations(
+                    ShapeClassifier.getInstance(),
+                    glyph,
+                    staff.getSpecificInterline());
 
             for (Shape shape : wholeShapes) {
                 Evaluation eval = evals[shape.ordinal()];
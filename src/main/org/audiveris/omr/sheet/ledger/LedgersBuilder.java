@@ -59,6 +59,7 @@ import org.audiveris.omr.ui.selection.EntityListEvent;
 import org.audiveris.omr.ui.selection.MouseMovement;
 import org.audiveris.omr.ui.selection.UserEvent;
 import org.audiveris.omr.util.BasicNamedDouble;
+import org.audiveris.omr.util.EntityGrid;
 import org.audiveris.omr.util.HorizontalSide;
 import static org.audiveris.omr.util.HorizontalSide.*;
 import org.audiveris.omr.util.NamedDouble;
@@ -144,8 +145,8 @@ public class LedgersBuilder
     /** Check suites. */
     private final Suites suites;
 
-    /** The system-wide collection of ledger candidates. */
-    private List<StraightFilament> ledgerCandidates;
+    /** The system-wide collection of ledger candidates, spatially indexed. */
+    private EntityGrid<StraightFilament> ledgerCandidates;
 
     /** The (good) system-wide beams and hooks, sorted by left abscissa. */
     private List<Inter> sortedSystemBeams;
@@ -212,7 +213,7 @@ public class LedgersBuilder
 
             // Retrieve system candidate glyphs out of candidate sections
             watch.start("getCandidateFilaments among " + sections.size());
-            ledgerCandidates = getCandidateFilaments(sections);
+            ledgerCandidates = system.buildGrid(getCandidateFilaments(sections));
 
             // Filter candidates accurately, line by line
             watch.start("filterLedgers");
@@ -450,11 +451,9 @@ public class LedgersBuilder
         Rectangle sectionBox = section.getBounds();
 
         // Check this section intersects a horizontal section
-        for (Section hs : system.getHorizontalSections()) {
-            if (hs.getBounds().intersects(sectionBox)) {
-                if (hs.intersects(section)) {
-                    return true;
-                }
+        for (Section hs : system.getHorizontalSectionGrid().intersectedEntities(sectionBox)) {
+            if (hs.intersects(section)) {
+                return true;
             }
         }
 
@@ -500,8 +499,12 @@ public class LedgersBuilder
 
         final List<LedgerInter> ledgers = new ArrayList<LedgerInter>();
 
+        // Rough lookup box, since stick middle may slightly differ from stick bounds
+        final Rectangle roughBox = new Rectangle(virtualLineBox);
+        roughBox.grow(0, interline);
+
         // Filter enclosed candidates and populate acceptable ledgers
-        for (StraightFilament stick : ledgerCandidates) {
+        for (StraightFilament stick : ledgerCandidates.intersectedEntities(roughBox)) {
             // Rough containment
             final Point2D middle = getMiddle(stick);
 
@@ -30,8 +30,11 @@ import org.audiveris.omr.glyph.Glyph;
 import org.audiveris.omr.glyph.Symbol.Group;
 import org.audiveris.omr.image.ChamferDistance;
 import org.audiveris.omr.image.DistanceTable;
+import org.audiveris.omr.image.EuclideanDistance;
+import org.audiveris.omr.image.Table;
 import org.audiveris.omr.run.Orientation;
 import org.audiveris.omr.sheet.Picture;
+import org.audiveris.omr.sheet.Scale;
 import org.audiveris.omr.sheet.Sheet;
 import org.audiveris.omr.sheet.Staff;
 import org.audiveris.omr.sheet.SystemInfo;
@@ -42,23 +45,35 @@ import org.audiveris.omr.sheet.ui.SheetTab;
 import org.audiveris.omr.sheet.ui.TemplateBoard;
 import org.audiveris.omr.sheet.ui.TemplateView;
 import org.audiveris.omr.sig.inter.LedgerInter;
+import org.audiveris.omr.step.ProcessingCancellationException;
 import org.audiveris.omr.ui.BoardsPane;
 import org.audiveris.omr.ui.selection.AnchoredTemplateEvent;
 import org.audiveris.omr.ui.selection.SelectionService;
+import org.audiveris.omr.util.OmrExecutors;
 import static org.audiveris.omr.util.HorizontalSide.LEFT;
 import static org.audiveris.omr.util.HorizontalSide.RIGHT;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.awt.Rectangle;
 import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.SortedMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 /**
  * Class {@code DistancesBuilder} provides the distance table to be used for notes
  * retrieval.
+ * <p>
+ * Distances are chamfer distances, unless exact euclidean distances are preferred.
+ * Euclidean distances can be computed lazily: the column pass of the transform is performed
+ * upfront, while the rows are computed band per band in the background, so that the processing of
+ * a system can start as soon as the bands of this system are available.
  *
  * @author Hervé Bitteur
  */
@@ -77,6 +92,9 @@ public class DistancesBuilder
     /** Table of distances to fore. */
     private DistanceTable table;
 
+    /** Bands of rows still being computed, if any. */
+    private RowBands bands;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new {@code DistancesBuilder} object.
@@ -92,39 +110,92 @@ public class DistancesBuilder
     //----------------//
     // buildDistances //
     //----------------//
-    public DistanceTable buildDistances ()
+    /**
+     * Build the table of distances to foreground, where staff lines, ledgers and stems
+     * are neutralized.
+     * <p>
+     * In lazy mode, this method returns as soon as the rows computation is launched, the table
+     * must then be retrieved system per system via {@link #getTable(SystemInfo)}.
+     */
+    public void buildDistances ()
     {
         // Compute the distance-to-foreground transform image
         Picture picture = sheet.getPicture();
         ByteProcessor buffer = picture.getSource(Picture.SourceKey.BINARY);
-        table = new ChamferDistance.Short().computeToFore(buffer);
 
-        // "Erase" staff lines, ledgers, stems
-        paintLines();
+        if (!constants.useEuclideanDistance.isSet()) {
+            table = new ChamferDistance.Short().computeToFore(buffer);
+            paintLines(table, ChamferDistance.VALUE_UNKNOWN); // "Erase" staff lines, ledgers, stems
+        } else if (!constants.lazyDistances.isSet()) {
+            table = new EuclideanDistance().computeToFore(buffer);
+            paintLines(table, ChamferDistance.VALUE_UNKNOWN); // "Erase" staff lines, ledgers, stems
+        } else {
+            EuclideanDistance.Transform transform = new EuclideanDistance().prepareToFore(buffer);
+            table = transform.getTable();
+
+            // Staff lines, ledgers, stems will be "erased" band per band
+            Table mask = new Table.UnsignedByte(buffer.getWidth(), buffer.getHeight());
+            paintLines(mask, 1);
+            bands = new RowBands(transform, mask);
+        }
 
         // Display distances image in a template view?
         if ((OMR.gui != null) && constants.displayTemplates.isSet()) {
+            DistanceTable fullTable = getTable(null);
             SelectionService templateService = new SelectionService(
                     "templateService",
                     new Class[]{AnchoredTemplateEvent.class});
-            BufferedImage img = table.getImage(sheet.getScale().getInterline() / 2);
-            TemplateBoard templateBoard = new TemplateBoard(sheet, table, templateService);
+            BufferedImage img = fullTable.getImage(sheet.getScale().getInterline() / 2);
+            TemplateBoard templateBoard = new TemplateBoard(sheet, fullTable, templateService);
             sheet.getStub().getAssembly().addViewTab(
                     SheetTab.TEMPLATE_TAB,
-                    new ScrollImageView(sheet, new TemplateView(sheet, img, table, templateService)),
-                    new BoardsPane(new DistanceBoard(sheet, table), templateBoard));
+                    new ScrollImageView(
+                            sheet,
+                            new TemplateView(sheet, img, fullTable, templateService)),
+                    new BoardsPane(new DistanceBoard(sheet, fullTable), templateBoard));
             templateBoard.stateChanged(null); // To feed template service
         }
+    }
+
+    //----------//
+    // getTable //
+    //----------//
+    /**
+     * Report the distance table to be used for the provided system.
+     * <p>
+     * In lazy mode, this waits for the rows around the system to be computed, any other row
+     * being waited for on its first access.
+     *
+     * @param system the system at hand, or null for the whole sheet
+     * @return the distance table, with sheet coordinates
+     */
+    public DistanceTable getTable (SystemInfo system)
+    {
+        if (bands == null) {
+            return table;
+        }
+
+        final Rectangle box = (system != null) ? system.getBounds() : null;
+
+        if (box == null) {
+            bands.waitForRows(0, table.getHeight());
 
-        return table;
+            return table;
+        }
+
+        final int margin = sheet.getScale().toPixels(constants.systemMargin);
+
+        return new SystemTable(box.y - margin, box.y + box.height + margin);
     }
 
     //------------//
     // paintGlyph //
     //------------//
-    private void paintGlyph (Glyph glyph)
+    private void paintGlyph (Glyph glyph,
+                             Table target,
+                             int value)
     {
-        glyph.getRunTable().render(table, ChamferDistance.VALUE_UNKNOWN, glyph.getTopLeft());
+        glyph.getRunTable().render(target, value, glyph.getTopLeft());
     }
 
     //------------//
@@ -133,8 +204,12 @@ public class DistancesBuilder
     /**
      * Paint the "neutralized" lines (staff lines, ledgers, stems) with a special value,
      * so that template matching can ignore these locations.
+     *
+     * @param target either the distance table itself or a mask of neutralized locations
+     * @param value  the value to paint
      */
-    private void paintLines ()
+    private void paintLines (Table target,
+                             int value)
     {
         // Neutralize foreground due to staff lines / ledgers and stems
         for (SystemInfo system : sheet.getSystems()) {
@@ -143,7 +218,7 @@ public class DistancesBuilder
                 for (LineInfo line : staff.getLines()) {
                     // Paint the line glyph
                     Glyph glyph = line.getGlyph();
-                    paintGlyph(glyph);
+                    paintGlyph(glyph, target, value);
 
                     // Also paint this line even at crossings with vertical objects
                     double halfLine = 0.5 * glyph.getMeanThickness(Orientation.HORIZONTAL);
@@ -158,7 +233,7 @@ public class DistancesBuilder
                         int yMax = (int) Math.rint(yl + halfLine);
 
                         for (int y = yMin; y <= yMax; y++) {
-                            table.setValue(x, y, ChamferDistance.VALUE_UNKNOWN);
+                            target.setValue(x, y, value);
                         }
                     }
                 }
@@ -168,7 +243,7 @@ public class DistancesBuilder
 
                 for (List<LedgerInter> ledgers : ledgerMap.values()) {
                     for (LedgerInter ledger : ledgers) {
-                        paintGlyph(ledger.getGlyph());
+                        paintGlyph(ledger.getGlyph(), target, value);
                     }
                 }
             }
@@ -177,7 +252,7 @@ public class DistancesBuilder
             List<Glyph> systemSeeds = system.getGroupedGlyphs(Group.VERTICAL_SEED);
 
             for (Glyph seed : systemSeeds) {
-                paintGlyph(seed);
+                paintGlyph(seed, target, value);
             }
         }
     }
@@ -194,5 +269,181 @@ public class DistancesBuilder
         private final Constant.Boolean displayTemplates = new Constant.Boolean(
                 false,
                 "Should we display the templates tab?");
+
+        private final Constant.Boolean useEuclideanDistance = new Constant.Boolean(
+                false,
+                "Should we use exact euclidean distances rather than chamfer distances?");
+
+        private final Constant.Boolean lazyDistances = new Constant.Boolean(
+                true,
+                "Should we compute euclidean distances lazily, system per system?");
+
+        private final Constant.Integer bandHeight = new Constant.Integer(
+                "Pixels",
+                128,
+                "Height of each band of distance rows computed lazily");
+
+        private final Scale.Fraction systemMargin = new Scale.Fraction(
+                2.0,
+                "Vertical margin around system bounds for distance rows waited for upfront");
+    }
+
+    //----------//
+    // RowBands //
+    //----------//
+    /**
+     * Handles the lazy computation of distance rows, band per band.
+     * <p>
+     * Band tasks are launched in sheet order on the high executor, when parallelism is allowed.
+     * A thread that needs a band not yet completed runs the band task itself, unless this task
+     * is already running, in which case the thread waits for its completion.
+     */
+    private class RowBands
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final int bandHeight = Math.max(1, constants.bandHeight.getValue());
+
+        /** One task per band, from top to bottom. */
+        private final List<FutureTask<Void>> tasks = new ArrayList<FutureTask<Void>>();
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public RowBands (final EuclideanDistance.Transform transform,
+                         final Table mask)
+        {
+            final int width = table.getWidth();
+            final int height = table.getHeight();
+
+            for (int y = 0; y < height; y += bandHeight) {
+                final int yStart = y;
+                final int yStop = Math.min(height, y + bandHeight);
+                tasks.add(
+                        new FutureTask<Void>(
+                                new Callable<Void>()
+                        {
+                            @Override
+                            public Void call ()
+                                    throws Exception
+                            {
+                                transform.computeRows(yStart, yStop);
+
+                                // "Erase" staff lines, ledgers, stems
+                                final int iStop = yStop * width;
+
+                                for (int i = yStart * width; i < iStop; i++) {
+                                    if (mask.getValue(i) != 0) {
+                                        table.setValue(i, ChamferDistance.VALUE_UNKNOWN);
+                                    }
+                                }
+
+                                return null;
+                            }
+                        }));
+            }
+
+            if (OmrExecutors.defaultParallelism.getSpecific() != false) {
+                for (FutureTask<Void> task : tasks) {
+                    OmrExecutors.getHighExecutor().execute(task);
+                }
+            }
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        /**
+         * Make sure the provided range of rows is available.
+         *
+         * @param yMin first row needed
+         * @param yMax row just after the last row needed
+         */
+        public void waitForRows (int yMin,
+                                 int yMax)
+        {
+            final int first = Math.max(0, yMin / bandHeight);
+            final int last = Math.min(tasks.size() - 1, (yMax - 1) / bandHeight);
+
+            try {
+                for (int b = first; b <= last; b++) {
+                    final FutureTask<Void> task = tasks.get(b);
+                    task.run(); // No-op if task is already running or completed
+                    task.get(); // To wait for completion, and propagate any exception
+                }
+            } catch (InterruptedException ex) {
+                logger.warn("DistancesBuilder got interrupted");
+                throw new ProcessingCancellationException(ex);
+            } catch (ExecutionException ex) {
+                logger.warn("Exception raised in DistancesBuilder", ex.getCause());
+                throw new RuntimeException(ex.getCause());
+            }
+        }
+    }
+
+    //-------------//
+    // SystemTable //
+    //-------------//
+    /**
+     * A view on the lazy distance table, dedicated to a system.
+     * <p>
+     * The rows around the system are waited for upfront, any other row being checked on access.
+     */
+    private class SystemTable
+            extends DistanceTable.Abstract
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** First row known as available. */
+        private final int yMin;
+
+        /** Row just after the last row known as available. */
+        private final int yMax;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public SystemTable (int yMin,
+                            int yMax)
+        {
+            super(table.getNormalizer());
+            this.yMin = Math.max(0, yMin);
+            this.yMax = Math.min(table.getHeight(), yMax);
+            bands.waitForRows(this.yMin, this.yMax);
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        public DistanceTable getCopy (Rectangle roi)
+        {
+            bands.waitForRows(0, table.getHeight());
+
+            return (DistanceTable) table.getCopy(roi);
+        }
+
+        @Override
+        public int getValue (int index)
+        {
+            return getValue(index % table.getWidth(), index / table.getWidth());
+        }
+
+        @Override
+        public int getValue (int x,
+                             int y)
+        {
+            if ((y < yMin) || (y >= yMax)) {
+                bands.waitForRows(y, y + 1);
+            }
+
+            return table.getValue(x, y);
+        }
+
+        @Override
+        public DistanceTable getView (Rectangle roi)
+        {
+            bands.waitForRows(0, table.getHeight());
+
+            return (DistanceTable) table.getView(roi);
+        }
+
+        @Override
+        protected Table getTable ()
+        {
+            return table;
+        }
     }
 }
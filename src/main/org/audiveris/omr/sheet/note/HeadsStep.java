@@ -22,7 +22,6 @@
 package org.audiveris.omr.sheet.note;
 
 import org.audiveris.omr.glyph.Glyph;
-import org.audiveris.omr.image.DistanceTable;
 import org.audiveris.omr.sheet.Sheet;
 import org.audiveris.omr.sheet.SystemInfo;
 import org.audiveris.omr.step.AbstractSystemStep;
@@ -66,7 +65,7 @@ public class HeadsStep
             throws StepException
     {
         final List<Glyph> spots = context.sheetSpots.get(system);
-        new NoteHeadsBuilder(system, context.distanceTable, spots).buildHeads();
+        new NoteHeadsBuilder(system, context.distances.getTable(system), spots).buildHeads();
     }
 
     //----------//
@@ -77,7 +76,9 @@ public class HeadsStep
             throws StepException
     {
         // Build proper distance table and make it available for system-level processing
-        DistanceTable distances = new DistancesBuilder(sheet).buildDistances();
+        // (in lazy mode, distances computation goes on while spots are being retrieved)
+        DistancesBuilder distances = new DistancesBuilder(sheet);
+        distances.buildDistances();
 
         // Retrieve spots for notes
         Map<SystemInfo, List<Glyph>> sheetSpots = new NoteSpotsBuilder(sheet).getSpots();
@@ -93,15 +94,15 @@ public class HeadsStep
     {
         //~ Instance fields ------------------------------------------------------------------------
 
-        public final DistanceTable distanceTable;
+        public final DistancesBuilder distances;
 
         public final Map<SystemInfo, List<Glyph>> sheetSpots;
 
         //~ Constructors ---------------------------------------------------------------------------
-        public Context (DistanceTable distanceTable,
+        public Context (DistancesBuilder distances,
                         Map<SystemInfo, List<Glyph>> sheetSpots)
         {
-            this.distanceTable = distanceTable;
+            this.distances = distances;
             this.sheetSpots = sheetSpots;
         }
     }
@@ -37,6 +37,7 @@ import org.audiveris.omr.image.PixelDistance;
 import org.audiveris.omr.image.ShapeDescriptor;
 import org.audiveris.omr.image.TemplateFactory;
 import org.audiveris.omr.image.TemplateFactory.Catalog;
+import org.audiveris.omr.log.LogUtil;
 import org.audiveris.omr.math.GeoOrder;
 import org.audiveris.omr.math.GeoPath;
 import org.audiveris.omr.math.GeoUtil;
@@ -58,9 +59,11 @@ import org.audiveris.omr.sig.inter.HeadInter;
 import org.audiveris.omr.sig.inter.Inter;
 import org.audiveris.omr.sig.inter.LedgerInter;
 import org.audiveris.omr.sig.relation.HeadStemRelation;
+import org.audiveris.omr.step.ProcessingCancellationException;
 import org.audiveris.omr.util.Dumping;
 import static org.audiveris.omr.util.HorizontalSide.*;
 import org.audiveris.omr.util.Navigable;
+import org.audiveris.omr.util.OmrExecutors;
 import org.audiveris.omr.util.Predicate;
 import org.audiveris.omr.util.StopWatch;
 
@@ -80,6 +83,8 @@ import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 /**
  * Class {@code NoteHeadsBuilder} retrieves the void note heads, the black note heads,
@@ -219,6 +224,11 @@ public class NoteHeadsBuilder
         Collections.sort(systemSeeds, Glyphs.byOrdinate);
         Collections.sort(systemSpots, Glyphs.byOrdinate);
 
+        // Seed lines are lazily computed, make sure this is done before any parallel lookup
+        for (Glyph seed : systemSeeds) {
+            seed.getStartPoint(Orientation.VERTICAL);
+        }
+
         image = sheet.getPicture().getSource(Picture.SourceKey.BINARY);
 
         for (Staff staff : system.getStaves()) {
@@ -655,7 +665,7 @@ public class NoteHeadsBuilder
     private List<Inter> processStaff (Staff staff,
                                       boolean seeds)
     {
-        List<Inter> ch = new ArrayList<Inter>(); // Created heads
+        final List<Scanner> scanners = new ArrayList<Scanner>();
 
         // Use all staff lines
         int pitch = -5; // Current pitch
@@ -665,14 +675,14 @@ public class NoteHeadsBuilder
             LineAdapter adapter = new StaffLineAdapter(staff, line);
 
             // Look above line
-            ch.addAll(new Scanner(adapter, prevAdapter, -1, pitch++, seeds).lookup());
+            scanners.add(new Scanner(adapter, prevAdapter, -1, pitch++, seeds));
 
             // Look exactly on line
-            ch.addAll(new Scanner(adapter, null, 0, pitch++, seeds).lookup());
+            scanners.add(new Scanner(adapter, null, 0, pitch++, seeds));
 
             // For the last line only, look just below line
             if (pitch == 5) {
-                ch.addAll(new Scanner(adapter, null, 1, pitch++, seeds).lookup());
+                scanners.add(new Scanner(adapter, null, 1, pitch++, seeds));
             }
 
             prevAdapter = adapter;
@@ -697,18 +707,88 @@ public class NoteHeadsBuilder
                     Glyph glyph = ledger.getGlyph();
                     LineAdapter adapter = new LedgerAdapter(staff, p, glyph);
                     // Look right on ledger
-                    ch.addAll(new Scanner(adapter, null, 0, pitch, seeds).lookup());
+                    scanners.add(new Scanner(adapter, null, 0, pitch, seeds));
 
                     // Look just further from staff
                     int pitch2 = pitch + dir;
-                    ch.addAll(new Scanner(adapter, null, dir, pitch2, seeds).lookup());
+                    scanners.add(new Scanner(adapter, null, dir, pitch2, seeds));
                 }
             }
         }
 
+        // Template matching, perhaps in parallel
+        lookupAll(scanners);
+
+        // Registration in sig, sequentially and in scanners order
+        final List<Inter> ch = new ArrayList<Inter>(); // Created heads
+
+        for (Scanner scanner : scanners) {
+            ch.addAll(scanner.register());
+        }
+
         return ch;
     }
 
+    //-----------//
+    // lookupAll //
+    //-----------//
+    /**
+     * Run the lookup of all provided scanners, one task per scanner when parallelism
+     * is allowed.
+     * <p>
+     * This is possible because lookup only reads sheet data, leaving any sig update to the
+     * following scanner registration.
+     *
+     * @param scanners the scanners to run
+     */
+    private void lookupAll (List<Scanner> scanners)
+    {
+        if ((OmrExecutors.defaultParallelism.getSpecific() == false) || (scanners.size() < 2)) {
+            // Sequential
+            for (Scanner scanner : scanners) {
+                scanner.lookup();
+            }
+        } else {
+            // Parallel
+            try {
+                final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+                for (final Scanner scanner : scanners) {
+                    tasks.add(
+                            new Callable<Void>()
+                    {
+                        @Override
+                        public Void call ()
+                                throws Exception
+                        {
+                            try {
+                                LogUtil.start(sheet.getStub());
+                                scanner.lookup();
+                            } finally {
+                                LogUtil.stopStub();
+                            }
+
+                            return null;
+                        }
+                    });
+                }
+
+                // Launch the tasks and wait for their completion
+                for (Future<Void> future : OmrExecutors.getHighExecutor().invokeAll(tasks)) {
+                    future.get(); // To propagate any exception
+                }
+            } catch (InterruptedException ex) {
+                logger.warn("Note heads lookup got interrupted");
+                throw new ProcessingCancellationException(ex);
+            } catch (ProcessingCancellationException pce) {
+                throw pce;
+            } catch (Throwable ex) {
+                logger.warn("Exception raised in note heads lookup", ex);
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+
     //-----------------//
     // purgeDuplicates //
     //-----------------//
@@ -1038,6 +1118,8 @@ public class NoteHeadsBuilder
 
         int evals;
 
+        int cutoffs;
+
         int abandons;
 
         //~ Methods --------------------------------------------------------------------------------
@@ -1045,11 +1127,25 @@ public class NoteHeadsBuilder
         public String toString ()
         {
             return String.format(
-                    "%7d overlaps, %7d evals, %7d abandons",
+                    "%7d overlaps, %7d evals, %7d cutoffs, %7d abandons",
                     overlaps,
                     evals,
+                    cutoffs,
                     abandons);
         }
+
+        /**
+         * Cumulate the counters of another perf.
+         *
+         * @param that the perf to include
+         */
+        void include (Perf that)
+        {
+            overlaps += that.overlaps;
+            evals += that.evals;
+            cutoffs += that.cutoffs;
+            abandons += that.abandons;
+        }
     }
 
     //---------//
@@ -1084,6 +1180,9 @@ public class NoteHeadsBuilder
         /** Offsets tried around a given ordinate. */
         private final int[] yOffsets;
 
+        /** Scanner own counters, since scanners may run in parallel. */
+        private final Perf perf = new Perf();
+
         //~ Constructors ---------------------------------------------------------------------------
         /**
          * Create a Scanner, dedicated to a staff line or ledger.
@@ -1140,11 +1239,65 @@ public class NoteHeadsBuilder
         }
 
         //~ Methods --------------------------------------------------------------------------------
+        /**
+         * Look for matching heads along the line.
+         * <p>
+         * This reads sheet data only, the heads found are inserted in sig by {@link #register()}.
+         *
+         * @return the heads found
+         */
         public List<HeadInter> lookup ()
         {
             return useSeeds ? lookupSeeds() : lookupRange();
         }
 
+        /**
+         * Build the glyph of each head found and insert the head in sig.
+         * (This must be called sequentially, after {@link #lookup()})
+         *
+         * @return the heads registered
+         */
+        public List<HeadInter> register ()
+        {
+            for (HeadInter inter : inters) {
+                inter.retrieveGlyph(image, sheet.getInterline(), sheet.getGlyphIndex());
+                sig.addVertex(inter);
+            }
+
+            if (useSeeds) {
+                seedsPerf.include(perf);
+            } else {
+                rangePerf.include(perf);
+            }
+
+            return inters;
+        }
+
+        //---------//
+        // boundOf //
+        //---------//
+        /**
+         * Report the largest matching distance worth computing precisely at a location.
+         *
+         * @param first   true for the very first (best guess) location tried
+         * @param bestLoc the best location found so far, if any
+         * @return the distance beyond which matching evaluation can be abandoned
+         */
+        private double boundOf (boolean first,
+                                PixelDistance bestLoc)
+        {
+            if (first) {
+                // We need to know whether location is acceptable or really bad
+                return Math.max(params.maxMatchingDistance, params.reallyBadDistance);
+            }
+
+            if (bestLoc != null) {
+                return Math.min(params.maxMatchingDistance, bestLoc.d);
+            }
+
+            return params.maxMatchingDistance;
+        }
+
         //-----------------//
         // computeYOffsets //
         //-----------------//
@@ -1196,10 +1349,21 @@ public class NoteHeadsBuilder
         //------//
         // eval //
         //------//
+        /**
+         * Evaluate the matching of shape template at provided location.
+         *
+         * @param shape       the template shape
+         * @param x           location abscissa
+         * @param y           location ordinate
+         * @param anchor      location WRT template
+         * @param maxDistance maximum distance of interest (see {@link #boundOf})
+         * @return the valued location, or null if location overlaps a competitor
+         */
         private PixelDistance eval (Shape shape,
                                     int x,
                                     int y,
-                                    Anchor anchor)
+                                    Anchor anchor,
+                                    double maxDistance)
         {
             final ShapeDescriptor desc = catalog.getDescriptor(shape);
             final Rectangle symBox = desc.getSymbolBoundsAt(x, y, anchor);
@@ -1207,22 +1371,17 @@ public class NoteHeadsBuilder
             // Skip if location already used by really good object (beam, etc)
             //TODO: perhaps use a slightly fattened box?
             if (overlap(symBox, competitors)) {
-                if (useSeeds) {
-                    seedsPerf.overlaps++;
-                } else {
-                    rangePerf.overlaps++;
-                }
+                perf.overlaps++;
 
                 return null;
             }
 
             // Then try (all variants for) the shape and keep the best dist
-            double dist = desc.evaluate(x, y, anchor, distances);
+            double dist = desc.evaluate(x, y, anchor, distances, maxDistance);
+            perf.evals++;
 
-            if (useSeeds) {
-                seedsPerf.evals++;
-            } else {
-                rangePerf.evals++;
+            if (dist > maxDistance) {
+                perf.cutoffs++;
             }
 
             return new PixelDistance(x, y, dist);
@@ -1354,7 +1513,8 @@ public class NoteHeadsBuilder
 
                     for (int yOffset : yOffsets) {
                         final int y = y0 + yOffset;
-                        PixelDistance loc = eval(shape, x0, y, MIDDLE_LEFT);
+                        final double bound = boundOf(y == y0, bestLoc);
+                        PixelDistance loc = eval(shape, x0, y, MIDDLE_LEFT, bound);
 
                         if ((loc != null) && (loc.d <= params.maxMatchingDistance)) {
                             if ((bestLoc == null) || (bestLoc.d > loc.d)) {
@@ -1364,7 +1524,7 @@ public class NoteHeadsBuilder
                             // This is the very first (best guess) location tried.
                             // If eval is really bad, stop immediately
                             if ((loc == null) || (loc.d >= params.reallyBadDistance)) {
-                                rangePerf.abandons++;
+                                perf.abandons++;
 
                                 continue ShapeLoop;
                             }
@@ -1392,11 +1552,6 @@ public class NoteHeadsBuilder
             // Check conflict with seed-based instances
             inters = filterSeedConflicts(inters, competitors);
 
-            for (HeadInter inter : inters) {
-                inter.retrieveGlyph(image, sheet.getInterline(), sheet.getGlyphIndex());
-                sig.addVertex(inter);
-            }
-
             return inters;
         }
 
@@ -1439,7 +1594,8 @@ public class NoteHeadsBuilder
 
                             for (int xOffset : xOffsets) {
                                 final int x = x0 + xOffset;
-                                PixelDistance loc = eval(shape, x, y, anchor);
+                                final double bound = boundOf((x == x0) && (y == y0), bestLoc);
+                                PixelDistance loc = eval(shape, x, y, anchor, bound);
 
                                 if ((loc != null) && (loc.d <= params.maxMatchingDistance)) {
                                     if ((bestLoc == null) || (bestLoc.d > loc.d)) {
@@ -1449,7 +1605,7 @@ public class NoteHeadsBuilder
                                     // This is the very first (best guess) location tried.
                                     // If eval is really bad, stop immediately
                                     if ((loc == null) || (loc.d >= params.reallyBadDistance)) {
-                                        seedsPerf.abandons++;
+                                        perf.abandons++;
 
                                         continue ShapeLoop;
                                     }
@@ -1466,11 +1622,6 @@ public class NoteHeadsBuilder
                                     pitch);
 
                             if (inter != null) {
-                                inter.retrieveGlyph(
-                                        image,
-                                        sheet.getInterline(),
-                                        sheet.getGlyphIndex());
-                                sig.addVertex(inter);
                                 inters.add(inter);
                             }
                         }
@@ -23,6 +23,7 @@ package org.audiveris.omr.sheet.rhythm;
 
 import org.audiveris.omr.math.GeoUtil;
 import org.audiveris.omr.math.Rational;
+import org.audiveris.omr.math.RationalAccumulator;
 import org.audiveris.omr.score.Page;
 import org.audiveris.omr.score.Score;
 import org.audiveris.omr.sheet.Part;
@@ -505,22 +506,18 @@ public class MeasureStack
      */
     public Rational getCurrentDuration ()
     {
-        Rational measureDur = Rational.ZERO;
+        final RationalAccumulator measureDur = new RationalAccumulator();
 
         // Whole/multi rests are handled outside of slots
         for (Slot slot : slots) {
             if (slot.getTimeOffset() != null) {
                 for (AbstractChordInter chord : slot.getChords()) {
-                    Rational chordEnd = slot.getTimeOffset().plus(chord.getDuration());
-
-                    if (chordEnd.compareTo(measureDur) > 0) {
-                        measureDur = chordEnd;
-                    }
+                    measureDur.maxOfSum(slot.getTimeOffset(), chord.getDuration());
                 }
             }
         }
 
-        return measureDur;
+        return measureDur.toRational();
     }
 
     //-------------------------//
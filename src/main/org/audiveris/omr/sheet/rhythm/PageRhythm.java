@@ -21,6 +21,9 @@
 // </editor-fold>
 package org.audiveris.omr.sheet.rhythm;
 
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.log.LogUtil;
 import org.audiveris.omr.math.Histogram;
 import org.audiveris.omr.math.Rational;
 import org.audiveris.omr.score.Page;
@@ -31,14 +34,18 @@ import org.audiveris.omr.sig.inter.FlagInter;
 import org.audiveris.omr.sig.inter.Inter;
 import org.audiveris.omr.sig.inter.RestChordInter;
 import org.audiveris.omr.sig.inter.TupletInter;
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.OmrExecutors;
+import org.audiveris.omr.util.StopWatch;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 /**
  * Class {@code PageRhythm} handles rhythm data on a sheet page.
@@ -59,9 +66,12 @@ import java.util.List;
  * <p>
  * These FRAT symbols provide the adjustment variables used when checking the precise rhythm content
  * of each measure.
- * To do so, processing is done system per system <b>sequentially</b> because of impact of potential
- * key-sig changes on the following systems. Hence, parallelism is NOT provided for this step.
- * Consistently, within a system, processing is done measure stack after measure stack.
+ * Within a system, processing is done measure stack after measure stack, since all stacks of a
+ * system share the system SIG.
+ * A system depends on the preceding ones only through the time-sig ranges, which are defined
+ * beforehand on the whole page. Each system is thus given its starting range explicitly, and
+ * systems can be processed in parallel (a raw pass to retrieve durations, then a tuning pass).
+ * Key signatures play no role in rhythm checking.
  * <p>
  * Time sig can be inferred from stacks actual content, but this is a chicken & egg problem.
  * We check whether the page starts with a time-sig indication. If not, we'll need two passes, the
@@ -76,6 +86,8 @@ public class PageRhythm
 {
     //~ Static fields/initializers -----------------------------------------------------------------
 
+    private static final Constants constants = new Constants();
+
     private static final Logger logger = LoggerFactory.getLogger(PageRhythm.class);
 
     /** Adjustable rhythm classes. (FRAT: Flag, RestChord, AugmentationDot, Tuplet) */
@@ -108,53 +120,45 @@ public class PageRhythm
     //---------//
     public void process ()
     {
-        // Populate all stacks in page with potential time signatures, and derive ranges.
-        populateTimeSignatures(); // -> ranges
-        retrieveDurations(); // Check typical duration for each range
-
-        // For each range, adjust TS if needed, then process each contained measure
-        final Iterator<Range> it = ranges.iterator();
-        Range range = it.next(); // Current range
-
-        for (SystemInfo system : page.getSystems()) {
-            // Select relevant rhythm inters at system level
-            List<Inter> systemGoodFrats = system.getSig().inters(FRAT_CLASSES);
-
-            // Process stack after stack
-            for (MeasureStack stack : system.getMeasureStacks()) {
-                if (stack.getIdValue() == range.startId) {
-                    logger.debug("Starting {}", range);
-
-                    // Adjust time signature?
-                    if ((range.duration != null)
-                        && ((range.ts == null)
-                            || !range.ts.getTimeRational().getValue().equals(range.duration))) {
-                        logger.info(
-                                "{}{} should update to {}-based time sig?",
-                                stack.getSystem().getLogPrefix(),
-                                range,
-                                range.duration);
-                    }
-                }
-
-                try {
-                    logger.debug("\n--- Processing {} expDur: {} ---", stack, range.duration);
-                    new StackTuner(stack, false).process(systemGoodFrats, range.duration);
-                } catch (Exception ex) {
-                    logger.warn("Error on stack " + stack + " " + ex, ex);
-                }
-
-                // End of range?
-                if (stack.getIdValue() == range.stopId) {
-                    if (it.hasNext()) {
-                        range = it.next();
-                    }
-                }
+        final StopWatch watch = new StopWatch("PageRhythm #" + page.getId());
+
+        try {
+            // Populate all stacks in page with potential time signatures, and derive ranges.
+            watch.start("populateTimeSignatures");
+            populateTimeSignatures(); // -> ranges
+
+            // Check typical duration for each range
+            watch.start("retrieveDurations");
+            retrieveDurations();
+
+            // Expected duration is now known for every stack, process each system
+            watch.start("tuneSystems");
+            processSystems(false);
+        } finally {
+            if (constants.printWatch.isSet()) {
+                watch.print();
             }
+        }
+    }
 
-            // Refine voices IDs (and thus colors) across all measures of the system
-            Voices.refineSystem(system);
+    //---------------//
+    // getRangeIndex //
+    //---------------//
+    /**
+     * Report the index of the range which contains the provided stack.
+     *
+     * @param stackId id of provided stack
+     * @return index of the containing range
+     */
+    private int getRangeIndex (int stackId)
+    {
+        for (int i = 0; i < ranges.size(); i++) {
+            if (stackId <= ranges.get(i).stopId) {
+                return i;
+            }
         }
+
+        return ranges.size() - 1;
     }
 
     //------------------------//
@@ -204,47 +208,152 @@ public class PageRhythm
                 .getIdValue();
     }
 
-    //-------------------//
-    // retrieveDurations //
-    //-------------------//
+    //----------------//
+    // processSystems //
+    //----------------//
     /**
-     * Analyze a range of stacks governed by a time signature (if any for the start).
-     * Retrieve typical stack duration and check with the time signature.
+     * Process all systems of the page, one task per system when parallelism is allowed.
+     * <p>
+     * The starting range of each system is determined before any system is processed.
+     *
+     * @param raw true for raw processing (meant only to guess expected measure duration)
      */
-    private void retrieveDurations ()
+    private void processSystems (final boolean raw)
     {
-        // Launch a raw processing to determine expected measure duration
-        // on the range of first system & stacks before first time signature
-        final Iterator<Range> it = ranges.iterator();
+        final List<SystemInfo> systems = page.getSystems();
+        final int[] firstRanges = new int[systems.size()];
 
-        // Current range
-        Range range = it.next();
+        for (int i = 0; i < systems.size(); i++) {
+            firstRanges[i] = getRangeIndex(systems.get(i).getFirstMeasureStack().getIdValue());
+        }
 
-        for (SystemInfo system : page.getSystems()) {
-            // Select good FRAT inters at system level
-            List<Inter> systemGoodFrats = system.getSig().inters(FRAT_CLASSES);
+        if ((OmrExecutors.defaultParallelism.getSpecific() == false) || (systems.size() < 2)) {
+            // Sequential
+            for (int i = 0; i < systems.size(); i++) {
+                processSystem(systems.get(i), firstRanges[i], raw);
+            }
+        } else {
+            // Parallel
+            try {
+                final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+                for (int i = 0; i < systems.size(); i++) {
+                    final SystemInfo system = systems.get(i);
+                    final int firstRange = firstRanges[i];
+                    tasks.add(
+                            new Callable<Void>()
+                    {
+                        @Override
+                        public Void call ()
+                                throws Exception
+                        {
+                            try {
+                                LogUtil.start(page.getSheet().getStub());
+                                processSystem(system, firstRange, raw);
+                            } finally {
+                                LogUtil.stopStub();
+                            }
+
+                            return null;
+                        }
+                    });
+                }
 
-            // Process stack after stack
-            for (MeasureStack stack : system.getMeasureStacks()) {
-                try {
-                    logger.debug("\n--- Raw processing {} ---", stack);
-                    new StackTuner(stack, true).process(systemGoodFrats, null);
-                } catch (Exception ex) {
-                    logger.warn("Error on stack " + stack + " " + ex, ex);
+                // Launch the tasks and wait for their completion
+                for (Future<Void> future : OmrExecutors.getHighExecutor().invokeAll(tasks)) {
+                    future.get(); // To propagate any exception
                 }
+            } catch (InterruptedException ex) {
+                logger.warn("PageRhythm got interrupted");
+                throw new ProcessingCancellationException(ex);
+            } catch (ProcessingCancellationException pce) {
+                throw pce;
+            } catch (Throwable ex) {
+                logger.warn("Exception raised in PageRhythm", ex);
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+
+    //---------------//
+    // processSystem //
+    //---------------//
+    /**
+     * Process the stacks of a system, one after the other.
+     *
+     * @param system     the system to process
+     * @param firstRange index of the range which contains the first stack of system
+     * @param raw        true for raw processing (meant only to guess expected measure duration)
+     */
+    private void processSystem (SystemInfo system,
+                                int firstRange,
+                                boolean raw)
+    {
+        // Select good FRAT inters at system level
+        final List<Inter> systemGoodFrats = system.getSig().inters(FRAT_CLASSES);
 
-                // End of range?
-                if (stack.getIdValue() == range.stopId) {
-                    // Use CURRENT MATERIAL of voices to determine expected duration on this range
-                    Rational duration = retrieveExpectedDuration(range);
-                    range.duration = duration;
+        // Current range
+        int index = firstRange;
+        Range range = ranges.get(index);
 
-                    if (it.hasNext()) {
-                        range = it.next();
+        // Process stack after stack
+        for (MeasureStack stack : system.getMeasureStacks()) {
+            try {
+                if (raw) {
+                    logger.debug("\n--- Raw processing {} ---", stack);
+                    new StackTuner(stack, true).process(systemGoodFrats, null);
+                } else {
+                    if (stack.getIdValue() == range.startId) {
+                        logger.debug("Starting {}", range);
+
+                        // Adjust time signature?
+                        if ((range.duration != null)
+                            && ((range.ts == null)
+                                || !range.ts.getTimeRational().getValue().equals(
+                                        range.duration))) {
+                            logger.info(
+                                    "{}{} should update to {}-based time sig?",
+                                    system.getLogPrefix(),
+                                    range,
+                                    range.duration);
+                        }
                     }
+
+                    logger.debug("\n--- Processing {} expDur: {} ---", stack, range.duration);
+                    new StackTuner(stack, false).process(systemGoodFrats, range.duration);
                 }
+            } catch (Exception ex) {
+                logger.warn("Error on stack " + stack + " " + ex, ex);
+            }
+
+            // End of range?
+            if ((stack.getIdValue() == range.stopId) && (index < (ranges.size() - 1))) {
+                range = ranges.get(++index);
             }
         }
+
+        if (!raw) {
+            // Refine voices IDs (and thus colors) across all measures of the system
+            Voices.refineSystem(system);
+        }
+    }
+
+    //-------------------//
+    // retrieveDurations //
+    //-------------------//
+    /**
+     * Analyze a range of stacks governed by a time signature (if any for the start).
+     * Retrieve typical stack duration and check with the time signature.
+     */
+    private void retrieveDurations ()
+    {
+        // Launch a raw processing of all stacks, to determine expected measure duration
+        processSystems(true);
+
+        // Use CURRENT MATERIAL of voices to determine expected duration on each range
+        for (Range range : ranges) {
+            range.duration = retrieveExpectedDuration(range);
+        }
     }
 
     //--------------------------//
@@ -326,6 +435,19 @@ public class PageRhythm
     }
 
     //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Constant.Boolean printWatch = new Constant.Boolean(
+                false,
+                "Should we print out the stop watch?");
+    }
+
     //-------//
     // Range //
     //-------//
@@ -30,6 +30,7 @@ import org.audiveris.omr.sig.inter.TupletInter;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -98,6 +99,10 @@ public class StackBackup
     //---------//
     /**
      * Try to install the provided configuration.
+     * <p>
+     * The sig is updated incrementally: only the seeds discarded by this configuration are
+     * deleted, and only the configuration inters currently absent from sig are restored.
+     * The inters shared with the current sig content are left untouched, with their relations.
      *
      * @param config   (input/output) the configuration to install
      * @param toRemove (output) rest chord inters to remove, if any
@@ -108,20 +113,35 @@ public class StackBackup
                             Set<RestChordInter> toRemove,
                             boolean failFast)
     {
-        // Clear the stack
+        final Set<Inter> kept = new HashSet<Inter>(config.getInters());
+
+        // Clear the stack, and delete the seeds not kept
         for (Inter inter : seeds) {
             stack.removeInter(inter);
-            inter.delete();
 
-            if (inter instanceof AbstractChordInter) {
-                for (Inter member : ((AbstractChordInter) inter).getNotes()) {
-                    member.delete();
+            if (!kept.contains(inter) && !inter.isDeleted()) {
+                inter.delete();
+
+                if (inter instanceof AbstractChordInter) {
+                    for (Inter member : ((AbstractChordInter) inter).getNotes()) {
+                        member.delete();
+                    }
                 }
             }
         }
 
-        // Restore just the configuration content
-        attic.restore(sig, config.getInters());
+        // Restore just the missing configuration content
+        final List<Inter> missing = new ArrayList<Inter>();
+
+        for (Inter inter : config.getInters()) {
+            if (inter.isDeleted()) {
+                missing.add(inter);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            attic.restore(sig, missing);
+        }
 
         for (Inter inter : config.getInters()) {
             stack.addInter(inter);
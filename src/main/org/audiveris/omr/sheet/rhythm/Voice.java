@@ -23,6 +23,7 @@ package org.audiveris.omr.sheet.rhythm;
 
 import org.audiveris.omr.math.GCD;
 import org.audiveris.omr.math.Rational;
+import org.audiveris.omr.math.RationalAccumulator;
 import org.audiveris.omr.score.Mark;
 import org.audiveris.omr.score.TimeRational;
 import org.audiveris.omr.sheet.beam.BeamGroup;
@@ -222,7 +223,7 @@ public class Voice
             if (isWhole()) {
                 setTermination(null); // we can't tell anything
             } else {
-                Rational timeCounter = Rational.ZERO;
+                final RationalAccumulator timeCounter = new RationalAccumulator();
 
                 if (slots != null) {
                     for (SlotVoice info : slots.values()) {
@@ -233,19 +234,19 @@ public class Voice
                             // Need a forward before this chord ?
                             if (timeCounter.compareTo(slot.getTimeOffset()) < 0) {
                                 insertForward(
-                                        slot.getTimeOffset().minus(timeCounter),
+                                        slot.getTimeOffset().minus(timeCounter.toRational()),
                                         Mark.Position.BEFORE,
                                         chord);
-                                timeCounter = slot.getTimeOffset();
+                                timeCounter.set(slot.getTimeOffset());
                             }
 
-                            timeCounter = timeCounter.plus(chord.getDuration());
+                            timeCounter.add(chord.getDuration());
                         }
                     }
                 }
 
                 // Need an ending forward ?
-                Rational delta = timeCounter.minus(stack.getExpectedDuration());
+                Rational delta = timeCounter.toRational().minus(stack.getExpectedDuration());
                 setTermination(delta);
 
                 if (delta.compareTo(Rational.ZERO) < 0) {
@@ -306,21 +307,17 @@ public class Voice
             return null;
         }
 
-        Rational voiceDur = Rational.ZERO;
+        final RationalAccumulator voiceDur = new RationalAccumulator();
 
         for (Slot slot : measure.getStack().getSlots()) {
             SlotVoice info = getSlotInfo(slot);
 
             if ((info != null) && (info.status == Status.BEGIN)) {
-                Rational chordEnd = slot.getTimeOffset().plus(info.chord.getDuration());
-
-                if (chordEnd.compareTo(voiceDur) > 0) {
-                    voiceDur = chordEnd;
-                }
+                voiceDur.maxOfSum(slot.getTimeOffset(), info.chord.getDuration());
             }
         }
 
-        return voiceDur;
+        return voiceDur.toRational();
     }
 
     //---------------//
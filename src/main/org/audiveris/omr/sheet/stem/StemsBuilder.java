@@ -64,6 +64,7 @@ import org.audiveris.omr.ui.symbol.MusicFont;
 import org.audiveris.omr.ui.symbol.ShapeSymbol;
 import org.audiveris.omr.util.Corner;
 import org.audiveris.omr.util.Dumping;
+import org.audiveris.omr.util.EntityGrid;
 import org.audiveris.omr.util.HorizontalSide;
 import static org.audiveris.omr.util.HorizontalSide.*;
 import org.audiveris.omr.util.Navigable;
@@ -83,10 +84,10 @@ import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Set;
@@ -168,14 +169,17 @@ public class StemsBuilder
     private Parameters params;
 
     /** Vertical seeds for this system. */
-    private List<Glyph> systemSeeds;
+    private EntityGrid<Glyph> systemSeeds;
 
     /** Beams and beam hooks for this system. */
-    private List<Inter> systemBeams;
+    private EntityGrid<Inter> systemBeams;
 
     /** Stems interpretations for this system. */
     private List<StemInter> systemStems = new ArrayList<StemInter>();
 
+    /** Spatial index on stems interpretations, once all of them have been created. */
+    private EntityGrid<StemInter> stemGrid;
+
     private VerticalsBuilder verticalsBuilder;
 
     /** Constructor for stem compound. */
@@ -281,11 +285,12 @@ public class StemsBuilder
         StopWatch watch = new StopWatch("StemsBuilder S#" + system.getId());
         watch.start("collections");
         // The abscissa-sorted stem seeds for this system
-        systemSeeds = system.getGroupedGlyphs(Group.VERTICAL_SEED);
+        systemSeeds = system.buildGrid(system.getGroupedGlyphs(Group.VERTICAL_SEED));
 
         // The abscissa-sorted beam (and beam hook) interpretations for this system
-        systemBeams = sig.inters(AbstractBeamInter.class);
-        Collections.sort(systemBeams, Inter.byAbscissa);
+        final List<Inter> beams = sig.inters(AbstractBeamInter.class);
+        Collections.sort(beams, Inter.byAbscissa);
+        systemBeams = system.buildGrid(beams);
 
         // The abscissa-sorted head interpretations for this system
         final List<Inter> systemHeads = sig.inters(ShapeSet.StemTemplateNotes);
@@ -301,6 +306,7 @@ public class StemsBuilder
         // Second phase, look for reuse of existing stems interpretations
         watch.start("phase #2");
         Collections.sort(systemStems, Inter.byAbscissa);
+        stemGrid = system.buildGrid(systemStems);
 
         for (Inter head : systemHeads) {
             new HeadLinker(head).reuseAllCorners();
@@ -628,7 +634,7 @@ public class StemsBuilder
                 logger.info("VIP reuseAllCorners {}", head);
             }
 
-            neighborStems = getNeighboringInters(systemStems);
+            neighborStems = getNeighboringInters(stemGrid);
 
             for (Corner corner : Corner.values) {
                 new CornerLinker(corner).reuse();
@@ -639,13 +645,13 @@ public class StemsBuilder
         // getNeighboringInters //
         //----------------------//
         /**
-         * From the provided collection of interpretations, retrieve all those located
+         * From the provided index of interpretations, retrieve all those located
          * in the vicinity of the provided central interpretation.
          *
-         * @param inters the collection of interpretations to search
-         * @return the set of neighboring interpretations
+         * @param inters the index of interpretations to search
+         * @return the abscissa-sorted neighboring interpretations
          */
-        private List<Inter> getNeighboringInters (List<? extends Inter> inters)
+        private List<Inter> getNeighboringInters (EntityGrid<? extends Inter> inters)
         {
             // Retrieve neighboring inters, using a box of system height and sufficiently wide,
             // just to play with a limited number of inters.
@@ -657,7 +663,15 @@ public class StemsBuilder
                     systemBox.height);
             fatBox.grow(params.vicinityMargin, 0);
 
-            return SIGraph.intersectedInters(inters, GeoOrder.BY_ABSCISSA, fatBox);
+            final List<Inter> found = new ArrayList<Inter>();
+
+            for (Inter inter : inters.intersectedEntities(fatBox)) {
+                if (!inter.isDeleted()) {
+                    found.add(inter);
+                }
+            }
+
+            return found;
         }
 
         //---------------------//
@@ -680,7 +694,7 @@ public class StemsBuilder
                     systemBox.height);
             fatBox.grow(params.vicinityMargin, 0);
 
-            return Glyphs.intersectedGlyphs(systemSeeds, fatBox);
+            return new LinkedHashSet<Glyph>(systemSeeds.intersectedEntities(fatBox));
         }
 
         //~ Inner Classes --------------------------------------------------------------------------
@@ -1635,10 +1649,10 @@ public class StemsBuilder
                 final Rectangle wideHeadBox = head.getBounds();
                 wideHeadBox.grow(system.getSheet().getScale().getMaxStem(), 0);
 
-                // Browse both vertical and horizontal sections in the system
-                for (Collection<Section> collection : Arrays.asList(
-                        system.getVerticalSections(),
-                        system.getHorizontalSections())) {
+                // Browse both vertical and horizontal sections that intersect lookup area
+                for (List<Section> collection : Arrays.asList(
+                        system.getVerticalSectionGrid().intersectedEntities(area),
+                        system.getHorizontalSectionGrid().intersectedEntities(area))) {
                     SectionLoop:
                     for (Section section : collection) {
                         Rectangle sectBox = section.getBounds();
@@ -1647,11 +1661,6 @@ public class StemsBuilder
                             logger.info("VIP {}", section);
                         }
 
-                        // Check intersection at least
-                        if (!area.intersects(sectBox)) {
-                            continue SectionLoop;
-                        }
-
                         // Containment is mandatory except for a head section
                         // (a section that intersects head glyph)
                         if (!area.contains(sectBox)) {
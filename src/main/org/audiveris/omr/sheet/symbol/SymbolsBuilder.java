@@ -26,6 +26,7 @@ import org.audiveris.omr.classifier.Evaluation;
 import org.audiveris.omr.classifier.ShapeClassifier;
 import org.audiveris.omr.constant.Constant;
 import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.glyph.CompoundCache;
 import org.audiveris.omr.glyph.Glyph;
 import org.audiveris.omr.glyph.GlyphCluster;
 import org.audiveris.omr.glyph.GlyphLink;
@@ -98,6 +99,12 @@ public class SymbolsBuilder
     /** Scale-dependent global constants. */
     private final Parameters params;
 
+    /** Glyphs waiting for evaluation. */
+    private final List<Glyph> pendingGlyphs = new ArrayList<Glyph>();
+
+    /** Closest staff of each glyph waiting for evaluation. */
+    private final List<Staff> pendingStaves = new ArrayList<Staff>();
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new SymbolsBuilder object.
@@ -133,9 +140,11 @@ public class SymbolsBuilder
      *       + cluster.decompose()                      // Decompose cluster into all subsets
      *       + FOREACH subset process(subset):
      *          - build compound glyph                  // Build one compound glyph per subset
-     *          - evaluateGlyph(compound)               // Run shape classifier on compound
-     *          - FOREACH acceptable evaluation
-     *             + symbolFactory.create(eval, glyph) // Create inter(s) related to evaluation
+     *          - evaluateGlyph(compound)               // Queue compound for evaluation
+     *    + evaluatePendings() by batches:
+     *       - run shape classifiers on queued glyphs
+     *       - FOREACH acceptable evaluation
+     *          + symbolFactory.create(eval, glyph)     // Create inter(s) related to evaluation
      * </pre>
      *
      * @param optionalsMap the optional (weak) glyphs per system
@@ -172,7 +181,9 @@ public class SymbolsBuilder
     // evaluateGlyph //
     //---------------//
     /**
-     * Evaluate a provided glyph and create all acceptable inter instances.
+     * Queue a provided glyph for evaluation.
+     * <p>
+     * Glyphs are submitted to the classifiers by batches, see {@link #evaluatePendings()}.
      *
      * @param glyph the glyph to evaluate
      */
@@ -195,42 +206,75 @@ public class SymbolsBuilder
             return;
         }
 
+        pendingGlyphs.add(glyph);
+        pendingStaves.add(closestStaff);
+
+        if (pendingGlyphs.size() >= constants.batchSize.getValue()) {
+            evaluatePendings();
+        }
+    }
+
+    //------------------//
+    // evaluatePendings //
+    //------------------//
+    /**
+     * Evaluate all the queued glyphs and create all acceptable inter instances.
+     * <p>
+     * Each classifier processes the queued glyphs as a whole, and inters are created in glyphs
+     * queuing order.
+     */
+    private void evaluatePendings ()
+    {
+        if (pendingGlyphs.isEmpty()) {
+            return;
+        }
+
         // TODO: checks should be run only AFTER both classifiers have been run
-        Evaluation[] evals = classifier.evaluate(
-                glyph,
+        final Evaluation[][] allEvals = classifier.evaluate(
+                pendingGlyphs,
                 system,
                 2,
                 Grades.symbolMinGrade,
                 EnumSet.of(Classifier.Condition.CHECKED));
-        Evaluation[] evals2 = classifier2.evaluate(
-                glyph,
+        final Evaluation[][] allEvals2 = classifier2.evaluate(
+                pendingGlyphs,
                 system,
                 2,
                 Grades.symbolMinGrade, // Not OK for deep classifier!
                 EnumSet.of(Classifier.Condition.CHECKED));
 
-        if (evals.length > 0) {
-            //            // Create one interpretation for each acceptable evaluation
-            //            for (Evaluation eval : evals) {
-            //                try {
-            //                    factory.create(eval, glyph, closestStaff);
-            //                } catch (Exception ex) {
-            //                    logger.warn("Error in glyph evaluation " + ex, ex);
-            //                }
-            //            }
-            //
-            Evaluation eval = evals[0];
-
-            if (evals2.length > 0) {
-                if (eval.shape == evals2[0].shape) {
-                    try {
-                        factory.create(eval, glyph, closestStaff);
-                    } catch (Exception ex) {
-                        logger.warn("Error in glyph evaluation " + ex, ex);
+        for (int i = 0; i < allEvals.length; i++) {
+            final Glyph glyph = pendingGlyphs.get(i);
+            final Staff closestStaff = pendingStaves.get(i);
+            final Evaluation[] evals = allEvals[i];
+            final Evaluation[] evals2 = allEvals2[i];
+
+            if (evals.length > 0) {
+                //            // Create one interpretation for each acceptable evaluation
+                //            for (Evaluation eval : evals) {
+                //                try {
+                //                    factory.create(eval, glyph, closestStaff);
+                //                } catch (Exception ex) {
+                //                    logger.warn("Error in glyph evaluation " + ex, ex);
+                //                }
+                //            }
+                //
+                Evaluation eval = evals[0];
+
+                if (evals2.length > 0) {
+                    if (eval.shape == evals2[0].shape) {
+                        try {
+                            factory.create(eval, glyph, closestStaff);
+                        } catch (Exception ex) {
+                            logger.warn("Error in glyph evaluation " + ex, ex);
+                        }
                     }
                 }
             }
         }
+
+        pendingGlyphs.clear();
+        pendingStaves.clear();
     }
 
     //------------------//
@@ -322,6 +366,7 @@ public class SymbolsBuilder
 
         final int interline = sheet.getInterline();
         final int maxPartCount = constants.maxPartCount.getValue();
+        final CompoundCache cache = system.getCompoundCache();
 
         for (Set<Glyph> set : sets) {
             final int setSize = set.size();
@@ -343,7 +388,7 @@ public class SymbolsBuilder
                 // Use just the subgraph for this (sub)set
                 final SimpleGraph<Glyph, GlyphLink> subGraph;
                 subGraph = GlyphCluster.getSubGraph(subSet, systemGraph, true);
-                new GlyphCluster(new SymbolAdapter(subGraph), Group.SYMBOL).decompose();
+                new GlyphCluster(new SymbolAdapter(subGraph), Group.SYMBOL, cache).decompose();
             } else {
                 // The set is just an isolated glyph, to be evaluated directly
                 final Glyph glyph = set.iterator().next();
@@ -353,6 +398,14 @@ public class SymbolsBuilder
                 }
             }
         }
+
+        // Evaluate the last queued glyphs
+        evaluatePendings();
+
+        logger.debug("System#{} {}", system.getId(), cache);
+
+        // Compounds are no longer needed
+        cache.clear();
     }
 
     //-------------------//
@@ -387,6 +440,11 @@ public class SymbolsBuilder
                 false,
                 "Should we print out the stop watch?");
 
+        private final Constant.Integer batchSize = new Constant.Integer(
+                "Glyphs",
+                64,
+                "Maximum number of glyphs submitted at once to the classifiers");
+
         private final Constant.Integer maxPartCount = new Constant.Integer(
                 "Glyphs",
                 7,
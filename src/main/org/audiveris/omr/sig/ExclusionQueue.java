@@ -0,0 +1,281 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                   E x c l u s i o n Q u e u e                                  //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sig;
+
+import org.audiveris.omr.sig.inter.Inter;
+import org.audiveris.omr.sig.relation.Relation;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Class {@code ExclusionQueue} is an indexed max-heap of exclusion relations, used by
+ * {@link SIGraph#reduceExclusions(Collection)}.
+ * <p>
+ * The key of an exclusion is the highest best grade of its source and target inters.
+ * Ties are broken by the rank of the exclusion in the initial collection, so that the exclusion
+ * picked is always the one a linear scan of the collection would have picked.
+ * <p>
+ * Since an exclusion key depends only on the best grades of its two inters, only the exclusions
+ * that involve an inter whose grade has been recomputed need to be re-keyed.
+ * Exclusions no longer in the sig are lazily discarded when they reach the top of the heap.
+ *
+ * @author Hervé Bitteur
+ */
+class ExclusionQueue
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** The containing sig. */
+    private final SIGraph sig;
+
+    /** Heap array, best entry at index 0. */
+    private final Entry[] heap;
+
+    /** Current heap size. */
+    private int size;
+
+    /** Entry of each exclusion. */
+    private final Map<Relation, Entry> entries = new IdentityHashMap<Relation, Entry>();
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code ExclusionQueue} object.
+     *
+     * @param sig        the containing sig
+     * @param exclusions the exclusions to handle, in their preference order
+     */
+    ExclusionQueue (SIGraph sig,
+                    Collection<? extends Relation> exclusions)
+    {
+        this.sig = sig;
+        heap = new Entry[exclusions.size()];
+
+        int rank = 0;
+
+        for (Relation rel : exclusions) {
+            if (sig.containsEdge(rel) && !entries.containsKey(rel)) {
+                Entry entry = new Entry(rel, rank++);
+                entry.key = keyOf(rel);
+                entry.pos = size;
+                heap[size++] = entry;
+                entries.put(rel, entry);
+            }
+        }
+
+        // Heapify
+        for (int i = (size / 2) - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //----------//
+    // pollBest //
+    //----------//
+    /**
+     * Remove and report the exclusion with highest key, provided this key is strictly
+     * positive.
+     *
+     * @return the best exclusion, or null if none
+     */
+    Relation pollBest ()
+    {
+        while (size > 0) {
+            final Entry top = heap[0];
+            removeAt(0);
+
+            if (sig.containsEdge(top.rel)) {
+                if (top.key > 0) {
+                    return top.rel;
+                }
+
+                return null; // No other exclusion can be better
+            }
+        }
+
+        return null;
+    }
+
+    //-------//
+    // rekey //
+    //-------//
+    /**
+     * Update the key of every exclusion that involves the provided inter.
+     *
+     * @param inter the inter whose best grade may have changed
+     */
+    void rekey (Inter inter)
+    {
+        if (!sig.containsVertex(inter)) {
+            return;
+        }
+
+        for (Relation rel : sig.edgesOf(inter)) {
+            final Entry entry = entries.get(rel);
+
+            if ((entry != null) && (entry.pos >= 0)) {
+                final double key = keyOf(rel);
+
+                if (key != entry.key) {
+                    final double old = entry.key;
+                    entry.key = key;
+
+                    if (key > old) {
+                        siftUp(entry.pos);
+                    } else {
+                        siftDown(entry.pos);
+                    }
+                }
+            }
+        }
+    }
+
+    //--------//
+    // better //
+    //--------//
+    private boolean better (Entry a,
+                            Entry b)
+    {
+        if (a.key != b.key) {
+            return a.key > b.key;
+        }
+
+        return a.rank < b.rank;
+    }
+
+    //-------//
+    // keyOf //
+    //-------//
+    private double keyOf (Relation rel)
+    {
+        return Math.max(
+                sig.getEdgeSource(rel).getBestGrade(),
+                sig.getEdgeTarget(rel).getBestGrade());
+    }
+
+    //----------//
+    // removeAt //
+    //----------//
+    private void removeAt (int pos)
+    {
+        final Entry entry = heap[pos];
+        entry.pos = -1;
+        size--;
+
+        if (pos != size) {
+            final Entry last = heap[size];
+            heap[pos] = last;
+            last.pos = pos;
+            heap[size] = null;
+
+            siftDown(pos);
+            siftUp(last.pos);
+        } else {
+            heap[size] = null;
+        }
+    }
+
+    //----------//
+    // siftDown //
+    //----------//
+    private void siftDown (int pos)
+    {
+        final Entry entry = heap[pos];
+
+        while (true) {
+            int child = (2 * pos) + 1;
+
+            if (child >= size) {
+                break;
+            }
+
+            if (((child + 1) < size) && better(heap[child + 1], heap[child])) {
+                child++;
+            }
+
+            if (!better(heap[child], entry)) {
+                break;
+            }
+
+            heap[pos] = heap[child];
+            heap[pos].pos = pos;
+            pos = child;
+        }
+
+        heap[pos] = entry;
+        entry.pos = pos;
+    }
+
+    //--------//
+    // siftUp //
+    //--------//
+    private void siftUp (int pos)
+    {
+        final Entry entry = heap[pos];
+
+        while (pos > 0) {
+            final int parent = (pos - 1) / 2;
+
+            if (!better(entry, heap[parent])) {
+                break;
+            }
+
+            heap[pos] = heap[parent];
+            heap[pos].pos = pos;
+            pos = parent;
+        }
+
+        heap[pos] = entry;
+        entry.pos = pos;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-------//
+    // Entry //
+    //-------//
+    private static class Entry
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** The exclusion relation. */
+        final Relation rel;
+
+        /** Rank in initial collection. */
+        final int rank;
+
+        /** Current key. */
+        double key;
+
+        /** Current position in heap, -1 if removed. */
+        int pos;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public Entry (Relation rel,
+                      int rank)
+        {
+            this.rel = rel;
+            this.rank = rank;
+        }
+    }
+}
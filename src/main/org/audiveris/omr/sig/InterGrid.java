@@ -0,0 +1,475 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                        I n t e r G r i d                                       //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sig;
+
+import org.audiveris.omr.constant.Constant;
+import org.audiveris.omr.constant.ConstantSet;
+import org.audiveris.omr.sheet.Scale;
+import org.audiveris.omr.sig.inter.Inter;
+import org.audiveris.omr.sig.inter.InterEnsemble;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class {@code InterGrid} is a spatial index of the inters of a sig, based on a uniform
+ * grid of square cells.
+ * <p>
+ * Each inter is registered in all the cells its bounds intersect, the cell side being a few
+ * interlines so that most inters fall in one or two cells.
+ * Inters with no bounds and ensembles (whose bounds derive from their current members) are kept
+ * aside, and always checked.
+ * <p>
+ * Candidates found in the cells are always checked against their current bounds, and the result
+ * is ordered like the sig vertices (that is by insertion order), so that a query returns exactly
+ * what a scan of the whole sig would return.
+ * <p>
+ * The grid must be told of any inter addition or removal, as well as of any bounds modification
+ * of an inter already registered.
+ *
+ * @author Hervé Bitteur
+ */
+class InterGrid
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Constants constants = new Constants();
+
+    /** To sort found inters by insertion rank. */
+    private static final Comparator<Entry> byRank = new Comparator<Entry>()
+    {
+        @Override
+        public int compare (Entry e1,
+                            Entry e2)
+        {
+            return Integer.compare(e1.rank, e2.rank);
+        }
+    };
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Side of each cell, in pixels. */
+    private final int side;
+
+    /** Entry of each registered inter. */
+    private final Map<Inter, Entry> entries = new IdentityHashMap<Inter, Entry>();
+
+    /** Cells content, per cell key. */
+    private final Map<Long, List<Entry>> cells = new HashMap<Long, List<Entry>>();
+
+    /** Entries with no fixed bounds, always checked. */
+    private final Map<Inter, Entry> floatings = new IdentityHashMap<Inter, Entry>();
+
+    /** Rank for next inserted inter. */
+    private int nextRank;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code InterGrid} object.
+     *
+     * @param scale  the sheet scale, if any
+     * @param inters the initial inters, in sig order
+     */
+    InterGrid (Scale scale,
+               Collection<Inter> inters)
+    {
+        side = Math.max(
+                1,
+                (scale != null) ? scale.toPixels(constants.cellSide)
+                        : constants.defaultCellSide.getValue());
+
+        for (Inter inter : inters) {
+            insert(inter);
+        }
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-----------//
+    // contained //
+    //-----------//
+    /**
+     * Report the inters whose bounds are contained in the provided rectangle.
+     *
+     * @param rect    the containing rectangle
+     * @param classes the inter classes to consider, or null for all
+     * @return the contained inters, in sig order
+     */
+    synchronized List<Inter> contained (Rectangle rect,
+                                        Class[] classes)
+    {
+        final List<Entry> found = new ArrayList<Entry>();
+
+        for (Entry entry : candidates(rect)) {
+            final Rectangle iBox = entry.inter.getBounds();
+
+            if ((iBox != null) && rect.contains(iBox) && isInstance(entry.inter, classes)) {
+                found.add(entry);
+            }
+        }
+
+        return sorted(found);
+    }
+
+    //------------//
+    // containing //
+    //------------//
+    /**
+     * Report the inters whose bounds contain the provided point.
+     *
+     * @param point   the provided point
+     * @param classes the inter classes to consider, or null for all
+     * @return the containing inters, in sig order
+     */
+    synchronized List<Inter> containing (Point point,
+                                         Class[] classes)
+    {
+        final List<Entry> found = new ArrayList<Entry>();
+
+        for (Entry entry : candidates(new Rectangle(point.x, point.y, 1, 1))) {
+            final Rectangle iBox = entry.inter.getBounds();
+
+            if ((iBox != null) && iBox.contains(point) && isInstance(entry.inter, classes)) {
+                found.add(entry);
+            }
+        }
+
+        return sorted(found);
+    }
+
+    //--------//
+    // insert //
+    //--------//
+    /**
+     * Register a (new) inter.
+     *
+     * @param inter the inter to register
+     */
+    synchronized void insert (Inter inter)
+    {
+        Entry entry = entries.get(inter);
+
+        if (entry != null) {
+            unlink(entry);
+        } else {
+            entry = new Entry(inter, nextRank++);
+            entries.put(inter, entry);
+        }
+
+        link(entry);
+    }
+
+    //-------------//
+    // intersected //
+    //-------------//
+    /**
+     * Report the inters whose bounds intersect the provided rectangle.
+     *
+     * @param rect    the intersecting rectangle
+     * @param classes the inter classes to consider, or null for all
+     * @return the intersected inters, in sig order
+     */
+    synchronized List<Inter> intersected (Rectangle rect,
+                                          Class[] classes)
+    {
+        final List<Entry> found = new ArrayList<Entry>();
+
+        for (Entry entry : candidates(rect)) {
+            final Rectangle iBox = entry.inter.getBounds();
+
+            if ((iBox != null) && rect.intersects(iBox) && isInstance(entry.inter, classes)) {
+                found.add(entry);
+            }
+        }
+
+        return sorted(found);
+    }
+
+    //--------//
+    // remove //
+    //--------//
+    /**
+     * Unregister an inter.
+     *
+     * @param inter the inter to unregister
+     */
+    synchronized void remove (Inter inter)
+    {
+        final Entry entry = entries.remove(inter);
+
+        if (entry != null) {
+            unlink(entry);
+        }
+    }
+
+    //--------//
+    // update //
+    //--------//
+    /**
+     * Update the cells of an inter already registered, whose bounds may have changed.
+     *
+     * @param inter the inter to update
+     */
+    synchronized void update (Inter inter)
+    {
+        final Entry entry = entries.get(inter);
+
+        if (entry != null) {
+            unlink(entry);
+            link(entry);
+        }
+    }
+
+    //------------//
+    // candidates //
+    //------------//
+    /**
+     * Report the entries that may intersect the provided rectangle.
+     *
+     * @param rect the rectangle of interest
+     * @return the candidate entries, with no duplicate
+     */
+    private Collection<Entry> candidates (Rectangle rect)
+    {
+        final Map<Inter, Entry> found = new IdentityHashMap<Inter, Entry>(floatings);
+
+        if (rect.isEmpty()) {
+            return found.values();
+        }
+
+        final int c0 = cellOf(rect.x);
+        final int c1 = cellOf((rect.x + rect.width) - 1);
+        final int r0 = cellOf(rect.y);
+        final int r1 = cellOf((rect.y + rect.height) - 1);
+
+        if ((((long) c1 - c0 + 1) * ((long) r1 - r0 + 1)) > cells.size()) {
+            // Rectangle larger than populated grid: simply browse all cells
+            for (List<Entry> list : cells.values()) {
+                for (Entry entry : list) {
+                    found.put(entry.inter, entry);
+                }
+            }
+        } else {
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    final List<Entry> list = cells.get(keyOf(c, r));
+
+                    if (list != null) {
+                        for (Entry entry : list) {
+                            found.put(entry.inter, entry);
+                        }
+                    }
+                }
+            }
+        }
+
+        return found.values();
+    }
+
+    //--------//
+    // cellOf //
+    //--------//
+    /**
+     * Report the index of the cell (column or row) that contains the provided coordinate.
+     *
+     * @param coord abscissa or ordinate value
+     * @return index of containing cell, rounded towards negative infinity
+     */
+    private int cellOf (int coord)
+    {
+        final int index = coord / side;
+
+        return ((coord < 0) && ((index * side) != coord)) ? (index - 1) : index;
+    }
+
+    //------------//
+    // isInstance //
+    //------------//
+    private boolean isInstance (Inter inter,
+                                Class[] classes)
+    {
+        if (classes == null) {
+            return true;
+        }
+
+        for (Class classe : classes) {
+            if (classe.isInstance(inter)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    //-------//
+    // keyOf //
+    //-------//
+    private static long keyOf (int col,
+                               int row)
+    {
+        return ((long) col << 32) | (row & 0xFFFFFFFFL);
+    }
+
+    //------//
+    // link //
+    //------//
+    /**
+     * Insert entry into cells, according to current inter bounds.
+     *
+     * @param entry the entry to link
+     */
+    private void link (Entry entry)
+    {
+        final Rectangle box = (entry.inter instanceof InterEnsemble) ? null
+                : entry.inter.getBounds();
+
+        if ((box == null) || box.isEmpty()) {
+            entry.box = null;
+            floatings.put(entry.inter, entry);
+
+            return;
+        }
+
+        entry.box = box;
+
+        final int c1 = cellOf((box.x + box.width) - 1);
+        final int r1 = cellOf((box.y + box.height) - 1);
+
+        for (int r = cellOf(box.y); r <= r1; r++) {
+            for (int c = cellOf(box.x); c <= c1; c++) {
+                final Long key = keyOf(c, r);
+                List<Entry> list = cells.get(key);
+
+                if (list == null) {
+                    cells.put(key, list = new ArrayList<Entry>());
+                }
+
+                list.add(entry);
+            }
+        }
+    }
+
+    //--------//
+    // sorted //
+    //--------//
+    private List<Inter> sorted (List<Entry> found)
+    {
+        Collections.sort(found, byRank);
+
+        final List<Inter> inters = new ArrayList<Inter>(found.size());
+
+        for (Entry entry : found) {
+            inters.add(entry.inter);
+        }
+
+        return inters;
+    }
+
+    //--------//
+    // unlink //
+    //--------//
+    /**
+     * Remove entry from cells, according to the box it was linked with.
+     *
+     * @param entry the entry to unlink
+     */
+    private void unlink (Entry entry)
+    {
+        final Rectangle box = entry.box;
+
+        if (box == null) {
+            floatings.remove(entry.inter);
+
+            return;
+        }
+
+        final int c1 = cellOf((box.x + box.width) - 1);
+        final int r1 = cellOf((box.y + box.height) - 1);
+
+        for (int r = cellOf(box.y); r <= r1; r++) {
+            for (int c = cellOf(box.x); c <= c1; c++) {
+                final Long key = keyOf(c, r);
+                final List<Entry> list = cells.get(key);
+
+                if (list != null) {
+                    list.remove(entry);
+
+                    if (list.isEmpty()) {
+                        cells.remove(key);
+                    }
+                }
+            }
+        }
+
+        entry.box = null;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Constants //
+    //-----------//
+    private static final class Constants
+            extends ConstantSet
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final Scale.Fraction cellSide = new Scale.Fraction(
+                4.0,
+                "Side of each cell in sig spatial index");
+
+        private final Constant.Integer defaultCellSide = new Constant.Integer(
+                "Pixels",
+                80,
+                "Side of each cell in sig spatial index, when sheet scale is not known");
+    }
+
+    //-------//
+    // Entry //
+    //-------//
+    private static class Entry
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** The registered inter. */
+        final Inter inter;
+
+        /** Insertion rank. */
+        final int rank;
+
+        /** Bounds used for cells linking, null if floating. */
+        Rectangle box;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public Entry (Inter inter,
+                      int rank)
+        {
+            this.inter = inter;
+            this.rank = rank;
+        }
+    }
+}
@@ -90,6 +90,9 @@ public class SIGraph
     /** Content for differed populating after unmarshalling. */
     private SigValue sigValue;
 
+    /** Spatial index of inters, lazily built on first spatial query. */
+    private InterGrid grid;
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Creates a new SIGraph object at system level.
@@ -145,6 +148,10 @@ public class SIGraph
         boolean res = super.addVertex(inter);
         inter.setSig(this);
 
+        if (grid != null) {
+            grid.insert(inter);
+        }
+
         // Update index
         if (inter.getId() == 0) {
             system.getSheet().getInterIndex().register(inter);
@@ -219,15 +226,24 @@ public class SIGraph
      */
     public List<Inter> containedInters (Rectangle rect)
     {
-        List<Inter> found = new ArrayList<Inter>();
-
-        for (Inter inter : vertexSet()) {
-            if (rect.contains(inter.getBounds())) {
-                found.add(inter);
-            }
-        }
+        return getGrid().contained(rect, null);
+    }
 
-        return found;
+    //-----------------//
+    // containedInters //
+    //-----------------//
+    /**
+     * Lookup the sig collection of interpretations for those which are contained in the
+     * provided rectangle and are instances of one of the provided classes.
+     *
+     * @param rect    the containing rectangle
+     * @param classes the classes of interpretations to consider
+     * @return the contained interpretations
+     */
+    public List<Inter> containedInters (Rectangle rect,
+                                        Class[] classes)
+    {
+        return getGrid().contained(rect, classes);
     }
 
     //------------------//
@@ -242,18 +258,31 @@ public class SIGraph
      */
     public List<Inter> containingInters (Point point)
     {
-        List<Inter> found = new ArrayList<Inter>();
+        return containingInters(point, null);
+    }
 
-        for (Inter inter : vertexSet()) {
-            Rectangle bounds = inter.getBounds();
+    //------------------//
+    // containingInters //
+    //------------------//
+    /**
+     * Lookup the sig collection of interpretations for those which contain the provided
+     * point and are instances of one of the provided classes.
+     *
+     * @param point   provided point
+     * @param classes the classes of interpretations to consider, null for all
+     * @return the containing interpretations
+     */
+    public List<Inter> containingInters (Point point,
+                                         Class[] classes)
+    {
+        List<Inter> found = new ArrayList<Inter>();
 
-            if ((bounds != null) && bounds.contains(point)) {
-                // More precise test if we know inter area
-                Area area = inter.getArea();
+        for (Inter inter : getGrid().containing(point, classes)) {
+            // More precise test if we know inter area
+            Area area = inter.getArea();
 
-                if ((area == null) || area.contains(point)) {
-                    found.add(inter);
-                }
+            if ((area == null) || area.contains(point)) {
+                found.add(inter);
             }
         }
 
@@ -697,6 +726,38 @@ public class SIGraph
         return filtered;
     }
 
+    //-------------------//
+    // intersectedInters //
+    //-------------------//
+    /**
+     * Lookup the sig collection of interpretations for those whose bounds intersect the
+     * provided box.
+     *
+     * @param box the intersecting box
+     * @return the intersected interpretations, in sig order
+     */
+    public List<Inter> intersectedInters (Rectangle box)
+    {
+        return getGrid().intersected(box, null);
+    }
+
+    //-------------------//
+    // intersectedInters //
+    //-------------------//
+    /**
+     * Lookup the sig collection of interpretations for those whose bounds intersect the
+     * provided box and are instances of one of the provided classes.
+     *
+     * @param box     the intersecting box
+     * @param classes the classes of interpretations to consider
+     * @return the intersected interpretations, in sig order
+     */
+    public List<Inter> intersectedInters (Rectangle box,
+                                          Class[] classes)
+    {
+        return getGrid().intersected(box, classes);
+    }
+
     //-------------------//
     // intersectedInters //
     //-------------------//
@@ -1065,6 +1126,9 @@ public class SIGraph
      * <li>Recompute all impacted contextual grades values,</li>
      * <li>Iterate until no more exclusion is left.</li>
      * </ol>
+     * Exclusions are kept in an {@link ExclusionQueue}, so that picking the best exclusion does
+     * not require a scan of all exclusions, and only the exclusions of impacted inters get
+     * re-ordered.
      *
      * @param exclusions the collection of exclusions to process
      * @return the set of vertices removed
@@ -1072,66 +1136,49 @@ public class SIGraph
     public Set<Inter> reduceExclusions (Collection<? extends Relation> exclusions)
     {
         final Set<Inter> removed = new LinkedHashSet<Inter>();
+        final ExclusionQueue queue = new ExclusionQueue(this, exclusions);
         Relation bestRel;
 
-        do {
-            // Choose exclusion with the highest source or target grade
-            double bestCP = 0;
-            bestRel = null;
-
-            for (Iterator<? extends Relation> it = exclusions.iterator(); it.hasNext();) {
-                Relation rel = it.next();
-
-                if (containsEdge(rel)) {
-                    final double cp = Math.max(
-                            getEdgeSource(rel).getBestGrade(),
-                            getEdgeTarget(rel).getBestGrade());
-
-                    if (bestCP < cp) {
-                        bestCP = cp;
-                        bestRel = rel;
-                    }
-                } else {
-                    it.remove();
-                }
-            }
-
+        // Choose exclusion with the highest source or target grade
+        while ((bestRel = queue.pollBest()) != null) {
             // Remove the weaker branch of the selected exclusion
-            if (bestRel != null) {
-                final Inter source = getEdgeSource(bestRel);
-                final double scp = source.getBestGrade();
-                final Inter target = getEdgeTarget(bestRel);
-                final double tcp = target.getBestGrade();
-                final Inter weaker = (scp < tcp) ? source : target;
-
-                if (weaker.isVip()) {
-                    logger.info(
-                            "VIP conflict {} deleting weaker {}",
-                            bestRel.toLongString(this),
-                            weaker);
-                }
+            final Inter source = getEdgeSource(bestRel);
+            final double scp = source.getBestGrade();
+            final Inter target = getEdgeTarget(bestRel);
+            final double tcp = target.getBestGrade();
+            final Inter weaker = (scp < tcp) ? source : target;
+
+            if (weaker.isVip()) {
+                logger.info("VIP conflict {} deleting weaker {}", bestRel.toLongString(this), weaker);
+            }
 
-                // Which inters were involved in some support relation with this weaker inter?
-                final Set<Inter> involved = involvedInters(getSupports(weaker));
-                involved.remove(weaker);
+            // Which inters were involved in some support relation with this weaker inter?
+            final Set<Inter> involved = involvedInters(getSupports(weaker));
+            involved.remove(weaker);
 
-                // Remove the weaker inter
-                removed.add(weaker);
-                weaker.delete();
+            // Remove the weaker inter
+            removed.add(weaker);
+            weaker.delete();
 
-                // If removal of weaker has resulted in removal of its ensemble, count ensemble
-                if ((weaker.getEnsemble() != null) && weaker.getEnsemble().isDeleted()) {
-                    removed.add(weaker.getEnsemble());
-                }
+            // If removal of weaker has resulted in removal of its ensemble, count ensemble
+            if ((weaker.getEnsemble() != null) && weaker.getEnsemble().isDeleted()) {
+                removed.add(weaker.getEnsemble());
+            }
 
-                // Update contextual values for all inters that were involved with 'weaker'
-                for (Inter inter : involved) {
-                    computeContextualGrade(inter);
-                }
+            // Update contextual values for all inters that were involved with 'weaker'
+            // And re-key only the exclusions these inters are part of
+            for (Inter inter : involved) {
+                computeContextualGrade(inter);
+                queue.rekey(inter);
+            }
+        }
 
-                exclusions.remove(bestRel);
+        // Purge the exclusions no longer in sig
+        for (Iterator<? extends Relation> it = exclusions.iterator(); it.hasNext();) {
+            if (!containsEdge(it.next())) {
+                it.remove();
             }
-        } while (bestRel != null);
+        }
 
         return removed;
     }
@@ -1149,6 +1196,22 @@ public class SIGraph
         return reduceExclusions(exclusions());
     }
 
+    //---------//
+    // reindex //
+    //---------//
+    /**
+     * Notify the sig that the bounds of the provided inter may have changed, so that
+     * spatial queries remain accurate.
+     *
+     * @param inter the modified inter
+     */
+    public void reindex (Inter inter)
+    {
+        if ((grid != null) && containsVertex(inter)) {
+            grid.update(inter);
+        }
+    }
+
     //--------------//
     // removeVertex //
     //--------------//
@@ -1163,6 +1226,10 @@ public class SIGraph
         // Remove from inter index
         system.getSheet().getInterIndex().remove(inter);
 
+        if (grid != null) {
+            grid.remove(inter);
+        }
+
         return super.removeVertex(inter);
     }
 
@@ -1274,6 +1341,23 @@ public class SIGraph
         return bestCg;
     }
 
+    //---------//
+    // getGrid //
+    //---------//
+    /**
+     * Report the spatial index of inters, building it if needed.
+     *
+     * @return the spatial index
+     */
+    private InterGrid getGrid ()
+    {
+        if (grid == null) {
+            grid = new InterGrid(system.getSheet().getScale(), vertexSet());
+        }
+
+        return grid;
+    }
+
     //----------------//
     // involvedInters //
     //----------------//
@@ -813,6 +813,10 @@ public abstract class AbstractInter
     public void setBounds (Rectangle bounds)
     {
         this.bounds = bounds;
+
+        if (sig != null) {
+            sig.reindex(this);
+        }
     }
 
     //--------------------//
@@ -840,6 +844,10 @@ public abstract class AbstractInter
     public void setGlyph (Glyph glyph)
     {
         this.glyph = glyph;
+
+        if ((bounds == null) && (sig != null)) {
+            sig.reindex(this); // Bounds may now derive from glyph
+        }
     }
 
     //----------//
@@ -28,32 +28,30 @@ import org.audiveris.omr.text.TextLine;
 import org.audiveris.omr.text.TextWord;
 
 import org.bytedeco.javacpp.*;
-import static org.bytedeco.javacpp.lept.*;
 import static org.bytedeco.javacpp.tesseract.*;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.geom.Line2D;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
 import javax.imageio.ImageIO;
-import javax.imageio.ImageWriter;
 import javax.imageio.spi.IIORegistry;
-import javax.imageio.stream.ImageOutputStream;
 
 /**
  * Class {@code TesseractOrder} carries a processing order submitted to Tesseract OCR
  * program.
+ * <p>
+ * The image is handed to Tesseract as raw 8-bit gray pixels, and processed by an API instance
+ * leased from {@link TesseractPool}, already initialized for the desired language.
  *
  * @author Hervé Bitteur
  */
@@ -93,11 +91,17 @@ public class TesseractOrder
     /** Desired handling of layout. */
     private final int segMode;
 
-    /** The dedicated API. */
+    /** The API leased for processing. */
     private TessBaseAPI api;
 
-    /** The image being processed. */
-    private final PIX image;
+    /** Image width. */
+    private final int width;
+
+    /** Image height. */
+    private final int height;
+
+    /** Image gray pixels, one byte per pixel, row after row. */
+    private final byte[] pixels;
 
     //~ Constructors -------------------------------------------------------------------------------
     //
@@ -115,8 +119,7 @@ public class TesseractOrder
      * @param bufferedImage The image to process
      *
      * @throws UnsatisfiedLinkError When bridge to C++ could not be loaded
-     * @throws IOException          When temporary Tiff buffer failed
-     * @throws RuntimeException     When PIX image failed
+     * @throws IOException          When disk copy of image failed
      */
     public TesseractOrder (String label,
                            int serial,
@@ -132,14 +135,15 @@ public class TesseractOrder
         this.lang = lang;
         this.segMode = segMode;
 
-        // Build a PIX from the image provided
-        ByteBuffer buf = toTiffBuffer(bufferedImage);
-        buf.position(0);
-        image = pixReadMemTiff(buf, buf.capacity(), 0);
+        // Grab the raw gray pixels from the image provided
+        final BufferedImage grayImage = toGray(bufferedImage);
+        width = grayImage.getWidth();
+        height = grayImage.getHeight();
+        pixels = (byte[]) grayImage.getRaster().getDataElements(0, 0, width, height, null);
 
-        if (image == null) {
-            logger.warn("Invalid image {}", label);
-            throw new RuntimeException("Invalid image");
+        // Should we keep a local copy of this image on disk?
+        if (keepImage) {
+            writeImage(grayImage);
         }
     }
 
@@ -149,25 +153,22 @@ public class TesseractOrder
     // process //
     //---------//
     /**
-     * Actually allocate a Tesseract API and recognize the image.
+     * Actually lease a Tesseract API and recognize the image.
      *
      * @return the sequence of lines found
      */
     public List<TextLine> process ()
     {
         try {
-            //api = new TessBaseAPI(WellKnowns.OCR_FOLDER.toString());
-            api = new TessBaseAPI();
+            // Get an API initialized with proper language
+            api = TesseractPool.getInstance().lease(lang);
 
-            // Init API with proper language
-            if (api.Init(WellKnowns.OCR_FOLDER.toString(), lang) != 0) {
-                logger.warn("Could not initialize Tesseract with lang {}", lang);
-
-                return finish(null);
+            if (api == null) {
+                return null;
             }
 
-            // Set API image
-            api.SetImage(image);
+            // Set API image, as 8-bit pixels
+            api.SetImage(pixels, width, height, 1, width);
 
             // Perform layout analysis according to segmentation mode
             api.SetPageSegMode(segMode);
@@ -190,6 +191,8 @@ public class TesseractOrder
             }
 
             throw new RuntimeException(ex);
+        } finally {
+            finish(null); // In case of abnormal exit, API must go back to pool
         }
     }
 
@@ -231,19 +234,16 @@ public class TesseractOrder
     // finish //
     //--------//
     /**
-     * Convenient way to cleanup Tesseract resources while ending the current processing
+     * Convenient way to give back Tesseract resources while ending the current processing
      *
      * @param lines the lines found, if any
-     * @return the lines found, if nay
+     * @return the lines found, if any
      */
     private List<TextLine> finish (List<TextLine> lines)
     {
-        if (image != null) {
-            pixDestroy(image);
-        }
-
         if (api != null) {
-            api.End();
+            TesseractPool.getInstance().release(api);
+            api = null;
         }
 
         return lines;
@@ -383,70 +383,55 @@ public class TesseractOrder
         }
     }
 
-    //--------------//
-    // toTiffBuffer //
-    //--------------//
+    //--------//
+    // toGray //
+    //--------//
     /**
-     * Convert the given image into a TIFF-formatted ByteBuffer for
-     * passing it directly to Tesseract.
-     * A copy of the tiff buffer can be saved on disk, if so desired.
+     * Make sure the provided image is an 8-bit gray image.
      *
      * @param image the input image
-     * @return a buffer in TIFF format
+     * @return the image itself if already gray, otherwise a gray copy
      */
-    private ByteBuffer toTiffBuffer (BufferedImage image)
-            throws IOException
+    private BufferedImage toGray (BufferedImage image)
     {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
-        try {
-            ImageOutputStream ios = null;
-
-            try {
-                ios = ImageIO.createImageOutputStream(baos);
-
-                ImageWriter writer = ImageIO.getImageWritersByFormatName("tiff").next();
-                writer.setOutput(ios);
-                writer.write(image);
-            } finally {
-                if (ios != null) {
-                    ios.close();
-                }
-            }
-        } catch (Exception ex) {
-            logger.warn("Could not write image", ex);
+        if (image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+            return image;
         }
 
-        ByteBuffer buf = ByteBuffer.allocate(baos.size());
-        byte[] bytes = baos.toByteArray();
-        buf.put(bytes);
-
-        // Should we keep a local copy of this buffer on disk?
-        if (keepImage) {
-            String name = String.format("%03d-", serial) + ((label != null) ? label : "");
-            Path path = WellKnowns.TEMP_FOLDER.resolve(name + ".tif");
+        BufferedImage gray = new BufferedImage(
+                image.getWidth(),
+                image.getHeight(),
+                BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = gray.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
 
-            // Make sure the TEMP directory exists
-            if (!Files.exists(WellKnowns.TEMP_FOLDER)) {
-                Files.createDirectories(WellKnowns.TEMP_FOLDER);
-            }
+        return gray;
+    }
 
-            try {
-                FileOutputStream fos = null;
+    //------------//
+    // writeImage //
+    //------------//
+    /**
+     * Save a TIFF copy of the image sent to Tesseract, in the temporary folder.
+     *
+     * @param image the image to save
+     */
+    private void writeImage (BufferedImage image)
+            throws IOException
+    {
+        String name = String.format("%03d-", serial) + ((label != null) ? label : "");
+        Path path = WellKnowns.TEMP_FOLDER.resolve(name + ".tif");
 
-                try {
-                    fos = new FileOutputStream(path.toFile());
-                    fos.write(bytes);
-                } finally {
-                    if (fos != null) {
-                        fos.close();
-                    }
-                }
-            } catch (Exception ex) {
-                logger.warn("Could not write to {}", path, ex);
-            }
+        // Make sure the TEMP directory exists
+        if (!Files.exists(WellKnowns.TEMP_FOLDER)) {
+            Files.createDirectories(WellKnowns.TEMP_FOLDER);
         }
 
-        return buf;
+        try {
+            ImageIO.write(image, "tiff", path.toFile());
+        } catch (Exception ex) {
+            logger.warn("Could not write to {}", path, ex);
+        }
     }
 }
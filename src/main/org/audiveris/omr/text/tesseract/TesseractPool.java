@@ -0,0 +1,332 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                   T e s s e r a c t P o o l                                    //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.text.tesseract;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.audiveris.omr.WellKnowns;
+import org.audiveris.omr.step.ProcessingCancellationException;
+import org.audiveris.omr.util.OmrExecutors;
+
+import org.bytedeco.javacpp.tesseract.TessBaseAPI;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class {@code TesseractPool} keeps Tesseract API instances, already initialized for a
+ * given language specification, so that they can be reused from one OCR order to the next.
+ * <p>
+ * Initializing a Tesseract API (loading the language data) is by far the most expensive part of
+ * the OCR of a small image, such as a single glyph.
+ * <p>
+ * Instances are leased per language specification, at most one per CPU for the same language.
+ * A leased instance must be given back via {@link #release(TessBaseAPI)}.
+ * <p>
+ * All instances are ended when {@link OmrExecutors#shutdown()} is called.
+ *
+ * @author Hervé Bitteur
+ */
+@ThreadSafe
+public class TesseractPool
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final Logger logger = LoggerFactory.getLogger(TesseractPool.class);
+
+    /** Singleton. */
+    private static final TesseractPool INSTANCE = new TesseractPool();
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    /** Pool of instances, per language specification. */
+    private final Map<String, LanguagePool> pools = new HashMap<String, LanguagePool>();
+
+    /** Pool of each leased instance. */
+    private final Map<TessBaseAPI, LanguagePool> owners;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates the TesseractPool singleton.
+     */
+    private TesseractPool ()
+    {
+        owners = new IdentityHashMap<TessBaseAPI, LanguagePool>();
+
+        OmrExecutors.addShutdownTask(
+                new Runnable()
+        {
+            @Override
+            public void run ()
+            {
+                shutdown();
+            }
+        });
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------------//
+    // getInstance //
+    //-------------//
+    /**
+     * Report the pool singleton.
+     *
+     * @return the TesseractPool instance
+     */
+    public static TesseractPool getInstance ()
+    {
+        return INSTANCE;
+    }
+
+    //-------//
+    // lease //
+    //-------//
+    /**
+     * Lease an API instance initialized with the provided language specification.
+     * <p>
+     * If all instances for this language are in use, this method waits for one to be released.
+     *
+     * @param lang the language specification
+     * @return the API instance, or null if initialization failed
+     * @throws UnsatisfiedLinkError When bridge to C++ could not be loaded
+     */
+    public TessBaseAPI lease (String lang)
+            throws UnsatisfiedLinkError
+    {
+        final LanguagePool pool;
+
+        synchronized (pools) {
+            pool = getPool(lang);
+        }
+
+        final TessBaseAPI api = pool.lease();
+
+        if (api != null) {
+            synchronized (pools) {
+                owners.put(api, pool);
+            }
+        }
+
+        return api;
+    }
+
+    //---------//
+    // release //
+    //---------//
+    /**
+     * Give back an instance obtained by {@link #lease(String)}.
+     *
+     * @param api the leased instance
+     */
+    public void release (TessBaseAPI api)
+    {
+        final LanguagePool pool;
+
+        synchronized (pools) {
+            pool = owners.remove(api);
+        }
+
+        if (pool != null) {
+            pool.release(api);
+        } else {
+            logger.warn("Releasing a Tesseract API not leased from pool");
+        }
+    }
+
+    //----------//
+    // shutdown //
+    //----------//
+    /**
+     * End all pooled instances.
+     * Instances currently leased will be ended when released.
+     */
+    public void shutdown ()
+    {
+        final List<LanguagePool> closed;
+
+        synchronized (pools) {
+            closed = new ArrayList<LanguagePool>(pools.values());
+            pools.clear();
+        }
+
+        for (LanguagePool pool : closed) {
+            pool.close();
+        }
+    }
+
+    //---------//
+    // getPool //
+    //---------//
+    /**
+     * Report the pool for the provided language, creating it if needed.
+     * (To be called while holding the lock on pools)
+     */
+    private LanguagePool getPool (String lang)
+    {
+        LanguagePool pool = pools.get(lang);
+
+        if (pool == null) {
+            pools.put(lang, pool = new LanguagePool(lang));
+        }
+
+        return pool;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //--------------//
+    // LanguagePool //
+    //--------------//
+    /**
+     * The instances for one language specification.
+     */
+    private static class LanguagePool
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        /** Language specification. */
+        private final String lang;
+
+        /** Maximum number of instances. */
+        private final int maxSize = OmrExecutors.getNumberOfCpus();
+
+        /** Instances not currently leased. */
+        private final Deque<TessBaseAPI> idles = new ArrayDeque<TessBaseAPI>();
+
+        /** Number of instances created (leased or idle). */
+        private int created;
+
+        /** Pool closed?. */
+        private boolean closed;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public LanguagePool (String lang)
+        {
+            this.lang = lang;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        public void close ()
+        {
+            final List<TessBaseAPI> ended;
+
+            synchronized (this) {
+                closed = true;
+                ended = new ArrayList<TessBaseAPI>(idles);
+                idles.clear();
+                notifyAll();
+            }
+
+            for (TessBaseAPI api : ended) {
+                end(api);
+            }
+
+            logger.debug("Closed Tesseract pool {} ended:{}", lang, ended.size());
+        }
+
+        public TessBaseAPI lease ()
+        {
+            synchronized (this) {
+                while (idles.isEmpty() && (created >= maxSize) && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException ex) {
+                        throw new ProcessingCancellationException(ex);
+                    }
+                }
+
+                if (!idles.isEmpty()) {
+                    return idles.pop();
+                }
+
+                created++; // Reserve the creation slot
+            }
+
+            // Costly initialization, performed out of synchronized block
+            TessBaseAPI api = null;
+
+            try {
+                api = new TessBaseAPI();
+
+                if (api.Init(WellKnowns.OCR_FOLDER.toString(), lang) == 0) {
+                    logger.debug("Created Tesseract API for lang {}", lang);
+
+                    return api;
+                }
+
+                logger.warn("Could not initialize Tesseract with lang {}", lang);
+            } catch (Error ex) {
+                discard(api);
+                throw ex;
+            }
+
+            discard(api);
+
+            return null;
+        }
+
+        public void release (TessBaseAPI api)
+        {
+            // Reset image, results and adaptation, so that the instance behaves like a fresh one
+            api.Clear();
+            api.ClearAdaptiveClassifier();
+
+            synchronized (this) {
+                if (!closed) {
+                    idles.push(api);
+                    notifyAll();
+
+                    return;
+                }
+            }
+
+            discard(api);
+        }
+
+        /**
+         * Dispose of an instance, making room for a new one.
+         */
+        private void discard (TessBaseAPI api)
+        {
+            if (api != null) {
+                end(api);
+            }
+
+            synchronized (this) {
+                created--;
+                notifyAll();
+            }
+        }
+
+        private void end (TessBaseAPI api)
+        {
+            api.End();
+            api.deallocate();
+        }
+    }
+}
@@ -0,0 +1,336 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                      E n t i t y G r i d                                       //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.util;
+
+import java.awt.Rectangle;
+import java.awt.geom.Area;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class {@code EntityGrid} is an immutable spatial index on a collection of entities,
+ * based on their bounding box.
+ * <p>
+ * The plane is split into square cells, and each entity is registered in every cell its bounding
+ * box overlaps.
+ * A lookup thus needs to check only the entities registered in the cells overlapped by the lookup
+ * rectangle, rather than the whole collection.
+ * <p>
+ * Entities found are always reported in the order of the original collection, so that a lookup
+ * gives the same result as a linear scan of the collection.
+ * <p>
+ * Since entity bounds are cached when the grid is built, the grid must be rebuilt whenever the
+ * collection or the geometry of its entities is modified.
+ *
+ * @param <E> precise entity type
+ * @author Hervé Bitteur
+ */
+public class EntityGrid<E extends Entity>
+{
+    //~ Instance fields ----------------------------------------------------------------------------
+
+    /** Indexed entities, in original order. */
+    private final List<E> entities;
+
+    /** Cached bounds of each entity, perhaps null. */
+    private final Rectangle[] boxes;
+
+    /** Side length of a cell. */
+    private final int cellSize;
+
+    /** Abscissa of grid origin. */
+    private final int xOrigin;
+
+    /** Ordinate of grid origin. */
+    private final int yOrigin;
+
+    /** Number of cell columns. */
+    private final int cols;
+
+    /** Number of cell rows. */
+    private final int rows;
+
+    /** For each cell (in row-major order), the start of its entries in cellEntries. */
+    private final int[] cellStarts;
+
+    /** Entity indices, cell after cell. */
+    private final int[] cellEntries;
+
+    //~ Constructors -------------------------------------------------------------------------------
+    /**
+     * Creates a new {@code EntityGrid} object.
+     *
+     * @param entities the entities to index
+     * @param cellSize side length of grid cells
+     */
+    public EntityGrid (Collection<? extends E> entities,
+                       int cellSize)
+    {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Illegal grid cell size " + cellSize);
+        }
+
+        this.entities = new ArrayList<E>(entities);
+        this.cellSize = cellSize;
+
+        final int count = this.entities.size();
+        boxes = new Rectangle[count];
+
+        // Global bounds
+        Rectangle global = null;
+
+        for (int i = 0; i < count; i++) {
+            final Rectangle box = this.entities.get(i).getBounds();
+
+            if ((box != null) && !box.isEmpty()) {
+                boxes[i] = box;
+
+                if (global == null) {
+                    global = new Rectangle(box);
+                } else {
+                    global.add(box);
+                }
+            }
+        }
+
+        if (global == null) {
+            xOrigin = yOrigin = cols = rows = 0;
+            cellStarts = new int[1];
+            cellEntries = new int[0];
+
+            return;
+        }
+
+        xOrigin = global.x;
+        yOrigin = global.y;
+        cols = 1 + ((global.width - 1) / cellSize);
+        rows = 1 + ((global.height - 1) / cellSize);
+
+        // Count entries per cell, then fill them
+        cellStarts = new int[(cols * rows) + 1];
+
+        for (Rectangle box : boxes) {
+            if (box != null) {
+                for (int cell : cellsOf(box)) {
+                    cellStarts[cell + 1]++;
+                }
+            }
+        }
+
+        for (int cell = 1; cell < cellStarts.length; cell++) {
+            cellStarts[cell] += cellStarts[cell - 1];
+        }
+
+        cellEntries = new int[cellStarts[cellStarts.length - 1]];
+
+        final int[] fills = Arrays.copyOf(cellStarts, cellStarts.length - 1);
+
+        for (int i = 0; i < count; i++) {
+            final Rectangle box = boxes[i];
+
+            if (box != null) {
+                for (int cell : cellsOf(box)) {
+                    cellEntries[fills[cell]++] = i;
+                }
+            }
+        }
+    }
+
+    //~ Methods ------------------------------------------------------------------------------------
+    //-------------//
+    // getEntities //
+    //-------------//
+    /**
+     * Report all the indexed entities.
+     *
+     * @return the unmodifiable list of entities, in original order
+     */
+    public List<E> getEntities ()
+    {
+        return Collections.unmodifiableList(entities);
+    }
+
+    //---------------------//
+    // intersectedEntities //
+    //---------------------//
+    /**
+     * Look up for <b>all</b> entities whose bounds intersect the provided rectangle.
+     *
+     * @param rect the lookup rectangle
+     * @return the entities found, in original order, perhaps empty
+     */
+    public List<E> intersectedEntities (Rectangle rect)
+    {
+        final List<E> found = new ArrayList<E>();
+
+        for (int i : candidates(rect)) {
+            if (rect.intersects(boxes[i])) {
+                found.add(entities.get(i));
+            }
+        }
+
+        return found;
+    }
+
+    //---------------------//
+    // intersectedEntities //
+    //---------------------//
+    /**
+     * Look up for <b>all</b> entities whose bounds intersect the provided area.
+     * <p>
+     * Entities are first filtered on the area bounds, the costly area test being performed only
+     * on the remaining candidates.
+     *
+     * @param area the lookup area
+     * @return the entities found, in original order, perhaps empty
+     */
+    public List<E> intersectedEntities (Area area)
+    {
+        final Rectangle rect = area.getBounds();
+        final List<E> found = new ArrayList<E>();
+
+        for (int i : candidates(rect)) {
+            final Rectangle box = boxes[i];
+
+            if (rect.intersects(box) && area.intersects(box)) {
+                found.add(entities.get(i));
+            }
+        }
+
+        return found;
+    }
+
+    //------------//
+    // candidates //
+    //------------//
+    /**
+     * Report the indices of entities registered in the cells overlapped by the provided
+     * rectangle.
+     *
+     * @param rect the lookup rectangle
+     * @return the distinct indices, in increasing order
+     */
+    private int[] candidates (Rectangle rect)
+    {
+        if ((cols == 0) || rect.isEmpty()) {
+            return new int[0];
+        }
+
+        final int cMin = Math.max(0, colOf(rect.x));
+        final int cMax = Math.min(cols - 1, colOf((rect.x + rect.width) - 1));
+        final int rMin = Math.max(0, rowOf(rect.y));
+        final int rMax = Math.min(rows - 1, rowOf((rect.y + rect.height) - 1));
+
+        if ((cMin > cMax) || (rMin > rMax)) {
+            return new int[0];
+        }
+
+        int[] indices = new int[16];
+        int n = 0;
+
+        for (int r = rMin; r <= rMax; r++) {
+            for (int c = cMin; c <= cMax; c++) {
+                final int cell = (r * cols) + c;
+
+                for (int k = cellStarts[cell], kMax = cellStarts[cell + 1]; k < kMax; k++) {
+                    final int i = cellEntries[k];
+                    final Rectangle box = boxes[i];
+
+                    // An entity spanning several cells is reported by its first lookup cell only
+                    if ((c == Math.max(cMin, colOf(box.x)))
+                        && (r == Math.max(rMin, rowOf(box.y)))) {
+                        if (n == indices.length) {
+                            indices = Arrays.copyOf(indices, 2 * n);
+                        }
+
+                        indices[n++] = i;
+                    }
+                }
+            }
+        }
+
+        // Restore original order
+        Arrays.sort(indices, 0, n);
+
+        return Arrays.copyOf(indices, n);
+    }
+
+    //---------//
+    // cellsOf //
+    //---------//
+    /**
+     * Report the cells overlapped by an entity box.
+     *
+     * @param box the entity box, assumed to lie within grid
+     * @return the cell indices
+     */
+    private int[] cellsOf (Rectangle box)
+    {
+        final int cMin = colOf(box.x);
+        final int cMax = colOf((box.x + box.width) - 1);
+        final int rMin = rowOf(box.y);
+        final int rMax = rowOf((box.y + box.height) - 1);
+        final int[] cells = new int[((cMax - cMin) + 1) * ((rMax - rMin) + 1)];
+        int n = 0;
+
+        for (int r = rMin; r <= rMax; r++) {
+            for (int c = cMin; c <= cMax; c++) {
+                cells[n++] = (r * cols) + c;
+            }
+        }
+
+        return cells;
+    }
+
+    //-------//
+    // colOf //
+    //-------//
+    /**
+     * Report the column of provided abscissa.
+     * For an abscissa before grid origin, result is merely known to be non-positive.
+     *
+     * @param x provided abscissa
+     * @return the cell column
+     */
+    private int colOf (int x)
+    {
+        return (x - xOrigin) / cellSize;
+    }
+
+    //-------//
+    // rowOf //
+    //-------//
+    /**
+     * Report the row of provided ordinate.
+     * For an ordinate before grid origin, result is merely known to be non-positive.
+     *
+     * @param y provided ordinate
+     * @return the cell row
+     */
+    private int rowOf (int y)
+    {
+        return (y - yOrigin) / cellSize;
+    }
+}
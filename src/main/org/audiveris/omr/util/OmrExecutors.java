@@ -30,8 +30,11 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -42,6 +45,9 @@ import java.util.concurrent.atomic.AtomicInteger;
  * <li>lowExecutor: a fixed nb (#cpu+1) of threads with low priority</li>
  * <li>highExecutor: a fixed nb (#cpu+1) of threads with high priority</li>
  * <li>cachedLowExecutor: a varying nb of threads with low priority</li>
+ * <li>sheetIoExecutor: a fixed nb of threads for the I/O-oriented stage of sheet pipeline</li>
+ * <li>sheetCpuExecutor: a fixed nb of threads for the CPU-oriented stage of sheet pipeline</li>
+ * <li>forkJoinPool: a work-stealing pool (#cpu threads) for recursive data-parallel tasks</li>
  * </ul>
  *
  * @author Hervé Bitteur
@@ -76,12 +82,27 @@ public class OmrExecutors
 
     private static final Pool cachedLows = new CachedLows();
 
+    private static final Pool sheetIos = new SheetIos();
+
+    private static final Pool sheetCpus = new SheetCpus();
+
+    private static final Pool forkJoins = new ForkJoins();
+
     /** To handle all the pools as a whole. */
-    private static final Collection<Pool> allPools = Arrays.asList(cachedLows, lows, highs);
+    private static final Collection<Pool> allPools = Arrays.asList(
+            sheetIos,
+            sheetCpus,
+            cachedLows,
+            lows,
+            highs,
+            forkJoins);
 
     /** To prevent parallel creation of pools when closing. */
     private static volatile boolean creationAllowed = true;
 
+    /** Additional tasks to run when closing, such as releasing pools of native engines. */
+    private static final List<Runnable> shutdownTasks = new CopyOnWriteArrayList<Runnable>();
+
     //~ Constructors -------------------------------------------------------------------------------
     /**
      * Not meant to be instantiated.
@@ -91,6 +112,19 @@ public class OmrExecutors
     }
 
     //~ Methods ------------------------------------------------------------------------------------
+    //-----------------//
+    // addShutdownTask //
+    //-----------------//
+    /**
+     * Register a task to be run by {@link #shutdown()}, once all pools are closed.
+     *
+     * @param task the task to run at shutdown
+     */
+    public static void addShutdownTask (Runnable task)
+    {
+        shutdownTasks.add(task);
+    }
+
     //----------------------//
     // getCachedLowExecutor //
     //----------------------//
@@ -104,6 +138,21 @@ public class OmrExecutors
         return cachedLows.getPool();
     }
 
+    //-----------------//
+    // getForkJoinPool //
+    //-----------------//
+    /**
+     * Return the (single) fork/join pool, meant for tasks recursively split into subtasks.
+     * <p>
+     * Its parallelism is the number of CPUs, or 1 if parallelism is not used.
+     *
+     * @return the fork/join pool, allocated if needed
+     */
+    public static ForkJoinPool getForkJoinPool ()
+    {
+        return (ForkJoinPool) forkJoins.getPool();
+    }
+
     //-----------------//
     // getHighExecutor //
     //-----------------//
@@ -130,6 +179,32 @@ public class OmrExecutors
         return lows.getPool();
     }
 
+    //---------------------//
+    // getSheetCpuExecutor //
+    //---------------------//
+    /**
+     * Return the (single) pool of threads dedicated to CPU-oriented sheet steps
+     *
+     * @return the sheet CPU pool, allocated if needed
+     */
+    public static ExecutorService getSheetCpuExecutor ()
+    {
+        return sheetCpus.getPool();
+    }
+
+    //--------------------//
+    // getSheetIoExecutor //
+    //--------------------//
+    /**
+     * Return the (single) pool of threads dedicated to I/O-oriented sheet steps
+     *
+     * @return the sheet I/O pool, allocated if needed
+     */
+    public static ExecutorService getSheetIoExecutor ()
+    {
+        return sheetIos.getPool();
+    }
+
     //-----------------//
     // getNumberOfCpus //
     //-----------------//
@@ -181,6 +256,14 @@ public class OmrExecutors
             }
         }
 
+        for (Runnable task : shutdownTasks) {
+            try {
+                task.run();
+            } catch (Throwable ex) {
+                logger.warn("Error in shutdown task " + ex, ex);
+            }
+        }
+
         logger.debug("OmrExecutors closed");
 
         return result;
@@ -302,6 +385,16 @@ public class OmrExecutors
                 "seconds",
                 60,
                 "Time to wait for terminating tasks");
+
+        private final Constant.Integer sheetIoThreads = new Constant.Integer(
+                "threads",
+                2,
+                "Number of threads for I/O-oriented sheet steps (LOAD, BINARY, SCALE)");
+
+        private final Constant.Integer sheetCpuThreads = new Constant.Integer(
+                "threads",
+                0,
+                "Number of threads for CPU-oriented sheet steps (0 for CPU count)");
     }
 
     //------------//
@@ -407,6 +500,28 @@ public class OmrExecutors
         }
     }
 
+    //-----------//
+    // ForkJoins //
+    //-----------//
+    /** Fork/join pool, with work stealing. */
+    private static class ForkJoins
+            extends Pool
+    {
+        //~ Methods --------------------------------------------------------------------------------
+
+        @Override
+        public String getName ()
+        {
+            return "forkJoin";
+        }
+
+        @Override
+        protected ExecutorService createPool ()
+        {
+            return new ForkJoinPool(defaultParallelism.getTarget() ? cpuCount : 1);
+        }
+    }
+
     //-------//
     // Highs //
     //-------//
@@ -454,4 +569,54 @@ public class OmrExecutors
                     new Factory(getName(), Thread.MIN_PRIORITY, 0));
         }
     }
+
+    //-----------//
+    // SheetCpus //
+    //-----------//
+    /** Fixed pool for CPU-oriented stage of sheet pipeline. */
+    private static class SheetCpus
+            extends Pool
+    {
+        //~ Methods --------------------------------------------------------------------------------
+
+        @Override
+        public String getName ()
+        {
+            return "sheetCpu";
+        }
+
+        @Override
+        protected ExecutorService createPool ()
+        {
+            final int count = constants.sheetCpuThreads.getValue();
+
+            return Executors.newFixedThreadPool(
+                    (count > 0) ? count : cpuCount,
+                    new Factory(getName(), Thread.NORM_PRIORITY, 0));
+        }
+    }
+
+    //----------//
+    // SheetIos //
+    //----------//
+    /** Fixed pool for I/O-oriented stage of sheet pipeline. */
+    private static class SheetIos
+            extends Pool
+    {
+        //~ Methods --------------------------------------------------------------------------------
+
+        @Override
+        public String getName ()
+        {
+            return "sheetIo";
+        }
+
+        @Override
+        protected ExecutorService createPool ()
+        {
+            return Executors.newFixedThreadPool(
+                    Math.max(1, constants.sheetIoThreads.getValue()),
+                    new Factory(getName(), Thread.NORM_PRIORITY, 0));
+        }
+    }
 }
@@ -0,0 +1,169 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                              D e e p C l a s s i f i e r T e s t                               //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.classifier;
+
+import org.audiveris.omr.glyph.BasicGlyph;
+import org.audiveris.omr.glyph.Glyph;
+import org.audiveris.omr.glyph.Shape;
+import static org.audiveris.omr.run.Orientation.VERTICAL;
+import org.audiveris.omr.run.Run;
+import org.audiveris.omr.run.RunTable;
+
+import org.nd4j.linalg.factory.Nd4j;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Class {@code DeepClassifierTest} checks batch evaluations against single-glyph ones.
+ *
+ * @author Hervé Bitteur
+ */
+public class DeepClassifierTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final int INTERLINE = 20;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    /**
+     * Check that each batched evaluation matches the single-glyph evaluation, within
+     * BATCH_TOLERANCE, using the available network (a freshly created one if no model exists).
+     */
+    @Test
+    public void testBatchEvaluations ()
+    {
+        System.out.println("\n+++ batchEvaluations");
+
+        final DeepClassifier classifier = DeepClassifier.getInstance();
+
+        if (classifier.norms == null) {
+            // Fresh network, with no training data: use the norms of a binary image
+            classifier.norms = new AbstractClassifier.Norms(
+                    Nd4j.create(new double[]{128}),
+                    Nd4j.create(new double[]{128}));
+        }
+
+        final List<Glyph> glyphs = createRandomGlyphs(new Random(789), 64);
+        final Evaluation[][] batch = classifier.getNaturalEvaluations(glyphs, INTERLINE);
+        assertEquals(glyphs.size(), batch.length);
+
+        double maxDiff = 0;
+
+        for (int i = 0; i < glyphs.size(); i++) {
+            final Evaluation[] single = classifier.getNaturalEvaluations(glyphs.get(i), INTERLINE);
+            assertEquals(single.length, batch[i].length);
+
+            for (int s = 0; s < single.length; s++) {
+                final double diff = Math.abs(single[s].grade - batch[i][s].grade);
+                assertEquals(single[s].shape, batch[i][s].shape);
+                assertTrue("diff:" + diff, diff <= AbstractClassifier.BATCH_TOLERANCE);
+                maxDiff = Math.max(maxDiff, diff);
+            }
+        }
+
+        System.out.println("glyphs:" + glyphs.size() + " maxDiff:" + maxDiff);
+    }
+
+    /**
+     * Check that evaluations whose selection could be modified by batch grade differences
+     * are detected, and only those.
+     */
+    @Test
+    public void testBorderline ()
+    {
+        System.out.println("\n+++ borderline");
+
+        final double minGrade = 0.5;
+        final double tol = AbstractClassifier.BATCH_TOLERANCE;
+
+        // Clear decisions
+        assertFalse(AbstractClassifier.isBorderline(evals(0.9, 0.7, 0.1), minGrade));
+        assertFalse(AbstractClassifier.isBorderline(evals(0.4, 0.4, 0.1), minGrade));
+        assertFalse(AbstractClassifier.isBorderline(evals(0.9, 0.5 - (2 * tol)), minGrade));
+
+        // Acceptance could flip at minGrade
+        assertTrue(AbstractClassifier.isBorderline(evals(0.9, 0.5 + (tol / 2)), minGrade));
+        assertTrue(AbstractClassifier.isBorderline(evals(0.9, 0.5 - (tol / 2)), minGrade));
+
+        // Order of acceptable shapes could flip
+        assertTrue(AbstractClassifier.isBorderline(evals(0.8, 0.8 - tol, 0.1), minGrade));
+        assertTrue(AbstractClassifier.isBorderline(evals(0.9, 0.7, 0.7), minGrade));
+    }
+
+    //--------------------//
+    // createRandomGlyphs //
+    //--------------------//
+    /**
+     * Create glyphs as solid ellipses of random size.
+     */
+    private List<Glyph> createRandomGlyphs (Random random,
+                                            int count)
+    {
+        final List<Glyph> glyphs = new ArrayList<Glyph>();
+
+        for (int i = 0; i < count; i++) {
+            final int width = 5 + random.nextInt(40);
+            final int height = 5 + random.nextInt(60);
+            final RunTable table = new RunTable(VERTICAL, width, height);
+            final double a = width / 2.0;
+            final double b = height / 2.0;
+
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    final double u = ((x + 0.5) - a) / a;
+                    final double v = ((y + 0.5) - b) / b;
+
+                    if (((u * u) + (v * v)) <= 1) {
+                        table.addRun(x, new Run(y, 1));
+                    }
+                }
+            }
+
+            glyphs.add(new BasicGlyph(100, 200, table.trim(new Point())));
+        }
+
+        return glyphs;
+    }
+
+    //-------//
+    // evals //
+    //-------//
+    /**
+     * Build sorted evaluations with the provided grades.
+     */
+    private Evaluation[] evals (double... grades)
+    {
+        final Evaluation[] evals = new Evaluation[grades.length];
+
+        for (int i = 0; i < grades.length; i++) {
+            evals[i] = new Evaluation(Shape.values()[i], grades[i]);
+        }
+
+        return evals;
+    }
+}
@@ -0,0 +1,256 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                G l y p h C l u s t e r T e s t                                 //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.glyph;
+
+import org.audiveris.omr.run.Orientation;
+import org.audiveris.omr.run.Run;
+import org.audiveris.omr.run.RunTable;
+
+import org.jgrapht.graph.SimpleGraph;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Class {@code GlyphClusterTest} checks the subsets enumeration of {@link GlyphCluster}.
+ *
+ * @author Hervé Bitteur
+ */
+public class GlyphClusterTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** Side of each square part. */
+    private static final int SIDE = 4;
+
+    /** Gap between parts. */
+    private static final int GAP = 2;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    /**
+     * Every connected subset must be evaluated exactly once.
+     */
+    @Test
+    public void testAllSubsetsOnce ()
+    {
+        System.out.println("\n+++ allSubsetsOnce");
+
+        List<Glyph> parts = createGrid(3, 3);
+        SimpleGraph<Glyph, GlyphLink> graph = Glyphs.buildLinks(parts, GAP + 1.5);
+        RecordingAdapter adapter = new RecordingAdapter(graph, Integer.MAX_VALUE);
+        GlyphCluster cluster = new GlyphCluster(adapter, null);
+        cluster.decompose();
+
+        Set<Set<Glyph>> expected = connectedSubsets(parts, graph);
+        System.out.println(
+                "expected:" + expected.size() + " evaluated:" + adapter.subsets.size());
+
+        assertEquals(expected.size(), adapter.subsets.size());
+        assertEquals(expected, new HashSet<Set<Glyph>>(adapter.subsets));
+        assertEquals(0, cluster.getPrunedCount());
+    }
+
+    /**
+     * A second decomposition with the same cache must reuse all compounds.
+     */
+    @Test
+    public void testCache ()
+    {
+        System.out.println("\n+++ cache");
+
+        List<Glyph> parts = createGrid(2, 3);
+        SimpleGraph<Glyph, GlyphLink> graph = Glyphs.buildLinks(parts, GAP + 1.5);
+        CompoundCache cache = new CompoundCache();
+
+        RecordingAdapter first = new RecordingAdapter(graph, Integer.MAX_VALUE);
+        new GlyphCluster(first, null, cache).decompose();
+
+        RecordingAdapter second = new RecordingAdapter(graph, Integer.MAX_VALUE);
+        new GlyphCluster(second, null, cache).decompose();
+        System.out.println(cache);
+
+        assertEquals(first.glyphs.size(), second.glyphs.size());
+
+        for (int i = 0; i < first.glyphs.size(); i++) {
+            assertSame(first.glyphs.get(i), second.glyphs.get(i));
+        }
+
+        // Compound content is the same as without cache
+        RecordingAdapter plain = new RecordingAdapter(graph, Integer.MAX_VALUE);
+        new GlyphCluster(plain, null).decompose();
+
+        for (int i = 0; i < plain.glyphs.size(); i++) {
+            assertEquals(plain.glyphs.get(i).getBounds(), second.glyphs.get(i).getBounds());
+            assertEquals(plain.glyphs.get(i).getWeight(), second.glyphs.get(i).getWeight());
+        }
+    }
+
+    /**
+     * Subsets too wide must be pruned and counted.
+     */
+    @Test
+    public void testPruning ()
+    {
+        System.out.println("\n+++ pruning");
+
+        List<Glyph> parts = createGrid(1, 5);
+        SimpleGraph<Glyph, GlyphLink> graph = Glyphs.buildLinks(parts, GAP + 1.5);
+        int maxWidth = (3 * SIDE) + (2 * GAP); // At most 3 parts in a row
+        RecordingAdapter adapter = new RecordingAdapter(graph, maxWidth);
+        GlyphCluster cluster = new GlyphCluster(adapter, null);
+        cluster.decompose();
+        System.out.println(
+                "evaluated:" + adapter.subsets.size() + " pruned:" + cluster.getPrunedCount());
+
+        // Runs of length 1, 2, 3 in a row of 5: 5 + 4 + 3
+        assertEquals(12, adapter.subsets.size());
+        assertTrue(cluster.getPrunedCount() > 0);
+
+        for (Glyph glyph : adapter.glyphs) {
+            assertTrue(glyph.getBounds().width <= maxWidth);
+        }
+    }
+
+    //------------------//
+    // connectedSubsets //
+    //------------------//
+    /**
+     * Brute force enumeration of all connected subsets.
+     */
+    private Set<Set<Glyph>> connectedSubsets (List<Glyph> parts,
+                                              SimpleGraph<Glyph, GlyphLink> graph)
+    {
+        Set<Set<Glyph>> subsets = new HashSet<Set<Glyph>>();
+        int n = parts.size();
+
+        for (int mask = 1; mask < (1 << n); mask++) {
+            // Flood from lowest member
+            int first = Integer.numberOfTrailingZeros(mask);
+            int reached = 1 << first;
+            boolean grown = true;
+
+            while (grown) {
+                grown = false;
+
+                for (int i = 0; i < n; i++) {
+                    if (((reached & (1 << i)) != 0)) {
+                        for (int j = 0; j < n; j++) {
+                            if (((mask & (1 << j)) != 0) && ((reached & (1 << j)) == 0)
+                                && graph.containsEdge(parts.get(i), parts.get(j))) {
+                                reached |= (1 << j);
+                                grown = true;
+                            }
+                        }
+                    }
+                }
+            }
+
+            if (reached == mask) {
+                Set<Glyph> set = new HashSet<Glyph>();
+
+                for (int i = 0; i < n; i++) {
+                    if ((mask & (1 << i)) != 0) {
+                        set.add(parts.get(i));
+                    }
+                }
+
+                subsets.add(set);
+            }
+        }
+
+        return subsets;
+    }
+
+    //------------//
+    // createGrid //
+    //------------//
+    /**
+     * Create a grid of square parts, each linked to its horizontal and vertical neighbors.
+     */
+    private List<Glyph> createGrid (int rows,
+                                    int cols)
+    {
+        List<Glyph> parts = new ArrayList<Glyph>();
+        int id = 0;
+
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                RunTable table = new RunTable(Orientation.HORIZONTAL, SIDE, SIDE);
+
+                for (int i = 0; i < SIDE; i++) {
+                    table.addRun(i, new Run(0, SIDE));
+                }
+
+                BasicGlyph glyph = new BasicGlyph(c * (SIDE + GAP), r * (SIDE + GAP), table);
+                glyph.setId(++id);
+                parts.add(glyph);
+            }
+        }
+
+        return parts;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //------------------//
+    // RecordingAdapter //
+    //------------------//
+    private static class RecordingAdapter
+            extends GlyphCluster.AbstractAdapter
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        final int maxWidth;
+
+        final List<Set<Glyph>> subsets = new ArrayList<Set<Glyph>>();
+
+        final List<Glyph> glyphs = new ArrayList<Glyph>();
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public RecordingAdapter (SimpleGraph<Glyph, GlyphLink> graph,
+                                 int maxWidth)
+        {
+            super(graph);
+            this.maxWidth = maxWidth;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        public void evaluateGlyph (Glyph glyph,
+                                   Set<Glyph> parts)
+        {
+            subsets.add(new HashSet<Glyph>(parts));
+            glyphs.add(glyph);
+        }
+
+        @Override
+        public boolean isTooLarge (Rectangle bounds)
+        {
+            return bounds.width > maxWidth;
+        }
+    }
+}
@@ -5,11 +5,17 @@
  */
 package org.audiveris.omr.glyph;
 
+import ij.process.ByteProcessor;
+
 import org.audiveris.omr.glyph.GlyphFactory;
 import static org.audiveris.omr.run.Orientation.HORIZONTAL;
+import static org.audiveris.omr.run.Orientation.VERTICAL;
 import org.audiveris.omr.run.Run;
 import org.audiveris.omr.run.RunTable;
+import org.audiveris.omr.run.RunTableFactory;
+import org.audiveris.omr.util.ByteUtil;
 
+import static org.junit.Assert.*;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -18,6 +24,11 @@ import org.junit.Test;
 
 import java.awt.Dimension;
 import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
 
 /**
  *
@@ -58,6 +69,31 @@ public class GlyphFactoryTest
     {
     }
 
+    /**
+     * Check that merged compounds are identical to compounds rebuilt from a buffer.
+     */
+    @Test
+    public void testBuildGlyphMerge ()
+    {
+        System.out.println("\n+++ buildGlyphMerge");
+
+        final Random random = new Random(123);
+
+        for (int i = 0; i < 2000; i++) {
+            List<Glyph> parts = createRandomParts(
+                    random,
+                    1 + random.nextInt(8),
+                    random.nextBoolean());
+            Glyph expected = bufferBuildGlyph(parts);
+            Glyph compound = GlyphFactory.buildGlyph(parts);
+
+            assertEquals(expected.getBounds(), compound.getBounds());
+            assertEquals(expected.getRunTable(), compound.getRunTable());
+            assertEquals(expected.getWeight(), compound.getWeight());
+            assertEquals(expected.getCentroid(), compound.getCentroid());
+        }
+    }
+
     /**
      * Test of createGlyphs method, of class GlyphFactory.
      */
@@ -71,6 +107,82 @@ public class GlyphFactoryTest
         GlyphFactory.buildGlyphs(runTable, offset);
     }
 
+    //------------------//
+    // bufferBuildGlyph //
+    //------------------//
+    /**
+     * The former implementation of GlyphFactory.buildGlyph, which writes all parts into a
+     * buffer and then retrieves the compound runs from this buffer.
+     */
+    private Glyph bufferBuildGlyph (Collection<? extends Glyph> parts)
+    {
+        final Rectangle box = Glyphs.getBounds(parts);
+        final ByteProcessor buffer = new ByteProcessor(box.width, box.height);
+        ByteUtil.raz(buffer);
+
+        for (Glyph part : parts) {
+            part.getRunTable().write(buffer, part.getLeft() - box.x, part.getTop() - box.y);
+        }
+
+        final RunTable runTable = new RunTableFactory(VERTICAL).createTable(buffer);
+
+        return new BasicGlyph(box.x, box.y, runTable);
+    }
+
+    //-------------------//
+    // createRandomParts //
+    //-------------------//
+    /**
+     * Create parts of random size and orientation, close to one another so that they may
+     * overlap or touch.
+     * Parts are either noisy rectangles or, like most symbol parts, solid ellipses.
+     */
+    private List<Glyph> createRandomParts (Random random,
+                                           int count,
+                                           boolean noisy)
+    {
+        final List<Glyph> parts = new ArrayList<Glyph>();
+
+        for (int i = 0; i < count; i++) {
+            final int width = 1 + random.nextInt(noisy ? 15 : 30);
+            final int height = 1 + random.nextInt(30);
+            final RunTable table = new RunTable(
+                    (random.nextInt(4) != 0) ? VERTICAL : HORIZONTAL,
+                    width,
+                    height);
+            final double a = width / 2.0;
+            final double b = height / 2.0;
+
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    final double u = (x + 0.5 - a) / a;
+                    final double v = (y + 0.5 - b) / b;
+
+                    if (noisy ? (random.nextInt(3) != 0) : (((u * u) + (v * v)) <= 1)) {
+                        if (table.getOrientation() == VERTICAL) {
+                            table.addRun(x, new Run(y, 1));
+                        } else {
+                            table.addRun(y, new Run(x, 1));
+                        }
+                    }
+                }
+            }
+
+            // Make sure part is not empty
+            if (table.isSequenceEmpty(0)) {
+                table.addRun(0, new Run(0, 1));
+            }
+
+            final Glyph part = new BasicGlyph(
+                    100 + random.nextInt(30),
+                    200 + random.nextInt(40),
+                    table.trim(new Point()));
+            parts.add(part);
+        }
+
+        return parts;
+    }
+
     //--------------------------//
     // createHorizontalInstance //
     //--------------------------//
@@ -24,6 +24,7 @@ package org.audiveris.omr.image;
 import ij.process.ByteProcessor;
 
 import org.audiveris.omr.glyph.Shape;
+import org.audiveris.omr.glyph.ShapeSet;
 import org.audiveris.omr.image.ChamferDistance;
 import org.audiveris.omr.image.DistanceMatching;
 import org.audiveris.omr.image.DistanceTable;
@@ -32,6 +33,7 @@ import org.audiveris.omr.image.Template;
 import org.audiveris.omr.image.TemplateFactory;
 import org.audiveris.omr.math.TableUtil;
 
+import static org.junit.Assert.*;
 import org.junit.Test;
 
 import java.util.Collections;
@@ -99,6 +101,53 @@ public class ChamferMatchingTest
     };
 
     //~ Methods ------------------------------------------------------------------------------------
+    /**
+     * Test of bounded evaluation of class Template, against a plain computation.
+     */
+    @Test
+    public void testEvaluate ()
+    {
+        System.out.println("evaluate");
+
+        ByteProcessor image = createImage(imageRows);
+        DistanceTable distances = new ChamferDistance.Short().computeToFore(image);
+        double[] bounds = new double[]{0.5, 1.0, 2.0, 5.0};
+        int cutoffs = 0;
+
+        for (Shape shape : ShapeSet.TemplateNotes) {
+            Template template = TemplateFactory.getInstance().getCatalog(14).getTemplate(shape);
+
+            for (int y = -template.getHeight(); y <= image.getHeight(); y++) {
+                for (int x = -template.getWidth(); x <= image.getWidth(); x++) {
+                    double expected = plainEvaluate(template, x, y, distances);
+                    assertEquals(expected, template.evaluate(x, y, null, distances), 0);
+
+                    if (Double.isNaN(expected)) {
+                        continue; // No key point within image
+                    }
+
+                    for (double bound : bounds) {
+                        double dist = template.evaluate(x, y, null, distances, bound);
+
+                        if (expected <= bound) {
+                            assertEquals(expected, dist, 0);
+                        } else {
+                            assertTrue(dist > bound);
+                            assertTrue(dist <= expected);
+
+                            if (dist != expected) {
+                                cutoffs++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        System.out.println("cutoffs: " + cutoffs);
+        assertTrue(cutoffs > 0);
+    }
+
     /**
      * Test of matchAll method, of class DistanceMatching.
      */
@@ -140,6 +189,38 @@ public class ChamferMatchingTest
         return img;
     }
 
+    /**
+     * Straightforward evaluation, with foreground weight 2 and background weight 1.
+     */
+    private double plainEvaluate (Template template,
+                                  int x,
+                                  int y,
+                                  DistanceTable distances)
+    {
+        double weights = 0;
+        double total = 0;
+
+        for (PixelDistance pix : template.getKeyPoints()) {
+            int nx = x + pix.x;
+            int ny = y + pix.y;
+
+            if ((nx >= 0) && (nx < distances.getWidth()) && (ny >= 0)
+                && (ny < distances.getHeight())) {
+                int tableDist = distances.getValue(nx, ny);
+
+                if (tableDist != ChamferDistance.VALUE_UNKNOWN) {
+                    double weight = (pix.d > 0) ? 1.0 : 2.0;
+                    weights += weight;
+
+                    double dist = tableDist - pix.d;
+                    total += (weight * (dist * dist));
+                }
+            }
+        }
+
+        return Math.sqrt(total / weights) / distances.getNormalizer();
+    }
+
     private void printBest (List<PixelDistance> locs)
     {
         System.out.println();
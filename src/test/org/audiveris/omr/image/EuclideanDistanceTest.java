@@ -0,0 +1,168 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                           E u c l i d e a n D i s t a n c e T e s t                            //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Class {@code EuclideanDistanceTest} checks the exact Euclidean distance transform
+ * against a brute force computation.
+ *
+ * @author Hervé Bitteur
+ */
+public class EuclideanDistanceTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+
+    /**
+     * Test of compute method, of class EuclideanDistance.
+     */
+    @Test
+    public void testCompute ()
+    {
+        System.out.println("compute");
+
+        final boolean[][] input = new boolean[7][5];
+        input[3][2] = true;
+
+        DistanceTable table = new EuclideanDistance().compute(input);
+        assertEquals(3, table.getNormalizer());
+        assertEquals(ChamferDistance.VALUE_TARGET, table.getValue(3, 2));
+        assertEquals(3, table.getValue(4, 2));
+        assertEquals(4, table.getValue(4, 3)); // 3 * sqrt(2)
+        assertEquals(11, table.getValue(0, 0)); // 3 * sqrt(13)
+    }
+
+    /**
+     * Test of compute method, with no reference pixel at all.
+     */
+    @Test
+    public void testEmpty ()
+    {
+        System.out.println("empty");
+
+        DistanceTable table = new EuclideanDistance().compute(new boolean[10][8]);
+
+        for (int i = (10 * 8) - 1; i >= 0; i--) {
+            assertEquals(ChamferDistance.VALUE_UNKNOWN, table.getValue(i));
+        }
+    }
+
+    /**
+     * Test of computeToFore method, on random images.
+     */
+    @Test
+    public void testRandomToFore ()
+    {
+        System.out.println("randomToFore");
+
+        final Random random = new Random(123);
+        final int normalizer = 10;
+
+        for (double density : new double[]{0.001, 0.01, 0.1}) {
+            final int width = 150 + random.nextInt(100);
+            final int height = 200 + random.nextInt(100);
+            final ByteProcessor img = new ByteProcessor(width, height);
+            img.invert(); // All white
+
+            for (int i = (width * height) - 1; i >= 0; i--) {
+                if (random.nextDouble() < density) {
+                    img.set(i, 0);
+                }
+            }
+
+            DistanceTable table = new EuclideanDistance(normalizer).computeToFore(img);
+            final List<Point> targets = new ArrayList<Point>();
+
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    if (img.get(x, y) == 0) {
+                        targets.add(new Point(x, y));
+                    }
+                }
+            }
+
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    final double expected = normalizer * bruteDistance(targets, x, y);
+                    assertEquals(Math.round(expected), table.getValue(x, y));
+                }
+            }
+        }
+    }
+
+    /**
+     * Test of prepareToBack method, rows being computed out of order.
+     */
+    @Test
+    public void testRowsOutOfOrder ()
+    {
+        System.out.println("rowsOutOfOrder");
+
+        final int width = 60;
+        final int height = 40;
+        final ByteProcessor img = new ByteProcessor(width, height);
+        img.set(10, 35, 255);
+        img.set(50, 5, 255);
+
+        EuclideanDistance.Transform transform = new EuclideanDistance().prepareToBack(img);
+        transform.computeRows(20, height);
+        transform.computeRows(0, 20);
+
+        DistanceTable table = transform.getTable();
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final double expected = Math.min(
+                        Math.hypot(x - 10, y - 35),
+                        Math.hypot(x - 50, y - 5));
+                assertEquals(Math.round(3 * expected), table.getValue(x, y));
+            }
+        }
+    }
+
+    //---------------//
+    // bruteDistance //
+    //---------------//
+    private static double bruteDistance (List<Point> targets,
+                                         int x,
+                                         int y)
+    {
+        int best = Integer.MAX_VALUE;
+
+        for (Point target : targets) {
+            final int dx = target.x - x;
+            final int dy = target.y - y;
+            best = Math.min(best, (dx * dx) + (dy * dy));
+        }
+
+        return Math.sqrt(best);
+    }
+}
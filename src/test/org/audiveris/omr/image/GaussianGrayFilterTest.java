@@ -0,0 +1,180 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                          G a u s s i a n G r a y F i l t e r T e s t                           //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.awt.image.Kernel;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Class {@code GaussianGrayFilterTest} checks that {@link GaussianGrayFilter} separable
+ * passes give the same result as the former convolve-and-transpose implementation.
+ *
+ * @author Hervé Bitteur
+ */
+public class GaussianGrayFilterTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testRandomImage ()
+    {
+        System.out.println("\n+++ randomImage");
+
+        for (int[] dim : new int[][]{{1, 1}, {2, 7}, {60, 300}, {301, 133}}) {
+            ByteProcessor source = createRandomImage(dim[0], dim[1]);
+
+            for (int radius = 1; radius <= 3; radius++) {
+                checkSame(source, radius, "random " + dim[0] + "x" + dim[1]);
+            }
+        }
+    }
+
+    @Test
+    public void testSampleImages ()
+            throws Exception
+    {
+        System.out.println("\n+++ sampleImages");
+
+        for (String name : new String[]{"chula.png", "allegretto.png"}) {
+            File file = new File("data/examples", name);
+
+            if (!file.exists()) {
+                System.out.println("No " + file);
+
+                continue;
+            }
+
+            ByteProcessor source = new ByteProcessor(ImageIO.read(file));
+
+            for (int radius = 1; radius <= 2; radius++) {
+                checkSame(source, radius, name);
+            }
+        }
+    }
+
+    //-----------//
+    // checkSame //
+    //-----------//
+    private void checkSame (ByteProcessor source,
+                            int radius,
+                            String label)
+    {
+        ByteProcessor expected = transposed(source, radius);
+        ByteProcessor result = new GaussianGrayFilter(radius).filter(source);
+
+        assertTrue(
+                label + " radius " + radius + " differs",
+                Arrays.equals((byte[]) expected.getPixels(), (byte[]) result.getPixels()));
+    }
+
+    //----------------------//
+    // convolveAndTranspose //
+    //----------------------//
+    private void convolveAndTranspose (Kernel kernel,
+                                       byte[] inPixels,
+                                       byte[] outPixels,
+                                       int width,
+                                       int height)
+    {
+        float[] matrix = kernel.getKernelData(null);
+        int cols = kernel.getWidth();
+        int cols2 = cols / 2;
+
+        for (int y = 0; y < height; y++) {
+            int index = y;
+            int ioffset = y * width;
+
+            for (int x = 0; x < width; x++) {
+                float p = 0;
+                int moffset = cols2;
+
+                for (int col = -cols2; col <= cols2; col++) {
+                    float f = matrix[moffset + col];
+
+                    if (f != 0) {
+                        int ix = x + col;
+
+                        if (ix < 0) {
+                            ix = 0;
+                        } else if (ix >= width) {
+                            ix = width - 1;
+                        }
+
+                        int pix = inPixels[ioffset + ix] & 0xff;
+                        p += (f * pix);
+                    }
+                }
+
+                int ip = Math.max(0, Math.min(255, (int) (p + 0.5)));
+                outPixels[index] = (byte) ip;
+                index += height;
+            }
+        }
+    }
+
+    //-------------------//
+    // createRandomImage //
+    //-------------------//
+    private ByteProcessor createRandomImage (int width,
+                                             int height)
+    {
+        Random random = new Random(width * height);
+        ByteProcessor source = new ByteProcessor(width, height);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                source.set(x, y, random.nextInt(256));
+            }
+        }
+
+        return source;
+    }
+
+    //------------//
+    // transposed //
+    //------------//
+    /**
+     * Reference implementation, which convolves and transposes the image twice.
+     */
+    private ByteProcessor transposed (ByteProcessor input,
+                                      int radius)
+    {
+        final Kernel kernel = GaussianGrayFilter.makeKernel(radius);
+        final int width = input.getWidth();
+        final int height = input.getHeight();
+        final byte[] inPixels = ((byte[]) input.getPixels()).clone();
+        final byte[] outPixels = new byte[width * height];
+
+        convolveAndTranspose(kernel, inPixels, outPixels, width, height);
+        convolveAndTranspose(kernel, outPixels, inPixels, height, width);
+
+        return new ByteProcessor(width, height, inPixels);
+    }
+}
@@ -0,0 +1,160 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                               I n t e g r a l F i l t e r T e s t                              //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Class {@code IntegralFilterTest} checks that {@link IntegralFilter} binarizes exactly
+ * like {@link VerticalFilter}.
+ *
+ * @author Hervé Bitteur
+ */
+public class IntegralFilterTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final double MEAN_COEFF = AdaptiveFilter.getDefaultMeanCoeff();
+
+    private static final double STD_DEV_COEFF = AdaptiveFilter.getDefaultStdDevCoeff();
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @Test
+    public void testRandomImage ()
+    {
+        System.out.println("\n+++ randomImage");
+
+        // Odd dimensions, smaller and larger than window and band sizes
+        for (int[] dim : new int[][]{{7, 5}, {60, 300}, {301, 133}}) {
+            ByteProcessor source = createRandomImage(dim[0], dim[1]);
+            checkSame(source, "random " + dim[0] + "x" + dim[1]);
+        }
+    }
+
+    @Test
+    public void testSampleImages ()
+            throws Exception
+    {
+        System.out.println("\n+++ sampleImages");
+
+        for (String name : new String[]{"chula.png", "allegretto.png"}) {
+            File file = new File("data/examples", name);
+
+            if (!file.exists()) {
+                System.out.println("No " + file);
+
+                continue;
+            }
+
+            ByteProcessor source = new ByteProcessor(ImageIO.read(file));
+            checkSame(source, name);
+        }
+    }
+
+    @Test
+    public void testIsFore ()
+    {
+        System.out.println("\n+++ isFore");
+
+        ByteProcessor source = createRandomImage(50, 40);
+        ByteProcessor expected = new VerticalFilter(source, MEAN_COEFF, STD_DEV_COEFF)
+                .filteredImage();
+        IntegralFilter filter = new IntegralFilter(source, MEAN_COEFF, STD_DEV_COEFF);
+
+        for (int y = 0; y < 40; y++) {
+            for (int x = 0; x < 50; x++) {
+                assertEquals(expected.get(x, y) == 0, filter.isFore(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testDefaultDescriptor ()
+            throws Exception
+    {
+        System.out.println("\n+++ defaultDescriptor");
+
+        // Resolved the way FilterDescriptor resolves the default adaptive descriptor
+        Class<?> classe = AdaptiveFilter.getImplementationClass();
+        assertNotNull(classe);
+        assertSame(classe, FilterKind.ADAPTIVE.classe);
+
+        Method getDesc = classe.getMethod("getDefaultDescriptor", (Class[]) null);
+        assertTrue(Modifier.isStatic(getDesc.getModifiers()));
+
+        FilterDescriptor desc = (FilterDescriptor) getDesc.invoke(null);
+        assertNotNull(desc);
+        assertEquals(FilterKind.ADAPTIVE, desc.getKind());
+
+        PixelFilter filter = desc.getFilter(createRandomImage(50, 40));
+        assertNotNull(filter);
+        assertSame(classe, filter.getClass());
+    }
+
+    //-----------//
+    // checkSame //
+    //-----------//
+    private void checkSame (ByteProcessor source,
+                            String label)
+    {
+        ByteProcessor expected = new VerticalFilter(source, MEAN_COEFF, STD_DEV_COEFF)
+                .filteredImage();
+        ByteProcessor result = new IntegralFilter(source, MEAN_COEFF, STD_DEV_COEFF)
+                .filteredImage();
+
+        assertTrue(
+                label + " differs",
+                Arrays.equals((byte[]) expected.getPixels(), (byte[]) result.getPixels()));
+    }
+
+    //-------------------//
+    // createRandomImage //
+    //-------------------//
+    private ByteProcessor createRandomImage (int width,
+                                             int height)
+    {
+        Random random = new Random(width * height);
+        ByteProcessor source = new ByteProcessor(width, height);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                // Mostly light pixels, with some dark ones
+                int val = (random.nextInt(10) == 0) ? random.nextInt(80)
+                        : (180 + random.nextInt(76));
+                source.set(x, y, val);
+            }
+        }
+
+        return source;
+    }
+}
@@ -21,13 +21,21 @@
 // </editor-fold>
 package org.audiveris.omr.image;
 
+import ij.process.ByteProcessor;
+
 import org.audiveris.omr.image.MedianGrayFilter;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import org.junit.Test;
 
 import java.awt.image.BufferedImage;
 import java.awt.image.Raster;
 import java.awt.image.WritableRaster;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
 
 /**
  * Class {@code MedianGrayFilterTest}
@@ -122,6 +130,44 @@ public class MedianGrayFilterTest
         }
     }
 
+    @Test
+    public void testRandomImage ()
+    {
+        System.out.println("\nrandomImage");
+
+        // Dimensions smaller and larger than window and band sizes
+        for (int[] dim : new int[][]{{1, 1}, {2, 7}, {4, 3}, {60, 300}, {301, 133}}) {
+            ByteProcessor source = createRandomImage(dim[0], dim[1]);
+
+            for (int radius = 0; radius <= 3; radius++) {
+                checkSame(source, radius, "random " + dim[0] + "x" + dim[1]);
+            }
+        }
+    }
+
+    @Test
+    public void testSampleImages ()
+            throws Exception
+    {
+        System.out.println("\nsampleImages");
+
+        for (String name : new String[]{"chula.png", "allegretto.png"}) {
+            File file = new File("data/examples", name);
+
+            if (!file.exists()) {
+                System.out.println("No " + file);
+
+                continue;
+            }
+
+            ByteProcessor source = new ByteProcessor(ImageIO.read(file));
+
+            for (int radius = 1; radius <= 2; radius++) {
+                checkSame(source, radius, name);
+            }
+        }
+    }
+
     //    @Test
     public void testProcess_white_1 ()
     {
@@ -164,6 +210,58 @@ public class MedianGrayFilterTest
         return true;
     }
 
+    /**
+     * Reference implementation, which rebuilds the window histogram for every pixel.
+     */
+    private ByteProcessor bruteForce (ByteProcessor input,
+                                      int radius)
+    {
+        final int width = input.getWidth();
+        final int height = input.getHeight();
+        final ByteProcessor output = new ByteProcessor(width, height);
+        final int[] histogram = new int[256];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int rad = Math.min(Math.min(radius, Math.min(x, y)),
+                                   Math.min(width - 1 - x, height - 1 - y));
+                Arrays.fill(histogram, 0);
+
+                for (int i = x - rad; i <= (x + rad); i++) {
+                    for (int j = y - rad; j <= (y + rad); j++) {
+                        histogram[input.get(i, j)]++;
+                    }
+                }
+
+                final int side = (2 * rad) + 1;
+                final int medianCount = ((side * side) + 1) / 2;
+                int median = 255;
+                int sum = 0;
+
+                while (sum < medianCount) {
+                    sum += histogram[median];
+                    median--;
+                }
+
+                output.set(x, y, median + 1);
+            }
+        }
+
+        return output;
+    }
+
+    private void checkSame (ByteProcessor source,
+                            int radius,
+                            String label)
+    {
+        ByteProcessor expected = bruteForce(source, radius);
+        ByteProcessor result = new MedianGrayFilter(radius).filter(source);
+
+        assertTrue(
+                label + " radius " + radius + " differs",
+                Arrays.equals((byte[]) expected.getPixels(), (byte[]) result.getPixels()));
+    }
+
     private BufferedImage createBlackImage ()
     {
         final BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
@@ -200,6 +298,21 @@ public class MedianGrayFilterTest
         return img;
     }
 
+    private ByteProcessor createRandomImage (int width,
+                                             int height)
+    {
+        Random random = new Random(width * height);
+        ByteProcessor source = new ByteProcessor(width, height);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                source.set(x, y, random.nextInt(256));
+            }
+        }
+
+        return source;
+    }
+
     private BufferedImage createWhiteImage (int width,
                                             int height)
     {
@@ -0,0 +1,230 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                             M o r p h o P r o c e s s o r T e s t                              //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Class {@code MorphoProcessorTest} checks that linear-time morphology gives the same
+ * results as the original full element scanning.
+ *
+ * @author Hervé Bitteur
+ */
+public class MorphoProcessorTest
+        implements MorphoConstants
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final int[] NO_OFFSET = {0, 0};
+
+    //~ Methods ------------------------------------------------------------------------------------
+    /**
+     * Test of all operations, with circular elements as used for beam spots.
+     */
+    @Test
+    public void testCircle ()
+    {
+        System.out.println("\n+++ circle");
+
+        for (float radius : new float[]{0.5f, 1.5f, 2f, 3.3f, 4.3f}) {
+            checkAll(new StructureElement(CIRCLE, 1, radius, NO_OFFSET), "circle " + radius);
+        }
+    }
+
+    /**
+     * Test of all operations, with diamond elements.
+     */
+    @Test
+    public void testDiamond ()
+    {
+        System.out.println("\n+++ diamond");
+
+        for (float radius : new float[]{1f, 2.5f}) {
+            checkAll(new StructureElement(DIAMOND, 1, radius, NO_OFFSET), "diamond " + radius);
+        }
+    }
+
+    /**
+     * Test of all operations, with line elements.
+     */
+    @Test
+    public void testLines ()
+    {
+        System.out.println("\n+++ lines");
+
+        for (float radius : new float[]{1f, 3f, 7f}) {
+            checkAll(new StructureElement(HLINE, 1, radius, NO_OFFSET), "hline " + radius);
+            checkAll(new StructureElement(VLINE, 1, radius, NO_OFFSET), "vline " + radius);
+        }
+    }
+
+    /**
+     * Test of all operations, with non-convex elements made of separate points.
+     */
+    @Test
+    public void testPoints ()
+    {
+        System.out.println("\n+++ points");
+
+        checkAll(new StructureElement(HPOINTS, 0, 4, NO_OFFSET), "hpoints");
+        checkAll(new StructureElement("0 255 0 255 0 0 0 255 255"), "free");
+    }
+
+    /**
+     * Test of close on a sample image.
+     * (Timing is measured by MorphologyBenchmark)
+     */
+    @Test
+    public void testSampleClose ()
+            throws Exception
+    {
+        System.out.println("\n+++ sampleClose");
+
+        File file = new File("data/examples", "chula.png");
+
+        if (!file.exists()) {
+            System.out.println("No " + file);
+
+            return;
+        }
+
+        ByteProcessor source = new ByteProcessor(ImageIO.read(file));
+        StructureElement se = new StructureElement(CIRCLE, 1, 4.3f, NO_OFFSET);
+
+        ByteProcessor expected = (ByteProcessor) source.duplicate();
+        new MorphoProcessor(se, false).close(expected);
+
+        ByteProcessor result = (ByteProcessor) source.duplicate();
+        new MorphoProcessor(se, true).close(result);
+
+        assertArrayEquals((byte[]) expected.getPixels(), (byte[]) result.getPixels());
+    }
+
+    /**
+     * Test of all operations, with square elements.
+     */
+    @Test
+    public void testSquare ()
+    {
+        System.out.println("\n+++ square");
+
+        for (float radius : new float[]{0.5f, 1f, 2.5f}) {
+            checkAll(new StructureElement(SQARE, 0, radius, NO_OFFSET), "square " + radius);
+        }
+    }
+
+    /**
+     * Test of supported elements.
+     */
+    @Test
+    public void testSupported ()
+    {
+        System.out.println("\n+++ supported");
+
+        assertTrue(MorphoFilter.isSupported(new StructureElement(CIRCLE, 1, 3f, NO_OFFSET)));
+        assertFalse(MorphoFilter.isSupported(new StructureElement("0 0 0 0 128 0 0 0 0")));
+        assertFalse(MorphoFilter.isSupported(new StructureElement("0 0 0 0 0 0 0 0 0")));
+    }
+
+    //----------//
+    // checkAll //
+    //----------//
+    private void checkAll (StructureElement se,
+                           String label)
+    {
+        // Dimensions smaller and larger than element and band sizes
+        for (int[] dim : new int[][]{{1, 1}, {3, 2}, {17, 9}, {150, 301}}) {
+            ByteProcessor source = createRandomImage(dim[0], dim[1]);
+            String name = label + " " + dim[0] + "x" + dim[1];
+
+            for (String op : new String[]{"dilate", "erode", "open", "close"}) {
+                ByteProcessor expected = (ByteProcessor) source.duplicate();
+                apply(new MorphoProcessor(se, false), op, expected);
+
+                ByteProcessor result = (ByteProcessor) source.duplicate();
+                apply(new MorphoProcessor(se, true), op, result);
+
+                assertTrue(
+                        name + " " + op + " differs",
+                        Arrays.equals((byte[]) expected.getPixels(), (byte[]) result.getPixels()));
+            }
+        }
+    }
+
+    //-------//
+    // apply //
+    //-------//
+    private void apply (MorphoProcessor processor,
+                        String op,
+                        ByteProcessor ip)
+    {
+        switch (op) {
+        case "dilate":
+            processor.dilate(ip);
+
+            break;
+
+        case "erode":
+            processor.erode(ip);
+
+            break;
+
+        case "open":
+            processor.open(ip);
+
+            break;
+
+        default:
+            processor.close(ip);
+        }
+    }
+
+    //-------------------//
+    // createRandomImage //
+    //-------------------//
+    private ByteProcessor createRandomImage (int width,
+                                             int height)
+    {
+        Random random = new Random(width * height);
+        ByteProcessor source = new ByteProcessor(width, height);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                // Mostly light pixels, with some dark ones
+                int val = (random.nextInt(6) == 0) ? random.nextInt(80)
+                        : (180 + random.nextInt(76));
+                source.set(x, y, val);
+            }
+        }
+
+        return source;
+    }
+}
@@ -0,0 +1,90 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                               T e m p l a t e C a c h e T e s t                                //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import org.audiveris.omr.glyph.Shape;
+import org.audiveris.omr.glyph.ShapeSet;
+import org.audiveris.omr.image.Anchored.Anchor;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class {@code TemplateCacheTest} checks that templates survive a cache round trip.
+ * (Build and load times are measured by TemplateCacheBenchmark)
+ *
+ * @author Hervé Bitteur
+ */
+public class TemplateCacheTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+
+    /**
+     * Test of store and load methods, of class TemplateCache.
+     */
+    @Test
+    public void testRoundTrip ()
+    {
+        System.out.println("roundTrip");
+
+        final int interline = 19;
+        final Map<Shape, ShapeDescriptor> built = new EnumMap<Shape, ShapeDescriptor>(
+                Shape.class);
+
+        for (Shape shape : ShapeSet.TemplateNotes) {
+            built.put(shape, new ShapeDescriptor(shape, interline));
+        }
+
+        TemplateCache.store(interline, built);
+
+        Map<Shape, ShapeDescriptor> loaded = TemplateCache.load(interline);
+        assertNotNull(loaded);
+        assertEquals(built.keySet(), loaded.keySet());
+
+        for (Shape shape : built.keySet()) {
+            Template expected = built.get(shape).getTemplate();
+            Template actual = loaded.get(shape).getTemplate();
+            assertEquals(expected.getWidth(), actual.getWidth());
+            assertEquals(expected.getHeight(), actual.getHeight());
+            assertEquals(expected.getInterline(), actual.getInterline());
+            assertEquals(expected.getSymbolBounds(), actual.getSymbolBounds());
+
+            List<PixelDistance> expPoints = expected.getKeyPoints();
+            List<PixelDistance> actPoints = actual.getKeyPoints();
+            assertEquals(expPoints.size(), actPoints.size());
+
+            for (int i = 0; i < expPoints.size(); i++) {
+                assertEquals(expPoints.get(i).x, actPoints.get(i).x);
+                assertEquals(expPoints.get(i).y, actPoints.get(i).y);
+                assertEquals(expPoints.get(i).d, actPoints.get(i).d, 0);
+            }
+
+            for (Anchor anchor : new Anchor[]{Anchor.CENTER, Anchor.MIDDLE_LEFT}) {
+                assertEquals(expected.getOffset(anchor), actual.getOffset(anchor));
+            }
+        }
+    }
+}
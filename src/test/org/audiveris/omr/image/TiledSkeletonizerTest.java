@@ -0,0 +1,116 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                           T i l e d S k e l e t o n i z e r T e s t                            //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.image;
+
+import ij.process.ByteProcessor;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Class {@code TiledSkeletonizerTest} checks that tiled thinning gives the same result
+ * as ImageJ thinning of the whole image.
+ *
+ * @author Hervé Bitteur
+ */
+public class TiledSkeletonizerTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+
+    /**
+     * Check that a margin too small to compare seam rows is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalMargin ()
+    {
+        System.out.println("illegalMargin");
+        new TiledSkeletonizer(20, TiledSkeletonizer.MIN_MARGIN - 1);
+    }
+
+    /**
+     * Test of skeletonize method, with margins large enough for all strokes.
+     */
+    @Test
+    public void testSkeletonize ()
+    {
+        System.out.println("skeletonize");
+        checkSkeleton(createImage(false), 40, 12);
+    }
+
+    /**
+     * Test of skeletonize method, with a thick blob across several tiles.
+     */
+    @Test
+    public void testThickBlob ()
+    {
+        System.out.println("thickBlob");
+        checkSkeleton(createImage(true), 20, 2);
+    }
+
+    //---------------//
+    // checkSkeleton //
+    //---------------//
+    private void checkSkeleton (ByteProcessor source,
+                                int tileHeight,
+                                int tileMargin)
+    {
+        ByteProcessor expected = (ByteProcessor) source.duplicate();
+        expected.skeletonize();
+
+        ByteProcessor actual = (ByteProcessor) source.duplicate();
+        new TiledSkeletonizer(tileHeight, tileMargin).skeletonize(actual);
+
+        assertArrayEquals((byte[]) expected.getPixels(), (byte[]) actual.getPixels());
+    }
+
+    //-------------//
+    // createImage //
+    //-------------//
+    /**
+     * Create a white image with random black strokes, and perhaps a large black blob.
+     */
+    private ByteProcessor createImage (boolean withBlob)
+    {
+        final Random random = new Random(1234);
+        final ByteProcessor img = new ByteProcessor(300, 200);
+        img.setValue(255);
+        img.fill();
+        img.setValue(0);
+
+        for (int i = 0; i < 60; i++) {
+            img.setLineWidth(1 + random.nextInt(6));
+            img.drawLine(
+                    random.nextInt(300),
+                    random.nextInt(200),
+                    random.nextInt(300),
+                    random.nextInt(200));
+        }
+
+        if (withBlob) {
+            img.fillOval(100, 30, 120, 140);
+        }
+
+        return img;
+    }
+}
@@ -0,0 +1,182 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                         R a t i o n a l A c c u m u l a t o r T e s t                          //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.math;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Class {@code RationalAccumulatorTest} checks RationalAccumulator against Rational.
+ * (Their speed is compared by RationalBenchmark)
+ *
+ * @author Hervé Bitteur
+ */
+public class RationalAccumulatorTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** Typical chord durations, including dotted and tuplet values. */
+    private static final Rational[] DURATIONS = new Rational[]{
+        new Rational(1, 1), new Rational(1, 2), new Rational(1, 4), new Rational(1, 8),
+        new Rational(1, 16), new Rational(3, 8), new Rational(3, 16), new Rational(1, 12),
+        new Rational(1, 6), new Rational(7, 32)
+    };
+
+    //~ Methods ------------------------------------------------------------------------------------
+    /**
+     * Test of add method, of class RationalAccumulator.
+     */
+    @Test
+    public void testAdd ()
+    {
+        System.out.println("add");
+
+        final Random random = new Random(123);
+        final RationalAccumulator acc = new RationalAccumulator();
+        Rational expected = Rational.ZERO;
+
+        for (int i = 0; i < 1000; i++) {
+            Rational dur = DURATIONS[random.nextInt(DURATIONS.length)];
+
+            if (random.nextBoolean()) {
+                dur = dur.opposite();
+            }
+
+            acc.add(dur);
+            expected = expected.plus(dur);
+            assertEquals(expected, acc.toRational());
+            assertEquals(0, acc.compareTo(expected));
+        }
+    }
+
+    /**
+     * Test of compareTo methods, of class RationalAccumulator.
+     */
+    @Test
+    public void testCompareTo ()
+    {
+        System.out.println("compareTo");
+
+        final RationalAccumulator acc = new RationalAccumulator(new Rational(3, 4));
+
+        for (Rational a : DURATIONS) {
+            assertEquals(new Rational(3, 4).compareTo(a), acc.compareTo(a));
+
+            for (Rational b : DURATIONS) {
+                assertEquals(new Rational(3, 4).compareTo(a.plus(b)), acc.compareTo(a, b));
+            }
+        }
+
+        acc.set(Rational.MAX_VALUE);
+        assertEquals(1, acc.compareTo(new Rational(Integer.MAX_VALUE - 1, 1)));
+        assertEquals(0, acc.compareTo(Rational.MAX_VALUE));
+    }
+
+    /**
+     * Test of maxOfSum method, of class RationalAccumulator.
+     */
+    @Test
+    public void testMaxOfSum ()
+    {
+        System.out.println("maxOfSum");
+
+        final RationalAccumulator acc = new RationalAccumulator();
+        assertTrue(acc.maxOfSum(new Rational(1, 2), new Rational(1, 4)));
+        assertFalse(acc.maxOfSum(new Rational(1, 4), new Rational(1, 2)));
+        assertFalse(acc.maxOfSum(new Rational(1, 4), new Rational(1, 4)));
+        assertTrue(acc.maxOfSum(new Rational(3, 4), new Rational(1, 12)));
+        assertEquals(new Rational(5, 6), acc.toRational());
+    }
+
+    /**
+     * Test of overflow detection.
+     */
+    @Test(expected = ArithmeticException.class)
+    public void testOverflow ()
+    {
+        System.out.println("overflow");
+
+        new RationalAccumulator(Rational.MAX_VALUE).add(new Rational(1, 3)).toRational();
+    }
+
+    /**
+     * Test of the measure duration loop, with Rational then RationalAccumulator.
+     */
+    @Test
+    public void testDurationLoop ()
+    {
+        System.out.println("durationLoop");
+
+        final int size = 5000;
+        final Random random = new Random(456);
+        final Rational[] offsets = new Rational[size];
+        final Rational[] durations = new Rational[size];
+        Rational offset = Rational.ZERO;
+
+        for (int i = 0; i < size; i++) {
+            offsets[i] = offset;
+            durations[i] = DURATIONS[random.nextInt(DURATIONS.length)];
+
+            if (random.nextInt(3) == 0) {
+                offset = offset.plus(durations[i]);
+            }
+        }
+
+        assertEquals(immutableMax(offsets, durations), mutableMax(offsets, durations));
+    }
+
+    //--------------//
+    // immutableMax //
+    //--------------//
+    private static Rational immutableMax (Rational[] offsets,
+                                          Rational[] durations)
+    {
+        Rational max = Rational.ZERO;
+
+        for (int i = 0; i < offsets.length; i++) {
+            Rational end = offsets[i].plus(durations[i]);
+
+            if (end.compareTo(max) > 0) {
+                max = end;
+            }
+        }
+
+        return max;
+    }
+
+    //------------//
+    // mutableMax //
+    //------------//
+    private static Rational mutableMax (Rational[] offsets,
+                                        Rational[] durations)
+    {
+        final RationalAccumulator max = new RationalAccumulator();
+
+        for (int i = 0; i < offsets.length; i++) {
+            max.maxOfSum(offsets[i], durations[i]);
+        }
+
+        return max.toRational();
+    }
+}
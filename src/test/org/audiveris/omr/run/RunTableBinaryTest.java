@@ -0,0 +1,299 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                              R u n T a b l e B i n a r y T e s t                               //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.run;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.image.GlobalFilter;
+import static org.audiveris.omr.run.Orientation.*;
+
+import static org.junit.Assert.*;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+
+import javax.imageio.ImageIO;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+
+/**
+ * Class {@code RunTableBinaryTest} tests the binary format of RunTable.
+ *
+ * @author Hervé Bitteur
+ */
+public class RunTableBinaryTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final File dir = new File("data/temp");
+
+    private static final Dimension dim = new Dimension(10, 5);
+
+    /** Real sheet used for size comparison. */
+    private static final File sheetFile = new File("data/examples/chula.png");
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @BeforeClass
+    public static void createTempFolder ()
+    {
+        dir.mkdirs();
+    }
+
+    /**
+     * Round trip through a file, using the same table as RunTableBindingTest.
+     */
+    @Test
+    public void testFileRoundTrip ()
+            throws IOException
+    {
+        System.out.println("\n+++ fileRoundTrip");
+
+        RunTable table = createHorizontalInstance();
+        Path path = new File(dir, "runtable" + RunTableBinary.EXTENSION).toPath();
+        RunTableBinary.write(table, path, true);
+        System.out.println("Written to " + path);
+
+        RunTable newTable = RunTableBinary.read(path);
+        newTable.dumpSequences();
+        assertEquals(table.dumpOf(), newTable.dumpOf());
+        assertEquals(table, newTable);
+    }
+
+    /**
+     * Round trip, with and without deltas, on both orientations.
+     */
+    @Test
+    public void testRoundTrip ()
+            throws IOException
+    {
+        System.out.println("\n+++ roundTrip");
+
+        RunTable[] tables = new RunTable[]{
+            createHorizontalInstance(), createRepeatedInstance(), createWideInstance()
+        };
+
+        for (RunTable table : tables) {
+            for (boolean deltas : new boolean[]{false, true}) {
+                RunTable newTable = roundTrip(table, deltas);
+                assertEquals(table, newTable);
+            }
+        }
+    }
+
+    /**
+     * Round trip on a real sheet, with a size comparison against XML.
+     * (Times are measured by RunTableBinaryBenchmark)
+     */
+    @Test
+    public void testRealSheet ()
+            throws Exception
+    {
+        System.out.println("\n+++ realSheet");
+
+        if (!sheetFile.exists()) {
+            System.out.println("No " + sheetFile);
+
+            return;
+        }
+
+        BufferedImage img = ImageIO.read(sheetFile);
+        ByteProcessor gray = new ByteProcessor(img);
+        ByteProcessor binary = new GlobalFilter(gray, 140).filteredImage();
+
+        for (Orientation orientation : Orientation.values()) {
+            RunTable table = new RunTableFactory(orientation).createTable(binary);
+
+            // XML
+            JAXBContext jaxbContext = JAXBContext.newInstance(RunTable.class);
+            Marshaller m = jaxbContext.createMarshaller();
+            m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+
+            ByteArrayOutputStream xmlOs = new ByteArrayOutputStream();
+            m.marshal(table, xmlOs);
+
+            RunTable xmlTable = (RunTable) jaxbContext.createUnmarshaller().unmarshal(
+                    new ByteArrayInputStream(xmlOs.toByteArray()));
+            assertEquals(table, xmlTable);
+
+            // Binary
+            for (boolean deltas : new boolean[]{false, true}) {
+                ByteArrayOutputStream binOs = new ByteArrayOutputStream();
+                RunTableBinary.write(table, Channels.newChannel(binOs), deltas);
+
+                RunTable binTable = RunTableBinary.read(
+                        Channels.newChannel(new ByteArrayInputStream(binOs.toByteArray())));
+                assertEquals(table, binTable);
+
+                System.out.printf(
+                        "%s %s deltas:%b runs:%d xml size:%,d binary size:%,d%n",
+                        sheetFile.getName(),
+                        orientation,
+                        deltas,
+                        table.getTotalRunCount(),
+                        xmlOs.size(),
+                        binOs.size());
+                assertTrue(binOs.size() < xmlOs.size());
+            }
+        }
+    }
+
+    /**
+     * Check that a non binary content is rejected.
+     */
+    @Test(expected = IOException.class)
+    public void testWrongContent ()
+            throws IOException
+    {
+        System.out.println("\n+++ wrongContent");
+        RunTableBinary.read(
+                Channels.newChannel(new ByteArrayInputStream("<run-table/>".getBytes("UTF-8"))));
+    }
+
+    /**
+     * Check that corrupted or truncated contents are rejected with an IOException.
+     */
+    @Test
+    public void testCorruptContent ()
+    {
+        System.out.println("\n+++ corruptContent");
+
+        // Header: magic, version, orientation, flags, width, height
+        final byte[][] contents = new byte[][]{
+            // Illegal orientation ordinal
+            {'O', 'R', 'T', 'B', 1, 7, 0, 10, 2, 0, 0},
+            // REPEAT on first sequence
+            {'O', 'R', 'T', 'B', 1, 0, 1, 10, 2, 1, 0},
+            // DELTA right after an EMPTY sequence
+            {'O', 'R', 'T', 'B', 1, 0, 1, 10, 2, 0, 3, 0},
+            // LITERAL with a null count
+            {'O', 'R', 'T', 'B', 1, 0, 0, 10, 2, 2, 0, 0},
+            // LITERAL with too many values
+            {'O', 'R', 'T', 'B', 1, 0, 0, 10, 2, 2, 12, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1},
+            // LITERAL beyond sequence length
+            {'O', 'R', 'T', 'B', 1, 0, 0, 10, 2, 2, 2, 4, 7, 0},
+            // DELTA resulting in a negative value (zigzag 5 = -3)
+            {'O', 'R', 'T', 'B', 1, 0, 1, 10, 2, 2, 2, 1, 2, 3, 5, 0},
+            // Negative width (5-byte varint)
+            {'O', 'R', 'T', 'B', 1, 0, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F,
+             2},
+            // Truncated content
+            {'O', 'R', 'T', 'B', 1, 0, 0, 10, 2, 2, 2, 1}
+        };
+
+        for (byte[] content : contents) {
+            try {
+                RunTableBinary.read(Channels.newChannel(new ByteArrayInputStream(content)));
+                fail("Corrupt content not detected");
+            } catch (IOException ex) {
+                System.out.println("Rejected: " + ex);
+            }
+        }
+    }
+
+    //--------------------------//
+    // createHorizontalInstance //
+    //--------------------------//
+    private RunTable createHorizontalInstance ()
+    {
+        RunTable instance = new RunTable(HORIZONTAL, dim.width, dim.height);
+
+        instance.addRun(0, new Run(1, 2));
+        instance.addRun(0, new Run(5, 3));
+
+        instance.addRun(1, new Run(0, 1));
+        instance.addRun(1, new Run(4, 2));
+
+        // Leave sequence empty at index 2
+        //
+        instance.addRun(3, new Run(0, 2));
+        instance.addRun(3, new Run(4, 1));
+        instance.addRun(3, new Run(8, 2));
+
+        instance.addRun(4, new Run(2, 2));
+        instance.addRun(4, new Run(6, 4));
+
+        return instance;
+    }
+
+    //------------------------//
+    // createRepeatedInstance //
+    //------------------------//
+    /**
+     * A vertical table with long runs and similar consecutive sequences, to exercise deltas.
+     */
+    private RunTable createRepeatedInstance ()
+    {
+        RunTable instance = new RunTable(VERTICAL, 20, 1000);
+
+        for (int x = 0; x < 20; x++) {
+            if (x == 7) {
+                continue; // Empty sequence
+            }
+
+            instance.addRun(x, new Run(10, 300));
+            instance.addRun(x, new Run(400 + (x / 3), 50 + x));
+            instance.addRun(x, new Run(900, 100));
+        }
+
+        return instance;
+    }
+
+    //--------------------//
+    // createWideInstance //
+    //--------------------//
+    /**
+     * A vertical table higher than the unsigned short range, to exercise the wide encoding.
+     */
+    private RunTable createWideInstance ()
+    {
+        RunTable instance = new RunTable(VERTICAL, 3, 100000);
+
+        instance.addRun(0, new Run(70000, 20000));
+        instance.addRun(1, new Run(10, 5));
+        instance.addRun(1, new Run(99000, 1000));
+        instance.addRun(2, new Run(0, 100000));
+
+        return instance;
+    }
+
+    //-----------//
+    // roundTrip //
+    //-----------//
+    private RunTable roundTrip (RunTable table,
+                                boolean deltas)
+            throws IOException
+    {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        RunTableBinary.write(table, Channels.newChannel(os), deltas);
+        System.out.println(table + " deltas:" + deltas + " size:" + os.size());
+
+        return RunTableBinary.read(Channels.newChannel(new ByteArrayInputStream(os.toByteArray())));
+    }
+}
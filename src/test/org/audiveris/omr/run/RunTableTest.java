@@ -30,12 +30,14 @@ import org.audiveris.omr.run.Run;
 import org.audiveris.omr.run.RunTable;
 import org.audiveris.omr.run.RunTable.RunSequence;
 import org.audiveris.omr.run.RunTableFactory;
+import org.audiveris.omr.util.OmrExecutors;
 import org.audiveris.omr.util.Predicate;
 import static org.junit.Assert.*;
 import org.junit.Test;
 
 import java.awt.Dimension;
 import java.awt.Point;
+import java.util.Random;
 
 /**
  *
@@ -56,6 +58,89 @@ public class RunTableTest
     }
 
     //~ Methods ------------------------------------------------------------------------------------
+    /**
+     * Test of union, intersection, difference and xor methods, against pixel computation.
+     */
+    @Test
+    public void testAlgebra ()
+    {
+        System.out.println("\n+++ algebra");
+
+        for (boolean parallel : new boolean[]{false, true}) {
+            final boolean old = OmrExecutors.defaultParallelism.getSpecific();
+            OmrExecutors.defaultParallelism.setSpecific(parallel);
+
+            try {
+                for (Orientation orientation : Orientation.values()) {
+                    RunTable one = createRandomInstance(orientation, 200, 150, 1);
+                    RunTable two = createRandomInstance(orientation, 200, 150, 2);
+                    RunTable union = one.union(two);
+                    RunTable intersection = one.intersection(two);
+                    RunTable difference = one.difference(two);
+                    RunTable xor = one.xor(two);
+
+                    for (int y = 0; y < 150; y++) {
+                        for (int x = 0; x < 200; x++) {
+                            boolean a = one.get(x, y) == 0;
+                            boolean b = two.get(x, y) == 0;
+                            assertEquals(a || b, union.get(x, y) == 0);
+                            assertEquals(a && b, intersection.get(x, y) == 0);
+                            assertEquals(a && !b, difference.get(x, y) == 0);
+                            assertEquals(a ^ b, xor.get(x, y) == 0);
+                        }
+                    }
+
+                    assertEquals(union, xor.union(intersection));
+                    assertEquals(one, difference.union(intersection));
+                }
+            } finally {
+                OmrExecutors.defaultParallelism.setSpecific(old);
+            }
+        }
+    }
+
+    /**
+     * Test of Builder class, of class RunTable.
+     */
+    @Test
+    public void testBuilder ()
+    {
+        System.out.println("\n+++ builder");
+
+        RunTable.Builder builder = new RunTable.Builder(HORIZONTAL, dim.width, dim.height);
+        builder.append(0, 1, 2);
+        builder.append(0, 5, 3);
+        builder.append(1, 0, 1);
+        builder.append(1, 4, 2);
+        builder.append(3, 0, 2);
+        builder.append(3, 4, 1);
+        builder.append(3, 8, 1);
+        builder.append(3, 9, 1); // Touching previous run
+        builder.append(4, 2, 2);
+        builder.append(4, 6, 4);
+
+        RunTable instance = builder.build();
+        System.out.println("built:\n" + instance.dumpOf());
+
+        RunTable expResult = createHorizontalInstance();
+        assertEquals(expResult, instance);
+        assertEquals(expResult.getWeight(), instance.getWeight());
+        assertEquals(expResult.getTotalRunCount(), instance.getTotalRunCount());
+    }
+
+    /**
+     * Test of Builder class, with a run overlapping previous one.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilderOverlap ()
+    {
+        System.out.println("\n+++ builderOverlap");
+
+        RunTable.Builder builder = new RunTable.Builder(HORIZONTAL, dim.width, dim.height);
+        builder.append(0, 1, 3);
+        builder.append(0, 3, 2);
+    }
+
     /**
      * Test of copy method, of class RunTable.
      */
@@ -120,6 +205,94 @@ public class RunTableTest
         instance.dumpSequences();
     }
 
+    /**
+     * Test of cursor method, of class RunTable, against table buffer.
+     */
+    @Test
+    public void testCursor ()
+    {
+        System.out.println("\n+++ cursor");
+
+        Random random = new Random(4);
+
+        for (Orientation orientation : Orientation.values()) {
+            RunTable instance = createRandomInstance(orientation, 300, 200, 5);
+            instance.addRun(0, new Run(0, 4)); // Sequence starting with foreground
+            instance.setSequence(1, (RunSequence) null); // Empty sequence
+
+            ByteProcessor buffer = instance.getBuffer();
+            RunTable.Cursor cursor = instance.cursor();
+
+            // Sequential probing, along both directions
+            for (int y = 0; y < 200; y++) {
+                for (int x = 0; x < 300; x++) {
+                    assertEquals(buffer.get(x, y), cursor.get(x, y));
+                }
+            }
+
+            for (int x = 0; x < 300; x++) {
+                for (int y = 0; y < 200; y++) {
+                    assertEquals(buffer.get(x, y), cursor.get(x, y));
+                }
+            }
+
+            // Random probing
+            for (int i = 0; i < 20000; i++) {
+                int x = random.nextInt(310) - 5;
+                int y = random.nextInt(210) - 5;
+                int expected = ((x < 0) || (x >= 300) || (y < 0) || (y >= 200)) ? 255
+                        : buffer.get(x, y);
+                assertEquals(expected, cursor.get(x, y));
+                assertEquals(expected, instance.get(x, y));
+
+                Run run = instance.getRunAt(x, y);
+                assertEquals(expected == 0, run != null);
+
+                if (run != null) {
+                    int coord = (orientation == HORIZONTAL) ? x : y;
+                    assertTrue((run.getStart() <= coord) && (run.getStop() >= coord));
+                }
+            }
+        }
+    }
+
+    /**
+     * Test of dilate and erode methods, against pixel computation.
+     */
+    @Test
+    public void testDilateErode ()
+    {
+        System.out.println("\n+++ dilateErode");
+
+        for (Orientation orientation : Orientation.values()) {
+            RunTable instance = createRandomInstance(orientation, 120, 90, 3);
+
+            for (int radius = 0; radius <= 3; radius++) {
+                RunTable dilated = instance.dilate(radius);
+                RunTable eroded = instance.erode(radius);
+
+                for (int y = 0; y < 90; y++) {
+                    for (int x = 0; x < 120; x++) {
+                        boolean any = false;
+                        boolean all = true;
+
+                        for (int d = -radius; d <= radius; d++) {
+                            int xx = (orientation == HORIZONTAL) ? (x + d) : x;
+                            int yy = (orientation == HORIZONTAL) ? y : (y + d);
+                            boolean fore = (xx >= 0) && (xx < 120) && (yy >= 0) && (yy < 90)
+                                           && (instance.get(xx, yy) == 0);
+                            any |= fore;
+                            all &= fore;
+                        }
+
+                        assertEquals(any, dilated.get(x, y) == 0);
+                        assertEquals(all, eroded.get(x, y) == 0);
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Test of equals method, of class RunTable.
      */
@@ -190,6 +363,43 @@ public class RunTableTest
         assertEquals(expResult, result);
     }
 
+    /**
+     * Test of getForeCount method, against pixel count.
+     */
+    @Test
+    public void testGetForeCount ()
+    {
+        System.out.println("\n+++ getForeCount");
+
+        Random random = new Random(6);
+
+        for (Orientation orientation : Orientation.values()) {
+            RunTable instance = createRandomInstance(orientation, 300, 200, 7);
+            instance.setSequence(1, (RunSequence) null); // Empty sequence
+
+            ByteProcessor buffer = instance.getBuffer();
+            int extent = (orientation == HORIZONTAL) ? 300 : 200;
+
+            for (int i = 0; i < 5000; i++) {
+                int index = random.nextInt(instance.getSize());
+                int start = random.nextInt(extent);
+                int stop = Math.min(extent - 1, start + random.nextInt(extent / 2) - 5);
+                int expected = 0;
+
+                for (int c = start; c <= stop; c++) {
+                    int pixel = (orientation == HORIZONTAL) ? buffer.get(c, index)
+                            : buffer.get(index, c);
+
+                    if (pixel == 0) {
+                        expected++;
+                    }
+                }
+
+                assertEquals(expected, instance.getForeCount(index, start, stop));
+            }
+        }
+    }
+
     /**
      * Test of getHeight method, of class RunTable.
      */
@@ -482,6 +692,55 @@ public class RunTableTest
         assertEquals(5, trimmed.getHeight());
     }
 
+    /**
+     * Test of a table higher than the unsigned short range.
+     */
+    @Test
+    public void testWideTable ()
+    {
+        System.out.println("\n+++ wideTable");
+
+        int height = 100000;
+        RunTable instance = new RunTable(VERTICAL, 2, height);
+        instance.addRun(0, new Run(20000, 10));
+        instance.addRun(0, new Run(70000, 20000));
+        instance.addRun(0, new Run(10, 5)); // Insertion before existing runs
+        instance.addRun(1, new Run(99000, 1000));
+        System.out.println("sequence 0: " + instance.getSequence(0));
+        System.out.println("sequence 1: " + instance.getSequence(1));
+
+        assertFalse(instance.getSequence(0).isWide());
+        assertTrue(instance.getSequence(1).isWide()); // Initial background beyond short range
+        assertEquals(3, instance.getSequence(0).size());
+        assertEquals(0, instance.get(0, 89999));
+        assertEquals(255, instance.get(0, 90000));
+        assertEquals(99000, instance.getRunAt(1, 99500).getStart());
+        assertEquals(10 + 20000 + 5 + 1000, instance.getWeight());
+
+        // Join a very long run
+        instance.addRun(0, new Run(20010, 49990));
+        assertTrue(instance.getSequence(0).isWide());
+        assertEquals(70000, instance.getRunAt(0, 70000).getLength());
+
+        RunTable.Builder builder = new RunTable.Builder(VERTICAL, 2, height);
+        builder.append(0, 10, 5);
+        builder.append(0, 20000, 10);
+        builder.append(0, 20010, 49990);
+        builder.append(0, 70000, 20000);
+        builder.append(1, 99000, 1000);
+        assertEquals(instance, builder.build());
+
+        instance.removeRun(0, new Run(20000, 70000));
+        assertFalse(instance.getSequence(0).isWide());
+        assertNull(instance.getRunAt(0, 20005));
+
+        Point offset = new Point();
+        RunTable trimmed = instance.trim(offset);
+        assertEquals(10, offset.y);
+        assertEquals(98990, trimmed.getRunAt(1, 99000).getStart());
+        assertEquals(1000, trimmed.getRunAt(1, 99000).getLength());
+    }
+
     //--------------------------//
     // createHorizontalInstance //
     //--------------------------//
@@ -532,6 +791,31 @@ public class RunTableTest
         return instance;
     }
 
+    //----------------------//
+    // createRandomInstance //
+    //----------------------//
+    private RunTable createRandomInstance (Orientation orientation,
+                                           int width,
+                                           int height,
+                                           long seed)
+    {
+        Random random = new Random(seed);
+        RunTable.Builder builder = new RunTable.Builder(orientation, width, height);
+        int extent = (orientation == HORIZONTAL) ? width : height;
+
+        for (int i = 0, size = (orientation == HORIZONTAL) ? height : width; i < size; i++) {
+            int loc = random.nextInt(8);
+
+            while (loc < extent) {
+                int length = Math.min(extent - loc, 1 + random.nextInt(12));
+                builder.append(i, loc, length);
+                loc += (length + 1 + random.nextInt(10));
+            }
+        }
+
+        return builder.build();
+    }
+
     //------------------------//
     // createVerticalInstance //
     //------------------------//
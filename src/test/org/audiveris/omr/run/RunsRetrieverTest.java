@@ -0,0 +1,231 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                               R u n s R e t r i e v e r T e s t                                //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.run;
+
+import ij.process.ByteProcessor;
+
+import org.audiveris.omr.image.GlobalFilter;
+import org.audiveris.omr.util.OmrExecutors;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Class {@code RunsRetrieverTest} checks the direct scanning of source pixels against the
+ * per-pixel adapter access.
+ * (Run table creation is measured by RunTableBenchmark)
+ *
+ * @author Hervé Bitteur
+ */
+public class RunsRetrieverTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** Folder of example images. */
+    private static final File examples = new File("data/examples");
+
+    //~ Methods ------------------------------------------------------------------------------------
+    /**
+     * Check HORIZONTAL and VERTICAL table creation on example images.
+     */
+    @Test
+    public void testExamples ()
+            throws Exception
+    {
+        System.out.println("\n+++ examples");
+
+        final File[] files = examples.listFiles();
+
+        if (files == null) {
+            System.out.println("No " + examples);
+
+            return;
+        }
+
+        for (File file : files) {
+            final String name = file.getName().toLowerCase();
+
+            if (!name.endsWith(".png") && !name.endsWith(".jpg")) {
+                continue;
+            }
+
+            ByteProcessor binary = new GlobalFilter(readGray(file), 140).filteredImage();
+
+            for (Orientation orientation : Orientation.values()) {
+                final RunTableFactory factory = new RunTableFactory(orientation);
+                final RunTable expected = factory.createTable(wrap(binary));
+                check(factory, binary, expected, false);
+                check(factory, binary, expected, true);
+                System.out.println(
+                        file.getName() + " " + orientation + " runs:"
+                        + expected.getTotalRunCount());
+            }
+        }
+    }
+
+    /**
+     * Check direct scanning against adapter access, on a random image with various ROIs.
+     */
+    @Test
+    public void testSynthetic ()
+    {
+        System.out.println("\n+++ synthetic");
+
+        final ByteProcessor source = createRandomImage(300, 200);
+        final Rectangle[] rois = new Rectangle[]{
+            new Rectangle(0, 0, 300, 200), new Rectangle(7, 5, 250, 150),
+            new Rectangle(299, 0, 1, 200)
+        };
+
+        final RunTableFactory.Filter[] filters = new RunTableFactory.Filter[]{
+            null, new RunTableFactory.LengthFilter(3)
+        };
+
+        for (boolean parallel : new boolean[]{false, true}) {
+            final boolean old = setParallelism(parallel);
+
+            try {
+                for (Orientation orientation : Orientation.values()) {
+                    for (RunTableFactory.Filter filter : filters) {
+                        final RunTableFactory factory = new RunTableFactory(orientation, filter);
+
+                        for (Rectangle roi : rois) {
+                            final RunTable expected = factory.createTable(wrap(source), roi);
+                            final RunTable table = factory.createTable(source, roi);
+                            assertEquals(expected, table);
+                            assertEquals(expected.getWeight(), table.getWeight());
+                        }
+                    }
+                }
+            } finally {
+                setParallelism(old);
+            }
+        }
+    }
+
+    //-------//
+    // check //
+    //-------//
+    /**
+     * Check the table created out of source against the expected one.
+     */
+    private void check (RunTableFactory factory,
+                        ByteProcessor source,
+                        RunTable expected,
+                        boolean parallel)
+    {
+        final boolean old = setParallelism(parallel);
+
+        try {
+            assertEquals(expected, factory.createTable(source));
+        } finally {
+            setParallelism(old);
+        }
+    }
+
+    //-------------------//
+    // createRandomImage //
+    //-------------------//
+    /**
+     * Create an image made of random foreground blocks.
+     */
+    private ByteProcessor createRandomImage (int width,
+                                             int height)
+    {
+        final ByteProcessor image = new ByteProcessor(width, height);
+        final Random random = new Random(12345);
+        image.setValue(255);
+        image.fill();
+
+        for (int i = 0; i < 400; i++) {
+            final int x = random.nextInt(width);
+            final int y = random.nextInt(height);
+            final int w = 1 + random.nextInt(30);
+            final int h = 1 + random.nextInt(30);
+
+            for (int yy = y; yy < Math.min(height, y + h); yy++) {
+                for (int xx = x; xx < Math.min(width, x + w); xx++) {
+                    image.set(xx, yy, (random.nextInt(10) == 0) ? 255 : 0);
+                }
+            }
+        }
+
+        return image;
+    }
+
+    //----------//
+    // readGray //
+    //----------//
+    /**
+     * Read an image file as a gray image.
+     */
+    private ByteProcessor readGray (File file)
+            throws Exception
+    {
+        final BufferedImage img = ImageIO.read(file);
+        final BufferedImage gray = new BufferedImage(
+                img.getWidth(),
+                img.getHeight(),
+                BufferedImage.TYPE_BYTE_GRAY);
+        final Graphics2D g = gray.createGraphics();
+        g.drawImage(img, 0, 0, null);
+        g.dispose();
+
+        return new ByteProcessor(gray);
+    }
+
+    //----------------//
+    // setParallelism //
+    //----------------//
+    private boolean setParallelism (boolean parallel)
+    {
+        final boolean old = OmrExecutors.defaultParallelism.getSpecific();
+
+        if (parallel != old) {
+            OmrExecutors.defaultParallelism.setSpecific(parallel);
+        }
+
+        return old;
+    }
+
+    //------//
+    // wrap //
+    //------//
+    /**
+     * Wrap the source pixels into a ByteProcessor subclass, so that they are read through the
+     * adapter.
+     */
+    private ByteProcessor wrap (ByteProcessor source)
+    {
+        return new ByteProcessor(source.getWidth(), source.getHeight(), (byte[]) source.getPixels())
+        {
+        };
+    }
+}
@@ -0,0 +1,386 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                              M e m o r y G o v e r n o r T e s t                               //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sheet;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Class {@code MemoryGovernorTest} checks the admission and eviction policy of
+ * {@link MemoryGovernor}, on fake sheets with fake footprints.
+ *
+ * @author Hervé Bitteur
+ */
+public class MemoryGovernorTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    /** Time to wait before assuming a thread is blocked, in milliseconds. */
+    private static final long BLOCK_DELAY = 300;
+
+    //~ Instance fields ----------------------------------------------------------------------------
+    private final List<SheetStub> stubs = new ArrayList<SheetStub>();
+
+    private final Map<SheetStub, FakeSheet> fakes = new HashMap<SheetStub, FakeSheet>();
+
+    //~ Methods ------------------------------------------------------------------------------------
+    /**
+     * Until a footprint is measured, a sheet is admitted only when no other sheet is active.
+     */
+    @Test
+    public void testFirstSheetAlone ()
+            throws Exception
+    {
+        System.out.println("\n+++ firstSheetAlone");
+
+        final MemoryGovernor governor = createGovernor(1000, 100, 2);
+        final SheetStub first = stubs.get(0);
+        final SheetStub second = stubs.get(1);
+
+        governor.admit(first);
+
+        final Admission admission = new Admission(governor, second);
+        assertFalse("Second sheet admitted before any measure", admission.await(BLOCK_DELAY));
+
+        governor.release(first, false);
+        assertTrue("Second sheet not admitted after release", admission.await(5000));
+        assertTrue(fakes.get(first).loaded);
+        System.out.println(governor);
+    }
+
+    /**
+     * Idle sheets are evicted least recently completed first, and a locked idle sheet is
+     * skipped but kept as a candidate.
+     */
+    @Test
+    public void testEviction ()
+            throws Exception
+    {
+        System.out.println("\n+++ eviction");
+
+        final MemoryGovernor governor = createGovernor(100, 40, 5);
+        final SheetStub a = stubs.get(0);
+        final SheetStub b = stubs.get(1);
+        final SheetStub c = stubs.get(2);
+        final SheetStub d = stubs.get(3);
+        final SheetStub e = stubs.get(4);
+
+        admitAndRelease(governor, a); // Idles: a
+        admitAndRelease(governor, b); // Idles: a, b
+
+        // Resident 80 + 40 > 100: a, least recently completed, is evicted
+        governor.admit(c);
+        assertFalse(fakes.get(a).loaded);
+        assertTrue(fakes.get(b).loaded);
+        assertTrue(fakes.get(c).loaded);
+        governor.release(c, false); // Idles: b, c
+
+        // b is locked by another thread, hence c gets evicted instead
+        final CountDownLatch locked = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        final Thread locker = new Thread()
+        {
+            @Override
+            public void run ()
+            {
+                b.getLock().lock();
+                locked.countDown();
+
+                try {
+                    done.await();
+                } catch (InterruptedException ignored) {
+                } finally {
+                    b.getLock().unlock();
+                }
+            }
+        };
+
+        locker.start();
+        locked.await();
+        governor.admit(d);
+        done.countDown();
+        locker.join();
+
+        assertTrue(fakes.get(b).loaded);
+        assertFalse(fakes.get(c).loaded);
+        assertTrue(fakes.get(d).loaded);
+        governor.release(d, false); // Idles: b, d
+
+        // b, put back as candidate, can be evicted now that it is unlocked
+        governor.admit(e);
+        assertFalse(fakes.get(b).loaded);
+        assertTrue(fakes.get(d).loaded);
+        assertTrue(fakes.get(e).loaded);
+        System.out.println(governor);
+    }
+
+    /**
+     * With no idle sheet to evict, admission is delayed until an active sheet is released.
+     */
+    @Test
+    public void testBlockUntilRelease ()
+            throws Exception
+    {
+        System.out.println("\n+++ blockUntilRelease");
+
+        final MemoryGovernor governor = createGovernor(100, 60, 3);
+        final SheetStub a = stubs.get(0);
+        final SheetStub b = stubs.get(1);
+        final SheetStub c = stubs.get(2);
+
+        admitAndRelease(governor, a);
+        governor.admit(b); // a evicted to make room
+        assertFalse(fakes.get(a).loaded);
+
+        final Admission admission = new Admission(governor, c);
+        assertFalse("Sheet admitted beyond budget", admission.await(BLOCK_DELAY));
+
+        governor.release(b, false);
+        assertTrue("Sheet not admitted after release", admission.await(5000));
+        assertFalse(fakes.get(b).loaded);
+        System.out.println(governor);
+    }
+
+    //-----------------//
+    // admitAndRelease //
+    //-----------------//
+    private void admitAndRelease (MemoryGovernor governor,
+                                  SheetStub stub)
+            throws InterruptedException
+    {
+        governor.admit(stub);
+        governor.release(stub, false);
+    }
+
+    //----------------//
+    // createGovernor //
+    //----------------//
+    /**
+     * Create a governor on a book of fake sheets, all with the same footprint.
+     *
+     * @param budget    memory budget
+     * @param footprint footprint of any loaded sheet
+     * @param count     number of sheets in book
+     * @return the governor
+     */
+    private MemoryGovernor createGovernor (long budget,
+                                           final long footprint,
+                                           int count)
+    {
+        final Book book = proxy(Book.class, new Handler(null));
+
+        for (int i = 1; i <= count; i++) {
+            final FakeSheet fake = new FakeSheet(book, i);
+            final SheetStub stub = proxy(SheetStub.class, fake);
+            stubs.add(stub);
+            fakes.put(stub, fake);
+        }
+
+        return new MemoryGovernor(book, budget)
+        {
+            @Override
+            long measure (SheetStub stub)
+            {
+                return fakes.get(stub).loaded ? footprint : 0;
+            }
+        };
+    }
+
+    //-------//
+    // proxy //
+    //-------//
+    private <T> T proxy (Class<T> classe,
+                         InvocationHandler handler)
+    {
+        return classe.cast(
+                Proxy.newProxyInstance(classe.getClassLoader(), new Class<?>[]{classe}, handler));
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----------//
+    // Admission //
+    //-----------//
+    /**
+     * Admission of a sheet, performed by a separate thread.
+     */
+    private static class Admission
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final CountDownLatch admitted = new CountDownLatch(1);
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public Admission (final MemoryGovernor governor,
+                          final SheetStub stub)
+        {
+            final Thread thread = new Thread()
+            {
+                @Override
+                public void run ()
+                {
+                    try {
+                        governor.admit(stub);
+                        admitted.countDown();
+                    } catch (InterruptedException ignored) {
+                    }
+                }
+            };
+
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        public boolean await (long millis)
+                throws InterruptedException
+        {
+            return admitted.await(millis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    //---------//
+    // Handler //
+    //---------//
+    /**
+     * Default handling of interface methods: book, stubs and names, then neutral values.
+     */
+    private class Handler
+            implements InvocationHandler
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        protected final Book book;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public Handler (Book book)
+        {
+            this.book = book;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        public Object invoke (Object proxy,
+                              Method method,
+                              Object[] args)
+        {
+            final String name = method.getName();
+
+            switch (name) {
+            case "hashCode":
+                return System.identityHashCode(proxy);
+
+            case "equals":
+                return proxy == args[0];
+
+            case "toString":
+            case "getRadix":
+            case "getAlias":
+                return "fake";
+
+            case "getBook":
+                return book;
+
+            case "getStubs":
+                return stubs;
+            }
+
+            final Class<?> type = method.getReturnType();
+
+            if (type == boolean.class) {
+                return false;
+            } else if (type == int.class) {
+                return 0;
+            } else if (type == long.class) {
+                return 0L;
+            } else {
+                return null;
+            }
+        }
+    }
+
+    //-----------//
+    // FakeSheet //
+    //-----------//
+    /**
+     * Fake sheet stub, with a loaded status and a lock.
+     */
+    private class FakeSheet
+            extends Handler
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private final int number;
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private volatile boolean loaded = true;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public FakeSheet (Book book,
+                          int number)
+        {
+            super(book);
+            this.number = number;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        public Object invoke (Object proxy,
+                              Method method,
+                              Object[] args)
+        {
+            switch (method.getName()) {
+            case "hasSheet":
+                return loaded;
+
+            case "swapSheet":
+                loaded = false;
+
+                return null;
+
+            case "getLock":
+                return lock;
+
+            case "getNumber":
+                return number;
+
+            case "getNum":
+            case "toString":
+                return "#" + number;
+
+            default:
+                return super.invoke(proxy, method, args);
+            }
+        }
+    }
+}
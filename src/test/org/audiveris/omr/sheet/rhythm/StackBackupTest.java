@@ -0,0 +1,239 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                 S t a c k B a c k u p T e s t                                  //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.sheet.rhythm;
+
+import org.audiveris.omr.OMR;
+import org.audiveris.omr.sheet.Book;
+import org.audiveris.omr.sheet.BookManager;
+import org.audiveris.omr.sheet.Sheet;
+import org.audiveris.omr.sheet.SystemInfo;
+import org.audiveris.omr.sig.SIGraph;
+import org.audiveris.omr.sig.inter.AbstractChordInter;
+import org.audiveris.omr.sig.inter.Inter;
+import org.audiveris.omr.sig.inter.RestChordInter;
+import org.audiveris.omr.sig.relation.Relation;
+import org.audiveris.omr.step.Step;
+
+import org.junit.AfterClass;
+import static org.junit.Assert.*;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Class {@code StackBackupTest} checks that the incremental installation of a sequence
+ * of configurations on a stack gives the same SIG, slots and voices as a full
+ * reinstallation of each configuration.
+ * <p>
+ * The example sheet is processed until the SYMBOLS step, so that rhythm data is still untouched.
+ *
+ * @author Hervé Bitteur
+ */
+public class StackBackupTest
+{
+    //~ Static fields/initializers -----------------------------------------------------------------
+
+    private static final File sheetFile = new File("data/examples/chula.png");
+
+    private static Book book;
+
+    private static Sheet sheet;
+
+    //~ Methods ------------------------------------------------------------------------------------
+    @BeforeClass
+    public static void setUpClass ()
+    {
+        OMR.engine = BookManager.getInstance();
+        book = OMR.engine.loadInput(sheetFile.toPath());
+        book.createStubs(null);
+        assertTrue("Could not reach SYMBOLS", book.reachBookStep(Step.SYMBOLS, false, null));
+        sheet = book.getStubs().get(0).getSheet();
+    }
+
+    @AfterClass
+    public static void tearDownClass ()
+    {
+        if (book != null) {
+            book.close();
+        }
+    }
+
+    /**
+     * On each stack, install the full configuration, then the configuration without each
+     * good FRAT inter in turn, then the full configuration again.
+     * Each installation is done incrementally in sequence, and from scratch as the reference.
+     */
+    @Test
+    public void testIncrementalInstall ()
+    {
+        System.out.println("\n+++ incrementalInstall");
+
+        int stackCount = 0;
+        int configCount = 0;
+
+        for (SystemInfo system : sheet.getSystems()) {
+            final SIGraph sig = system.getSig();
+            final List<Inter> systemGoodFrats = sig.inters(PageRhythm.FRAT_CLASSES);
+
+            for (MeasureStack stack : system.getMeasureStacks()) {
+                final List<Inter> goods = stack.filter(systemGoodFrats);
+
+                if (goods.isEmpty()) {
+                    continue;
+                }
+
+                Collections.sort(goods, Inter.byAbscissa);
+
+                for (Inter inter : goods) {
+                    stack.addInter(inter);
+                }
+
+                final StackBackup backup = new StackBackup(stack);
+                backup.save(goods);
+
+                final List<StackConfig> configs = buildConfigs(goods);
+
+                // Incremental installations, in sequence
+                final List<List<String>> incrementals = new ArrayList<List<String>>();
+
+                for (StackConfig config : configs) {
+                    incrementals.add(install(backup, stack, config));
+                }
+
+                // Full installations, each from a sig deprived of all seeds
+                for (int i = 0; i < configs.size(); i++) {
+                    deleteSeeds(backup, stack);
+
+                    final List<String> full = install(backup, stack, configs.get(i));
+                    assertEquals(stack + " config#" + i, full, incrementals.get(i));
+                }
+
+                backup.resetFromSeeds();
+                stackCount++;
+                configCount += configs.size();
+            }
+        }
+
+        System.out.println("stacks: " + stackCount + " configs: " + configCount);
+        assertTrue("No stack with rhythm data", stackCount > 0);
+    }
+
+    //--------------//
+    // buildConfigs //
+    //--------------//
+    private List<StackConfig> buildConfigs (List<Inter> goods)
+    {
+        final List<StackConfig> configs = new ArrayList<StackConfig>();
+        configs.add(new StackConfig(goods));
+
+        for (Inter good : goods) {
+            final List<Inter> inters = new ArrayList<Inter>(goods);
+            inters.remove(good);
+            configs.add(new StackConfig(inters));
+        }
+
+        configs.add(new StackConfig(goods));
+
+        return configs;
+    }
+
+    //-------------//
+    // deleteSeeds //
+    //-------------//
+    /**
+     * Delete all seeds from sig, as the former non-incremental install did.
+     */
+    private void deleteSeeds (StackBackup backup,
+                              MeasureStack stack)
+    {
+        for (Inter inter : backup.getSeeds()) {
+            stack.removeInter(inter);
+
+            if (!inter.isDeleted()) {
+                inter.delete();
+
+                if (inter instanceof AbstractChordInter) {
+                    for (Inter member : ((AbstractChordInter) inter).getNotes()) {
+                        member.delete();
+                    }
+                }
+            }
+        }
+    }
+
+    //---------//
+    // install //
+    //---------//
+    /**
+     * Install a copy of the provided configuration and report the resulting state.
+     *
+     * @return the success flag, sig vertices and edges, slots and voices of stack
+     */
+    private List<String> install (StackBackup backup,
+                                  MeasureStack stack,
+                                  StackConfig config)
+    {
+        final boolean ok = backup.install(
+                config.copy(),
+                new LinkedHashSet<RestChordInter>(),
+                false);
+
+        final List<String> state = new ArrayList<String>();
+        state.add("success:" + ok);
+
+        final SIGraph sig = stack.getSystem().getSig();
+        final List<String> vertices = new ArrayList<String>();
+
+        for (Inter inter : sig.vertexSet()) {
+            vertices.add(inter.getClass().getSimpleName() + "#" + inter.getId());
+        }
+
+        Collections.sort(vertices);
+        state.addAll(vertices);
+
+        final List<String> edges = new ArrayList<String>();
+
+        for (Relation rel : sig.edgeSet()) {
+            edges.add(
+                    sig.getEdgeSource(rel).getId() + "-" + rel.getClass().getSimpleName() + "-"
+                    + sig.getEdgeTarget(rel).getId());
+        }
+
+        Collections.sort(edges);
+        state.addAll(edges);
+
+        for (Slot slot : stack.getSlots()) {
+            state.add(slot.toString());
+        }
+
+        for (Voice voice : stack.getVoices()) {
+            state.add(voice + " " + voice.toStrip());
+        }
+
+        return state;
+    }
+}
@@ -27,6 +27,13 @@ import com.jgraph.layout.hierarchical.JGraphHierarchicalLayout;
 
 import org.audiveris.omr.glyph.Glyph;
 import org.audiveris.omr.glyph.Shape;
+import org.audiveris.omr.sheet.BasicBook;
+import org.audiveris.omr.sheet.BasicSheet;
+import org.audiveris.omr.sheet.BasicStub;
+import org.audiveris.omr.sheet.Sheet;
+import org.audiveris.omr.sheet.Staff;
+import org.audiveris.omr.sheet.SystemInfo;
+import org.audiveris.omr.run.RunTable;
 import org.audiveris.omr.sig.inter.AbstractInter;
 import org.audiveris.omr.sig.inter.Inter;
 import org.audiveris.omr.sig.relation.AbstractSupport;
@@ -34,6 +41,7 @@ import org.audiveris.omr.sig.relation.BasicExclusion;
 import org.audiveris.omr.sig.relation.Exclusion.Cause;
 import org.audiveris.omr.sig.relation.HeadStemRelation;
 import org.audiveris.omr.sig.relation.Relation;
+import org.audiveris.omr.sig.relation.Support;
 import org.audiveris.omr.util.HorizontalSide;
 
 import org.jgraph.JGraph;
@@ -46,9 +54,21 @@ import org.jgrapht.ext.JGraphModelAdapter;
 import org.jgrapht.graph.DefaultListenableGraph;
 import org.jgrapht.graph.Multigraph;
 
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.geom.Rectangle2D;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
 
 import javax.swing.JFrame;
 import javax.swing.JScrollPane;
@@ -159,6 +179,292 @@ public class SIGraphTest
         jgraph.getGraphLayoutCache().edit(nested);
     }
 
+    /**
+     * Check reduceExclusions gives the same result as the former exhaustive scan.
+     */
+    @Test
+    public void testReduceExclusions ()
+    {
+        System.out.println("\n+++ reduceExclusions");
+
+        for (long seed = 1; seed <= 20; seed++) {
+            checkReduction(seed, 200, 400, 150);
+        }
+    }
+
+    /**
+     * Check reduceExclusions on large systems.
+     * (Reduction times are measured by SIGraphBenchmark)
+     */
+    @Test
+    public void testReduceExclusionsLarge ()
+    {
+        System.out.println("\n+++ reduceExclusionsLarge");
+
+        for (int count : new int[]{1000, 4000}) {
+            checkReduction(count, count, 3 * count, count);
+        }
+    }
+
+    /**
+     * Check spatial queries against exhaustive scans, while inters are added, moved and
+     * deleted.
+     */
+    @Test
+    public void testSpatialQueries ()
+    {
+        System.out.println("\n+++ spatialQueries");
+
+        final Random random = new Random(123);
+        final BasicBook book = new BasicBook(Paths.get("sig-test.png"));
+        final Sheet sheet = new BasicSheet(new BasicStub(book, 1), (RunTable) null);
+        final SystemInfo system = new SystemInfo(1, sheet, new ArrayList<Staff>());
+        final SIGraph sig = system.getSig();
+        final List<Inter> inters = new ArrayList<Inter>();
+        final Class[] classes = new Class[]{TestSubInter.class};
+
+        for (int round = 0; round < 20; round++) {
+            // Additions, some inters being not bounded
+            for (int i = 0; i < 100; i++) {
+                Inter inter = random.nextBoolean()
+                        ? new TestInter(Shape.NOTEHEAD_BLACK, 0.5, randomBox(random))
+                        : new TestSubInter(Shape.NOTEHEAD_BLACK, 0.5, randomBox(random));
+                sig.addVertex(inter);
+                inters.add(inter);
+            }
+
+            // Moves
+            for (int i = 0; i < 30; i++) {
+                inters.get(random.nextInt(inters.size())).setBounds(randomBox(random));
+            }
+
+            // Deletions
+            for (int i = 0; i < 20; i++) {
+                inters.remove(random.nextInt(inters.size())).delete();
+            }
+
+            // Queries
+            for (int i = 0; i < 50; i++) {
+                final Rectangle box = randomBox(random);
+
+                if (box == null) {
+                    continue;
+                }
+
+                box.grow(random.nextInt(100), random.nextInt(100));
+
+                final Point point = new Point(box.x, box.y);
+
+                List<Inter> intersected = sig.intersectedInters(box);
+                List<Inter> intersectedSubs = sig.intersectedInters(box, classes);
+                List<Inter> contained = sig.containedInters(box);
+                List<Inter> containing = sig.containingInters(point);
+
+                List<Inter> expIntersected = new ArrayList<Inter>();
+                List<Inter> expIntersectedSubs = new ArrayList<Inter>();
+                List<Inter> expContained = new ArrayList<Inter>();
+                List<Inter> expContaining = new ArrayList<Inter>();
+
+                for (Inter inter : sig.vertexSet()) {
+                    Rectangle iBox = inter.getBounds();
+
+                    if (iBox != null) {
+                        if (box.intersects(iBox)) {
+                            expIntersected.add(inter);
+
+                            if (inter instanceof TestSubInter) {
+                                expIntersectedSubs.add(inter);
+                            }
+                        }
+
+                        if (box.contains(iBox)) {
+                            expContained.add(inter);
+                        }
+
+                        if (iBox.contains(point)) {
+                            expContaining.add(inter);
+                        }
+                    }
+                }
+
+                assertEquals(ids(expIntersected), ids(intersected));
+                assertEquals(ids(expIntersectedSubs), ids(intersectedSubs));
+                assertEquals(ids(expContained), ids(contained));
+                assertEquals(ids(expContaining), ids(containing));
+            }
+        }
+    }
+
+    //----------------//
+    // checkReduction //
+    //----------------//
+    private void checkReduction (long seed,
+                                 int interCount,
+                                 int exclusionCount,
+                                 int supportCount)
+    {
+        SIGraph refSig = createRandomSig(seed, interCount, exclusionCount, supportCount);
+        List<String> refRemoved = ids(referenceReduceExclusions(refSig, refSig.exclusions()));
+
+        SIGraph sig = createRandomSig(seed, interCount, exclusionCount, supportCount);
+        Set<Relation> exclusions = sig.exclusions();
+        List<String> removed = ids(sig.reduceExclusions(exclusions));
+
+        assertEquals("seed " + seed, refRemoved, removed);
+        assertEquals(ids(refSig.vertexSet()), ids(sig.vertexSet()));
+
+        for (Relation rel : exclusions) {
+            assertTrue(sig.containsEdge(rel));
+        }
+    }
+
+    //-----------------//
+    // createRandomSig //
+    //-----------------//
+    /**
+     * Build a random sig, with inters linked by supports and exclusions.
+     */
+    private SIGraph createRandomSig (long seed,
+                                     int interCount,
+                                     int exclusionCount,
+                                     int supportCount)
+    {
+        final Random random = new Random(seed);
+        final BasicBook book = new BasicBook(Paths.get("sig-test.png"));
+        final Sheet sheet = new BasicSheet(new BasicStub(book, 1), (RunTable) null);
+        final SystemInfo system = new SystemInfo(1, sheet, new ArrayList<Staff>());
+        final SIGraph sig = system.getSig();
+        final List<Inter> inters = new ArrayList<Inter>();
+
+        for (int i = 0; i < interCount; i++) {
+            // Coarse grades, to get ties
+            Inter inter = new TestInter(Shape.NOTEHEAD_BLACK, 0.05 * (1 + random.nextInt(19)));
+            sig.addVertex(inter);
+            inters.add(inter);
+        }
+
+        for (int i = 0; i < supportCount; i++) {
+            Inter head = inters.get(random.nextInt(interCount));
+            Inter stem = inters.get(random.nextInt(interCount));
+
+            if ((head != stem) && (sig.getRelation(head, stem, Relation.class) == null)
+                && (sig.getRelation(stem, head, Relation.class) == null)) {
+                HeadStemRelation hs = new HeadStemRelation();
+                hs.setHeadSide(HorizontalSide.LEFT);
+                hs.setGrade(0.1 * (1 + random.nextInt(9)));
+                sig.addEdge(head, stem, hs);
+            }
+        }
+
+        for (int i = 0; i < exclusionCount; i++) {
+            Inter one = inters.get(random.nextInt(interCount));
+            Inter two = inters.get(random.nextInt(interCount));
+
+            if (one != two) {
+                sig.insertExclusion(one, two, Cause.OVERLAP);
+            }
+        }
+
+        sig.contextualize();
+
+        return sig;
+    }
+
+    //-----//
+    // ids //
+    //-----//
+    private List<String> ids (Collection<Inter> inters)
+    {
+        List<String> ids = new ArrayList<String>();
+
+        for (Inter inter : inters) {
+            ids.add(inter.getId() + (inter.isDeleted() ? "d" : ""));
+        }
+
+        return ids;
+    }
+
+    //-----------//
+    // randomBox //
+    //-----------//
+    /**
+     * Build a random box in a 3000x2000 area, or null from time to time.
+     */
+    private Rectangle randomBox (Random random)
+    {
+        if (random.nextInt(20) == 0) {
+            return null;
+        }
+
+        return new Rectangle(
+                random.nextInt(3000) - 50,
+                random.nextInt(2000) - 50,
+                1 + random.nextInt(120),
+                1 + random.nextInt(60));
+    }
+
+    //---------------------------//
+    // referenceReduceExclusions //
+    //---------------------------//
+    /**
+     * The former implementation of SIGraph.reduceExclusions, which scans all remaining
+     * exclusions to pick the best one.
+     */
+    private Set<Inter> referenceReduceExclusions (SIGraph sig,
+                                                  Collection<? extends Relation> exclusions)
+    {
+        final Set<Inter> removed = new LinkedHashSet<Inter>();
+        Relation bestRel;
+
+        do {
+            double bestCP = 0;
+            bestRel = null;
+
+            for (Iterator<? extends Relation> it = exclusions.iterator(); it.hasNext();) {
+                Relation rel = it.next();
+
+                if (sig.containsEdge(rel)) {
+                    final double cp = Math.max(
+                            sig.getEdgeSource(rel).getBestGrade(),
+                            sig.getEdgeTarget(rel).getBestGrade());
+
+                    if (bestCP < cp) {
+                        bestCP = cp;
+                        bestRel = rel;
+                    }
+                } else {
+                    it.remove();
+                }
+            }
+
+            if (bestRel != null) {
+                final Inter source = sig.getEdgeSource(bestRel);
+                final Inter target = sig.getEdgeTarget(bestRel);
+                final Inter weaker = (source.getBestGrade() < target.getBestGrade()) ? source
+                        : target;
+
+                final Set<Inter> involved = new LinkedHashSet<Inter>();
+
+                for (Support support : sig.getSupports(weaker)) {
+                    involved.add(sig.getEdgeSource(support));
+                    involved.add(sig.getEdgeTarget(support));
+                }
+
+                involved.remove(weaker);
+                removed.add(weaker);
+                weaker.delete();
+
+                for (Inter inter : involved) {
+                    sig.computeContextualGrade(inter);
+                }
+
+                exclusions.remove(bestRel);
+            }
+        } while (bestRel != null);
+
+        return removed;
+    }
+
     @SuppressWarnings("unchecked")
     private static void positionVertexAt (Object vertex,
                                           int x,
@@ -217,5 +523,28 @@ public class SIGraphTest
         {
             super((Glyph) null, (Rectangle) null, shape, grade);
         }
+
+        public TestInter (Shape shape,
+                          double grade,
+                          Rectangle bounds)
+        {
+            super((Glyph) null, bounds, shape, grade);
+        }
+    }
+
+    //--------------//
+    // TestSubInter //
+    //--------------//
+    private static class TestSubInter
+            extends TestInter
+    {
+        //~ Constructors ---------------------------------------------------------------------------
+
+        public TestSubInter (Shape shape,
+                             double grade,
+                             Rectangle bounds)
+        {
+            super(shape, grade, bounds);
+        }
     }
 }
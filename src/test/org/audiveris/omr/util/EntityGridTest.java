@@ -0,0 +1,214 @@
+//------------------------------------------------------------------------------------------------//
+//                                                                                                //
+//                                  E n t i t y G r i d T e s t                                   //
+//                                                                                                //
+//------------------------------------------------------------------------------------------------//
+// <editor-fold defaultstate="collapsed" desc="hdr">
+//
+//  Copyright © Hervé Bitteur and others 2000-2017. All rights reserved.
+//
+//  This program is free software: you can redistribute it and/or modify it under the terms of the
+//  GNU Affero General Public License as published by the Free Software Foundation, either version
+//  3 of the License, or (at your option) any later version.
+//
+//  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+//  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+//  See the GNU Affero General Public License for more details.
+//
+//  You should have received a copy of the GNU Affero General Public License along with this
+//  program.  If not, see <http://www.gnu.org/licenses/>.
+//------------------------------------------------------------------------------------------------//
+// </editor-fold>
+package org.audiveris.omr.util;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.awt.Point;
+import java.awt.Polygon;
+import java.awt.Rectangle;
+import java.awt.geom.Area;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Class {@code EntityGridTest} checks the spatial index against linear lookups.
+ *
+ * @author Hervé Bitteur
+ */
+public class EntityGridTest
+{
+    //~ Methods ------------------------------------------------------------------------------------
+
+    /**
+     * Test of intersectedEntities method with an area, of class EntityGrid.
+     */
+    @Test
+    public void testIntersectedArea ()
+    {
+        System.out.println("intersectedArea");
+
+        final Random random = new Random(456);
+        final List<Box> boxes = randomBoxes(random, 500);
+        final EntityGrid<Box> grid = new EntityGrid<Box>(boxes, 40);
+
+        for (int k = 0; k < 200; k++) {
+            final int x = random.nextInt(1100) - 50;
+            final int y = random.nextInt(1100) - 50;
+            final Polygon polygon = new Polygon(
+                    new int[]{x, x + 150, x + 180, x + 20},
+                    new int[]{y, y + 30, y + 120, y + 90},
+                    4);
+            final Area area = new Area(polygon);
+            final List<Box> expected = new ArrayList<Box>();
+
+            for (Box box : boxes) {
+                if (area.intersects(box.getBounds())) {
+                    expected.add(box);
+                }
+            }
+
+            assertEquals(expected, grid.intersectedEntities(area));
+        }
+    }
+
+    /**
+     * Test of intersectedEntities method with a rectangle, of class EntityGrid.
+     */
+    @Test
+    public void testIntersectedRectangle ()
+    {
+        System.out.println("intersectedRectangle");
+
+        final Random random = new Random(123);
+        final List<Box> boxes = randomBoxes(random, 500);
+        final EntityGrid<Box> grid = new EntityGrid<Box>(boxes, 25);
+
+        for (int k = 0; k < 500; k++) {
+            final Rectangle rect = new Rectangle(
+                    random.nextInt(1200) - 100,
+                    random.nextInt(1200) - 100,
+                    random.nextInt(300),
+                    random.nextInt(300));
+            final List<Box> expected = new ArrayList<Box>();
+
+            for (Box box : boxes) {
+                if (rect.intersects(box.getBounds())) {
+                    expected.add(box);
+                }
+            }
+
+            assertEquals(expected, grid.intersectedEntities(rect));
+        }
+    }
+
+    /**
+     * Test of intersectedEntities method, on an empty grid.
+     */
+    @Test
+    public void testEmpty ()
+    {
+        System.out.println("empty");
+
+        final EntityGrid<Box> grid = new EntityGrid<Box>(Collections.<Box>emptyList(), 10);
+        assertTrue(grid.intersectedEntities(new Rectangle(0, 0, 100, 100)).isEmpty());
+    }
+
+    //-------------//
+    // randomBoxes //
+    //-------------//
+    private static List<Box> randomBoxes (Random random,
+                                          int count)
+    {
+        final List<Box> boxes = new ArrayList<Box>();
+
+        for (int i = 0; i < count; i++) {
+            // Mostly small boxes, with some long horizontal and vertical ones
+            final int kind = random.nextInt(10);
+            final int width = (kind == 0) ? 200 + random.nextInt(600) : 1 + random.nextInt(20);
+            final int height = (kind == 1) ? 200 + random.nextInt(600) : 1 + random.nextInt(20);
+            boxes.add(
+                    new Box(
+                            i,
+                            new Rectangle(
+                                    random.nextInt(1000),
+                                    random.nextInt(1000),
+                                    width,
+                                    height)));
+        }
+
+        return boxes;
+    }
+
+    //~ Inner Classes ------------------------------------------------------------------------------
+    //-----//
+    // Box //
+    //-----//
+    private static class Box
+            implements Entity
+    {
+        //~ Instance fields ------------------------------------------------------------------------
+
+        private int id;
+
+        private final Rectangle bounds;
+
+        //~ Constructors ---------------------------------------------------------------------------
+        public Box (int id,
+                    Rectangle bounds)
+        {
+            this.id = id;
+            this.bounds = bounds;
+        }
+
+        //~ Methods --------------------------------------------------------------------------------
+        @Override
+        public boolean contains (Point point)
+        {
+            return bounds.contains(point);
+        }
+
+        @Override
+        public String dumpOf ()
+        {
+            return toString();
+        }
+
+        @Override
+        public Rectangle getBounds ()
+        {
+            return new Rectangle(bounds);
+        }
+
+        @Override
+        public int getId ()
+        {
+            return id;
+        }
+
+        @Override
+        public boolean isVip ()
+        {
+            return false;
+        }
+
+        @Override
+        public void setId (int id)
+        {
+            this.id = id;
+        }
+
+        @Override
+        public void setVip (boolean vip)
+        {
+        }
+
+        @Override
+        public String toString ()
+        {
+            return "Box#" + id + bounds;
+        }
+    }
+}